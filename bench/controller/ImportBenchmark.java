@@ -0,0 +1,91 @@
+package controller;
+
+import model.Category;
+import model.Expense;
+import model.ImportResult;
+import util.FileHandler;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Imports a bank statement that overlaps the book: half of its rows are
+ * already in the book, a quarter have the amount of a book row a day away and
+ * a quarter are new. Reports the time to read the statement and the time to
+ * match it against the book and add the new rows.
+ * <p>
+ * Set {@code -Drows=n} for the book size (default 1,000,000) and
+ * {@code -Dimport=n} for the statement size (default a tenth of the book).
+ */
+public class ImportBenchmark {
+    private static final int ROWS = Integer.getInteger("rows", 1_000_000);
+    private static final int IMPORT = Integer.getInteger("import", ROWS / 10);
+    private static final LocalDate FIRST_DAY = LocalDate.of(2015, 1, 1);
+
+    public static void main(String[] args) throws IOException {
+        Random random = new Random(41);
+        List<Expense> book = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            book.add(new Expense("Shop " + random.nextInt(20_000), random.nextInt(100_000) / 100.0,
+                    FIRST_DAY.plusDays(random.nextInt(3_650)),
+                    Category.values()[random.nextInt(Category.values().length)], ""));
+        }
+        Path statement = Files.createTempFile("import-benchmark", ".csv");
+        try {
+            writeStatement(statement, book, random);
+            for (int round = 0; round < 3; round++) {
+                run(book, statement, round == 2);
+            }
+        } finally {
+            Files.delete(statement);
+        }
+    }
+
+    private static void writeStatement(Path statement, List<Expense> book, Random random) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(statement)) {
+            writer.write("ID,Name,Amount,Date,Category,Description,Currency");
+            writer.newLine();
+            for (int i = 0; i < IMPORT; i++) {
+                Expense row = book.get(random.nextInt(book.size()));
+                LocalDate date = row.getDate();
+                double amount = row.getAmount();
+                String name = row.getName();
+                if (i % 4 == 2) {
+                    date = date.plusDays(1);
+                    name = "Card payment " + i;
+                } else if (i % 4 == 3) {
+                    amount = 1_000 + i / 100.0;
+                    name = "New shop " + i;
+                }
+                writer.write(String.format("%s,%s,%.2f,%s,%s,,USD", "", name, amount, date, ""));
+                writer.newLine();
+            }
+        }
+    }
+
+    private static void run(List<Expense> book, Path statement, boolean report) throws IOException {
+        ExpenseController controller = new ExpenseController();
+        controller.addLoadedExpenses(book);
+        controller.getExpenseCount();
+
+        long start = System.nanoTime();
+        List<Expense> rows = FileHandler.loadStatement(statement.toString());
+        long read = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        ImportResult result = controller.importExpenses(statement.toString(), 3);
+        long imported = System.nanoTime() - start - read;
+
+        if (report) {
+            System.out.printf("book=%,d statement=%,d read=%dms match+add=%dms added=%,d exact=%,d near=%,d%n",
+                    ROWS, rows.size(), read / 1_000_000, imported / 1_000_000, result.getAdded().size(),
+                    result.getExactDuplicates().size(), result.getNearDuplicates().size());
+        }
+    }
+}
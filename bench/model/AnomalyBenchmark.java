@@ -0,0 +1,72 @@
+package model;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures the cost of anomaly scoring: recording an expense with alerts and
+ * forgetting it again, on their own, and as part of a bulk import through the
+ * manager with an anomaly listener registered.
+ * <p>
+ * Set {@code -Drows=n} to change the number of expenses (default 1,000,000).
+ */
+public class AnomalyBenchmark {
+    private static final int ROWS = Integer.getInteger("rows", 1_000_000);
+
+    private static volatile Object sink;
+
+    public static void main(String[] args) {
+        Random random = new Random(49);
+        List<Expense> expenses = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            expenses.add(new Expense("Shop " + random.nextInt(5_000),
+                    Math.round(Math.exp(3 + random.nextGaussian()) * 100) / 100.0,
+                    LocalDate.of(2015, 1, 1).plusDays(random.nextInt(3_650)),
+                    Category.values()[random.nextInt(Category.values().length)], ""));
+        }
+
+        for (int round = 0; round < 3; round++) {
+            boolean report = round == 2;
+            detector(expenses, report);
+            imports(expenses, report);
+        }
+    }
+
+    private static void detector(List<Expense> expenses, boolean report) {
+        AnomalyDetector detector = new AnomalyDetector();
+        int[] alerts = {0};
+        detector.addListener(anomaly -> alerts[0]++);
+
+        long start = System.nanoTime();
+        for (Expense expense : expenses) {
+            detector.record(expense, expense.getAmount(), true);
+        }
+        long recorded = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (Expense expense : expenses) {
+            detector.forget(expense, expense.getAmount());
+        }
+        long forgotten = System.nanoTime() - start;
+        if (report) {
+            System.out.printf("record with alerts=%.0fns forget=%.0fns alerts=%,d%n",
+                    recorded / (double) expenses.size(), forgotten / (double) expenses.size(), alerts[0]);
+        }
+    }
+
+    private static void imports(List<Expense> expenses, boolean report) {
+        ExpenseManager manager = new ExpenseManager();
+        int[] alerts = {0};
+        manager.addAnomalyListener(anomaly -> alerts[0]++);
+        long start = System.nanoTime();
+        manager.addExpenses(expenses);
+        long imported = System.nanoTime() - start;
+        sink = manager;
+        if (report) {
+            System.out.printf("bulk import of %,d with a listener: %dms (%.0fns per row) alerts=%,d%n",
+                    expenses.size(), imported / 1_000_000, imported / (double) expenses.size(), alerts[0]);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package model;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures category guessing: learning a book, then guessing the categories
+ * of a batch of uncategorized expenses one at a time and with
+ * {@link CategoryClassifier#predictAll(List)}.
+ * <p>
+ * Set {@code -Drows=n} to change the number of expenses learned and guessed
+ * (default 1,000,000).
+ */
+public class ClassifierBenchmark {
+    private static final int ROWS = Integer.getInteger("rows", 1_000_000);
+    private static final String[] WORDS = {"coffee", "lunch", "ticket", "fuel", "rent", "book", "gift",
+            "repair", "fee", "order", "subscription", "pharmacy"};
+
+    private static volatile Object sink;
+
+    public static void main(String[] args) {
+        Random random = new Random(50);
+        List<Expense> book = expenses(random, true);
+        List<Expense> batch = expenses(random, false);
+
+        for (int round = 0; round < 3; round++) {
+            boolean report = round == 2;
+            CategoryClassifier classifier = new CategoryClassifier();
+            long start = System.nanoTime();
+            for (Expense expense : book) {
+                classifier.learn(expense);
+            }
+            long learned = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            Category[] one = new Category[batch.size()];
+            for (int i = 0; i < batch.size(); i++) {
+                one[i] = classifier.predict(batch.get(i).getName(), batch.get(i).getDescription());
+            }
+            long single = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            Category[] all = classifier.predictAll(batch);
+            long parallel = System.nanoTime() - start;
+            sink = all;
+            if (report) {
+                System.out.printf("learn=%.0fns predict=%.0fns predictAll=%.0fns per row (%,d rows/s) "
+                                + "on %d processors, vocabulary=%,d%n",
+                        learned / (double) ROWS, single / (double) ROWS, parallel / (double) ROWS,
+                        (long) (ROWS / (parallel / 1e9)), Runtime.getRuntime().availableProcessors(),
+                        classifier.vocabularySize());
+                sink = one;
+            }
+        }
+    }
+
+    private static List<Expense> expenses(Random random, boolean categorized) {
+        List<Expense> expenses = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            int merchant = random.nextInt(5_000);
+            Category category = categorized ? Category.values()[merchant % (Category.values().length - 1)]
+                    : Category.OTHER;
+            expenses.add(new Expense("Shop " + merchant, 1 + random.nextInt(10_000) / 100.0,
+                    LocalDate.of(2020, 1, 1).plusDays(random.nextInt(1_500)), category,
+                    WORDS[random.nextInt(WORDS.length)] + " " + WORDS[merchant % WORDS.length]));
+        }
+        return expenses;
+    }
+}
@@ -0,0 +1,105 @@
+package model;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the per-month amount and merchant sketches with exact computation
+ * over the book: a year's p50, p90 and p99 per category against filtering
+ * and sorting the amounts, and an edit followed by a query of its month,
+ * which rebuilds that month's sketch from its exact counts.
+ * <p>
+ * Set {@code -Drows=n} to change the book size (default 1,000,000).
+ */
+public class DistributionBenchmark {
+    private static final int ROWS = Integer.getInteger("rows", 1_000_000);
+    private static final int YEARS = 10;
+    private static final int QUERIES = 50;
+    private static final int EDITS = 2_000;
+    private static final YearMonth FIRST_MONTH = YearMonth.of(2015, 1);
+
+    private static volatile Object sink;
+
+    public static void main(String[] args) {
+        Random random = new Random(47);
+        List<Expense> expenses = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            expenses.add(new Expense("Shop " + random.nextInt(20_000),
+                    Math.round(Math.exp(3 + random.nextGaussian()) * 100) / 100.0,
+                    FIRST_MONTH.atDay(1).plusDays(random.nextInt(365 * YEARS)),
+                    Category.values()[random.nextInt(Category.values().length)], ""));
+        }
+        ExpenseManager manager = new ExpenseManager();
+        manager.addExpenses(expenses);
+
+        for (int round = 0; round < 3; round++) {
+            boolean report = round == 2;
+            quantiles(manager, random, report);
+            edits(manager, random, report);
+        }
+    }
+
+    private static void quantiles(ExpenseManager manager, Random random, boolean report) {
+        long sketched = 0;
+        long exact = 0;
+        double worstError = 0;
+        for (int i = 0; i < QUERIES; i++) {
+            YearMonth from = FIRST_MONTH.plusYears(random.nextInt(YEARS));
+            YearMonth to = from.plusMonths(11);
+            Category category = Category.values()[random.nextInt(Category.values().length)];
+
+            long start = System.nanoTime();
+            QuantileSketch sketch = manager.getAmountDistribution(from, to, category);
+            double[] estimates = {sketch.getQuantile(0.5), sketch.getQuantile(0.9), sketch.getQuantile(0.99)};
+            sketched += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            LocalDate first = from.atDay(1);
+            LocalDate last = to.atEndOfMonth();
+            double[] amounts = manager.getAllExpenses().stream()
+                    .filter(e -> e.getCategory() == category && !e.getDate().isBefore(first)
+                            && !e.getDate().isAfter(last))
+                    .mapToDouble(Expense::getAmount).sorted().toArray();
+            double[] exactValues = {amounts[(int) (0.5 * (amounts.length - 1))],
+                    amounts[(int) (0.9 * (amounts.length - 1))], amounts[(int) (0.99 * (amounts.length - 1))]};
+            exact += System.nanoTime() - start;
+
+            double[] fractions = {0.5, 0.9, 0.99};
+            for (int q = 0; q < 3; q++) {
+                int rank = Arrays.binarySearch(amounts, estimates[q]);
+                rank = rank >= 0 ? rank : -rank - 1;
+                worstError = Math.max(worstError, Math.abs(rank / (double) amounts.length - fractions[q]));
+            }
+            sink = exactValues;
+        }
+        if (report) {
+            System.out.printf("year p50/p90/p99 per category: sketch=%.2fms exact sort=%.2fms worst rank error=%.4f%n",
+                    sketched / 1e6 / QUERIES, exact / 1e6 / QUERIES, worstError);
+        }
+    }
+
+    private static void edits(ExpenseManager manager, Random random, boolean report) {
+        long distributions = 0;
+        long merchants = 0;
+        for (int i = 0; i < EDITS; i++) {
+            Expense expense = manager.getAllExpenses().get(random.nextInt(manager.getExpenseCount()));
+            manager.updateExpense(expense.withAmount(expense.getAmount() + 1));
+            YearMonth month = YearMonth.from(expense.getDate());
+            long start = System.nanoTime();
+            sink = manager.getAmountDistribution(month, month, expense.getCategory());
+            distributions += System.nanoTime() - start;
+            start = System.nanoTime();
+            sink = manager.getTopMerchants(month, month, 20);
+            merchants += System.nanoTime() - start;
+        }
+        if (report) {
+            System.out.printf("after an edit: month distribution=%.1fus top merchants=%.1fus"
+                            + " (book of %,d rows, %,d per month)%n",
+                    distributions / 1e3 / EDITS, merchants / 1e3 / EDITS, ROWS, ROWS / (12 * YEARS));
+        }
+    }
+}
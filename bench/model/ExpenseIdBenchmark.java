@@ -0,0 +1,144 @@
+package model;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Compares the ways of giving expenses an ID: the random UUID strings expenses
+ * used to carry, the default time-ordered generator and the 64-bit sequence.
+ * Reports raw ID throughput on one and several threads, bulk expense creation,
+ * and the heap each stored ID takes.
+ * <p>
+ * Set {@code -Drows=n} to change the number of IDs per run (default 1,000,000).
+ */
+public class ExpenseIdBenchmark {
+    private static final int ROWS = Integer.getInteger("rows", 1_000_000);
+    private static final int THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+    private static final LocalDate DATE = LocalDate.of(2024, 3, 1);
+
+    private static volatile Object sink;
+
+    public static void main(String[] args) throws Exception {
+        TimeOrderedIdGenerator timeOrdered = new TimeOrderedIdGenerator();
+        SequenceIdGenerator sequence = new SequenceIdGenerator();
+        List<Strategy> strategies = List.of(
+                new Strategy("random-string", () -> UUID.randomUUID().toString(),
+                        () -> new Expense(UUID.randomUUID().toString(), "Lunch", 12.5, DATE, Category.FOOD, "")),
+                new Strategy("time-ordered", timeOrdered::nextId,
+                        withGenerator(timeOrdered)),
+                new Strategy("sequence", sequence::nextId,
+                        withGenerator(sequence)));
+
+        for (int round = 0; round < 3; round++) {
+            boolean report = round == 2;
+            for (Strategy strategy : strategies) {
+                double single = idsPerSecond(strategy.id, 1);
+                double parallel = idsPerSecond(strategy.id, THREADS);
+                double created = expensesPerSecond(strategy.expense);
+                if (report) {
+                    System.out.printf("%-13s ids/s 1 thread=%,.0f %d threads=%,.0f expenses/s=%,.0f%n",
+                            strategy.name, single, THREADS, parallel, created);
+                }
+            }
+        }
+        Expense.setIdGenerator(new TimeOrderedIdGenerator());
+
+        System.out.printf("retained bytes per ID: string=%d two longs=%d%n",
+                retainedBytes(ExpenseIdBenchmark::stringIds), retainedBytes(ExpenseIdBenchmark::primitiveIds));
+    }
+
+    private static Supplier<Expense> withGenerator(ExpenseIdGenerator generator) {
+        return () -> {
+            Expense.setIdGenerator(generator);
+            return new Expense("Lunch", 12.5, DATE, Category.FOOD, "");
+        };
+    }
+
+    private static double idsPerSecond(Supplier<?> id, int threads) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            int perThread = ROWS / threads;
+            long start = System.nanoTime();
+            List<Future<?>> runs = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                runs.add(pool.submit(() -> {
+                    Object last = null;
+                    for (int i = 0; i < perThread; i++) {
+                        last = id.get();
+                    }
+                    sink = last;
+                }));
+            }
+            for (Future<?> run : runs) {
+                run.get();
+            }
+            return perThread * (double) threads / ((System.nanoTime() - start) / 1e9);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static double expensesPerSecond(Supplier<Expense> expense) {
+        Expense[] expenses = new Expense[ROWS];
+        long start = System.nanoTime();
+        for (int i = 0; i < ROWS; i++) {
+            expenses[i] = expense.get();
+        }
+        double rate = ROWS / ((System.nanoTime() - start) / 1e9);
+        sink = expenses;
+        return rate;
+    }
+
+    private static Object stringIds() {
+        String[] ids = new String[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            ids[i] = UUID.randomUUID().toString();
+        }
+        return ids;
+    }
+
+    private static Object primitiveIds() {
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator();
+        long[] ids = new long[2 * ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            UUID id = generator.nextId();
+            ids[2 * i] = id.getMostSignificantBits();
+            ids[2 * i + 1] = id.getLeastSignificantBits();
+        }
+        return ids;
+    }
+
+    private static long retainedBytes(Supplier<Object> ids) {
+        sink = null;
+        long before = usedHeapAfterGc();
+        sink = ids.get();
+        long after = usedHeapAfterGc();
+        sink = null;
+        return (after - before) / ROWS;
+    }
+
+    private static long usedHeapAfterGc() {
+        System.gc();
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static final class Strategy {
+        private final String name;
+        private final Supplier<?> id;
+        private final Supplier<Expense> expense;
+
+        private Strategy(String name, Supplier<?> id, Supplier<Expense> expense) {
+            this.name = name;
+            this.id = id;
+            this.expense = expense;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package model;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares a large book kept on the heap with the same book kept off the heap:
+ * load time, the cost of an edit followed by an autosave snapshot, heap left
+ * after a full collection, garbage collection work and resident memory.
+ * <p>
+ * Each storage runs in its own JVM so that one does not skew the other's
+ * numbers. Set {@code -Drows=n} to change the book size (default 2,000,000).
+ */
+public class OffHeapStorageBenchmark {
+    private static final int ROWS = Integer.getInteger("rows", 2_000_000);
+    private static final int BATCH = 10_000;
+    private static final int EDITS = 20;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 1) {
+            measure(args[0].equals("off-heap"));
+            return;
+        }
+        String java = ProcessHandle.current().info().command().orElse("java");
+        for (String storage : new String[]{"heap", "off-heap"}) {
+            Process child = new ProcessBuilder(java, "-Xmx2g", "-XX:MaxDirectMemorySize=4g", "-Drows=" + ROWS,
+                    "-cp", System.getProperty("java.class.path"), OffHeapStorageBenchmark.class.getName(), storage)
+                    .inheritIO()
+                    .start();
+            if (child.waitFor() != 0) {
+                throw new IllegalStateException(storage + " run failed");
+            }
+        }
+    }
+
+    private static void measure(boolean offHeap) throws Exception {
+        ExpenseManager manager = offHeap ? new ExpenseManager(new OffHeapExpenseList()) : new ExpenseManager();
+        Random random = new Random(30);
+
+        long start = System.nanoTime();
+        List<Expense> batch = new ArrayList<>(BATCH);
+        for (int i = 0; i < ROWS; i++) {
+            batch.add(randomExpense(random));
+            if (batch.size() == BATCH) {
+                manager.addExistingExpenses(batch);
+                batch = new ArrayList<>(BATCH);
+            }
+        }
+        manager.addExistingExpenses(batch);
+        long loadMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // Each edit is followed by the snapshot an autosave would take
+        List<Expense> saved = null;
+        start = System.nanoTime();
+        for (int i = 0; i < EDITS; i++) {
+            Expense expense = manager.getExpensesPage(random.nextInt(ROWS), 1, null, true).get(0);
+            manager.updateExpense(expense.withAmount(expense.getAmount() + 1));
+            saved = manager.getAllExpenses();
+        }
+        long editMicros = (System.nanoTime() - start) / 1_000 / EDITS;
+
+        System.gc();
+        System.gc();
+        long heapBytes = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        long collections = 0;
+        long collectionMillis = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            collections += Math.max(collector.getCollectionCount(), 0);
+            collectionMillis += Math.max(collector.getCollectionTime(), 0);
+        }
+        long bufferBytes = 0;
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            bufferBytes += pool.getMemoryUsed();
+        }
+
+        System.out.printf("%-8s rows=%d load=%dms edit+snapshot=%dus heapAfterGc=%dMB gcCount=%d gcTime=%dms "
+                        + "offHeapBuffers=%dMB rss=%s saved=%d%n",
+                offHeap ? "off-heap" : "heap", ROWS, loadMillis, editMicros, heapBytes >> 20, collections,
+                collectionMillis, bufferBytes >> 20, residentSetSize(), saved.size());
+    }
+
+    /**
+     * Reads the resident set size from /proc, where available.
+     */
+    private static String residentSetSize() throws Exception {
+        Path status = Path.of("/proc/self/status");
+        if (!Files.exists(status)) {
+            return "n/a";
+        }
+        for (String line : Files.readAllLines(status)) {
+            if (line.startsWith("VmRSS:")) {
+                long kilobytes = Long.parseLong(line.replaceAll("[^0-9]", ""));
+                return (kilobytes >> 10) + "MB";
+            }
+        }
+        return "n/a";
+    }
+
+    private static Expense randomExpense(Random random) {
+        Category category = Category.values()[random.nextInt(Category.values().length)];
+        return new Expense("Shop " + random.nextInt(5_000), Math.round(random.nextDouble() * 20_000) / 100.0,
+                LocalDate.of(2015, 1, 1).plusDays(random.nextInt(3_650)), category,
+                random.nextInt(3) == 0 ? "Receipt " + random.nextInt(1_000_000) : "");
+    }
+}
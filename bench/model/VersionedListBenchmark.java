@@ -0,0 +1,85 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the versioned list backing the expense manager with a plain
+ * ArrayList: single appends, replacements and removals, and batch inserts,
+ * where the versioned list joins one balanced subtree instead of inserting
+ * element by element.
+ * <p>
+ * Set {@code -Drows=n} to change the list size (default 1,000,000).
+ */
+public class VersionedListBenchmark {
+    private static final int ROWS = Integer.getInteger("rows", 1_000_000);
+    private static final int EDITS = 200_000;
+    private static final int BATCH = 10_000;
+
+    private static volatile Object sink;
+
+    public static void main(String[] args) {
+        for (int round = 0; round < 3; round++) {
+            boolean report = round == 2;
+            measure("ArrayList", new ArrayList<>(), report);
+            measure("VersionedList", new VersionedList<>(), report);
+            batches(report);
+        }
+    }
+
+    private static void measure(String name, List<Integer> list, boolean report) {
+        Random random = new Random(32);
+        long start = System.nanoTime();
+        for (int i = 0; i < ROWS; i++) {
+            list.add(i);
+        }
+        double append = (System.nanoTime() - start) / (double) ROWS;
+
+        start = System.nanoTime();
+        for (int i = 0; i < EDITS; i++) {
+            list.set(random.nextInt(ROWS), i);
+        }
+        double set = (System.nanoTime() - start) / (double) EDITS;
+
+        start = System.nanoTime();
+        for (int i = 0; i < EDITS / 20; i++) {
+            list.remove(random.nextInt(list.size()));
+        }
+        double remove = (System.nanoTime() - start) / (double) (EDITS / 20);
+        sink = list;
+        if (report) {
+            System.out.printf("%-13s append=%.0fns set=%.0fns remove=%.0fns%n", name, append, set, remove);
+        }
+    }
+
+    private static void batches(boolean report) {
+        List<Integer> batch = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            batch.add(i);
+        }
+        VersionedList<Integer> joined = new VersionedList<>();
+        VersionedList<Integer> oneByOne = new VersionedList<>();
+        long joinNanos = 0;
+        long oneByOneNanos = 0;
+        Random random = new Random(32);
+        for (int b = 0; b < ROWS / BATCH; b++) {
+            int index = random.nextInt(joined.size() + 1);
+            long start = System.nanoTime();
+            joined.addAll(index, batch);
+            joinNanos += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < BATCH; i++) {
+                oneByOne.add(index + i, batch.get(i));
+            }
+            oneByOneNanos += System.nanoTime() - start;
+        }
+        sink = joined;
+        sink = oneByOne;
+        if (report) {
+            System.out.printf("batch inserts of %d: joined=%.0fns per element, one by one=%.0fns per element%n",
+                    BATCH, joinNanos / (double) ROWS, oneByOneNanos / (double) ROWS);
+        }
+    }
+}
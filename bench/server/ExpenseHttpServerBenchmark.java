@@ -0,0 +1,129 @@
+package server;
+
+import controller.ExpenseController;
+import model.Category;
+import model.Expense;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Drives the HTTP API with many concurrent keep-alive clients and reports
+ * requests per second and latency percentiles. Most requests are dashboard
+ * reads; one in twenty is a write, which clears the response cache and
+ * schedules an autosave.
+ * <p>
+ * Set {@code -Drows=n} for the book size (default 200,000), {@code -Dclients=n}
+ * for the number of concurrent clients (default 64) and {@code -Drequests=n}
+ * for the requests per client (default 500).
+ */
+public class ExpenseHttpServerBenchmark {
+    private static final int ROWS = Integer.getInteger("rows", 200_000);
+    private static final int CLIENTS = Integer.getInteger("clients", 64);
+    private static final int REQUESTS = Integer.getInteger("requests", 500);
+    private static final int WRITE_EVERY = 20;
+
+    public static void main(String[] args) throws Exception {
+        ExpenseController controller = new ExpenseController();
+        Random random = new Random(36);
+        List<Expense> expenses = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            expenses.add(new Expense("Shop " + random.nextInt(5_000), random.nextInt(20_000) / 100.0,
+                    LocalDate.of(2020, 1, 1).plusDays(random.nextInt(1_461)),
+                    Category.values()[random.nextInt(Category.values().length)], ""));
+        }
+        controller.addLoadedExpenses(expenses);
+
+        Path file = Files.createTempFile("http-benchmark", ".csv");
+        ExpenseHttpServer server = new ExpenseHttpServer(controller, file.toString(),
+                new InetSocketAddress("127.0.0.1", 0), e -> System.err.println("Save failed: " + e.getMessage()));
+        server.start();
+        String api = "http://127.0.0.1:" + server.getPort() + "/api/";
+        try {
+            run(api, false);
+            run(api, true);
+        } finally {
+            server.stop();
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static void run(String api, boolean report) throws Exception {
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        long[] latencies = new long[CLIENTS * REQUESTS];
+        long start = System.nanoTime();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> runs = new ArrayList<>();
+            for (int c = 0; c < CLIENTS; c++) {
+                int clientIndex = c;
+                runs.add(clients.submit(() -> {
+                    Random random = new Random(clientIndex);
+                    for (int i = 0; i < REQUESTS; i++) {
+                        HttpRequest request = request(api, random, i);
+                        long sent = System.nanoTime();
+                        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                        latencies[clientIndex * REQUESTS + i] = System.nanoTime() - sent;
+                        if (response.statusCode() >= 300) {
+                            throw new IllegalStateException(response.statusCode() + ": " + response.body());
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> run : runs) {
+                run.get();
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        if (report) {
+            Arrays.sort(latencies);
+            System.out.printf("clients=%d requests=%d throughput=%.0f req/s p50=%.2fms p99=%.2fms p99.9=%.2fms "
+                            + "max=%.2fms%n", CLIENTS, latencies.length, latencies.length / seconds,
+                    percentile(latencies, 0.5), percentile(latencies, 0.99), percentile(latencies, 0.999),
+                    latencies[latencies.length - 1] / 1e6);
+        }
+    }
+
+    private static HttpRequest request(String api, Random random, int index) {
+        if (index % WRITE_EVERY == WRITE_EVERY - 1) {
+            String body = "{\"name\": \"Lunch\", \"amount\": 12.5, \"date\": \"2023-0" + (1 + random.nextInt(9))
+                    + "-15\", \"category\": \"FOOD\"}";
+            return HttpRequest.newBuilder(URI.create(api + "expenses"))
+                    .POST(HttpRequest.BodyPublishers.ofString(body)).build();
+        }
+        String month = (2020 + random.nextInt(4)) + "-" + String.format("%02d", 1 + random.nextInt(12));
+        String resource;
+        switch (random.nextInt(4)) {
+            case 0:
+                resource = "reports/monthly-total?month=" + month;
+                break;
+            case 1:
+                resource = "reports/categories?month=" + month;
+                break;
+            case 2:
+                resource = "reports/monthly-totals?end=" + month + "&months=12";
+                break;
+            default:
+                resource = "expenses?offset=" + random.nextInt(ROWS - 50) + "&limit=50&sort=amount";
+                break;
+        }
+        return HttpRequest.newBuilder(URI.create(api + resource)).GET().build();
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.round(fraction * sorted.length))] / 1e6;
+    }
+}
@@ -0,0 +1,100 @@
+package util;
+
+import model.Category;
+import model.Expense;
+import model.ExpenseManager;
+import model.Granularity;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Exports a ten-year report with weekly trend points in every format, from a
+ * small and a large book, and reports the time taken, the output size and the
+ * bytes allocated while exporting. Allocation should stay the same whatever
+ * the book size, since only running totals are read.
+ * <p>
+ * Set {@code -Drows=n} to change the size of the large book (default 2,000,000).
+ */
+public class ReportExportBenchmark {
+    private static final int ROWS = Integer.getInteger("rows", 2_000_000);
+    private static final YearMonth FROM = YearMonth.of(2015, 1);
+    private static final YearMonth TO = YearMonth.of(2024, 12);
+
+    public static void main(String[] args) throws IOException {
+        for (int rows : new int[]{ROWS / 20, ROWS}) {
+            ExpenseManager manager = book(rows);
+            for (int round = 0; round < 3; round++) {
+                for (ReportFormat format : ReportFormat.values()) {
+                    export(manager, rows, format, round == 2);
+                }
+            }
+        }
+    }
+
+    private static void export(ExpenseManager manager, int rows, ReportFormat format, boolean report)
+            throws IOException {
+        CountingWriter out = new CountingWriter();
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        ReportExporter.export(manager, "Benchmark", FROM, TO, Granularity.WEEK, format, out);
+        long micros = (System.nanoTime() - start) / 1_000;
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        if (report) {
+            System.out.printf("rows=%-9d %-4s time=%dus output=%dKB allocated=%dKB%n",
+                    rows, format, micros, out.chars >> 10, allocated >> 10);
+        }
+    }
+
+    private static ExpenseManager book(int rows) {
+        Random random = new Random(35);
+        ExpenseManager manager = new ExpenseManager();
+        List<Expense> batch = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            Category category = Category.values()[random.nextInt(Category.values().length)];
+            batch.add(new Expense("Shop " + random.nextInt(5_000), random.nextInt(20_000) / 100.0,
+                    LocalDate.of(2015, 1, 1).plusDays(random.nextInt(3_650)), category, ""));
+            if (batch.size() == 10_000) {
+                manager.addExistingExpenses(batch);
+                batch = new ArrayList<>();
+            }
+        }
+        manager.addExistingExpenses(batch);
+        // Build the running totals before timing anything
+        manager.calculateTotalExpenses();
+        return manager;
+    }
+
+    /**
+     * Discards the report, counting its characters.
+     */
+    private static final class CountingWriter extends Writer {
+        private long chars;
+
+        @Override
+        public void write(char[] buffer, int offset, int length) {
+            chars += length;
+        }
+
+        @Override
+        public void write(String text, int offset, int length) {
+            chars += length;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package view;
+
+import controller.ExpenseController;
+import model.Category;
+import model.Expense;
+
+import javax.swing.JLabel;
+import javax.swing.JTable;
+import javax.swing.border.EmptyBorder;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.DefaultTableCellRenderer;
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures the bytes allocated per rendered frame while scrolling quickly
+ * through the expense table, with the table's own model and renderers and
+ * with the previous approach, which formatted every amount with
+ * {@code String.format} and created a color and a border for every cell.
+ * <p>
+ * A frame prepares the renderer of every visible cell; the scrolled variant
+ * moves down a few rows per frame, and the full variant also paints the table
+ * into an image, which adds the allocation of Java2D itself. Runs headless.
+ * Set {@code -Drows=n} to change the book size (default 200,000).
+ */
+public class TableRenderingBenchmark {
+    private static final int ROWS = Integer.getInteger("rows", 200_000);
+    private static final int VISIBLE_ROWS = 30;
+    private static final int FRAMES = 20_000;
+    private static final int ROWS_PER_FRAME = 3;
+
+    private static volatile Object sink;
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        ExpenseController controller = new ExpenseController();
+        Random random = new Random(43);
+        List<Expense> expenses = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            expenses.add(new Expense("Shop " + random.nextInt(5_000), random.nextInt(20_000) / 100.0,
+                    LocalDate.of(2020, 1, 1).plusDays(random.nextInt(1_461)),
+                    Category.values()[random.nextInt(Category.values().length)], "Card payment"));
+        }
+        controller.addLoadedExpenses(expenses);
+
+        ExpenseTableModel model = new ExpenseTableModel(controller);
+        model.showAllExpenses();
+        JTable current = new JTable(model);
+        current.getColumnModel().getColumn(2).setCellRenderer(new ExpenseTrackerGUI.AmountCellRenderer(model));
+        current.setDefaultRenderer(Object.class, new ExpenseTrackerGUI.StripedCellRenderer());
+
+        JTable previous = new JTable(new PreviousTableModel(model));
+        previous.getColumnModel().getColumn(2).setCellRenderer(new PreviousAmountRenderer(model));
+        previous.setDefaultRenderer(Object.class, new PreviousStripedRenderer());
+        for (JTable table : new JTable[]{current, previous}) {
+            table.setRowHeight(30);
+            table.getColumnModel().getColumn(0).setMinWidth(0);
+            table.getColumnModel().getColumn(0).setMaxWidth(0);
+            table.getColumnModel().getColumn(0).setWidth(0);
+        }
+
+        for (int round = 0; round < 3; round++) {
+            boolean report = round == 2;
+            for (int step : new int[]{0, ROWS_PER_FRAME}) {
+                String scrolling = step == 0 ? "still" : "scrolling";
+                report(report, "current  " + scrolling, prepareFrames(current, step));
+                report(report, "previous " + scrolling, prepareFrames(previous, step));
+            }
+            report(report, "current  painted", paintFrames(current));
+            report(report, "previous painted", paintFrames(previous));
+        }
+    }
+
+    private static void report(boolean report, String name, long bytesPerFrame) {
+        if (report) {
+            System.out.printf("%-18s bytes/frame=%,d%n", name, bytesPerFrame);
+        }
+    }
+
+    private static long prepareFrames(JTable table, int rowsPerFrame) {
+        long before = allocatedBytes();
+        Object last = null;
+        for (int frame = 0; frame < FRAMES; frame++) {
+            int first = frame * rowsPerFrame % (ROWS - VISIBLE_ROWS);
+            for (int row = first; row < first + VISIBLE_ROWS; row++) {
+                // Column 0 holds the hidden ID, as in the application
+                for (int column = 1; column < table.getColumnCount(); column++) {
+                    last = table.prepareRenderer(table.getCellRenderer(row, column), row, column);
+                }
+            }
+        }
+        sink = last;
+        return (allocatedBytes() - before) / FRAMES;
+    }
+
+    private static long paintFrames(JTable table) {
+        int rowHeight = table.getRowHeight();
+        table.setSize(800, ROWS * rowHeight);
+        BufferedImage image = new BufferedImage(800, VISIBLE_ROWS * rowHeight, BufferedImage.TYPE_INT_RGB);
+        int frames = FRAMES / 10;
+        long before = allocatedBytes();
+        for (int frame = 0; frame < frames; frame++) {
+            int first = frame * ROWS_PER_FRAME % (ROWS - VISIBLE_ROWS);
+            Graphics2D graphics = image.createGraphics();
+            graphics.setClip(0, 0, 800, VISIBLE_ROWS * rowHeight);
+            graphics.translate(0, -first * rowHeight);
+            table.paint(graphics);
+            graphics.dispose();
+        }
+        sink = image;
+        return (allocatedBytes() - before) / frames;
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * The table model as it was, formatting each value when it is shown.
+     */
+    private static final class PreviousTableModel extends AbstractTableModel {
+        private final ExpenseTableModel rows;
+
+        private PreviousTableModel(ExpenseTableModel rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public int getRowCount() {
+            return rows.getRowCount();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return rows.getColumnCount();
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            Expense expense = rows.getExpenseAt(row);
+            switch (column) {
+                case 2: return String.format("$%.2f", expense.getAmount());
+                case 3: return expense.getDate().toString();
+                default: return rows.getValueAt(row, column);
+            }
+        }
+    }
+
+    private static final class PreviousAmountRenderer extends DefaultTableCellRenderer {
+        private final ExpenseTableModel rows;
+
+        private PreviousAmountRenderer(ExpenseTableModel rows) {
+            this.rows = rows;
+            setHorizontalAlignment(RIGHT);
+        }
+
+        @Override
+        public Component getTableCellRendererComponent(JTable table, Object value,
+                                                       boolean isSelected, boolean hasFocus, int row, int column) {
+            Component c = super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
+            if (rows.getExpenseAt(row).getAmount() > 0) {
+                c.setForeground(isSelected ? new Color(66, 66, 66) : new Color(244, 67, 54));
+            }
+            return c;
+        }
+    }
+
+    private static final class PreviousStripedRenderer extends DefaultTableCellRenderer {
+        @Override
+        public Component getTableCellRendererComponent(JTable table, Object value,
+                                                       boolean isSelected, boolean hasFocus, int row, int column) {
+            Component c = super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
+            if (!isSelected) {
+                c.setBackground(row % 2 == 0 ? Color.WHITE : new Color(245, 245, 245));
+            }
+            ((JLabel) c).setBorder(new EmptyBorder(0, 5, 0, 5));
+            return c;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+#!/bin/sh
+# Compiles the application and the benchmark programs, then runs every
+# *Benchmark class, or only those whose name contains the first argument.
+# Needs JDK 21 or later on the PATH.
+set -e
+cd "$(dirname "$0")"
+out=$(mktemp -d)
+trap 'rm -rf "$out"' EXIT
+javac -d "$out" $(find src bench -name '*.java')
+for benchmark in $(cd bench && find . -name '*Benchmark.java' | sed 's|^\./||; s|\.java$||; s|/|.|g' | sort); do
+    case "$benchmark" in
+        *"$1"*) java -cp "$out" $JAVA_OPTS "$benchmark" ;;
+    esac
+done
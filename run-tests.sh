@@ -0,0 +1,11 @@
+#!/bin/sh
+# Compiles the application and the test programs, then runs every *Test class.
+# Needs JDK 21 or later on the PATH.
+set -e
+cd "$(dirname "$0")"
+out=$(mktemp -d)
+trap 'rm -rf "$out"' EXIT
+javac -d "$out" $(find src test -name '*.java')
+for test in $(cd test && find . -name '*Test.java' | sed 's|^\./||; s|\.java$||; s|/|.|g' | sort); do
+    java -ea -cp "$out" "$test"
+done
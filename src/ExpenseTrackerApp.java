@@ -1,12 +1,24 @@
+import cli.CommandLineApp;
 import view.ExpenseTrackerGUI;
 
 import javax.swing.*;
+import java.util.Arrays;
 
 /**
  * Main class for the Expense Tracker application.
+ * Pass {@code --headless} as the first argument to generate reports without the GUI.
  */
 public class ExpenseTrackerApp {
     public static void main(String[] args) {
+        // Headless mode must run before anything touches AWT or Swing
+        if (args.length > 0 && args[0].equals("--headless")) {
+            System.exit(CommandLineApp.run(Arrays.copyOfRange(args, 1, args.length), System.out, System.err));
+        }
+
+        startGui();
+    }
+
+    private static void startGui() {
         // Set the look and feel to the system look and feel
         try {
             UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
@@ -20,4 +32,4 @@ public class ExpenseTrackerApp {
             gui.setVisible(true);
         });
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,546 @@
+package cli;
+
+import controller.BookRegistry;
+import controller.ExpenseController;
+import model.Category;
+import model.Expense;
+import model.Granularity;
+import model.ImportResult;
+import server.ExpenseHttpServer;
+import util.Quoting;
+import util.ReportFormat;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Headless entry point for generating reports without starting the GUI.
+ * <p>
+ * Usage: {@code --headless <report|list> --month yyyy-MM --input <file> [--input <file> ...]
+ * [--format text|csv|json] [--trend-months n] [--rates <file>] [--currency code]}, or {@code --headless export --from yyyy-MM
+ * --to yyyy-MM --input <file> [--format csv|json|html] [--granularity day|week|month]
+ * [--output-dir <dir>] [--rates <file>] [--currency code]}, or {@code --headless serve (--input <file> | --books-dir <dir>
+ * [--memory-mb n]) [--port n] [--bind host]} to serve one book, or every book in a
+ * directory, as a JSON API until the process is stopped, or {@code --headless import
+ * --input <book> --statement <file> [--statement <file> ...] [--near-days n]} to add the
+ * statement rows that are not already in the book and save it. Every input file is a
+ * separate expense book; books are loaded and reported one after another so
+ * memory use stays bounded by the largest book. With {@code --rates}, reports convert
+ * every amount to the {@code --currency} reporting currency (USD by default) using
+ * the {@code Date,Currency,Rate} exchange-rate file. Every command also takes {@code --storage
+ * heap|off-heap}; off-heap keeps the expense rows outside the Java heap. This class must not
+ * touch AWT or Swing.
+ */
+public class CommandLineApp {
+    private static final int EXIT_OK = 0;
+    private static final int EXIT_ERROR = 1;
+    private static final int EXIT_USAGE = 2;
+    private static final String USAGE = "Usage: --headless <report|list> --month yyyy-MM --input <file> "
+            + "[--input <file> ...] [--format text|csv|json] [--trend-months n] [--rates <file>] [--currency code]\n"
+            + "       --headless export --from yyyy-MM --to yyyy-MM --input <file> [--input <file> ...] "
+            + "[--format csv|json|html] [--granularity day|week|month] [--output-dir <dir>] "
+            + "[--rates <file>] [--currency code]\n"
+            + "       --headless serve (--input <file> | --books-dir <dir> [--memory-mb n]) [--port n] [--bind host]\n"
+            + "       --headless import --input <book> --statement <file> [--statement <file> ...] [--near-days n]\n"
+            + "       Every command also takes [--storage heap|off-heap]";
+
+    private final PrintStream out;
+    private final PrintStream err;
+    private String command;
+    private YearMonth month;
+    private YearMonth from;
+    private YearMonth to;
+    private Granularity granularity;
+    private String outputDir;
+    private int port;
+    private String bindAddress;
+    private String booksDir;
+    private int memoryMegabytes;
+    private final List<String> inputs;
+    private String format;
+    private int trendMonths;
+    private String ratesFile;
+    private String currency;
+    private final List<String> statements;
+    private int nearDays;
+
+    private CommandLineApp(PrintStream out, PrintStream err) {
+        this.out = out;
+        this.err = err;
+        this.inputs = new ArrayList<>();
+        this.statements = new ArrayList<>();
+        this.nearDays = 3;
+        this.trendMonths = 6;
+        this.granularity = Granularity.MONTH;
+        this.port = 8080;
+        this.bindAddress = "localhost";
+        this.memoryMegabytes = 256;
+    }
+
+    /**
+     * Runs a headless command.
+     *
+     * @param args The arguments after {@code --headless}
+     * @param out  Where reports are written
+     * @param err  Where errors are written
+     * @return The process exit code
+     */
+    public static int run(String[] args, PrintStream out, PrintStream err) {
+        System.setProperty("java.awt.headless", "true");
+        CommandLineApp app = new CommandLineApp(out, err);
+        try {
+            app.parseArguments(args);
+        } catch (IllegalArgumentException e) {
+            err.println(e.getMessage());
+            err.println(USAGE);
+            return EXIT_USAGE;
+        }
+        return app.execute();
+    }
+
+    private void parseArguments(String[] args) {
+        if (args.length == 0) {
+            throw new IllegalArgumentException("Missing command");
+        }
+        command = args[0];
+        if (!command.equals("report") && !command.equals("list") && !command.equals("export")
+                && !command.equals("serve") && !command.equals("import")) {
+            throw new IllegalArgumentException("Unknown command: " + command);
+        }
+
+        for (int i = 1; i < args.length; i++) {
+            String option = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + option);
+            }
+            String value = args[++i];
+            switch (option) {
+                case "--month":
+                    month = parseMonth(value);
+                    break;
+                case "--from":
+                    from = parseMonth(value);
+                    break;
+                case "--to":
+                    to = parseMonth(value);
+                    break;
+                case "--input":
+                    inputs.add(value);
+                    break;
+                case "--format":
+                    format = value;
+                    break;
+                case "--granularity":
+                    try {
+                        granularity = Granularity.valueOf(value.toUpperCase());
+                    } catch (IllegalArgumentException e) {
+                        throw new IllegalArgumentException("Unknown granularity: " + value);
+                    }
+                    break;
+                case "--output-dir":
+                    outputDir = value;
+                    break;
+                case "--port":
+                    port = parseInt(value, "port");
+                    break;
+                case "--bind":
+                    bindAddress = value;
+                    break;
+                case "--books-dir":
+                    booksDir = value;
+                    break;
+                case "--memory-mb":
+                    memoryMegabytes = parseInt(value, "memory size");
+                    if (memoryMegabytes <= 0) {
+                        throw new IllegalArgumentException("--memory-mb must be positive");
+                    }
+                    break;
+                case "--rates":
+                    ratesFile = value;
+                    break;
+                case "--currency":
+                    currency = Expense.normalizeCurrency(value);
+                    break;
+                case "--statement":
+                    statements.add(value);
+                    break;
+                case "--near-days":
+                    nearDays = parseInt(value, "number of days");
+                    if (nearDays < 0) {
+                        throw new IllegalArgumentException("--near-days must not be negative");
+                    }
+                    break;
+                case "--storage":
+                    if (!value.equals("heap") && !value.equals("off-heap")) {
+                        throw new IllegalArgumentException("Unknown storage: " + value);
+                    }
+                    System.setProperty(ExpenseController.OFF_HEAP_PROPERTY,
+                            String.valueOf(value.equals("off-heap")));
+                    break;
+                case "--trend-months":
+                    trendMonths = parseInt(value, "number of months");
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + option);
+            }
+        }
+
+        if (month == null) {
+            month = YearMonth.now();
+        }
+        if (command.equals("serve")) {
+            if (booksDir == null ? inputs.size() != 1 : !inputs.isEmpty()) {
+                throw new IllegalArgumentException("serve takes either one --input file or --books-dir");
+            }
+        } else if (command.equals("import")) {
+            if (inputs.size() != 1 || statements.isEmpty()) {
+                throw new IllegalArgumentException("import takes one --input book and at least one --statement");
+            }
+        } else if (inputs.isEmpty()) {
+            throw new IllegalArgumentException("At least one --input file is required");
+        } else if (command.equals("export")) {
+            if (format == null) {
+                format = "csv";
+            }
+            ReportFormat.fromFileName(format);
+            if (to == null) {
+                to = month;
+            }
+            if (from == null) {
+                from = to.minusMonths(trendMonths - 1);
+            }
+            if (to.isBefore(from)) {
+                throw new IllegalArgumentException("--to must not be before --from");
+            }
+            if (inputs.size() > 1 && outputDir == null) {
+                throw new IllegalArgumentException("--output-dir is required when exporting several inputs");
+            }
+        } else {
+            if (format == null) {
+                format = "text";
+            }
+            if (!format.equals("text") && !format.equals("csv") && !format.equals("json")) {
+                throw new IllegalArgumentException("Unknown format: " + format);
+            }
+        }
+    }
+
+    private static int parseInt(String value, String name) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + value);
+        }
+    }
+
+    private static YearMonth parseMonth(String value) {
+        YearMonth month;
+        try {
+            month = YearMonth.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid month: " + value);
+        }
+        Expense.checkDate(month.atDay(1));
+        return month;
+    }
+
+    private int execute() {
+        if (command.equals("export")) {
+            return executeExport();
+        }
+        if (command.equals("serve")) {
+            return executeServe();
+        }
+        if (command.equals("import")) {
+            return executeImport();
+        }
+        int exitCode = EXIT_OK;
+        if (format.equals("csv")) {
+            out.println(command.equals("report") ? "Book,Month,Section,Key,Amount"
+                    : "Book,ID,Name,Amount,Currency,Date,Category,Description");
+        } else if (format.equals("json")) {
+            out.print("[");
+        }
+
+        boolean first = true;
+        for (String input : inputs) {
+            ExpenseController controller;
+            try {
+                controller = openBook(input);
+            } catch (IOException e) {
+                err.println("Error reading " + input + ": " + e.getMessage());
+                exitCode = EXIT_ERROR;
+                continue;
+            }
+
+            if (format.equals("json")) {
+                out.print(first ? "\n" : ",\n");
+            }
+            first = false;
+            if (command.equals("report")) {
+                printReport(input, controller);
+            } else {
+                printList(input, controller);
+            }
+        }
+
+        if (format.equals("json")) {
+            out.println("\n]");
+        }
+        out.flush();
+        return exitCode;
+    }
+
+    /**
+     * Streams one exported report per book, to standard output or to a file per book.
+     */
+    private int executeExport() {
+        ReportFormat reportFormat = ReportFormat.fromFileName(format);
+        int exitCode = EXIT_OK;
+        for (String input : inputs) {
+            ExpenseController controller;
+            try {
+                controller = openBook(input);
+            } catch (IOException e) {
+                err.println("Error reading " + input + ": " + e.getMessage());
+                exitCode = EXIT_ERROR;
+                continue;
+            }
+
+            String title = new File(input).getName() + " Expense Report";
+            try {
+                if (outputDir == null) {
+                    Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+                    controller.exportReport(title, from, to, granularity, reportFormat, writer);
+                } else {
+                    File file = new File(outputDir, baseName(input) + "." + reportFormat.getExtension());
+                    try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+                        controller.exportReport(title, from, to, granularity, reportFormat, writer);
+                    }
+                }
+            } catch (IOException e) {
+                err.println("Error exporting " + input + ": " + e.getMessage());
+                exitCode = EXIT_ERROR;
+            }
+        }
+        out.flush();
+        return exitCode;
+    }
+
+    /**
+     * Imports each statement into the book in turn, so a row repeated across
+     * statements is added once, then saves the book if anything was added.
+     */
+    private int executeImport() {
+        String book = inputs.get(0);
+        ExpenseController controller = new ExpenseController();
+        try {
+            controller.loadExpenses(book);
+        } catch (IOException e) {
+            err.println("Error reading " + book + ": " + e.getMessage());
+            return EXIT_ERROR;
+        }
+
+        int exitCode = EXIT_OK;
+        int added = 0;
+        for (String statement : statements) {
+            try {
+                ImportResult result = controller.importExpenses(statement, nearDays);
+                added += result.getAdded().size();
+                out.println(statement + ": " + result);
+                for (Expense expense : result.getNearDuplicates()) {
+                    out.println("  possible duplicate: " + expense);
+                }
+            } catch (IOException e) {
+                err.println("Error importing " + statement + ": " + e.getMessage());
+                exitCode = EXIT_ERROR;
+            }
+        }
+
+        if (added > 0) {
+            try {
+                controller.saveExpenses(book);
+            } catch (IOException e) {
+                err.println("Error saving " + book + ": " + e.getMessage());
+                exitCode = EXIT_ERROR;
+            }
+        }
+        out.flush();
+        return exitCode;
+    }
+
+    /**
+     * Serves one book, saved shortly after every change, or a directory of books, saved
+     * when unloaded and on shutdown, over HTTP until the process is stopped.
+     */
+    private int executeServe() {
+        InetSocketAddress address = new InetSocketAddress(bindAddress, port);
+        String source = booksDir != null ? booksDir : inputs.get(0);
+        ExpenseHttpServer server;
+        BookRegistry registry = null;
+        try {
+            if (booksDir != null) {
+                registry = new BookRegistry(booksDir, memoryMegabytes * 1024L * 1024L,
+                        e -> err.println("Error saving an unloaded book: " + e.getMessage()));
+                server = new ExpenseHttpServer(registry, address);
+            } else {
+                ExpenseController controller = new ExpenseController();
+                controller.loadExpenses(source);
+                server = new ExpenseHttpServer(controller, source, address,
+                        e -> err.println("Error saving " + source + ": " + e.getMessage()));
+            }
+        } catch (IOException e) {
+            err.println("Error starting server for " + source + " on " + bindAddress + ":" + port + ": "
+                    + e.getMessage());
+            return EXIT_ERROR;
+        }
+
+        BookRegistry books = registry;
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            if (books != null) {
+                try {
+                    books.flush();
+                } catch (IOException e) {
+                    err.println("Error saving books: " + e.getMessage());
+                }
+            }
+        }));
+        server.start();
+        out.println("Serving " + source + " at http://" + bindAddress + ":" + server.getPort() + "/api/");
+        out.flush();
+        try {
+            Thread.currentThread().join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return EXIT_OK;
+    }
+
+    /**
+     * Loads a book and applies the exchange rates and reporting currency options.
+     */
+    private ExpenseController openBook(String input) throws IOException {
+        ExpenseController controller = new ExpenseController();
+        controller.loadExpenses(input);
+        if (ratesFile != null) {
+            controller.loadExchangeRates(ratesFile);
+        }
+        if (currency != null) {
+            controller.setReportingCurrency(currency);
+        }
+        return controller;
+    }
+
+    private static String baseName(String path) {
+        String name = new File(path).getName();
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(0, dot) : name;
+    }
+
+    private void printReport(String book, ExpenseController controller) {
+        double monthlyTotal = controller.calculateMonthlyTotal(month.getYear(), month.getMonth());
+        Map<Category, Double> categoryTotals = controller.getCategoryTotalsForMonth(month.getYear(), month.getMonth());
+        Map<YearMonth, Double> trend = controller.getMonthlyTotals(month, trendMonths);
+
+        switch (format) {
+            case "csv":
+                out.printf(Locale.ROOT, "%s,%s,total,,%.2f%n", Quoting.csv(book), month, monthlyTotal);
+                for (Category category : Category.values()) {
+                    double total = categoryTotals.get(category);
+                    if (total > 0) {
+                        out.printf(Locale.ROOT, "%s,%s,category,%s,%.2f%n", Quoting.csv(book), month,
+                                category.name(), total);
+                    }
+                }
+                for (Map.Entry<YearMonth, Double> entry : trend.entrySet()) {
+                    out.printf(Locale.ROOT, "%s,%s,trend,%s,%.2f%n", Quoting.csv(book), month, entry.getKey(),
+                            entry.getValue());
+                }
+                break;
+            case "json":
+                out.printf(Locale.ROOT, "  {\"book\": %s, \"month\": \"%s\", \"currency\": \"%s\", \"total\": %.2f, "
+                        + "\"categories\": {", Quoting.json(book), month, controller.getReportingCurrency(), monthlyTotal);
+                String separator = "";
+                for (Category category : Category.values()) {
+                    double total = categoryTotals.get(category);
+                    if (total > 0) {
+                        out.printf(Locale.ROOT, "%s\"%s\": %.2f", separator, category.name(), total);
+                        separator = ", ";
+                    }
+                }
+                out.print("}, \"trend\": {");
+                separator = "";
+                for (Map.Entry<YearMonth, Double> entry : trend.entrySet()) {
+                    out.printf(Locale.ROOT, "%s\"%s\": %.2f", separator, entry.getKey(), entry.getValue());
+                    separator = ", ";
+                }
+                out.print("}}");
+                break;
+            default:
+                out.printf("%s - %s Report%n", book, month);
+                String reportingCurrency = controller.getReportingCurrency();
+                out.printf("  Monthly Total: %s%n", Expense.formatAmount(monthlyTotal, reportingCurrency));
+                out.println("  Category Breakdown:");
+                for (Category category : Category.values()) {
+                    double total = categoryTotals.get(category);
+                    if (total > 0) {
+                        out.printf("    %-20s %s%n", category.getDisplayName(),
+                                Expense.formatAmount(total, reportingCurrency));
+                    }
+                }
+                out.printf("  %d-Month Trend:%n", trendMonths);
+                for (Map.Entry<YearMonth, Double> entry : trend.entrySet()) {
+                    out.printf("    %-20s %s%n", entry.getKey(),
+                            Expense.formatAmount(entry.getValue(), reportingCurrency));
+                }
+                out.println();
+                break;
+        }
+    }
+
+    private void printList(String book, ExpenseController controller) {
+        List<Expense> expenses = controller.getExpensesByMonth(month.getYear(), month.getMonth());
+        switch (format) {
+            case "csv":
+                for (Expense expense : expenses) {
+                    out.printf(Locale.ROOT, "%s,%s,%s,%.2f,%s,%s,%s,%s%n", Quoting.csv(book), expense.getId(),
+                            Quoting.csv(expense.getName()), expense.getAmount(), expense.getCurrency(), expense.getDate(),
+                            expense.getCategory().name(), Quoting.csv(expense.getDescription()));
+                }
+                break;
+            case "json":
+                out.printf("  {\"book\": %s, \"month\": \"%s\", \"expenses\": [", Quoting.json(book), month);
+                String separator = "\n";
+                for (Expense expense : expenses) {
+                    out.printf(Locale.ROOT, "%s    {\"id\": \"%s\", \"name\": %s, \"amount\": %.2f, \"currency\": \"%s\", "
+                                    + "\"date\": \"%s\", \"category\": \"%s\", \"description\": %s}",
+                            separator, expense.getId(), Quoting.json(expense.getName()), expense.getAmount(),
+                            expense.getCurrency(), expense.getDate(), expense.getCategory().name(),
+                            Quoting.json(expense.getDescription()));
+                    separator = ",\n";
+                }
+                out.print("\n  ]}");
+                break;
+            default:
+                out.printf("%s - %s Expenses%n", book, month);
+                for (Expense expense : expenses) {
+                    out.println("  " + expense);
+                }
+                out.println();
+                break;
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package controller;
+
+import model.Expense;
+import model.RecurringExpense;
+import util.FileHandler;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Saves a controller's expenses in the background shortly after they change.
+ * <p>
+ * Every change takes an O(1) immutable snapshot of the expenses, and a copy of
+ * the recurring expense rules, on the thread that made it, so the writer
+ * thread never reads the live book. The rules are saved next to the book. Bursts of
+ * changes are debounced: the file is written once the book has been quiet for
+ * the save delay, or at the latest after the maximum delay, always from the
+ * newest snapshot. Files are replaced atomically by
+ * {@link FileHandler#saveExpenses(List, String)}, so a crash mid-save keeps the
+ * previous file. {@link #close()} writes any pending changes and can be run from
+ * a shutdown hook. Save listeners are told what was written, so a file watcher
+ * can ignore the service's own saves.
+ */
+public class AutosaveService implements AutoCloseable {
+    private final ExpenseController controller;
+    private final String filePath;
+    private final long delayMillis;
+    private final long maxDelayMillis;
+    private final Consumer<IOException> errorHandler;
+    private final ScheduledExecutorService executor;
+    // Serializes writes between the background thread and flush()
+    private final Object writeLock;
+    private final List<SaveListener> saveListeners;
+
+    // Guarded by this
+    private List<Expense> pending;
+    private List<RecurringExpense> pendingRules;
+    private long dirtySince;
+    private boolean enabled;
+    private ScheduledFuture<?> scheduled;
+
+    /**
+     * Creates a disabled autosave service; changes are tracked from now on but
+     * nothing is written until {@link #setEnabled(boolean)} is called.
+     *
+     * @param controller     The controller whose expenses to save
+     * @param filePath       The file to save to, or null for the default file
+     * @param delayMillis    How long the book must be unchanged before it is saved
+     * @param maxDelayMillis How long a change may wait at most while changes keep coming
+     * @param errorHandler   Receives save failures, on the background thread
+     */
+    public AutosaveService(ExpenseController controller, String filePath, long delayMillis, long maxDelayMillis,
+                           Consumer<IOException> errorHandler) {
+        if (delayMillis < 0 || maxDelayMillis < delayMillis) {
+            throw new IllegalArgumentException("Invalid autosave delays: " + delayMillis + ", " + maxDelayMillis);
+        }
+        this.controller = controller;
+        this.filePath = filePath;
+        this.delayMillis = delayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        this.errorHandler = errorHandler;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "autosave");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.writeLock = new Object();
+        this.saveListeners = new CopyOnWriteArrayList<>();
+        controller.addChangeListener(this::markDirty);
+    }
+
+    /**
+     * Turns saving on or off. Changes made while disabled are saved once enabled,
+     * which lets the caller hold off saving until the book has finished loading.
+     * The book is snapshotted again on enabling, since rows may have been added
+     * without a change notification since the last change, such as while loading.
+     */
+    public synchronized void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (enabled && pending != null) {
+            pending = controller.getAllExpenses();
+            pendingRules = controller.getRecurringExpenses();
+            schedule();
+        } else if (!enabled && scheduled != null) {
+            scheduled.cancel(false);
+            scheduled = null;
+        }
+    }
+
+    /**
+     * Registers a listener that is told about every save, on the thread that saves.
+     */
+    public void addSaveListener(SaveListener listener) {
+        saveListeners.add(listener);
+    }
+
+    /**
+     * Checks whether there are changes that have not been written yet.
+     */
+    public synchronized boolean isDirty() {
+        return pending != null;
+    }
+
+    /**
+     * Records that the expenses changed. Called by the controller after each change.
+     */
+    public synchronized void markDirty() {
+        if (pending == null) {
+            dirtySince = System.currentTimeMillis();
+        }
+        pending = controller.getAllExpenses();
+        pendingRules = controller.getRecurringExpenses();
+        if (enabled) {
+            schedule();
+        }
+    }
+
+    /**
+     * Writes pending changes now, on the calling thread, if saving is enabled.
+     *
+     * @throws IOException If the file cannot be written
+     */
+    public void flush() throws IOException {
+        synchronized (this) {
+            if (scheduled != null) {
+                scheduled.cancel(false);
+                scheduled = null;
+            }
+            if (!enabled) {
+                return;
+            }
+        }
+        save();
+    }
+
+    /**
+     * Writes pending changes and stops the background thread.
+     */
+    @Override
+    public void close() {
+        try {
+            flush();
+        } catch (IOException e) {
+            errorHandler.accept(e);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Schedules a save after the delay, but no later than the maximum delay
+     * after the oldest unsaved change.
+     */
+    private void schedule() {
+        if (scheduled != null) {
+            scheduled.cancel(false);
+        }
+        long deadline = dirtySince + maxDelayMillis - System.currentTimeMillis();
+        long delay = Math.max(0, Math.min(delayMillis, deadline));
+        scheduled = executor.schedule(this::saveInBackground, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void saveInBackground() {
+        try {
+            save();
+        } catch (IOException e) {
+            errorHandler.accept(e);
+            retryLater();
+        }
+    }
+
+    /**
+     * Tries a failed save again after the maximum delay, rather than waiting for the next change.
+     */
+    private synchronized void retryLater() {
+        if (!enabled || pending == null || executor.isShutdown()) {
+            return;
+        }
+        if (scheduled != null) {
+            scheduled.cancel(false);
+        }
+        scheduled = executor.schedule(this::saveInBackground, maxDelayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void save() throws IOException {
+        synchronized (writeLock) {
+            List<Expense> snapshot;
+            List<RecurringExpense> rules;
+            synchronized (this) {
+                snapshot = pending;
+                rules = pendingRules;
+                pending = null;
+            }
+            if (snapshot == null) {
+                return;
+            }
+            for (SaveListener listener : saveListeners) {
+                listener.saveStarted();
+            }
+            List<Expense> saved = null;
+            BasicFileAttributes written = null;
+            try {
+                FileHandler.saveExpenses(snapshot, filePath);
+                saved = snapshot;
+                written = writtenAttributes();
+                FileHandler.saveRecurringExpenses(rules, filePath);
+            } catch (IOException e) {
+                synchronized (this) {
+                    // Keep the failed snapshot unless a newer one arrived, so the retry writes it
+                    if (pending == null) {
+                        pending = snapshot;
+                        pendingRules = rules;
+                    }
+                }
+                throw e;
+            } finally {
+                for (SaveListener listener : saveListeners) {
+                    listener.saveFinished(saved, written);
+                }
+            }
+        }
+    }
+
+    private BasicFileAttributes writtenAttributes() {
+        try {
+            String path = filePath != null && !filePath.isEmpty() ? filePath : FileHandler.DEFAULT_FILE_PATH;
+            return Files.readAttributes(Paths.get(path), BasicFileAttributes.class);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
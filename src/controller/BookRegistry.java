@@ -0,0 +1,338 @@
+package controller;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps many independent expense books open in one process.
+ * <p>
+ * Each book is stored as {@code <bookId>.csv} in the registry directory and
+ * has its own {@link ExpenseController} and lock. Book IDs are case-insensitive
+ * and always used in lower case, so one book never has two files or two
+ * controllers. Operations on different books run concurrently and never share
+ * a lock. A book is loaded the first time it is used; reading a book that has
+ * no file fails, and only a change creates a new book. When the estimated size
+ * of the loaded books goes over the memory budget, the least recently used
+ * books are saved and unloaded, and their handles dropped. Books that are in
+ * use at that moment are skipped.
+ */
+public class BookRegistry {
+    private static final String BOOK_EXTENSION = ".csv";
+    private static final Pattern BOOK_ID = Pattern.compile("[a-z0-9_-][a-z0-9._-]*");
+    // Rough size of a loaded expense, including its index entries and cached reports
+    private static final long BYTES_PER_EXPENSE = 256;
+
+    private final Path directory;
+    private final long memoryBudget;
+    private final Consumer<IOException> errorHandler;
+    private final Map<String, Book> books;
+    private final AtomicBoolean evicting;
+
+    /**
+     * Creates a registry for the books in a directory, creating the directory if needed.
+     *
+     * @param directory    The directory holding one CSV file per book
+     * @param memoryBudget The estimated size the loaded books may use, in bytes
+     * @param errorHandler Receives failures to save books unloaded to stay within the budget;
+     *                     such books stay loaded
+     * @throws IOException If the directory cannot be created
+     */
+    public BookRegistry(String directory, long memoryBudget, Consumer<IOException> errorHandler)
+            throws IOException {
+        if (memoryBudget <= 0) {
+            throw new IllegalArgumentException("Memory budget must be positive: " + memoryBudget);
+        }
+        this.directory = Files.createDirectories(Paths.get(directory));
+        this.memoryBudget = memoryBudget;
+        this.errorHandler = errorHandler;
+        this.books = new ConcurrentHashMap<>();
+        this.evicting = new AtomicBoolean();
+    }
+
+    /**
+     * Converts a book ID to the form the registry uses, which is lower case.
+     *
+     * @param bookId The book ID, in any case
+     * @return The normalized book ID
+     * @throws IllegalArgumentException If the ID is not a valid book ID
+     */
+    public static String normalizeBookId(String bookId) {
+        String normalized = bookId == null ? null : bookId.toLowerCase(Locale.ROOT);
+        if (normalized == null || !BOOK_ID.matcher(normalized).matches()) {
+            throw new IllegalArgumentException("Invalid book ID: " + bookId);
+        }
+        return normalized;
+    }
+
+    /**
+     * Runs a read-only operation on a book, loading it if needed.
+     *
+     * @param bookId The book to use
+     * @param action The operation to run while holding the book's lock
+     * @return The result of the operation
+     * @throws NoSuchFileException If the book does not exist
+     * @throws IOException         If the book cannot be loaded
+     */
+    public <T> T read(String bookId, Function<ExpenseController, T> action) throws IOException {
+        return access(bookId, false, action);
+    }
+
+    /**
+     * Runs an operation that changes a book, loading it if needed or creating
+     * it if it does not exist. The book is saved when it is unloaded or flushed.
+     *
+     * @param bookId The book to change
+     * @param action The operation to run while holding the book's lock
+     * @return The result of the operation
+     * @throws IOException If the book cannot be loaded
+     */
+    public <T> T modify(String bookId, Function<ExpenseController, T> action) throws IOException {
+        return access(bookId, true, action);
+    }
+
+    /**
+     * Gets the IDs of the books stored in the directory.
+     *
+     * @return The book IDs, sorted
+     * @throws IOException If the directory cannot be read
+     */
+    public List<String> getBookIds() throws IOException {
+        List<String> bookIds = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + BOOK_EXTENSION)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                String bookId = name.substring(0, name.length() - BOOK_EXTENSION.length());
+                if (BOOK_ID.matcher(bookId).matches()) {
+                    bookIds.add(bookId);
+                }
+            }
+        }
+        bookIds.sort(null);
+        return bookIds;
+    }
+
+    /**
+     * Gets the number of books currently held in memory.
+     */
+    public int getLoadedBookCount() {
+        int count = 0;
+        for (Book book : books.values()) {
+            if (book.estimatedBytes > 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the estimated size of the books currently held in memory, in bytes.
+     */
+    public long getEstimatedBytes() {
+        long total = 0;
+        for (Book book : books.values()) {
+            total += book.estimatedBytes;
+        }
+        return total;
+    }
+
+    /**
+     * Saves and unloads the books that have not been used for the given time.
+     *
+     * @param idleTime How long a book must have been unused
+     * @throws IOException If a changed book cannot be saved; it stays loaded
+     */
+    public void evictIdle(Duration idleTime) throws IOException {
+        long cutoff = System.nanoTime() - idleTime.toNanos();
+        IOException failure = null;
+        for (Book book : books.values()) {
+            if (book.lastAccess - cutoff < 0) {
+                try {
+                    tryUnload(book);
+                } catch (IOException e) {
+                    failure = e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Saves every loaded book that has unsaved changes.
+     *
+     * @throws IOException If a book cannot be saved
+     */
+    public void flush() throws IOException {
+        for (Book book : books.values()) {
+            book.lock.lock();
+            try {
+                book.save();
+            } finally {
+                book.lock.unlock();
+            }
+        }
+    }
+
+    private <T> T access(String bookId, boolean modifying, Function<ExpenseController, T> action)
+            throws IOException {
+        String id = normalizeBookId(bookId);
+        Path file = directory.resolve(id + BOOK_EXTENSION);
+        Book book;
+        while (true) {
+            book = books.get(id);
+            if (book == null) {
+                if (!modifying && !Files.exists(file)) {
+                    throw new NoSuchFileException(file.toString(), null, "No book " + id);
+                }
+                book = books.computeIfAbsent(id, key -> new Book(key, file));
+            }
+            book.lock.lock();
+            // A handle dropped by eviction before we locked it is stale; use the current one
+            if (!book.dropped) {
+                break;
+            }
+            book.lock.unlock();
+        }
+        T result;
+        try {
+            try {
+                book.load(modifying);
+            } catch (IOException e) {
+                drop(book);
+                throw e;
+            }
+            result = action.apply(book.controller);
+            if (modifying) {
+                book.dirty = true;
+            }
+            book.estimatedBytes = estimateBytes(book.controller);
+            book.lastAccess = System.nanoTime();
+        } finally {
+            book.lock.unlock();
+        }
+        enforceBudget();
+        return result;
+    }
+
+    /**
+     * Unloads the least recently used books until the loaded books fit the
+     * budget. Only one thread evicts at a time; the others carry on.
+     */
+    private void enforceBudget() {
+        if (getEstimatedBytes() <= memoryBudget || !evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            List<Book> loaded = new ArrayList<>();
+            long total = 0;
+            for (Book book : books.values()) {
+                if (book.estimatedBytes > 0) {
+                    loaded.add(book);
+                    total += book.estimatedBytes;
+                }
+            }
+            loaded.sort(Comparator.comparingLong(book -> book.lastAccess));
+            // The most recently used book always stays loaded, even if it alone is over budget
+            for (int i = 0; i < loaded.size() - 1 && total > memoryBudget; i++) {
+                Book book = loaded.get(i);
+                long bytes = book.estimatedBytes;
+                try {
+                    if (tryUnload(book)) {
+                        total -= bytes;
+                    }
+                } catch (IOException e) {
+                    // Unsaved changes must not be dropped, so the book stays loaded
+                    errorHandler.accept(e);
+                }
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    private boolean tryUnload(Book book) throws IOException {
+        if (!book.lock.tryLock()) {
+            return false;
+        }
+        try {
+            book.save();
+            drop(book);
+            return true;
+        } finally {
+            book.lock.unlock();
+        }
+    }
+
+    /**
+     * Unloads a book and removes its handle; the caller holds the book's lock.
+     */
+    private void drop(Book book) {
+        book.controller = null;
+        book.estimatedBytes = 0;
+        book.dropped = true;
+        books.remove(book.id, book);
+    }
+
+    private static long estimateBytes(ExpenseController controller) {
+        // Count at least one expense so a loaded empty book is still seen as loaded
+        return Math.max(controller.getExpenseCount(), 1) * BYTES_PER_EXPENSE;
+    }
+
+    /**
+     * A book's file, its controller while loaded, and the lock guarding both.
+     */
+    private static final class Book {
+        private final String id;
+        private final Path file;
+        private final ReentrantLock lock = new ReentrantLock();
+        private ExpenseController controller;
+        private boolean dirty;
+        // Set under the lock once the handle is removed from the registry
+        private boolean dropped;
+        private volatile long estimatedBytes;
+        private volatile long lastAccess;
+
+        private Book(String id, Path file) {
+            this.id = id;
+            this.file = file;
+        }
+
+        private void load(boolean create) throws IOException {
+            if (controller != null) {
+                return;
+            }
+            ExpenseController loaded = new ExpenseController();
+            if (Files.exists(file)) {
+                loaded.loadExpenses(file.toString());
+            } else if (!create) {
+                throw new NoSuchFileException(file.toString(), null, "No book " + id);
+            }
+            controller = loaded;
+            dirty = false;
+        }
+
+        private void save() throws IOException {
+            if (controller != null && dirty) {
+                controller.saveExpenses(file.toString());
+                dirty = false;
+            }
+        }
+    }
+}
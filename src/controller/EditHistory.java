@@ -0,0 +1,260 @@
+package controller;
+
+import model.Expense;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Records changes to the expense book as undoable steps.
+ * <p>
+ * A step stores only the expenses it touched (the change itself, not a copy of
+ * the book), so undoing a large import costs as much as the import did. Changes
+ * recorded between {@link #beginBatch()} and {@link #endBatch()} form a single
+ * step. The estimated size of the stored steps is kept under a memory limit by
+ * dropping the oldest undo steps first.
+ */
+public class EditHistory {
+    // Rough per-change overhead: the change object plus its slot in the step
+    private static final long CHANGE_BYTES = 48;
+    // Rough size of an Expense without its strings
+    private static final long EXPENSE_BYTES = 80;
+
+    private final Deque<Step> undoSteps;
+    private final Deque<Step> redoSteps;
+    private long memoryLimit;
+    private long usedBytes;
+    private int batchDepth;
+    private Step openBatch;
+
+    /**
+     * Creates a history bounded by the given memory estimate.
+     *
+     * @param memoryLimit The maximum estimated size of the stored steps, in bytes
+     */
+    public EditHistory(long memoryLimit) {
+        this.undoSteps = new ArrayDeque<>();
+        this.redoSteps = new ArrayDeque<>();
+        setMemoryLimit(memoryLimit);
+    }
+
+    /**
+     * Changes the memory limit, dropping old steps if they no longer fit.
+     *
+     * @param memoryLimit The maximum estimated size of the stored steps, in bytes
+     */
+    public void setMemoryLimit(long memoryLimit) {
+        if (memoryLimit <= 0) {
+            throw new IllegalArgumentException("History memory limit must be positive: " + memoryLimit);
+        }
+        this.memoryLimit = memoryLimit;
+        trim();
+    }
+
+    /**
+     * Starts grouping changes into a single step. Batches may be nested; the
+     * step is closed when the outermost batch ends.
+     */
+    public void beginBatch() {
+        if (batchDepth++ == 0) {
+            openBatch = new Step();
+        }
+    }
+
+    /**
+     * Ends the current batch, storing its changes as one step.
+     */
+    public void endBatch() {
+        if (batchDepth == 0) {
+            throw new IllegalStateException("No batch in progress");
+        }
+        if (--batchDepth == 0) {
+            Step batch = openBatch;
+            openBatch = null;
+            if (!batch.changes.isEmpty()) {
+                push(batch);
+            }
+        }
+    }
+
+    /**
+     * Records that an expense was added.
+     */
+    public void recordAdd(Expense added) {
+        record(new Change(-1, null, added));
+    }
+
+    /**
+     * Records that an expense was removed from the given position.
+     */
+    public void recordRemove(int index, Expense removed) {
+        record(new Change(index, removed, null));
+    }
+
+    /**
+     * Records that an expense was replaced.
+     */
+    public void recordUpdate(Expense before, Expense after) {
+        record(new Change(-1, before, after));
+    }
+
+    public boolean canUndo() {
+        return !undoSteps.isEmpty();
+    }
+
+    public boolean canRedo() {
+        return !redoSteps.isEmpty();
+    }
+
+    /**
+     * Moves the latest step to the redo stack and returns it so it can be reverted.
+     *
+     * @return The step to revert, or null if there is nothing to undo
+     */
+    public Step takeUndo() {
+        Step step = undoSteps.pollLast();
+        if (step != null) {
+            redoSteps.push(step);
+        }
+        return step;
+    }
+
+    /**
+     * Moves the latest undone step back to the undo stack and returns it so it can be reapplied.
+     *
+     * @return The step to reapply, or null if there is nothing to redo
+     */
+    public Step takeRedo() {
+        Step step = redoSteps.poll();
+        if (step != null) {
+            undoSteps.addLast(step);
+        }
+        return step;
+    }
+
+    /**
+     * Drops every recorded step.
+     */
+    public void clear() {
+        undoSteps.clear();
+        redoSteps.clear();
+        usedBytes = 0;
+    }
+
+    /**
+     * Gets the estimated size of the stored steps, in bytes.
+     */
+    public long getUsedBytes() {
+        return usedBytes;
+    }
+
+    private void record(Change change) {
+        if (openBatch != null) {
+            openBatch.add(change);
+        } else {
+            Step step = new Step();
+            step.add(change);
+            push(step);
+        }
+    }
+
+    private void push(Step step) {
+        for (Step undone : redoSteps) {
+            usedBytes -= undone.bytes;
+        }
+        redoSteps.clear();
+        undoSteps.addLast(step);
+        usedBytes += step.bytes;
+        trim();
+    }
+
+    /**
+     * Drops the oldest steps until the history fits, always keeping the latest one.
+     */
+    private void trim() {
+        while (usedBytes > memoryLimit && undoSteps.size() + redoSteps.size() > 1) {
+            Step dropped = undoSteps.isEmpty() ? redoSteps.pollLast() : undoSteps.pollFirst();
+            usedBytes -= dropped.bytes;
+        }
+    }
+
+    private static long estimateBytes(Expense expense) {
+        if (expense == null) {
+            return 0;
+        }
+        long chars = length(expense.getName()) + length(expense.getDescription());
+        return EXPENSE_BYTES + 2 * chars;
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    /**
+     * A group of changes that is undone and redone as a whole.
+     */
+    public static final class Step {
+        private final List<Change> changes = new ArrayList<>();
+        private long bytes;
+
+        private void add(Change change) {
+            changes.add(change);
+            // Both versions count: once removed from the book or undone, only the history holds them
+            bytes += CHANGE_BYTES + estimateBytes(change.before) + estimateBytes(change.after);
+        }
+
+        /**
+         * Gets the changes in the order they were made.
+         */
+        public List<Change> getChanges() {
+            return Collections.unmodifiableList(changes);
+        }
+    }
+
+    /**
+     * A single added, removed or updated expense.
+     */
+    public static final class Change {
+        private final int index;
+        private final Expense before;
+        private final Expense after;
+
+        private Change(int index, Expense before, Expense after) {
+            this.index = index;
+            this.before = before;
+            this.after = after;
+        }
+
+        public boolean isAdd() {
+            return before == null;
+        }
+
+        public boolean isRemove() {
+            return after == null;
+        }
+
+        /**
+         * Gets the position a removed expense had, or -1 for other changes.
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * Gets the expense before the change, or null if it was added.
+         */
+        public Expense getBefore() {
+            return before;
+        }
+
+        /**
+         * Gets the expense after the change, or null if it was removed.
+         */
+        public Expense getAfter() {
+            return after;
+        }
+    }
+}
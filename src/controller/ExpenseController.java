@@ -1,45 +1,351 @@
 package controller;
 
+import model.AnomalyListener;
+import model.Budget;
+import model.BudgetListener;
 import model.Category;
 import model.Expense;
+import model.ExpenseColumn;
 import model.ExpenseManager;
+import model.Granularity;
+import model.ImportResult;
+import model.MerchantTotal;
+import model.OffHeapExpenseList;
+import model.PersistentList;
+import model.QuantileSketch;
+import model.RecurringExpense;
+import model.TrendPoint;
+import util.FileHandler;
+import util.ReportExporter;
+import util.ReportFormat;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.time.LocalDate;
 import java.time.Month;
 import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
 
 /**
  * Controller class that connects the expense model with the user interface.
  */
 public class ExpenseController {
+    /**
+     * The system property that, when set to true, keeps the expense rows of
+     * every new controller in off-heap memory instead of on the Java heap.
+     */
+    public static final String OFF_HEAP_PROPERTY = "expenses.offHeap";
+
+    private static final int REPORT_CACHE_SIZE = 256;
+    private static final long DEFAULT_HISTORY_BYTES = 16L * 1024 * 1024;
+    private static final int RECURRING_BATCH_SIZE = 1000;
+
     private final ExpenseManager expenseManager;
+    private final ReportCache reportCache;
+    private final EditHistory history;
+    private final RecurringExpenseScheduler recurringScheduler;
+    private final List<Runnable> changeListeners;
 
+    /**
+     * Creates a controller for an empty book, stored on the heap or, if the
+     * {@value #OFF_HEAP_PROPERTY} system property is true, off the heap.
+     */
     public ExpenseController() {
-        this.expenseManager = new ExpenseManager();
+        this(Boolean.getBoolean(OFF_HEAP_PROPERTY) ? new ExpenseManager(new OffHeapExpenseList())
+                : new ExpenseManager());
+    }
+
+    /**
+     * Creates a controller on top of the given manager, which should be empty.
+     */
+    public ExpenseController(ExpenseManager expenseManager) {
+        this.expenseManager = expenseManager;
+        this.reportCache = new ReportCache(REPORT_CACHE_SIZE);
+        this.history = new EditHistory(DEFAULT_HISTORY_BYTES);
+        this.recurringScheduler = new RecurringExpenseScheduler();
+        this.changeListeners = new ArrayList<>();
+    }
+
+    /**
+     * Adds a new expense and returns it with its generated ID.
+     */
+    public Expense addExpense(String name, double amount, LocalDate date, Category category, String description) {
+        return addExpense(name, amount, Expense.DEFAULT_CURRENCY, date, category, description);
     }
 
     /**
-     * Adds a new expense.
+     * Adds a new expense in the given currency and returns it with its generated ID.
      */
-    public void addExpense(String name, double amount, LocalDate date, Category category, String description) {
-        Expense expense = new Expense(name, amount, date, category, description);
+    public Expense addExpense(String name, double amount, String currency, LocalDate date, Category category,
+                              String description) {
+        Expense expense = new Expense(name, amount, currency, date, category, description);
         expenseManager.addExpense(expense);
+        history.recordAdd(expense);
+        invalidateReports(expense);
+        return expense;
+    }
+
+    /**
+     * Adds many expenses at once, as a single undo step.
+     */
+    public void addExpenses(List<Expense> expenses) {
+        if (expenses.isEmpty()) {
+            return;
+        }
+        expenseManager.addExpenses(expenses);
+        history.beginBatch();
+        try {
+            for (Expense expense : expenses) {
+                history.recordAdd(expense);
+            }
+        } finally {
+            history.endBatch();
+        }
+        invalidateReports(expenses);
     }
 
     /**
      * Removes an expense by ID.
      */
     public boolean removeExpense(String expenseId) {
-        return expenseManager.removeExpense(expenseId);
+        int index = expenseManager.getExpenseIndex(expenseId);
+        if (index < 0) {
+            return false;
+        }
+        Expense existing = expenseManager.getExpenseById(expenseId);
+        expenseManager.removeExpense(expenseId);
+        history.recordRemove(index, existing);
+        invalidateReports(existing);
+        return true;
     }
 
     /**
      * Updates an existing expense.
      */
     public boolean updateExpense(Expense updatedExpense) {
-        return expenseManager.updateExpense(updatedExpense);
+        Expense existing = expenseManager.getExpenseById(updatedExpense.getId());
+        boolean updated = expenseManager.updateExpense(updatedExpense);
+        if (updated) {
+            history.recordUpdate(existing, updatedExpense);
+            invalidateReports(List.of(existing, updatedExpense));
+        }
+        return updated;
+    }
+
+    /**
+     * Replaces the current expenses and recurring expense rules with the ones
+     * stored in a file, then catches up on the rules through today.
+     * Loading is not recorded in the undo history.
+     */
+    public void loadExpenses(String filePath) throws IOException {
+        List<Expense> loaded = FileHandler.loadExpenses(filePath);
+        List<RecurringExpense> rules = FileHandler.loadRecurringExpenses(filePath);
+        expenseManager.restoreSnapshot(PersistentList.empty());
+        expenseManager.addExpenses(loaded);
+        recurringScheduler.setRules(rules);
+        history.clear();
+        reportCache.invalidateAll();
+        catchUpRecurringExpenses(LocalDate.now());
+        fireChanged();
+    }
+
+    /**
+     * Adds one chunk of expenses read from a file while it is still loading.
+     * This is not recorded in the undo history and does not notify change
+     * listeners or raise alerts, since the rows are already saved.
+     */
+    public void addLoadedExpenses(List<Expense> chunk) {
+        expenseManager.addExistingExpenses(chunk);
+        dropCachedReports(chunk);
+    }
+
+    /**
+     * Applies changes another program made to the saved file as one batch.
+     * Rows already in the book unchanged are skipped. Like loading, an external
+     * change that does apply clears the undo history, since earlier steps may
+     * refer to expenses it replaced or removed.
+     *
+     * @param upserts    Rows to add, or to put in place of the expense with the same ID
+     * @param removedIds The IDs of expenses removed from the file
+     * @return true if the book changed
+     */
+    public boolean applyExternalChanges(Collection<Expense> upserts, Collection<String> removedIds) {
+        List<Expense> touched = expenseManager.applyChanges(upserts, removedIds);
+        if (touched.isEmpty()) {
+            return false;
+        }
+        history.clear();
+        invalidateReports(touched);
+        return true;
+    }
+
+    /**
+     * Registers a listener that runs after every change to the expenses, on the
+     * thread that made the change.
+     */
+    public void addChangeListener(Runnable listener) {
+        changeListeners.add(listener);
+    }
+
+    /**
+     * Adds the rows of a statement file that are not already in the book, as a
+     * single undo step. Rows that match an expense by ID, or by name, amount and
+     * date, are skipped, as are rows with the same amount as an expense at most
+     * {@code nearDays} days away, which are returned for review instead. Rows
+     * without a valid ID are given a new one, and rows without a category
+     * are given the one the book suggests for them.
+     */
+    public ImportResult importExpenses(String filePath, int nearDays) throws IOException {
+        return importExpenses(filePath, nearDays, nearDuplicates -> false);
+    }
+
+    /**
+     * Adds the rows of a statement file that are not already in the book, like
+     * {@link #importExpenses(String, int)}, but first asks whether the rows
+     * with the same amount as a nearby expense should be added as well. If so,
+     * they are added in the same undo step and returned as added rows.
+     *
+     * @param addNearDuplicates Receives the categorized near duplicates, if there
+     *                          are any, before the book changes, and decides whether to add them
+     */
+    public ImportResult importExpenses(String filePath, int nearDays, Predicate<List<Expense>> addNearDuplicates)
+            throws IOException {
+        ImportResult matched = expenseManager.matchImport(FileHandler.loadStatement(filePath), nearDays);
+        // Categorized in one pass, so rows added after review get the same guesses as the rest
+        List<Expense> rows = new ArrayList<>(matched.getAdded());
+        rows.addAll(matched.getNearDuplicates());
+        List<Expense> categorized = expenseManager.categorize(rows);
+        List<Expense> added = new ArrayList<>(categorized.subList(0, matched.getAdded().size()));
+        List<Expense> nearDuplicates = categorized.subList(added.size(), categorized.size());
+        if (!nearDuplicates.isEmpty() && addNearDuplicates.test(Collections.unmodifiableList(nearDuplicates))) {
+            added.addAll(nearDuplicates);
+            nearDuplicates = List.of();
+        }
+        addExpenses(added);
+        return new ImportResult(added, matched.getExactDuplicates(), nearDuplicates);
+    }
+
+    /**
+     * Suggests a category for a new expense, learned from how the book's
+     * expenses with similar names and descriptions are categorized.
+     */
+    public Category suggestCategory(String name, String description) {
+        return expenseManager.suggestCategory(name, description);
+    }
+
+    /**
+     * Saves all expenses to a file, and the recurring expense rules next to it.
+     */
+    public void saveExpenses(String filePath) throws IOException {
+        FileHandler.saveExpenses(expenseManager.getAllExpenses(), filePath);
+        FileHandler.saveRecurringExpenses(recurringScheduler.getRules(), filePath);
+    }
+
+    /**
+     * Runs several operations so that they are undone and redone as one step.
+     */
+    public void performBatch(Runnable operations) {
+        history.beginBatch();
+        try {
+            operations.run();
+        } finally {
+            history.endBatch();
+        }
+    }
+
+    /**
+     * Reverts the latest change or batch of changes.
+     *
+     * @return true if something was undone, false if there was nothing to undo
+     */
+    public boolean undo() {
+        EditHistory.Step step = history.takeUndo();
+        if (step == null) {
+            return false;
+        }
+
+        List<EditHistory.Change> changes = step.getChanges();
+        List<Expense> touched = new ArrayList<>();
+        List<String> addedIds = new ArrayList<>();
+        for (int i = changes.size() - 1; i >= 0; i--) {
+            EditHistory.Change change = changes.get(i);
+            if (change.isAdd()) {
+                // Consecutive additions are removed together in one pass
+                addedIds.add(change.getAfter().getId());
+                touched.add(change.getAfter());
+                continue;
+            }
+            removeAll(addedIds);
+            if (change.isRemove()) {
+                expenseManager.insertExpense(change.getIndex(), change.getBefore());
+            } else {
+                expenseManager.updateExpense(change.getBefore());
+                touched.add(change.getAfter());
+            }
+            touched.add(change.getBefore());
+        }
+        removeAll(addedIds);
+
+        invalidateReports(touched);
+        return true;
+    }
+
+    /**
+     * Reapplies the latest undone change or batch of changes.
+     *
+     * @return true if something was redone, false if there was nothing to redo
+     */
+    public boolean redo() {
+        EditHistory.Step step = history.takeRedo();
+        if (step == null) {
+            return false;
+        }
+
+        List<Expense> touched = new ArrayList<>();
+        List<Expense> added = new ArrayList<>();
+        for (EditHistory.Change change : step.getChanges()) {
+            if (change.isAdd()) {
+                // Consecutive additions are appended together
+                added.add(change.getAfter());
+                touched.add(change.getAfter());
+                continue;
+            }
+            addAll(added);
+            if (change.isRemove()) {
+                expenseManager.removeExpense(change.getBefore().getId());
+            } else {
+                expenseManager.updateExpense(change.getAfter());
+                touched.add(change.getAfter());
+            }
+            touched.add(change.getBefore());
+        }
+        addAll(added);
+
+        invalidateReports(touched);
+        return true;
+    }
+
+    public boolean canUndo() {
+        return history.canUndo();
+    }
+
+    public boolean canRedo() {
+        return history.canRedo();
+    }
+
+    /**
+     * Sets how much memory the undo history may use, in bytes.
+     */
+    public void setHistoryMemoryLimit(long bytes) {
+        history.setMemoryLimit(bytes);
     }
 
     /**
@@ -49,6 +355,27 @@ public class ExpenseController {
         return expenseManager.getAllExpenses();
     }
 
+    /**
+     * Finds an expense by ID, or returns null if there is none.
+     */
+    public Expense getExpenseById(String expenseId) {
+        return expenseManager.getExpenseById(expenseId);
+    }
+
+    /**
+     * Gets the number of expenses.
+     */
+    public int getExpenseCount() {
+        return expenseManager.getExpenseCount();
+    }
+
+    /**
+     * Gets one page of expenses, optionally sorted by a column.
+     */
+    public List<Expense> getExpensesPage(int offset, int limit, ExpenseColumn sortBy, boolean ascending) {
+        return expenseManager.getExpensesPage(offset, limit, sortBy, ascending);
+    }
+
     /**
      * Calculates the total of all expenses.
      */
@@ -60,34 +387,317 @@ public class ExpenseController {
      * Gets expenses for a specific month.
      */
     public List<Expense> getExpensesByMonth(int year, Month month) {
-        return expenseManager.getExpensesByMonth(year, month);
+        YearMonth yearMonth = YearMonth.of(year, month);
+        return reportCache.get(new ReportCache.Key("expensesByMonth", yearMonth, yearMonth, null, null),
+                () -> Collections.unmodifiableList(expenseManager.getExpensesByMonth(year, month)));
     }
 
     /**
      * Calculates the total expenses for a specific month.
      */
     public double calculateMonthlyTotal(int year, Month month) {
-        return expenseManager.calculateMonthlyTotal(year, month);
+        YearMonth yearMonth = YearMonth.of(year, month);
+        return reportCache.get(new ReportCache.Key("monthlyTotal", yearMonth, yearMonth, null, null),
+                () -> expenseManager.calculateMonthlyTotal(year, month));
     }
 
     /**
      * Gets expenses by category.
      */
     public List<Expense> getExpensesByCategory(Category category) {
-        return expenseManager.getExpensesByCategory(category);
+        return reportCache.get(new ReportCache.Key("expensesByCategory", null, null, category, null),
+                () -> Collections.unmodifiableList(expenseManager.getExpensesByCategory(category)));
     }
 
     /**
      * Gets monthly totals for the past several months.
      */
     public Map<YearMonth, Double> getMonthlyTotals(int numberOfMonths) {
-        return expenseManager.getMonthlyTotals(numberOfMonths);
+        return getMonthlyTotals(YearMonth.now(), numberOfMonths);
+    }
+
+    /**
+     * Gets monthly totals for the months leading up to the given month, oldest first.
+     */
+    public Map<YearMonth, Double> getMonthlyTotals(YearMonth endMonth, int numberOfMonths) {
+        YearMonth startMonth = endMonth.minusMonths(Math.max(numberOfMonths, 1) - 1);
+        return reportCache.get(new ReportCache.Key("monthlyTotals", startMonth, endMonth, null, numberOfMonths),
+                () -> Collections.unmodifiableMap(expenseManager.getMonthlyTotals(endMonth, numberOfMonths)));
+    }
+
+    /**
+     * Gets an ordered spending trend over a date window at the given granularity.
+     */
+    public List<TrendPoint> getTrend(LocalDate from, LocalDate to, Granularity granularity) {
+        ReportCache.Key key = new ReportCache.Key("trend", YearMonth.from(from), YearMonth.from(to), null,
+                List.of(from, to, granularity));
+        return reportCache.get(key,
+                () -> Collections.unmodifiableList(expenseManager.getTrend(from, to, granularity)));
     }
 
     /**
      * Gets category totals for a specific month.
      */
     public Map<Category, Double> getCategoryTotalsForMonth(int year, Month month) {
-        return expenseManager.getCategoryTotalsForMonth(year, month);
+        YearMonth yearMonth = YearMonth.of(year, month);
+        return reportCache.get(new ReportCache.Key("categoryTotals", yearMonth, yearMonth, null, null),
+                () -> Collections.unmodifiableMap(expenseManager.getCategoryTotalsForMonth(year, month)));
+    }
+
+    /**
+     * Gets the distribution of expense amounts over a range of months, for
+     * quantiles such as the median, p90 or p99.
+     *
+     * @param category The category, or null for all categories
+     */
+    public QuantileSketch getAmountDistribution(YearMonth from, YearMonth to, Category category) {
+        return expenseManager.getAmountDistribution(from, to, category);
+    }
+
+    /**
+     * Gets the distribution of expense amounts for each category in a month.
+     */
+    public Map<Category, QuantileSketch> getCategoryDistributionsForMonth(int year, Month month) {
+        return expenseManager.getCategoryDistributionsForMonth(year, month);
+    }
+
+    /**
+     * Gets the merchants with the most spending over a range of months, e.g.
+     * the top 20 payees this year.
+     */
+    public List<MerchantTotal> getTopMerchants(YearMonth from, YearMonth to, int limit) {
+        return expenseManager.getTopMerchants(from, to, limit);
+    }
+
+    /**
+     * Counts the distinct merchants over a range of months.
+     */
+    public long getDistinctMerchantCount(YearMonth from, YearMonth to) {
+        return expenseManager.getDistinctMerchantCount(from, to);
+    }
+
+    /**
+     * Switches the merchant queries to exact scans, for validating the sketches.
+     */
+    public void setExactMerchantStats(boolean exact) {
+        expenseManager.setExactMerchantStats(exact);
+    }
+
+    /**
+     * Loads the exchange rates used to convert amounts to the reporting currency.
+     * Rates in the file are relative to {@link Expense#DEFAULT_CURRENCY}.
+     */
+    public void loadExchangeRates(String filePath) throws IOException {
+        expenseManager.setExchangeRates(FileHandler.loadExchangeRates(filePath, Expense.DEFAULT_CURRENCY));
+        reportCache.invalidateAll();
+    }
+
+    /**
+     * Sets the currency all totals, trends and budgets are reported in.
+     */
+    public void setReportingCurrency(String currency) {
+        expenseManager.setReportingCurrency(currency);
+        reportCache.invalidateAll();
+    }
+
+    public String getReportingCurrency() {
+        return expenseManager.getReportingCurrency();
+    }
+
+    /**
+     * Gets how much was spent in each currency during a month, in that currency.
+     */
+    public Map<String, Double> getCurrencyTotalsForMonth(int year, Month month) {
+        YearMonth yearMonth = YearMonth.of(year, month);
+        return reportCache.get(new ReportCache.Key("currencyTotals", yearMonth, yearMonth, null, null),
+                () -> Collections.unmodifiableMap(
+                        expenseManager.getCurrencyTotals(yearMonth.atDay(1), yearMonth.atEndOfMonth())));
+    }
+
+    /**
+     * Starts tracking a monthly budget.
+     */
+    public void addBudget(Budget budget) {
+        expenseManager.addBudget(budget);
+    }
+
+    /**
+     * Stops tracking a budget.
+     */
+    public boolean removeBudget(Budget budget) {
+        return expenseManager.removeBudget(budget);
+    }
+
+    /**
+     * Gets every tracked budget.
+     */
+    public List<Budget> getBudgets() {
+        return expenseManager.getBudgets();
+    }
+
+    /**
+     * Gets how much of a budget is used in a month.
+     */
+    public double getBudgetSpent(Budget budget, YearMonth month) {
+        return expenseManager.getBudgetSpent(budget, month);
+    }
+
+    /**
+     * Registers a listener that is told whenever a change crosses a budget threshold.
+     */
+    public void addBudgetListener(BudgetListener listener) {
+        expenseManager.addBudgetListener(listener);
+    }
+
+    /**
+     * Registers a listener that is told whenever an added or edited expense
+     * makes spending in its category unusually high.
+     */
+    public void addAnomalyListener(AnomalyListener listener) {
+        expenseManager.addAnomalyListener(listener);
+    }
+
+    /**
+     * Adds a recurring expense rule. Its occurrences are created by the next
+     * catch-up, see {@link #catchUpRecurringExpenses(LocalDate)}. The rules are
+     * saved with the book.
+     *
+     * @return true if the rule was added, false if the same rule already exists
+     */
+    public boolean addRecurringExpense(RecurringExpense rule) {
+        boolean added = recurringScheduler.addRule(rule);
+        if (added) {
+            fireChanged();
+        }
+        return added;
+    }
+
+    /**
+     * Removes a recurring expense rule, keeping the occurrences already created.
+     */
+    public boolean removeRecurringExpense(RecurringExpense rule) {
+        boolean removed = recurringScheduler.removeRule(rule);
+        if (removed) {
+            fireChanged();
+        }
+        return removed;
+    }
+
+    /**
+     * Gets the recurring expense rules.
+     */
+    public List<RecurringExpense> getRecurringExpenses() {
+        return recurringScheduler.getRules();
+    }
+
+    /**
+     * Replaces the recurring expense rules with the ones saved next to a book,
+     * without creating any occurrences.
+     */
+    public void loadRecurringExpenses(String filePath) throws IOException {
+        recurringScheduler.setRules(FileHandler.loadRecurringExpenses(filePath));
+    }
+
+    /**
+     * Creates every missing recurring occurrence up to the end of the given
+     * date's month, in bulk batches. Applications call this when a book is
+     * loaded and periodically while it is open; queries never create
+     * occurrences.
+     *
+     * @return The number of expenses created
+     */
+    public int catchUpRecurringExpenses(LocalDate through) {
+        int[] created = {0};
+        recurringScheduler.takeDueThrough(through, RECURRING_BATCH_SIZE,
+                batch -> created[0] += addOccurrences(batch));
+        return created[0];
+    }
+
+    /**
+     * Streams a report of monthly totals, category breakdowns and the trend over a range of months.
+     */
+    public void exportReport(String title, YearMonth from, YearMonth to, Granularity granularity,
+                             ReportFormat format, Writer writer) throws IOException {
+        ReportExporter.export(expenseManager, title, from, to, granularity, format, writer);
+    }
+
+    /**
+     * Gets the hit/miss metrics of the report cache.
+     */
+    public ReportCache.Stats getReportCacheStats() {
+        return reportCache.getStats();
+    }
+
+    /**
+     * Adds generated occurrences through the bulk path, skipping any already in
+     * the book, such as ones saved before the rule was added again. Generated
+     * expenses are not part of the undo history.
+     */
+    private int addOccurrences(List<Expense> occurrences) {
+        List<Expense> added = new ArrayList<>(occurrences.size());
+        for (Expense occurrence : occurrences) {
+            if (!expenseManager.containsExpense(occurrence.getId())) {
+                added.add(occurrence);
+            }
+        }
+        if (!added.isEmpty()) {
+            expenseManager.addExpenses(added);
+            invalidateReports(added);
+        }
+        return added.size();
+    }
+
+    private void removeAll(List<String> expenseIds) {
+        if (!expenseIds.isEmpty()) {
+            expenseManager.removeExpenses(expenseIds);
+            expenseIds.clear();
+        }
+    }
+
+    private void addAll(List<Expense> expenses) {
+        if (!expenses.isEmpty()) {
+            expenseManager.addExpenses(expenses);
+            expenses.clear();
+        }
+    }
+
+    /**
+     * Drops the cached reports that could include the given expense.
+     */
+    private void invalidateReports(Expense expense) {
+        reportCache.invalidate(YearMonth.from(expense.getDate()), expense.getCategory());
+        fireChanged();
+    }
+
+    /**
+     * Drops the cached reports that could include any of the given expenses
+     * and notifies the change listeners.
+     */
+    private void invalidateReports(Collection<Expense> expenses) {
+        dropCachedReports(expenses);
+        fireChanged();
+    }
+
+    /**
+     * Drops the cached reports that could include any of the given expenses,
+     * visiting each month and category only once.
+     */
+    private void dropCachedReports(Collection<Expense> expenses) {
+        Map<YearMonth, Set<Category>> touched = new HashMap<>();
+        for (Expense expense : expenses) {
+            touched.computeIfAbsent(YearMonth.from(expense.getDate()), month -> EnumSet.noneOf(Category.class))
+                    .add(expense.getCategory());
+        }
+        for (Map.Entry<YearMonth, Set<Category>> entry : touched.entrySet()) {
+            for (Category category : entry.getValue()) {
+                reportCache.invalidate(entry.getKey(), category);
+            }
+        }
+    }
+
+    private void fireChanged() {
+        for (Runnable listener : changeListeners) {
+            listener.run();
+        }
     }
-}
\ No newline at end of file
+}
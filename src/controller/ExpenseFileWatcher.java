@@ -0,0 +1,340 @@
+package controller;
+
+import model.Expense;
+import util.FileHandler;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Watches the saved expenses file and applies changes other programs make to
+ * it while the application runs.
+ * <p>
+ * The watcher remembers every row the file is known to hold: the book as it
+ * was when the application last saved it, in the form the file holds it with
+ * amounts rounded to cents, or the rows last read from another program's
+ * version. A row read from the file is a change only if it differs from the
+ * remembered row with its ID. When the file only
+ * grew, which is how most tools add rows, just the appended bytes are read.
+ * Otherwise the whole file is read and compared with the remembered rows.
+ * Either way only the difference is handed to
+ * {@link ExpenseController#applyExternalChanges}, as one batch, on the given
+ * executor, so edits made in the application since its last save are kept.
+ * <p>
+ * Registered as a {@link SaveListener} with the {@link AutosaveService}, the
+ * watcher learns which snapshot each save wrote and the file's size,
+ * modification time and identity afterwards. A file that still matches the
+ * last save is the application's own and is not read at all.
+ * <p>
+ * Reading and comparing happen on the watcher's own daemon thread.
+ */
+public class ExpenseFileWatcher implements SaveListener, AutoCloseable {
+    // How long to wait after a change for the writer to finish before reading
+    private static final long SETTLE_MILLIS = 200;
+    // How many bytes before the known end are compared to tell an append from a rewrite
+    private static final int TAIL_BYTES = 64;
+
+    private final ExpenseController controller;
+    private final Path file;
+    private final Executor applier;
+    private final Runnable onApplied;
+    private final Consumer<IOException> errorHandler;
+    private final WatchService watchService;
+    private final Thread thread;
+
+    // Handed over from the saving thread; guarded by saveLock
+    private final Object saveLock;
+    private boolean saving;
+    private List<Expense> savedSnapshot;
+    private BasicFileAttributes savedAttributes;
+
+    // Only used by the watcher thread
+    private Map<String, Expense> knownRows;
+    private long knownLength;
+    private byte[] knownTail;
+
+    /**
+     * Creates a watcher for a file; call {@link #start()} to begin watching.
+     *
+     * @param controller   The controller to apply changes to
+     * @param filePath     The saved expenses file
+     * @param applier      Runs the changes on the thread that owns the controller, such as the Event Dispatch Thread
+     * @param onApplied    Runs on the applier after changes were applied
+     * @param errorHandler Receives read failures, on the watcher thread
+     * @throws IOException If the file's directory cannot be watched
+     */
+    public ExpenseFileWatcher(ExpenseController controller, String filePath, Executor applier, Runnable onApplied,
+                              Consumer<IOException> errorHandler) throws IOException {
+        this.controller = controller;
+        this.file = Paths.get(filePath).toAbsolutePath();
+        this.applier = applier;
+        this.onApplied = onApplied;
+        this.errorHandler = errorHandler;
+        this.watchService = file.getFileSystem().newWatchService();
+        file.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        this.thread = new Thread(this::run, "expense-file-watcher");
+        this.thread.setDaemon(true);
+        this.saveLock = new Object();
+        this.knownRows = new HashMap<>();
+        this.knownTail = new byte[0];
+    }
+
+    /**
+     * Reads the current file as the starting point and begins watching it.
+     */
+    public void start() {
+        thread.start();
+    }
+
+    @Override
+    public void saveStarted() {
+        synchronized (saveLock) {
+            saving = true;
+        }
+    }
+
+    @Override
+    public void saveFinished(List<Expense> snapshot, BasicFileAttributes written) {
+        synchronized (saveLock) {
+            saving = false;
+            if (snapshot != null) {
+                savedSnapshot = snapshot;
+                savedAttributes = written;
+            }
+            saveLock.notifyAll();
+        }
+    }
+
+    /**
+     * Stops watching the file.
+     */
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+        thread.interrupt();
+    }
+
+    private void run() {
+        try {
+            readAll(false);
+        } catch (IOException e) {
+            errorHandler.accept(e);
+        }
+
+        try {
+            while (true) {
+                if (!isRelevant(watchService.take())) {
+                    continue;
+                }
+                // Let the writer finish, then handle every change since in one read
+                Thread.sleep(SETTLE_MILLIS);
+                WatchKey key;
+                while ((key = watchService.poll()) != null) {
+                    isRelevant(key);
+                }
+                try {
+                    readChanges();
+                } catch (IOException e) {
+                    errorHandler.accept(e);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // The watcher was closed
+        }
+    }
+
+    private boolean isRelevant(WatchKey key) {
+        boolean relevant = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || file.getFileName().equals(event.context())) {
+                relevant = true;
+            }
+        }
+        key.reset();
+        return relevant;
+    }
+
+    /**
+     * Skips the file if it is the application's last save, and otherwise reads
+     * only the appended bytes if the file grew past a complete last line that
+     * is still in place, and the whole file if not.
+     */
+    private void readChanges() throws IOException, InterruptedException {
+        if (!Files.exists(file)) {
+            return;
+        }
+        if (isOwnSave()) {
+            return;
+        }
+        long length = Files.size(file);
+        if (length > knownLength && knownLength > 0 && endsWithKnownTail()) {
+            try {
+                readAppended(length);
+                return;
+            } catch (RuntimeException e) {
+                // A malformed appended row; compare the whole file instead
+            }
+        }
+        readAll(true);
+    }
+
+    /**
+     * Takes over the snapshot of the latest save, if there was one since the
+     * last read, as the rows the file is known to hold.
+     *
+     * @return Whether the file is still exactly as that save left it
+     */
+    private boolean isOwnSave() throws IOException, InterruptedException {
+        List<Expense> snapshot;
+        BasicFileAttributes written;
+        synchronized (saveLock) {
+            // A save in progress is about to replace the file; wait for it rather than read half of it
+            while (saving) {
+                saveLock.wait();
+            }
+            snapshot = savedSnapshot;
+            written = savedAttributes;
+            savedSnapshot = null;
+            savedAttributes = null;
+        }
+        if (snapshot == null) {
+            return false;
+        }
+
+        knownRows = writtenRows(snapshot);
+        BasicFileAttributes current = Files.readAttributes(file, BasicFileAttributes.class);
+        if (written != null && current.size() == written.size()
+                && current.lastModifiedTime().equals(written.lastModifiedTime())
+                && Objects.equals(current.fileKey(), written.fileKey())) {
+            knownLength = current.size();
+            knownTail = readTail(knownLength);
+            return true;
+        }
+        // Changed again since the save, so the saved bytes are unknown: compare the whole file
+        knownLength = 0;
+        knownTail = new byte[0];
+        return false;
+    }
+
+    private boolean endsWithKnownTail() throws IOException {
+        if (knownTail.length == 0 || knownTail[knownTail.length - 1] != '\n') {
+            return false;
+        }
+        return Arrays.equals(knownTail, readBytes(knownLength - knownTail.length, knownTail.length));
+    }
+
+    private void readAppended(long length) throws IOException {
+        byte[] appended = readBytes(knownLength, (int) Math.min(length - knownLength, Integer.MAX_VALUE));
+        int end = appended.length;
+        while (end > 0 && appended[end - 1] != '\n') {
+            end--; // Leave a line that is still being written for the next change
+        }
+        if (end == 0) {
+            return;
+        }
+
+        List<Expense> upserts = new ArrayList<>();
+        Map<String, Expense> rows = new HashMap<>();
+        for (String line : new String(appended, 0, end, Charset.defaultCharset()).split("\r?\n")) {
+            Expense expense = line.isBlank() ? null : FileHandler.parseExpense(line);
+            if (expense != null) {
+                rows.put(expense.getId(), expense);
+                if (!expense.equals(knownRows.get(expense.getId()))) {
+                    upserts.add(expense);
+                }
+            }
+        }
+
+        knownRows.putAll(rows);
+        knownLength += end;
+        knownTail = readTail(knownLength);
+        apply(upserts, List.of());
+    }
+
+    private void readAll(boolean applyChanges) throws IOException {
+        long length = Files.exists(file) ? Files.size(file) : 0;
+        List<Expense> expenses = FileHandler.loadExpenses(file.toString());
+
+        Map<String, Expense> rows = new HashMap<>(expenses.size() * 2);
+        List<Expense> upserts = new ArrayList<>();
+        for (Expense expense : expenses) {
+            rows.put(expense.getId(), expense);
+            if (!expense.equals(knownRows.get(expense.getId()))) {
+                upserts.add(expense);
+            }
+        }
+        List<String> removedIds = new ArrayList<>();
+        for (String id : knownRows.keySet()) {
+            if (!rows.containsKey(id)) {
+                removedIds.add(id);
+            }
+        }
+
+        knownRows = rows;
+        knownLength = length;
+        knownTail = readTail(length);
+        if (applyChanges) {
+            apply(upserts, removedIds);
+        }
+    }
+
+    private void apply(List<Expense> upserts, List<String> removedIds) {
+        if (upserts.isEmpty() && removedIds.isEmpty()) {
+            return;
+        }
+        applier.execute(() -> {
+            if (controller.applyExternalChanges(upserts, removedIds)) {
+                onApplied.run();
+            }
+        });
+    }
+
+    /**
+     * Gets the rows a save of the given expenses wrote, by ID.
+     */
+    private static Map<String, Expense> writtenRows(List<Expense> expenses) {
+        Map<String, Expense> rows = new HashMap<>(expenses.size() * 2);
+        for (Expense expense : expenses) {
+            rows.put(expense.getId(), FileHandler.asWritten(expense));
+        }
+        return rows;
+    }
+
+    private byte[] readTail(long length) throws IOException {
+        return length == 0 ? new byte[0]
+                : readBytes(Math.max(length - TAIL_BYTES, 0), (int) Math.min(length, TAIL_BYTES));
+    }
+
+    private byte[] readBytes(long position, int count) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(count);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    break;
+                }
+            }
+        }
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+}
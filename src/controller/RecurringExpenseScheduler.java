@@ -0,0 +1,142 @@
+package controller;
+
+import model.Expense;
+import model.RecurringExpense;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Decides which occurrences of the recurring expense rules still need to be created.
+ * <p>
+ * Occurrences are created by catching up through a month, which the
+ * application does when a book is loaded and periodically while it runs, so
+ * a rule spanning years only adds rows for months that have begun. Each rule
+ * remembers the last month it was caught up through, and that mark is saved
+ * with the rule, so a month's occurrences are handed out once even across
+ * restarts.
+ */
+public class RecurringExpenseScheduler {
+    private final List<RecurringExpense> rules;
+
+    public RecurringExpenseScheduler() {
+        this.rules = new ArrayList<>();
+    }
+
+    /**
+     * Adds a rule, unless a rule with the same ID is already scheduled.
+     *
+     * @return true if the rule was added
+     */
+    public boolean addRule(RecurringExpense rule) {
+        if (indexOf(rule) >= 0) {
+            return false;
+        }
+        rules.add(rule);
+        return true;
+    }
+
+    /**
+     * Removes a rule. Occurrences that were already created are kept.
+     *
+     * @return true if the rule was scheduled
+     */
+    public boolean removeRule(RecurringExpense rule) {
+        int index = indexOf(rule);
+        if (index < 0) {
+            return false;
+        }
+        rules.remove(index);
+        return true;
+    }
+
+    /**
+     * Replaces every rule, such as with the rules saved with a book.
+     */
+    public void setRules(List<RecurringExpense> newRules) {
+        rules.clear();
+        for (RecurringExpense rule : newRules) {
+            addRule(rule);
+        }
+    }
+
+    /**
+     * Gets a copy of the rules, each with the month it is caught up through.
+     */
+    public List<RecurringExpense> getRules() {
+        return Collections.unmodifiableList(new ArrayList<>(rules));
+    }
+
+    public boolean hasRules() {
+        return !rules.isEmpty();
+    }
+
+    /**
+     * Takes every occurrence that has not been created yet, from the month after
+     * each rule was last caught up through until the month of the given date,
+     * handing them out in batches. The rules are marked as caught up once every
+     * batch has been handed out.
+     *
+     * @param through   A date in the last month to catch up on
+     * @param batchSize The number of occurrences per batch
+     * @param batches   Receives each batch, in month order
+     */
+    public void takeDueThrough(LocalDate through, int batchSize, Consumer<List<Expense>> batches) {
+        YearMonth last = YearMonth.from(through);
+        YearMonth first = null;
+        for (RecurringExpense rule : rules) {
+            YearMonth ruleFirst = firstDueMonth(rule);
+            if (first == null || ruleFirst.isBefore(first)) {
+                first = ruleFirst;
+            }
+        }
+        if (first == null || first.isAfter(last)) {
+            return;
+        }
+
+        List<Expense> batch = new ArrayList<>();
+        for (YearMonth month = first; !month.isAfter(last); month = month.plusMonths(1)) {
+            for (RecurringExpense rule : rules) {
+                if (firstDueMonth(rule).isAfter(month)
+                        || (rule.getEndDate() != null && YearMonth.from(rule.getEndDate()).isBefore(month))) {
+                    continue;
+                }
+                rule.forEachOccurrence(month.atDay(1), month.atEndOfMonth(),
+                        date -> batch.add(rule.createOccurrence(date)));
+            }
+            if (batch.size() >= batchSize) {
+                batches.accept(new ArrayList<>(batch));
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            batches.accept(batch);
+        }
+
+        for (int i = 0; i < rules.size(); i++) {
+            RecurringExpense rule = rules.get(i);
+            if (!firstDueMonth(rule).isAfter(last)) {
+                rules.set(i, rule.withCreatedThrough(last));
+            }
+        }
+    }
+
+    private static YearMonth firstDueMonth(RecurringExpense rule) {
+        YearMonth start = YearMonth.from(rule.getStartDate());
+        YearMonth created = rule.getCreatedThrough();
+        return created != null && !created.isBefore(start) ? created.plusMonths(1) : start;
+    }
+
+    private int indexOf(RecurringExpense rule) {
+        for (int i = 0; i < rules.size(); i++) {
+            if (rules.get(i).getId().equals(rule.getId())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,207 @@
+package controller;
+
+import model.Category;
+
+import java.time.YearMonth;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * A size-bounded, least-recently-used cache for report query results.
+ * <p>
+ * Every entry records the range of months and the category its result depends
+ * on, so a change to one expense only drops the entries that could have seen it.
+ */
+public class ReportCache {
+    private final int maxEntries;
+    private final LinkedHashMap<Key, Object> entries;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    /**
+     * Creates a cache holding at most the given number of results.
+     *
+     * @param maxEntries The maximum number of cached results
+     */
+    public ReportCache(int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive: " + maxEntries);
+        }
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Object> eldest) {
+                if (size() > ReportCache.this.maxEntries) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Gets a cached result, computing and storing it on a miss.
+     *
+     * @param key    The query key
+     * @param loader Computes the result when it is not cached
+     * @return The cached or freshly computed result
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized <T> T get(Key key, Supplier<T> loader) {
+        Object value = entries.get(key);
+        if (value != null) {
+            hits++;
+            return (T) value;
+        }
+        misses++;
+        T result = loader.get();
+        entries.put(key, result);
+        return result;
+    }
+
+    /**
+     * Drops every result that depends on the given month and category.
+     *
+     * @param month    The month that changed
+     * @param category The category that changed
+     */
+    public synchronized void invalidate(YearMonth month, Category category) {
+        Iterator<Key> iterator = entries.keySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().dependsOn(month, category)) {
+                iterator.remove();
+                invalidations++;
+            }
+        }
+    }
+
+    /**
+     * Drops every cached result.
+     */
+    public synchronized void invalidateAll() {
+        invalidations += entries.size();
+        entries.clear();
+    }
+
+    /**
+     * Gets a snapshot of the cache metrics.
+     */
+    public synchronized Stats getStats() {
+        return new Stats(hits, misses, evictions, invalidations, entries.size());
+    }
+
+    /**
+     * Identifies a cached query together with the data it depends on.
+     */
+    public static final class Key {
+        private final String query;
+        private final YearMonth fromMonth;
+        private final YearMonth toMonth;
+        private final Category category;
+        private final Object arguments;
+
+        /**
+         * Creates a key for a query result.
+         *
+         * @param query     The name of the query
+         * @param fromMonth The first month the result depends on, or null for no lower bound
+         * @param toMonth   The last month the result depends on, or null for no upper bound
+         * @param category  The only category the result depends on, or null for all categories
+         * @param arguments Any other query arguments that distinguish results (may be null)
+         */
+        public Key(String query, YearMonth fromMonth, YearMonth toMonth, Category category, Object arguments) {
+            this.query = query;
+            this.fromMonth = fromMonth;
+            this.toMonth = toMonth;
+            this.category = category;
+            this.arguments = arguments;
+        }
+
+        boolean dependsOn(YearMonth month, Category changedCategory) {
+            if (fromMonth != null && month.isBefore(fromMonth)) {
+                return false;
+            }
+            if (toMonth != null && month.isAfter(toMonth)) {
+                return false;
+            }
+            return category == null || category == changedCategory;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return query.equals(other.query)
+                    && Objects.equals(fromMonth, other.fromMonth)
+                    && Objects.equals(toMonth, other.toMonth)
+                    && category == other.category
+                    && Objects.equals(arguments, other.arguments);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(query, fromMonth, toMonth, category, arguments);
+        }
+    }
+
+    /**
+     * A point-in-time view of the cache metrics.
+     */
+    public static final class Stats {
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final long invalidations;
+        private final int size;
+
+        Stats(long hits, long misses, long evictions, long invalidations, int size) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.invalidations = invalidations;
+            this.size = size;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        public long getEvictions() {
+            return evictions;
+        }
+
+        public long getInvalidations() {
+            return invalidations;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public double getHitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 0 : (double) hits / requests;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("hits=%d, misses=%d, hitRate=%.1f%%, evictions=%d, invalidations=%d, size=%d",
+                    hits, misses, getHitRate() * 100, evictions, invalidations, size);
+        }
+    }
+}
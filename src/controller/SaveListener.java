@@ -0,0 +1,26 @@
+package controller;
+
+import model.Expense;
+
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+
+/**
+ * Receives the files an {@link AutosaveService} writes, such as a watcher that
+ * must not take the application's own saves for changes made by others.
+ * Both methods are called on the thread that saves.
+ */
+public interface SaveListener {
+    /**
+     * Called before the file is written.
+     */
+    void saveStarted();
+
+    /**
+     * Called once the file has been written, or the write failed.
+     *
+     * @param snapshot The expenses that were saved, or null if the save failed
+     * @param written  The file's attributes right after it was written, or null if they are unknown
+     */
+    void saveFinished(List<Expense> snapshot, BasicFileAttributes written);
+}
@@ -0,0 +1,210 @@
+package model;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.DoubleConsumer;
+
+/**
+ * Keeps a {@link QuantileSketch} of expense amounts for every month and category.
+ * <p>
+ * Next to each sketch the exact amounts are counted, one entry per distinct
+ * amount. Additions go straight into both. Sketches cannot forget a value, so
+ * removing or editing an expense only updates the counts and marks the sketch
+ * stale; the next query refills it from the counts of that month and category
+ * alone, never from the rest of the book.
+ */
+final class AmountDistributions {
+    private static final int CATEGORIES = Category.values().length;
+
+    private final Map<YearMonth, MonthAmounts> months;
+
+    AmountDistributions() {
+        this.months = new HashMap<>();
+    }
+
+    /**
+     * Records an amount.
+     */
+    void add(LocalDate date, Category category, double amount) {
+        MonthAmounts month = months.computeIfAbsent(YearMonth.from(date), key -> new MonthAmounts());
+        int index = category.ordinal();
+        if (month.counts[index] == null) {
+            month.counts[index] = new AmountCounts();
+        }
+        month.counts[index].add(amount);
+        if (!month.stale[index]) {
+            if (month.sketches[index] == null) {
+                month.sketches[index] = new QuantileSketch();
+            }
+            month.sketches[index].add(amount);
+        }
+    }
+
+    /**
+     * Records that a previously added amount is gone.
+     */
+    void remove(LocalDate date, Category category, double amount) {
+        YearMonth key = YearMonth.from(date);
+        MonthAmounts month = months.get(key);
+        int index = category.ordinal();
+        if (month == null || month.counts[index] == null || !month.counts[index].remove(amount)) {
+            return;
+        }
+        month.sketches[index] = null;
+        month.stale[index] = !month.counts[index].isEmpty();
+        if (month.isEmpty()) {
+            months.remove(key);
+        }
+    }
+
+    void clear() {
+        months.clear();
+    }
+
+    /**
+     * Merges the sketches of a range of months into a new sketch, first
+     * refilling any stale ones from their counts.
+     *
+     * @param from     The first month (inclusive)
+     * @param to       The last month (inclusive)
+     * @param category The category, or null for all categories
+     * @return A new sketch of the matching amounts
+     */
+    QuantileSketch get(YearMonth from, YearMonth to, Category category) {
+        QuantileSketch merged = new QuantileSketch();
+        for (Map.Entry<YearMonth, MonthAmounts> entry : months.entrySet()) {
+            YearMonth month = entry.getKey();
+            if (month.isBefore(from) || month.isAfter(to)) {
+                continue;
+            }
+            MonthAmounts amounts = entry.getValue();
+            for (int i = 0; i < CATEGORIES; i++) {
+                if (category == null || category.ordinal() == i) {
+                    QuantileSketch sketch = amounts.sketch(i);
+                    if (sketch != null) {
+                        merged.merge(sketch);
+                    }
+                }
+            }
+        }
+        return merged;
+    }
+
+    private static final class MonthAmounts {
+        private final QuantileSketch[] sketches = new QuantileSketch[CATEGORIES];
+        private final AmountCounts[] counts = new AmountCounts[CATEGORIES];
+        // Whether a category's sketch must be rebuilt from its counts
+        private final boolean[] stale = new boolean[CATEGORIES];
+
+        private QuantileSketch sketch(int index) {
+            if (stale[index]) {
+                QuantileSketch sketch = new QuantileSketch();
+                counts[index].forEach(sketch::add);
+                sketches[index] = sketch;
+                stale[index] = false;
+            }
+            return sketches[index];
+        }
+
+        private boolean isEmpty() {
+            for (AmountCounts count : counts) {
+                if (count != null && !count.isEmpty()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Multiset of amounts, as open-addressing tables of primitives keyed by
+     * the amount's bits. A removed amount keeps its slot with a count of zero,
+     * so probing stays correct; such slots are dropped when the table grows.
+     */
+    private static final class AmountCounts {
+        private long[] bits = new long[8];
+        // 0 marks a slot that was never used, otherwise the number of copies plus one
+        private int[] counts = new int[8];
+        private int used;
+        private int size;
+
+        private void add(double amount) {
+            long key = Double.doubleToLongBits(amount);
+            int slot = find(key);
+            if (counts[slot] == 0) {
+                bits[slot] = key;
+                counts[slot] = 2;
+                if (++used * 2 > counts.length) {
+                    grow();
+                }
+            } else {
+                counts[slot]++;
+            }
+            size++;
+        }
+
+        private boolean remove(double amount) {
+            int slot = find(Double.doubleToLongBits(amount));
+            if (counts[slot] <= 1) {
+                return false;
+            }
+            counts[slot]--;
+            size--;
+            return true;
+        }
+
+        private boolean isEmpty() {
+            return size == 0;
+        }
+
+        private void forEach(DoubleConsumer action) {
+            for (int i = 0; i < counts.length; i++) {
+                double amount = Double.longBitsToDouble(bits[i]);
+                for (int copy = 1; copy < counts[i]; copy++) {
+                    action.accept(amount);
+                }
+            }
+        }
+
+        private int find(long key) {
+            int mask = counts.length - 1;
+            int slot = hash(key) & mask;
+            while (counts[slot] != 0 && bits[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void grow() {
+            long[] oldBits = bits;
+            int[] oldCounts = counts;
+            int live = 0;
+            for (int count : oldCounts) {
+                if (count > 1) {
+                    live++;
+                }
+            }
+            int capacity = Integer.highestOneBit(Math.max(live, 4) * 4 - 1) << 1;
+            bits = new long[capacity];
+            counts = new int[capacity];
+            used = 0;
+            for (int i = 0; i < oldCounts.length; i++) {
+                if (oldCounts[i] > 1) {
+                    int slot = find(oldBits[i]);
+                    bits[slot] = oldBits[i];
+                    counts[slot] = oldCounts[i];
+                    used++;
+                }
+            }
+        }
+
+        // Finalizer of SplitMix64, so amounts that differ in a few low bits spread evenly
+        private static int hash(long key) {
+            key = (key ^ (key >>> 30)) * 0xbf58476d1ce4e5b9L;
+            key = (key ^ (key >>> 27)) * 0x94d049bb133111ebL;
+            return (int) (key ^ (key >>> 31));
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package model;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Spots unusually high spending as expenses are added and tells listeners about it.
+ * <p>
+ * Each category keeps running statistics of its expense amounts and of its
+ * weekly spending, updated in O(1) by every change and undone exactly when
+ * an expense is removed or edited. Amounts are compared on a log scale,
+ * since a category's expenses are usually many small ones and a few large
+ * ones. An expense is scored against its category as it was before the
+ * expense was added, and a week is flagged only when its spending first
+ * rises above the limit, not again for every later expense in it.
+ */
+public class AnomalyDetector {
+    private static final int CATEGORIES = Category.values().length;
+    // How many standard deviations above the mean counts as unusual
+    private static final double DEVIATIONS = 3.0;
+    // Too few past expenses or weeks give too rough a picture of what is usual
+    private static final int MIN_EXPENSES = 30;
+    private static final int MIN_WEEKS = 8;
+    // Steady weekly spending has little spread, so a spike must also be half again a usual week
+    private static final double MIN_SPIKE_RATIO = 1.5;
+
+    private final RunningStats[] amountStats;
+    private final RunningStats[] weeklyStats;
+    private final Map<LocalDate, WeekSpending> weeks;
+    private final List<AnomalyListener> listeners;
+
+    public AnomalyDetector() {
+        this.amountStats = new RunningStats[CATEGORIES];
+        this.weeklyStats = new RunningStats[CATEGORIES];
+        for (int i = 0; i < CATEGORIES; i++) {
+            amountStats[i] = new RunningStats();
+            weeklyStats[i] = new RunningStats();
+        }
+        this.weeks = new HashMap<>();
+        this.listeners = new ArrayList<>();
+    }
+
+    public void addListener(AnomalyListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(AnomalyListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Records an expense and, if asked to, alerts listeners when it or its
+     * week is unusually high for its category.
+     *
+     * @param expense The expense
+     * @param amount  Its amount in the reporting currency
+     * @param alert   False to record it without raising alerts, such as when rebuilding
+     */
+    void record(Expense expense, double amount, boolean alert) {
+        int slot = expense.getCategory().ordinal();
+        LocalDate weekStart = weekStart(expense.getDate());
+        RunningStats amounts = amountStats[slot];
+        double scaled = scale(amount);
+        if (alert && amounts.count() >= MIN_EXPENSES) {
+            double limit = amounts.mean() + DEVIATIONS * amounts.standardDeviation();
+            if (scaled > limit) {
+                fire(new SpendingAnomaly(SpendingAnomaly.Kind.UNUSUAL_AMOUNT, expense, weekStart, amount,
+                        unscale(amounts.mean()), unscale(limit)));
+            }
+        }
+        amounts.add(scaled);
+
+        WeekSpending week = weeks.computeIfAbsent(weekStart, key -> new WeekSpending());
+        RunningStats weekly = weeklyStats[slot];
+        double before = week.totals[slot];
+        double after = before + amount;
+        // The week is compared with the other weeks, so it leaves the statistics first
+        if (week.counts[slot] > 0) {
+            weekly.remove(before);
+        }
+        if (alert && weekly.count() >= MIN_WEEKS) {
+            double limit = Math.max(weekly.mean() + DEVIATIONS * weekly.standardDeviation(),
+                    weekly.mean() * MIN_SPIKE_RATIO);
+            if (after > limit && before <= limit) {
+                fire(new SpendingAnomaly(SpendingAnomaly.Kind.WEEKLY_SPIKE, expense, weekStart, after,
+                        weekly.mean(), limit));
+            }
+        }
+        weekly.add(after);
+        week.totals[slot] = after;
+        week.counts[slot]++;
+    }
+
+    /**
+     * Removes an expense recorded before.
+     *
+     * @param expense The expense
+     * @param amount  The amount it was recorded with
+     */
+    void forget(Expense expense, double amount) {
+        int slot = expense.getCategory().ordinal();
+        amountStats[slot].remove(scale(amount));
+
+        LocalDate weekStart = weekStart(expense.getDate());
+        WeekSpending week = weeks.get(weekStart);
+        RunningStats weekly = weeklyStats[slot];
+        weekly.remove(week.totals[slot]);
+        week.counts[slot]--;
+        if (week.counts[slot] > 0) {
+            week.totals[slot] -= amount;
+            weekly.add(week.totals[slot]);
+        } else {
+            week.totals[slot] = 0;
+            if (week.isEmpty()) {
+                weeks.remove(weekStart);
+            }
+        }
+    }
+
+    /**
+     * Forgets all recorded spending, keeping the listeners.
+     */
+    void clear() {
+        for (int i = 0; i < CATEGORIES; i++) {
+            amountStats[i].clear();
+            weeklyStats[i].clear();
+        }
+        weeks.clear();
+    }
+
+    private void fire(SpendingAnomaly anomaly) {
+        for (AnomalyListener listener : listeners) {
+            listener.anomalyDetected(anomaly);
+        }
+    }
+
+    private static LocalDate weekStart(LocalDate date) {
+        return date.minusDays(date.getDayOfWeek().getValue() - DayOfWeek.MONDAY.getValue());
+    }
+
+    /**
+     * Puts an amount on the log scale amounts are compared on. Refunds count as zero.
+     */
+    private static double scale(double amount) {
+        return Math.log1p(Math.max(amount, 0));
+    }
+
+    private static double unscale(double scaled) {
+        return Math.expm1(scaled);
+    }
+
+    private static final class WeekSpending {
+        private final double[] totals = new double[CATEGORIES];
+        private final int[] counts = new int[CATEGORIES];
+
+        private boolean isEmpty() {
+            for (int count : counts) {
+                if (count > 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package model;
+
+/**
+ * Receives notice of unusually high spending as expenses are added or edited.
+ */
+public interface AnomalyListener {
+    void anomalyDetected(SpendingAnomaly anomaly);
+}
@@ -0,0 +1,97 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Represents a monthly spending limit for one category, or for all spending.
+ */
+public final class Budget {
+    private static final double[] DEFAULT_THRESHOLDS = {0.8, 1.0};
+
+    private final String name;
+    private final Category category;
+    private final double monthlyLimit;
+    private final double[] thresholds;
+
+    /**
+     * Creates a budget that alerts at 80% and 100% of the limit.
+     *
+     * @param name         The budget name
+     * @param category     The category the budget covers, or null for all spending
+     * @param monthlyLimit The amount that may be spent each month
+     */
+    public Budget(String name, Category category, double monthlyLimit) {
+        this(name, category, monthlyLimit, DEFAULT_THRESHOLDS);
+    }
+
+    /**
+     * Creates a budget with custom alert thresholds.
+     *
+     * @param name         The budget name
+     * @param category     The category the budget covers, or null for all spending
+     * @param monthlyLimit The amount that may be spent each month
+     * @param thresholds   The fractions of the limit at which alerts fire, such as 0.5 and 1.0
+     */
+    public Budget(String name, Category category, double monthlyLimit, double... thresholds) {
+        if (monthlyLimit <= 0) {
+            throw new IllegalArgumentException("Monthly limit must be positive: " + monthlyLimit);
+        }
+        if (thresholds.length == 0) {
+            throw new IllegalArgumentException("A budget needs at least one threshold");
+        }
+        this.name = name;
+        this.category = category;
+        this.monthlyLimit = monthlyLimit;
+        this.thresholds = thresholds.clone();
+        Arrays.sort(this.thresholds);
+        if (this.thresholds[0] <= 0) {
+            throw new IllegalArgumentException("Thresholds must be positive");
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the category the budget covers, or null if it covers all spending.
+     */
+    public Category getCategory() {
+        return category;
+    }
+
+    public double getMonthlyLimit() {
+        return monthlyLimit;
+    }
+
+    /**
+     * Gets the alert thresholds as fractions of the limit, in ascending order.
+     */
+    public double[] getThresholds() {
+        return thresholds.clone();
+    }
+
+    /**
+     * Gets the number of thresholds reached by the given spending.
+     */
+    int thresholdsReached(double spent) {
+        int reached = 0;
+        while (reached < thresholds.length && spent >= thresholds[reached] * monthlyLimit) {
+            reached++;
+        }
+        return reached;
+    }
+
+    /**
+     * Gets the threshold at the given position.
+     */
+    double threshold(int index) {
+        return thresholds[index];
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s (%s) - $%.2f per month", name,
+                category == null ? "All categories" : category.getDisplayName(), monthlyLimit);
+    }
+}
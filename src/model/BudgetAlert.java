@@ -0,0 +1,57 @@
+package model;
+
+import java.time.YearMonth;
+
+/**
+ * Represents spending crossing one of a budget's thresholds.
+ */
+public class BudgetAlert {
+    private final Budget budget;
+    private final YearMonth month;
+    private final double threshold;
+    private final double spent;
+    private final boolean reached;
+
+    /**
+     * Creates a new budget alert.
+     *
+     * @param budget    The budget whose threshold was crossed
+     * @param month     The month the spending belongs to
+     * @param threshold The crossed threshold, as a fraction of the limit
+     * @param spent     The spending in the month after the change
+     * @param reached   True if spending rose to the threshold, false if it fell back below it
+     */
+    public BudgetAlert(Budget budget, YearMonth month, double threshold, double spent, boolean reached) {
+        this.budget = budget;
+        this.month = month;
+        this.threshold = threshold;
+        this.spent = spent;
+        this.reached = reached;
+    }
+
+    public Budget getBudget() {
+        return budget;
+    }
+
+    public YearMonth getMonth() {
+        return month;
+    }
+
+    public double getThreshold() {
+        return threshold;
+    }
+
+    public double getSpent() {
+        return spent;
+    }
+
+    public boolean isReached() {
+        return reached;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s %s %.0f%% in %s ($%.2f of $%.2f)", budget.getName(),
+                reached ? "reached" : "is back below", threshold * 100, month, spent, budget.getMonthlyLimit());
+    }
+}
@@ -0,0 +1,8 @@
+package model;
+
+/**
+ * Receives alerts when spending crosses a budget threshold.
+ */
+public interface BudgetListener {
+    void budgetThresholdCrossed(BudgetAlert alert);
+}
@@ -0,0 +1,169 @@
+package model;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tracks how much of each budget is used and raises alerts as thresholds are crossed.
+ * <p>
+ * Spending is kept per month and category and updated by every change, so a
+ * change only looks at the budgets of its own category and the overall
+ * budgets, whatever the number of expenses or months.
+ */
+public class BudgetTracker {
+    // Index of the all-categories total in each month's spending array
+    private static final int OVERALL = Category.values().length;
+
+    private final Map<YearMonth, double[]> spending;
+    private final List<List<Budget>> budgetsByCategory;
+    private final List<BudgetListener> listeners;
+
+    public BudgetTracker() {
+        this.spending = new HashMap<>();
+        this.budgetsByCategory = new ArrayList<>();
+        for (int i = 0; i <= OVERALL; i++) {
+            budgetsByCategory.add(new ArrayList<>());
+        }
+        this.listeners = new ArrayList<>();
+    }
+
+    /**
+     * Starts tracking a budget.
+     *
+     * @param budget The budget to add
+     */
+    public void addBudget(Budget budget) {
+        budgetsByCategory.get(slot(budget.getCategory())).add(budget);
+    }
+
+    /**
+     * Stops tracking a budget.
+     *
+     * @param budget The budget to remove
+     * @return true if the budget was tracked
+     */
+    public boolean removeBudget(Budget budget) {
+        return budgetsByCategory.get(slot(budget.getCategory())).remove(budget);
+    }
+
+    /**
+     * Gets every tracked budget, overall budgets first.
+     */
+    public List<Budget> getBudgets() {
+        List<Budget> budgets = new ArrayList<>(budgetsByCategory.get(OVERALL));
+        for (int i = 0; i < OVERALL; i++) {
+            budgets.addAll(budgetsByCategory.get(i));
+        }
+        return Collections.unmodifiableList(budgets);
+    }
+
+    public void addListener(BudgetListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(BudgetListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Gets the spending that counts against a budget in a month.
+     *
+     * @param budget The budget
+     * @param month  The month
+     * @return The amount spent
+     */
+    public double getSpent(Budget budget, YearMonth month) {
+        double[] monthly = spending.get(month);
+        return monthly == null ? 0 : monthly[slot(budget.getCategory())];
+    }
+
+    /**
+     * Records a change in spending and alerts listeners of every threshold it crosses.
+     *
+     * @param date     The date of the spending
+     * @param category The category of the spending
+     * @param amount   The amount added, or a negative amount removed
+     */
+    void record(LocalDate date, Category category, double amount) {
+        YearMonth month = YearMonth.from(date);
+        double[] monthly = spending.computeIfAbsent(month, key -> new double[OVERALL + 1]);
+        update(month, monthly, category.ordinal(), amount);
+        update(month, monthly, OVERALL, amount);
+    }
+
+    /**
+     * Records an edited expense, moving its spending in one step so that budgets
+     * it stays under do not see it leave and come back.
+     *
+     * @param beforeDate     The date before the edit
+     * @param beforeCategory The category before the edit
+     * @param beforeAmount   The amount before the edit
+     * @param afterDate      The date after the edit
+     * @param afterCategory  The category after the edit
+     * @param afterAmount    The amount after the edit
+     */
+    void recordChange(LocalDate beforeDate, Category beforeCategory, double beforeAmount,
+                      LocalDate afterDate, Category afterCategory, double afterAmount) {
+        YearMonth month = YearMonth.from(beforeDate);
+        if (!month.equals(YearMonth.from(afterDate))) {
+            record(beforeDate, beforeCategory, -beforeAmount);
+            record(afterDate, afterCategory, afterAmount);
+            return;
+        }
+        double[] monthly = spending.computeIfAbsent(month, key -> new double[OVERALL + 1]);
+        if (beforeCategory == afterCategory) {
+            update(month, monthly, afterCategory.ordinal(), afterAmount - beforeAmount);
+        } else {
+            update(month, monthly, beforeCategory.ordinal(), -beforeAmount);
+            update(month, monthly, afterCategory.ordinal(), afterAmount);
+        }
+        update(month, monthly, OVERALL, afterAmount - beforeAmount);
+    }
+
+    /**
+     * Records spending without raising alerts, for rebuilding after a bulk change.
+     */
+    void recordSilently(LocalDate date, Category category, double amount) {
+        double[] monthly = spending.computeIfAbsent(YearMonth.from(date), key -> new double[OVERALL + 1]);
+        monthly[category.ordinal()] += amount;
+        monthly[OVERALL] += amount;
+    }
+
+    /**
+     * Forgets all recorded spending, keeping the budgets and listeners.
+     */
+    void clearSpending() {
+        spending.clear();
+    }
+
+    private void update(YearMonth month, double[] monthly, int slot, double amount) {
+        double before = monthly[slot];
+        double after = before + amount;
+        monthly[slot] = after;
+        for (Budget budget : budgetsByCategory.get(slot)) {
+            int reachedBefore = budget.thresholdsReached(before);
+            int reachedAfter = budget.thresholdsReached(after);
+            for (int i = reachedBefore; i < reachedAfter; i++) {
+                fire(new BudgetAlert(budget, month, budget.threshold(i), after, true));
+            }
+            for (int i = reachedBefore - 1; i >= reachedAfter; i--) {
+                fire(new BudgetAlert(budget, month, budget.threshold(i), after, false));
+            }
+        }
+    }
+
+    private void fire(BudgetAlert alert) {
+        for (BudgetListener listener : listeners) {
+            listener.budgetThresholdCrossed(alert);
+        }
+    }
+
+    private static int slot(Category category) {
+        return category == null ? OVERALL : category.ordinal();
+    }
+}
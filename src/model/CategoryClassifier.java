@@ -0,0 +1,244 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+/**
+ * Guesses the category of an expense from the words in its name and description.
+ * <p>
+ * This is a multinomial naive Bayes classifier trained on the categorized
+ * expenses in the book. Adding, editing or removing an expense updates the
+ * word counts in place, in time linear in its number of words. Expenses in
+ * {@link Category#OTHER} are not learned from, since that is where
+ * uncategorized rows land, and it is the guess when none of the words are known.
+ * <p>
+ * A full retrain, needed after a snapshot was restored, counts the snapshot on
+ * a background thread while the old counts keep answering. Changes made in
+ * the meantime are held back, since they belong to the restored book rather
+ * than the old counts, and are replayed onto the new counts before those take
+ * over, so nothing learned during the retrain is lost. Learning and guessing must happen
+ * on the thread that changes the book; only retraining runs elsewhere.
+ */
+final class CategoryClassifier {
+    private static final Category[] CATEGORIES = Category.values();
+    // Marks the token holding a whole merchant name, which cannot clash with a word
+    private static final String NAME_PREFIX = "=";
+
+    private volatile Counts counts;
+    // Changes since the running retrain took its snapshot; null when none is running
+    private List<Change> pending;
+    private long retrainGeneration;
+
+    CategoryClassifier() {
+        this.counts = new Counts();
+    }
+
+    /**
+     * Learns from an expense added to the book.
+     */
+    synchronized void learn(Expense expense) {
+        if (pending != null) {
+            pending.add(new Change(expense, 1));
+        } else {
+            counts.update(expense, 1);
+        }
+    }
+
+    /**
+     * Unlearns an expense removed from the book, which must have been learned before.
+     */
+    synchronized void unlearn(Expense expense) {
+        if (pending != null) {
+            pending.add(new Change(expense, -1));
+        } else {
+            counts.update(expense, -1);
+        }
+    }
+
+    /**
+     * Starts counting a new set of expenses from scratch in the background. A
+     * later retrain supersedes one that has not finished yet.
+     *
+     * @param expenses The expenses to learn from, which must not change while they are counted
+     * @return Completes once the new counts are in use, or were superseded
+     */
+    synchronized CompletableFuture<Void> retrain(Iterable<Expense> expenses) {
+        long generation = ++retrainGeneration;
+        pending = new ArrayList<>();
+        return CompletableFuture.runAsync(() -> {
+            Counts fresh = new Counts();
+            for (Expense expense : expenses) {
+                fresh.update(expense, 1);
+            }
+            install(generation, fresh);
+        });
+    }
+
+    /**
+     * Guesses the category of an expense.
+     *
+     * @param name        The expense's name
+     * @param description The expense's description, or null
+     * @return The most likely category, or {@link Category#OTHER} if nothing is known about the words
+     */
+    Category predict(String name, String description) {
+        return counts.predict(tokens(name, description));
+    }
+
+    /**
+     * Guesses the categories of many expenses, spread over all processors.
+     *
+     * @param batch The expenses to guess for
+     * @return The guessed category of each expense, in order
+     */
+    Category[] predictAll(List<Expense> batch) {
+        Counts current = counts;
+        Category[] predicted = new Category[batch.size()];
+        IntStream.range(0, batch.size()).parallel().forEach(i -> {
+            Expense expense = batch.get(i);
+            predicted[i] = current.predict(tokens(expense.getName(), expense.getDescription()));
+        });
+        return predicted;
+    }
+
+    /**
+     * Gets the number of distinct words known in the counts now in use.
+     */
+    int vocabularySize() {
+        return counts.wordCounts.size();
+    }
+
+    private synchronized void install(long generation, Counts fresh) {
+        if (generation != retrainGeneration) {
+            return;
+        }
+        for (Change change : pending) {
+            fresh.update(change.expense, change.sign);
+        }
+        pending = null;
+        counts = fresh;
+    }
+
+    /**
+     * Splits a name and description into lower-case words of two or more
+     * letters or digits, leaving out plain numbers, plus the whole name.
+     */
+    private static List<String> tokens(String name, String description) {
+        List<String> tokens = new ArrayList<>();
+        String key = MerchantStats.key(name);
+        if (!key.isEmpty()) {
+            tokens.add(NAME_PREFIX + key);
+        }
+        addWords(key, tokens);
+        if (description != null) {
+            addWords(description.toLowerCase(Locale.ROOT), tokens);
+        }
+        return tokens;
+    }
+
+    private static void addWords(String text, List<String> tokens) {
+        int start = -1;
+        boolean hasLetter = false;
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                if (start < 0) {
+                    start = i;
+                    hasLetter = false;
+                }
+                hasLetter |= Character.isLetter(c);
+            } else if (start >= 0) {
+                if (hasLetter && i - start >= 2) {
+                    tokens.add(text.substring(start, i));
+                }
+                start = -1;
+            }
+        }
+    }
+
+    /**
+     * How often each word was seen in each category.
+     */
+    private static final class Counts {
+        private final Map<String, int[]> wordCounts = new HashMap<>();
+        private final long[] wordsPerCategory = new long[CATEGORIES.length];
+        private final long[] expensesPerCategory = new long[CATEGORIES.length];
+
+        private void update(Expense expense, int sign) {
+            Category category = expense.getCategory();
+            if (category == Category.OTHER) {
+                return;
+            }
+            int slot = category.ordinal();
+            expensesPerCategory[slot] += sign;
+            for (String token : tokens(expense.getName(), expense.getDescription())) {
+                int[] perCategory = wordCounts.computeIfAbsent(token, key -> new int[CATEGORIES.length]);
+                perCategory[slot] += sign;
+                wordsPerCategory[slot] += sign;
+                // Forgotten words leave the vocabulary so they no longer weigh on the smoothing
+                if (sign < 0 && perCategory[slot] == 0 && isZero(perCategory)) {
+                    wordCounts.remove(token);
+                }
+            }
+        }
+
+        private Category predict(List<String> tokens) {
+            double[] scores = new double[CATEGORIES.length];
+            int known = 0;
+            for (String token : tokens) {
+                int[] perCategory = wordCounts.get(token);
+                if (perCategory == null) {
+                    continue;
+                }
+                known++;
+                for (int i = 0; i < scores.length; i++) {
+                    scores[i] += Math.log(perCategory[i] + 1);
+                }
+            }
+            if (known == 0) {
+                return Category.OTHER;
+            }
+
+            // Laplace smoothing over the known vocabulary; words never seen are left out
+            int vocabulary = wordCounts.size();
+            Category best = Category.OTHER;
+            double bestScore = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < scores.length; i++) {
+                if (expensesPerCategory[i] <= 0) {
+                    continue;
+                }
+                double score = Math.log(expensesPerCategory[i]) + scores[i]
+                        - known * Math.log(wordsPerCategory[i] + vocabulary);
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = CATEGORIES[i];
+                }
+            }
+            return best;
+        }
+
+        private static boolean isZero(int[] perCategory) {
+            for (int count : perCategory) {
+                if (count != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final class Change {
+        private final Expense expense;
+        private final int sign;
+
+        private Change(Expense expense, int sign) {
+            this.expense = expense;
+            this.sign = sign;
+        }
+    }
+}
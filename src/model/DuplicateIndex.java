@@ -0,0 +1,229 @@
+package model;
+
+/**
+ * Hash index of the expenses in a book, used to find duplicates when
+ * importing statements that overlap earlier imports.
+ * <p>
+ * Each expense is reduced to 64-bit keys stored in open-addressing tables of
+ * primitives, so indexing millions of rows allocates no per-row objects:
+ * <ul>
+ *   <li>its ID,</li>
+ *   <li>a fingerprint of its normalized name, amount in cents, currency and date,
+ *       counted so that two identical rows in the book match two identical imported rows,</li>
+ *   <li>its amount and currency within a date bucket {@code nearDays + 1} days wide,
+ *       with the exact day kept alongside. A near-duplicate lookup only scans the
+ *       bucket of the day and its two neighbours.</li>
+ * </ul>
+ * Keys are hashes, so two different rows match only if their 64-bit keys
+ * collide, which is negligible for books of any realistic size.
+ */
+public class DuplicateIndex {
+    private final int nearDays;
+    private final Table ids;
+    private final Table fingerprints;
+    private final Table amounts;
+
+    /**
+     * Creates an empty index.
+     *
+     * @param expectedSize The number of expenses that will be added
+     * @param nearDays     How many days apart two expenses with the same amount
+     *                     may be and still count as near-duplicates
+     */
+    public DuplicateIndex(int expectedSize, int nearDays) {
+        if (nearDays < 0) {
+            throw new IllegalArgumentException("Near-duplicate days must not be negative: " + nearDays);
+        }
+        this.nearDays = nearDays;
+        this.ids = new Table(expectedSize);
+        this.fingerprints = new Table(expectedSize);
+        this.amounts = new Table(expectedSize);
+    }
+
+    /**
+     * Adds an expense to the index.
+     */
+    public void add(Expense expense) {
+        ids.increment(idKey(expense));
+        fingerprints.increment(fingerprint(expense));
+        long day = expense.getDate().toEpochDay();
+        amounts.append(amountKey(expense, Math.floorDiv(day, nearDays + 1)), (int) day);
+    }
+
+    /**
+     * Checks whether an expense with the same ID has been added.
+     */
+    public boolean containsId(Expense expense) {
+        return ids.count(idKey(expense)) > 0;
+    }
+
+    /**
+     * Matches an expense against an indexed expense with the same name, amount,
+     * currency and date. Each indexed expense matches at most once.
+     *
+     * @return true if an unmatched copy was found and is now used up
+     */
+    public boolean takeExact(Expense expense) {
+        return fingerprints.decrement(fingerprint(expense));
+    }
+
+    /**
+     * Checks whether an indexed expense has the same amount and currency and a
+     * date at most {@code nearDays} days away, whatever its name.
+     */
+    public boolean hasNear(Expense expense) {
+        long day = expense.getDate().toEpochDay();
+        long bucket = Math.floorDiv(day, nearDays + 1);
+        for (long b = bucket - 1; b <= bucket + 1; b++) {
+            if (amounts.containsWithin(amountKey(expense, b), (int) day, nearDays)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long idKey(Expense expense) {
+        return nonZero(mix(expense.getIdHigh() ^ mix(expense.getIdLow())));
+    }
+
+    /**
+     * Hashes the name ignoring case, spacing and punctuation, so that
+     * "ACME Corp." and "acme corp" are the same payee.
+     */
+    private static long fingerprint(Expense expense) {
+        long hash = 0xcbf29ce484222325L;
+        String name = expense.getName();
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                hash = (hash ^ Character.toLowerCase(c)) * 0x100000001b3L;
+            }
+        }
+        hash = mix(hash ^ cents(expense));
+        hash = mix(hash ^ expense.getDate().toEpochDay());
+        return nonZero(mix(hash ^ expense.getCurrency().hashCode()));
+    }
+
+    private static long amountKey(Expense expense, long bucket) {
+        long hash = mix(cents(expense) ^ ((long) expense.getCurrency().hashCode() << 40));
+        return nonZero(mix(hash ^ bucket));
+    }
+
+    private static long cents(Expense expense) {
+        return Math.round(expense.getAmount() * 100);
+    }
+
+    // Finalizer of SplitMix64, spreads every input bit over the whole key
+    private static long mix(long x) {
+        x = (x ^ (x >>> 30)) * 0xbf58476d1ce4e5b9L;
+        x = (x ^ (x >>> 27)) * 0x94d049bb133111ebL;
+        return x ^ (x >>> 31);
+    }
+
+    // Zero marks an empty slot
+    private static long nonZero(long key) {
+        return key == 0 ? 1 : key;
+    }
+
+    /**
+     * Open-addressing table of long keys with an int value per entry. Keys are
+     * already well mixed, so their low bits pick the slot directly.
+     */
+    private static final class Table {
+        private long[] keys;
+        private int[] values;
+        private int size;
+
+        private Table(int expectedSize) {
+            int capacity = Integer.highestOneBit(Math.max(expectedSize, 8) * 2 - 1) << 1;
+            this.keys = new long[capacity];
+            this.values = new int[capacity];
+        }
+
+        private int count(long key) {
+            int slot = find(key);
+            return keys[slot] == key ? values[slot] : 0;
+        }
+
+        private void increment(long key) {
+            int slot = find(key);
+            if (keys[slot] == key) {
+                values[slot]++;
+            } else {
+                insert(slot, key, 1);
+            }
+        }
+
+        private boolean decrement(long key) {
+            int slot = find(key);
+            if (keys[slot] != key || values[slot] == 0) {
+                return false;
+            }
+            values[slot]--;
+            return true;
+        }
+
+        /**
+         * Adds an entry even if the key is already present.
+         */
+        private void append(long key, int value) {
+            int mask = keys.length - 1;
+            int slot = (int) key & mask;
+            while (keys[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            insert(slot, key, value);
+        }
+
+        /**
+         * Checks whether any entry with the key has a value within the distance of the target.
+         */
+        private boolean containsWithin(long key, int target, int distance) {
+            int mask = keys.length - 1;
+            for (int slot = (int) key & mask; keys[slot] != 0; slot = (slot + 1) & mask) {
+                if (keys[slot] == key && Math.abs(values[slot] - target) <= distance) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Finds the slot holding the key, or the empty slot where it would go.
+         */
+        private int find(long key) {
+            int mask = keys.length - 1;
+            int slot = (int) key & mask;
+            while (keys[slot] != 0 && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void insert(int slot, long key, int value) {
+            keys[slot] = key;
+            values[slot] = value;
+            if (++size * 2 > keys.length) {
+                grow();
+            }
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new int[oldValues.length * 2];
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    int slot = (int) oldKeys[i] & mask;
+                    while (keys[slot] != 0) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package model;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Holds exchange rates over time, each giving the value of one unit of a
+ * currency in the base currency.
+ * <p>
+ * The rate for a day is the latest rate on or before it, or the earliest known
+ * rate for days before that. Looked-up rates are cached per currency and day,
+ * so converting many expenses from the same days costs one lookup per day.
+ * Currencies without any rate are converted at face value.
+ */
+public class ExchangeRates {
+    private final String baseCurrency;
+    private final Map<String, TreeMap<LocalDate, Double>> rates;
+    private final Map<String, Map<Long, Double>> dailyRateCache;
+
+    /**
+     * Creates an empty rate table.
+     *
+     * @param baseCurrency The currency the rates are expressed in
+     */
+    public ExchangeRates(String baseCurrency) {
+        this.baseCurrency = Expense.normalizeCurrency(baseCurrency);
+        this.rates = new HashMap<>();
+        this.dailyRateCache = new HashMap<>();
+    }
+
+    public String getBaseCurrency() {
+        return baseCurrency;
+    }
+
+    /**
+     * Sets the rate of a currency from a day on.
+     *
+     * @param currency The currency code
+     * @param date     The first day the rate applies to
+     * @param rate     The value of one unit of the currency in the base currency
+     */
+    public void addRate(String currency, LocalDate date, double rate) {
+        if (rate <= 0) {
+            throw new IllegalArgumentException("Exchange rate must be positive: " + rate);
+        }
+        String code = Expense.normalizeCurrency(currency);
+        rates.computeIfAbsent(code, key -> new TreeMap<>()).put(date, rate);
+        dailyRateCache.remove(code);
+    }
+
+    /**
+     * Gets the currencies that have at least one rate.
+     */
+    public Set<String> getCurrencies() {
+        return Collections.unmodifiableSet(rates.keySet());
+    }
+
+    /**
+     * Gets the value of one unit of a currency in the base currency on a day.
+     *
+     * @param currency The currency code
+     * @param date     The day
+     * @return The rate, or 1 for the base currency and currencies without rates
+     */
+    public double getRate(String currency, LocalDate date) {
+        if (currency.equals(baseCurrency)) {
+            return 1;
+        }
+        TreeMap<LocalDate, Double> history = rates.get(currency);
+        if (history == null) {
+            return 1;
+        }
+        return dailyRateCache.computeIfAbsent(currency, key -> new HashMap<>())
+                .computeIfAbsent(date.toEpochDay(), day -> {
+                    Map.Entry<LocalDate, Double> entry = history.floorEntry(date);
+                    return entry != null ? entry.getValue() : history.firstEntry().getValue();
+                });
+    }
+
+    /**
+     * Converts an amount between currencies at the rates of a day.
+     *
+     * @param amount The amount to convert
+     * @param from   The currency of the amount
+     * @param to     The currency to convert to
+     * @param date   The day whose rates are used
+     * @return The converted amount
+     */
+    public double convert(double amount, String from, String to, LocalDate date) {
+        if (from.equals(to)) {
+            return amount;
+        }
+        return amount * getRate(from, date) / getRate(to, date);
+    }
+}
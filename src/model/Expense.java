@@ -1,19 +1,43 @@
 
 package model;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.util.Locale;
+import java.util.Objects;
 import java.util.UUID;
 
 /**
  * Represents an expense entry in the expense tracker application.
+ * <p>
+ * Expenses are immutable; the {@code with*} methods return a copy with one
+ * field changed and the same ID, which is then passed to
+ * {@link ExpenseManager#updateExpense(Expense)}.
  */
-public class Expense {
-    private final String id;
-    private String name;
-    private double amount;
-    private LocalDate date;
-    private Category category;
-    private String description;
+public final class Expense {
+    /**
+     * The currency of expenses created without one.
+     */
+    public static final String DEFAULT_CURRENCY = "USD";
+
+    /**
+     * The earliest and latest dates an expense may have. Anything outside is
+     * taken to be a typing mistake, such as a year of 9999.
+     */
+    public static final LocalDate MIN_DATE = LocalDate.of(1900, 1, 1);
+    public static final LocalDate MAX_DATE = LocalDate.of(2199, 12, 31);
+
+    private static volatile ExpenseIdGenerator idGenerator = new TimeOrderedIdGenerator();
+
+    // The 128-bit ID is kept as two primitives; its string form is built on demand
+    private final long idHigh;
+    private final long idLow;
+    private final String name;
+    private final double amount;
+    private final String currency;
+    private final LocalDate date;
+    private final Category category;
+    private final String description;
 
     /**
      * Creates a new expense with the specified details.
@@ -25,12 +49,52 @@ public class Expense {
      * @param description Additional description (optional)
      */
     public Expense(String name, double amount, LocalDate date, Category category, String description) {
-        this.id = UUID.randomUUID().toString(); // Generate a unique ID
-        this.name = name;
-        this.amount = amount;
-        this.date = date;
-        this.category = category;
-        this.description = description;
+        this(name, amount, DEFAULT_CURRENCY, date, category, description);
+    }
+
+    /**
+     * Creates a new expense in the given currency.
+     *
+     * @param name        The name of the expense
+     * @param amount      The amount spent, in the expense's currency
+     * @param currency    The ISO 4217 code of the currency, such as "EUR"
+     * @param date        The date when the expense occurred
+     * @param category    The category of the expense
+     * @param description Additional description (optional)
+     */
+    public Expense(String name, double amount, String currency, LocalDate date, Category category,
+                   String description) {
+        this(idGenerator.nextId(), name, amount, currency, date, category, description);
+    }
+
+    /**
+     * Recreates an expense that already has an ID, such as one read back from storage.
+     *
+     * @param id          The persisted ID of the expense
+     * @param name        The name of the expense
+     * @param amount      The amount spent
+     * @param date        The date when the expense occurred
+     * @param category    The category of the expense
+     * @param description Additional description (optional)
+     */
+    public Expense(String id, String name, double amount, LocalDate date, Category category, String description) {
+        this(id, name, amount, DEFAULT_CURRENCY, date, category, description);
+    }
+
+    /**
+     * Recreates an expense in the given currency that already has an ID.
+     *
+     * @param id          The persisted ID of the expense
+     * @param name        The name of the expense
+     * @param amount      The amount spent, in the expense's currency
+     * @param currency    The ISO 4217 code of the currency, such as "EUR"
+     * @param date        The date when the expense occurred
+     * @param category    The category of the expense
+     * @param description Additional description (optional)
+     */
+    public Expense(String id, String name, double amount, String currency, LocalDate date, Category category,
+                   String description) {
+        this(parseId(id), name, amount, currency, date, category, description);
     }
 
     /**
@@ -40,53 +104,214 @@ public class Expense {
         this(name, amount, date, category, "");
     }
 
-    // Getters and setters
+    private Expense(UUID id, String name, double amount, String currency, LocalDate date, Category category,
+                    String description) {
+        this(id.getMostSignificantBits(), id.getLeastSignificantBits(), name, amount, currency, date, category,
+                description);
+    }
+
+    Expense(long idHigh, long idLow, String name, double amount, String currency, LocalDate date,
+            Category category, String description) {
+        this.idHigh = idHigh;
+        this.idLow = idLow;
+        this.name = name;
+        this.amount = checkAmount(amount);
+        this.currency = normalizeCurrency(currency);
+        this.date = checkDate(date);
+        this.category = category;
+        this.description = description;
+    }
+
+    /**
+     * Sets the strategy used to generate IDs for new expenses.
+     *
+     * @param generator The ID generator
+     */
+    public static void setIdGenerator(ExpenseIdGenerator generator) {
+        idGenerator = generator;
+    }
+
+    /**
+     * Converts an ID string to its 128-bit form. IDs that are not in UUID format
+     * are mapped to a name-based UUID, so the same string always gives the same ID.
+     *
+     * @param id The ID string
+     * @return The 128-bit ID
+     */
+    public static UUID parseId(String id) {
+        try {
+            return UUID.fromString(id);
+        } catch (IllegalArgumentException e) {
+            return UUID.nameUUIDFromBytes(id.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Validates a currency code, treating a missing one as {@link #DEFAULT_CURRENCY}.
+     *
+     * @param currency The currency code
+     * @return The upper-case code
+     * @throws IllegalArgumentException If the code is not three letters
+     */
+    public static String normalizeCurrency(String currency) {
+        if (currency == null || currency.isEmpty()) {
+            return DEFAULT_CURRENCY;
+        }
+        String code = currency.toUpperCase();
+        if (code.length() != 3 || !code.chars().allMatch(c -> c >= 'A' && c <= 'Z')) {
+            throw new IllegalArgumentException("Invalid currency code: " + currency);
+        }
+        return code;
+    }
+
+    /**
+     * Validates the amount of an expense. NaN or an infinite amount would
+     * poison every running total it is added to, and could never be subtracted again.
+     *
+     * @param amount The amount
+     * @return The same amount
+     * @throws IllegalArgumentException If the amount is NaN or infinite
+     */
+    public static double checkAmount(double amount) {
+        if (!Double.isFinite(amount)) {
+            throw new IllegalArgumentException("Amount must be a finite number: " + amount);
+        }
+        return amount;
+    }
+
+    /**
+     * Validates the date of an expense.
+     *
+     * @param date The date
+     * @return The same date
+     * @throws IllegalArgumentException If the date is before {@link #MIN_DATE} or after {@link #MAX_DATE}
+     */
+    public static LocalDate checkDate(LocalDate date) {
+        if (date != null && (date.isBefore(MIN_DATE) || date.isAfter(MAX_DATE))) {
+            throw new IllegalArgumentException("Date must be between " + MIN_DATE + " and " + MAX_DATE
+                    + ": " + date);
+        }
+        return date;
+    }
+
+    /**
+     * Formats an amount with its currency, such as "$12.50" or "12.50 EUR".
+     *
+     * @param amount   The amount
+     * @param currency The currency code
+     * @return The formatted amount
+     */
+    public static String formatAmount(double amount, String currency) {
+        // Always a decimal point, since the result also ends up in exported files
+        if (DEFAULT_CURRENCY.equals(currency)) {
+            return String.format(Locale.ROOT, "$%.2f", amount);
+        }
+        return String.format(Locale.ROOT, "%.2f %s", amount, currency);
+    }
+
+    /**
+     * Checks whether this expense has the given ID, without building its string form.
+     */
+    public boolean hasId(UUID id) {
+        return idHigh == id.getMostSignificantBits() && idLow == id.getLeastSignificantBits();
+    }
+
+    /**
+     * Checks whether this expense has the same ID as another one.
+     */
+    public boolean hasSameId(Expense other) {
+        return idHigh == other.idHigh && idLow == other.idLow;
+    }
+
+    // Getters and copy methods
     public String getId() {
-        return id;
+        return new UUID(idHigh, idLow).toString();
+    }
+
+    long getIdHigh() {
+        return idHigh;
+    }
+
+    long getIdLow() {
+        return idLow;
     }
 
     public String getName() {
         return name;
     }
 
-    public void setName(String name) {
-        this.name = name;
+    public Expense withName(String name) {
+        return new Expense(idHigh, idLow, name, amount, currency, date, category, description);
     }
 
     public double getAmount() {
         return amount;
     }
 
-    public void setAmount(double amount) {
-        this.amount = amount;
+    public Expense withAmount(double amount) {
+        return new Expense(idHigh, idLow, name, amount, currency, date, category, description);
+    }
+
+    /**
+     * Gets the ISO 4217 code of the currency the amount is in.
+     */
+    public String getCurrency() {
+        return currency;
+    }
+
+    public Expense withCurrency(String currency) {
+        return new Expense(idHigh, idLow, name, amount, currency, date, category, description);
     }
 
     public LocalDate getDate() {
         return date;
     }
 
-    public void setDate(LocalDate date) {
-        this.date = date;
+    public Expense withDate(LocalDate date) {
+        return new Expense(idHigh, idLow, name, amount, currency, date, category, description);
     }
 
     public Category getCategory() {
         return category;
     }
 
-    public void setCategory(Category category) {
-        this.category = category;
+    public Expense withCategory(Category category) {
+        return new Expense(idHigh, idLow, name, amount, currency, date, category, description);
     }
 
     public String getDescription() {
         return description;
     }
 
-    public void setDescription(String description) {
-        this.description = description;
+    public Expense withDescription(String description) {
+        return new Expense(idHigh, idLow, name, amount, currency, date, category, description);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Expense)) {
+            return false;
+        }
+        Expense other = (Expense) o;
+        return hasSameId(other)
+                && Double.compare(amount, other.amount) == 0
+                && currency.equals(other.currency)
+                && Objects.equals(name, other.name)
+                && Objects.equals(date, other.date)
+                && category == other.category
+                && Objects.equals(description, other.description);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(idHigh, idLow, name, amount, currency, date, category, description);
     }
 
     @Override
     public String toString() {
-        return String.format("%s - $%.2f (%s) - %s", name, amount, category, date);
+        return String.format("%s - %s (%s) - %s", name, formatAmount(amount, currency), category, date);
     }
 }
\ No newline at end of file
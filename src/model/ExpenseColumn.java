@@ -0,0 +1,29 @@
+package model;
+
+import java.util.Comparator;
+
+/**
+ * Represents the expense fields that lists can be sorted by.
+ */
+public enum ExpenseColumn {
+    NAME(Comparator.comparing(Expense::getName, String.CASE_INSENSITIVE_ORDER)),
+    // Amounts in different currencies are not comparable, so they are grouped by currency first
+    AMOUNT(Comparator.comparing(Expense::getCurrency).thenComparingDouble(Expense::getAmount)),
+    DATE(Comparator.comparing(Expense::getDate)),
+    CATEGORY(Comparator.comparing(Expense::getCategory)),
+    DESCRIPTION(Comparator.comparing(Expense::getDescription,
+            Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER)));
+
+    private final Comparator<Expense> comparator;
+
+    ExpenseColumn(Comparator<Expense> comparator) {
+        this.comparator = comparator;
+    }
+
+    /**
+     * Gets the comparator that orders expenses by this column, ascending.
+     */
+    public Comparator<Expense> getComparator() {
+        return comparator;
+    }
+}
@@ -0,0 +1,18 @@
+package model;
+
+import java.util.UUID;
+
+/**
+ * Strategy for generating the IDs of new expenses.
+ * <p>
+ * IDs are 128-bit values kept as two primitive longs inside {@link Expense};
+ * the string form is only produced when {@link Expense#getId()} is called.
+ */
+public interface ExpenseIdGenerator {
+    /**
+     * Generates a new, unique ID.
+     *
+     * @return The new ID
+     */
+    UUID nextId();
+}
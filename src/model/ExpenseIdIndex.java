@@ -0,0 +1,100 @@
+package model;
+
+/**
+ * Set of the expense IDs in a book, kept up to date as expenses are added and
+ * removed so that checking an ID never scans the book.
+ * <p>
+ * IDs are stored as their two longs in open-addressing tables of primitives,
+ * with a count per ID in case a book holds the same ID twice. A removed ID
+ * keeps its slot with a count of zero, so probing stays correct; such slots
+ * are dropped when the table grows.
+ */
+final class ExpenseIdIndex {
+    private long[] highs;
+    private long[] lows;
+    // 0 marks a slot that was never used, otherwise the number of copies plus one
+    private int[] counts;
+    private int used;
+
+    ExpenseIdIndex() {
+        clear();
+    }
+
+    void clear() {
+        highs = new long[16];
+        lows = new long[16];
+        counts = new int[16];
+        used = 0;
+    }
+
+    void add(Expense expense) {
+        int slot = find(expense.getIdHigh(), expense.getIdLow());
+        if (counts[slot] == 0) {
+            highs[slot] = expense.getIdHigh();
+            lows[slot] = expense.getIdLow();
+            counts[slot] = 2;
+            if (++used * 2 > counts.length) {
+                grow();
+            }
+        } else {
+            counts[slot]++;
+        }
+    }
+
+    void remove(Expense expense) {
+        int slot = find(expense.getIdHigh(), expense.getIdLow());
+        if (counts[slot] > 1) {
+            counts[slot]--;
+        }
+    }
+
+    boolean contains(long idHigh, long idLow) {
+        return counts[find(idHigh, idLow)] > 1;
+    }
+
+    /**
+     * Finds the slot holding the ID, or the unused slot where it would go.
+     */
+    private int find(long idHigh, long idLow) {
+        int mask = counts.length - 1;
+        int slot = hash(idHigh, idLow) & mask;
+        while (counts[slot] != 0 && (highs[slot] != idHigh || lows[slot] != idLow)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        long[] oldHighs = highs;
+        long[] oldLows = lows;
+        int[] oldCounts = counts;
+        int live = 0;
+        for (int count : oldCounts) {
+            if (count > 1) {
+                live++;
+            }
+        }
+        int capacity = Integer.highestOneBit(Math.max(live, 8) * 4 - 1) << 1;
+        highs = new long[capacity];
+        lows = new long[capacity];
+        counts = new int[capacity];
+        used = 0;
+        for (int i = 0; i < oldCounts.length; i++) {
+            if (oldCounts[i] > 1) {
+                int slot = find(oldHighs[i], oldLows[i]);
+                highs[slot] = oldHighs[i];
+                lows[slot] = oldLows[i];
+                counts[slot] = oldCounts[i];
+                used++;
+            }
+        }
+    }
+
+    // Finalizer of SplitMix64, so sequential and time-ordered IDs spread evenly
+    private static int hash(long idHigh, long idLow) {
+        long x = idHigh ^ Long.rotateLeft(idLow, 32);
+        x = (x ^ (x >>> 30)) * 0xbf58476d1ce4e5b9L;
+        x = (x ^ (x >>> 27)) * 0x94d049bb133111ebL;
+        return (int) (x ^ (x >>> 31));
+    }
+}
@@ -4,9 +4,19 @@ import java.time.LocalDate;
 import java.time.Month;
 import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -15,9 +25,52 @@ import java.util.stream.Collectors;
  */
 public class ExpenseManager {
     private final List<Expense> expenses;
+    private final SpendingTimeline timeline;
+    private final SpendingTimeline[] categoryTimelines;
+    private boolean timelineStale;
+    private final BudgetTracker budgets;
+    private final AnomalyDetector anomalies;
+    private boolean alertsMuted;
+    private final Map<String, SpendingTimeline> currencyTimelines;
+    private ExchangeRates exchangeRates;
+    private String reportingCurrency;
+    private final Map<ExpenseColumn, SortPermutation> sortPermutations;
+    private final AmountDistributions distributions;
+    private final MerchantStats merchants;
+    private final CategoryClassifier classifier;
+    private final ExpenseIdIndex ids;
+    private boolean exactMerchantStats;
 
     public ExpenseManager() {
-        this.expenses = new ArrayList<>();
+        this(new VersionedList<>());
+    }
+
+    /**
+     * Creates a manager on top of the given storage, such as an {@link OffHeapExpenseList}
+     * for books too large to keep on the heap. The storage must be empty.
+     *
+     * @param storage The list that holds the expense rows
+     */
+    public ExpenseManager(List<Expense> storage) {
+        if (!storage.isEmpty()) {
+            throw new IllegalArgumentException("Expense storage must be empty");
+        }
+        this.expenses = storage;
+        this.timeline = new SpendingTimeline();
+        this.categoryTimelines = new SpendingTimeline[Category.values().length];
+        for (int i = 0; i < categoryTimelines.length; i++) {
+            categoryTimelines[i] = new SpendingTimeline();
+        }
+        this.sortPermutations = new EnumMap<>(ExpenseColumn.class);
+        this.distributions = new AmountDistributions();
+        this.merchants = new MerchantStats();
+        this.classifier = new CategoryClassifier();
+        this.ids = new ExpenseIdIndex();
+        this.budgets = new BudgetTracker();
+        this.anomalies = new AnomalyDetector();
+        this.currencyTimelines = new TreeMap<>();
+        this.exchangeRates = new ExchangeRates(Expense.DEFAULT_CURRENCY);
+        this.reportingCurrency = Expense.DEFAULT_CURRENCY;
     }
 
     /**
@@ -26,7 +79,93 @@ public class ExpenseManager {
      * @param expense The expense to add
      */
     public void addExpense(Expense expense) {
+        // The totals go first so that a failure there leaves the list untouched
+        addToTotals(expense);
         expenses.add(expense);
+        for (SortPermutation order : sortPermutations.values()) {
+            order.inserted(expenses.size() - 1);
+        }
+    }
+
+    /**
+     * Adds several expenses at once, merging them into the sort orders in one pass.
+     *
+     * @param batch The expenses to add, in order
+     */
+    public void addExpenses(Collection<Expense> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        int start = expenses.size();
+        for (Expense expense : batch) {
+            addToTotals(expense);
+        }
+        expenses.addAll(batch);
+        for (SortPermutation order : sortPermutations.values()) {
+            order.appended(start, batch.size());
+        }
+    }
+
+    /**
+     * Adds several expenses that were already in the book before, such as rows
+     * read from its file, without raising budget or anomaly alerts.
+     *
+     * @param batch The expenses to add, in order
+     */
+    public void addExistingExpenses(Collection<Expense> batch) {
+        alertsMuted = true;
+        try {
+            addExpenses(batch);
+        } finally {
+            alertsMuted = false;
+        }
+    }
+
+    /**
+     * Sorts imported rows into new rows and duplicates of expenses already in
+     * the book, without changing the book. The book is hashed once and each
+     * imported row is looked up in O(1), so the cost is linear in both sizes.
+     *
+     * @param imported The rows to import, such as a bank statement that overlaps earlier imports
+     * @param nearDays How many days apart a row with the same amount as an
+     *                 existing expense may be and still be treated as a possible duplicate
+     * @return The new rows, in order, and the duplicates that were left out
+     */
+    public ImportResult matchImport(List<Expense> imported, int nearDays) {
+        DuplicateIndex index = new DuplicateIndex(expenses.size(), nearDays);
+        for (Expense expense : expenses) {
+            index.add(expense);
+        }
+
+        List<Expense> added = new ArrayList<>();
+        List<Expense> exactDuplicates = new ArrayList<>();
+        List<Expense> nearDuplicates = new ArrayList<>();
+        for (Expense expense : imported) {
+            // A row with a known ID still uses up its copy so that it cannot match twice
+            boolean knownId = index.containsId(expense);
+            if (index.takeExact(expense) || knownId) {
+                exactDuplicates.add(expense);
+            } else if (index.hasNear(expense)) {
+                nearDuplicates.add(expense);
+            } else {
+                added.add(expense);
+            }
+        }
+        return new ImportResult(added, exactDuplicates, nearDuplicates);
+    }
+
+    /**
+     * Inserts an expense at a given position, e.g. to put back a removed expense.
+     *
+     * @param index   The position of the expense
+     * @param expense The expense to insert
+     */
+    public void insertExpense(int index, Expense expense) {
+        addToTotals(expense);
+        expenses.add(index, expense);
+        for (SortPermutation order : sortPermutations.values()) {
+            order.inserted(index);
+        }
     }
 
     /**
@@ -36,7 +175,54 @@ public class ExpenseManager {
      * @return true if the expense was found and removed, false otherwise
      */
     public boolean removeExpense(String expenseId) {
-        return expenses.removeIf(expense -> expense.getId().equals(expenseId));
+        UUID id = Expense.parseId(expenseId);
+        int index = indexOfId(id);
+        if (index < 0) {
+            return false;
+        }
+        for (SortPermutation order : sortPermutations.values()) {
+            order.removing(index);
+        }
+        Expense removed = expenses.remove(index);
+        removeFromTotals(removed);
+        return true;
+    }
+
+    /**
+     * Removes several expenses by ID in a single pass over the collection.
+     *
+     * @param expenseIds The IDs of the expenses to remove
+     * @return The number of expenses removed
+     */
+    public int removeExpenses(Collection<String> expenseIds) {
+        Set<UUID> ids = new HashSet<>();
+        for (String expenseId : expenseIds) {
+            ids.add(Expense.parseId(expenseId));
+        }
+
+        BitSet removedRows = new BitSet(expenses.size());
+        int[] newIndexes = sortPermutations.isEmpty() ? null : new int[expenses.size()];
+        int index = 0;
+        int removed = 0;
+        for (Expense expense : expenses) {
+            if (ids.contains(new UUID(expense.getIdHigh(), expense.getIdLow()))) {
+                removeFromTotals(expense);
+                removedRows.set(index);
+                removed++;
+            }
+            if (newIndexes != null) {
+                newIndexes[index] = removedRows.get(index) ? -1 : index - removed;
+            }
+            index++;
+        }
+
+        if (removed > 0) {
+            removeRows(removedRows);
+            for (SortPermutation order : sortPermutations.values()) {
+                order.remapped(newIndexes);
+            }
+        }
+        return removed;
     }
 
     /**
@@ -46,22 +232,182 @@ public class ExpenseManager {
      * @return true if the expense was found and updated, false otherwise
      */
     public boolean updateExpense(Expense updatedExpense) {
-        for (int i = 0; i < expenses.size(); i++) {
-            if (expenses.get(i).getId().equals(updatedExpense.getId())) {
-                expenses.set(i, updatedExpense);
-                return true;
+        int index = indexOfId(Expense.parseId(updatedExpense.getId()));
+        if (index < 0) {
+            return false;
+        }
+        replaceAt(index, updatedExpense);
+        return true;
+    }
+
+    /**
+     * Applies changes made to the book elsewhere, such as by another program
+     * editing the saved file, in one batch. The book is indexed by ID once, so
+     * the cost is linear in the size of the book plus the changes. Rows that
+     * are already in the book unchanged, and IDs that are already gone, are
+     * skipped, so applying the same changes twice has no further effect.
+     *
+     * @param upserts    Rows to add, or to put in place of the expense with the same ID
+     * @param removedIds The IDs of expenses to remove
+     * @return Every expense that was added, replaced, or removed, in both its old and new versions
+     */
+    public List<Expense> applyChanges(Collection<Expense> upserts, Collection<String> removedIds) {
+        List<Expense> touched = new ArrayList<>();
+        if (upserts.isEmpty() && removedIds.isEmpty()) {
+            return touched;
+        }
+
+        Map<UUID, Integer> positions = new HashMap<>(expenses.size() * 2);
+        int position = 0;
+        for (Expense expense : expenses) {
+            positions.put(new UUID(expense.getIdHigh(), expense.getIdLow()), position++);
+        }
+
+        // The last row for an ID wins, and keeps the place of the first one
+        Map<UUID, Expense> added = new LinkedHashMap<>();
+        for (Expense expense : upserts) {
+            UUID id = new UUID(expense.getIdHigh(), expense.getIdLow());
+            Integer index = positions.get(id);
+            if (index == null) {
+                added.put(id, expense);
+                continue;
+            }
+            Expense existing = expenses.get(index);
+            if (!existing.equals(expense)) {
+                replaceAt(index, expense);
+                touched.add(existing);
+                touched.add(expense);
             }
         }
-        return false;
+
+        List<String> present = new ArrayList<>();
+        for (String expenseId : removedIds) {
+            Integer index = positions.get(Expense.parseId(expenseId));
+            if (index != null) {
+                present.add(expenseId);
+                touched.add(expenses.get(index));
+            }
+        }
+        removeExpenses(present);
+
+        addExpenses(added.values());
+        touched.addAll(added.values());
+        return touched;
+    }
+
+    /**
+     * Finds an expense by its ID.
+     *
+     * @param expenseId The ID of the expense
+     * @return The expense, or null if there is none with that ID
+     */
+    public Expense getExpenseById(String expenseId) {
+        UUID id = Expense.parseId(expenseId);
+        int index = indexOfId(id);
+        return index < 0 ? null : expenses.get(index);
+    }
+
+    /**
+     * Checks whether an expense with the given ID is in the book, using an index
+     * of the IDs instead of scanning the expenses.
+     *
+     * @param expenseId The ID of the expense
+     * @return true if there is an expense with that ID
+     */
+    public boolean containsExpense(String expenseId) {
+        UUID id = Expense.parseId(expenseId);
+        timeline();
+        return ids.contains(id.getMostSignificantBits(), id.getLeastSignificantBits());
+    }
+
+    /**
+     * Gets the position of an expense in insertion order.
+     *
+     * @param expenseId The ID of the expense
+     * @return The position, or -1 if there is no expense with that ID
+     */
+    public int getExpenseIndex(String expenseId) {
+        UUID id = Expense.parseId(expenseId);
+        return indexOfId(id);
     }
 
     /**
      * Gets all expenses.
      *
-     * @return A list of all expenses
+     * @return An unmodifiable list of all expenses
      */
     public List<Expense> getAllExpenses() {
-        return new ArrayList<>(expenses);
+        return getSnapshot();
+    }
+
+    /**
+     * Gets an immutable snapshot of the expenses. With the default storage this
+     * takes O(1) and shares structure with the live collection; an
+     * {@link OffHeapExpenseList} shares its off-heap rows instead. Other
+     * storages are copied.
+     *
+     * @return The current expenses, unaffected by later changes
+     */
+    public List<Expense> getSnapshot() {
+        if (expenses instanceof VersionedList) {
+            return ((VersionedList<Expense>) expenses).snapshot();
+        }
+        if (expenses instanceof OffHeapExpenseList) {
+            return ((OffHeapExpenseList) expenses).snapshot();
+        }
+        return PersistentList.of(expenses);
+    }
+
+    /**
+     * Replaces the expenses with a snapshot taken earlier and rebuilds the indexes.
+     *
+     * @param snapshot The snapshot to restore, which must not change afterwards
+     */
+    public void restoreSnapshot(List<Expense> snapshot) {
+        if (expenses instanceof VersionedList && snapshot instanceof PersistentList) {
+            ((VersionedList<Expense>) expenses).restore((PersistentList<Expense>) snapshot);
+        } else {
+            expenses.clear();
+            expenses.addAll(snapshot);
+        }
+        timelineStale = true;
+        sortPermutations.clear();
+        classifier.retrain(snapshot);
+    }
+
+    /**
+     * Gets the number of expenses.
+     *
+     * @return The number of expenses
+     */
+    public int getExpenseCount() {
+        return expenses.size();
+    }
+
+    /**
+     * Gets one page of expenses without copying the whole collection.
+     *
+     * @param offset    The index of the first expense to return
+     * @param limit     The maximum number of expenses to return
+     * @param sortBy    The column to sort by, or null to keep insertion order
+     * @param ascending true for ascending order, false for descending
+     * @return The expenses on the requested page
+     */
+    public List<Expense> getExpensesPage(int offset, int limit, ExpenseColumn sortBy, boolean ascending) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Offset and limit must not be negative");
+        }
+        int size = expenses.size();
+        int end = (int) Math.min((long) offset + limit, size);
+        List<Expense> page = new ArrayList<>(Math.max(end - offset, 0));
+        SortPermutation order = sortBy == null ? null : sortPermutation(sortBy);
+
+        for (int position = offset; position < end; position++) {
+            int sortedPosition = ascending ? position : size - 1 - position;
+            page.add(expenses.get(order == null ? sortedPosition : order.get(sortedPosition)));
+        }
+
+        return page;
     }
 
     /**
@@ -70,9 +416,7 @@ public class ExpenseManager {
      * @return The total amount
      */
     public double calculateTotalExpenses() {
-        return expenses.stream()
-                .mapToDouble(Expense::getAmount)
-                .sum();
+        return timeline().total();
     }
 
     /**
@@ -99,9 +443,8 @@ public class ExpenseManager {
      * @return The total amount for the specified month and year
      */
     public double calculateMonthlyTotal(int year, Month month) {
-        return getExpensesByMonth(year, month).stream()
-                .mapToDouble(Expense::getAmount)
-                .sum();
+        YearMonth yearMonth = YearMonth.of(year, month);
+        return timeline().sum(yearMonth.atDay(1), yearMonth.atEndOfMonth());
     }
 
     /**
@@ -120,43 +463,549 @@ public class ExpenseManager {
      * Calculates monthly totals for the past several months.
      *
      * @param numberOfMonths The number of past months to include
-     * @return A map of YearMonth to total expense amount
+     * @return A map of YearMonth to total expense amount, oldest month first
      */
     public Map<YearMonth, Double> getMonthlyTotals(int numberOfMonths) {
-        Map<YearMonth, Double> monthlyTotals = new HashMap<>();
-        LocalDate today = LocalDate.now();
+        return getMonthlyTotals(YearMonth.now(), numberOfMonths);
+    }
 
-        for (int i = 0; i < numberOfMonths; i++) {
-            YearMonth yearMonth = YearMonth.from(today.minusMonths(i));
-            double total = expenses.stream()
-                    .filter(expense -> YearMonth.from(expense.getDate()).equals(yearMonth))
-                    .mapToDouble(Expense::getAmount)
-                    .sum();
-            monthlyTotals.put(yearMonth, total);
+    /**
+     * Calculates monthly totals for the months leading up to a given month.
+     *
+     * @param endMonth       The last month to include
+     * @param numberOfMonths The number of months to include
+     * @return A map of YearMonth to total expense amount, oldest month first
+     */
+    public Map<YearMonth, Double> getMonthlyTotals(YearMonth endMonth, int numberOfMonths) {
+        Map<YearMonth, Double> monthlyTotals = new LinkedHashMap<>();
+        if (numberOfMonths <= 0) {
+            return monthlyTotals;
+        }
+
+        YearMonth startMonth = endMonth.minusMonths(numberOfMonths - 1);
+        for (TrendPoint point : getTrend(startMonth.atDay(1), endMonth.atEndOfMonth(), Granularity.MONTH)) {
+            monthlyTotals.put(YearMonth.from(point.getPeriodStart()), point.getTotal());
         }
 
         return monthlyTotals;
     }
 
+    /**
+     * Calculates an ordered spending series over an arbitrary date window.
+     * The first and last periods are clipped to the window.
+     *
+     * @param from        The first day of the window (inclusive)
+     * @param to          The last day of the window (inclusive)
+     * @param granularity The size of each period in the series
+     * @return The totals per period, in chronological order
+     */
+    public List<TrendPoint> getTrend(LocalDate from, LocalDate to, Granularity granularity) {
+        List<TrendPoint> trend = new ArrayList<>();
+        forEachTrendPoint(from, to, granularity, trend::add);
+        return trend;
+    }
+
+    /**
+     * Streams the spending series over a date window to a consumer, one period
+     * at a time, without building a list.
+     *
+     * @param from        The first day of the window (inclusive)
+     * @param to          The last day of the window (inclusive)
+     * @param granularity The size of each period in the series
+     * @param consumer    Receives the totals per period, in chronological order
+     */
+    public void forEachTrendPoint(LocalDate from, LocalDate to, Granularity granularity,
+                                  Consumer<TrendPoint> consumer) {
+        SpendingTimeline totals = timeline();
+
+        LocalDate periodStart = granularity.periodStart(from);
+        while (!periodStart.isAfter(to)) {
+            LocalDate nextStart = granularity.nextPeriodStart(periodStart);
+            LocalDate start = periodStart.isBefore(from) ? from : periodStart;
+            LocalDate end = nextStart.minusDays(1).isAfter(to) ? to : nextStart.minusDays(1);
+            consumer.accept(new TrendPoint(start, end, totals.sum(start, end)));
+            periodStart = nextStart;
+        }
+    }
+
     /**
      * Calculates spending by category for a specific month.
      *
      * @param year  The year
      * @param month The month
-     * @return A map of Category to total expense amount
+     * @return A map of Category to total expense amount, in category order
      */
     public Map<Category, Double> getCategoryTotalsForMonth(int year, Month month) {
-        Map<Category, Double> categoryTotals = new HashMap<>();
-        List<Expense> monthlyExpenses = getExpensesByMonth(year, month);
+        YearMonth yearMonth = YearMonth.of(year, month);
+        return getCategoryTotals(yearMonth.atDay(1), yearMonth.atEndOfMonth());
+    }
 
+    /**
+     * Calculates spending by category between two dates.
+     *
+     * @param from The first day of the range (inclusive)
+     * @param to   The last day of the range (inclusive)
+     * @return A map of Category to total expense amount, in category order
+     */
+    public Map<Category, Double> getCategoryTotals(LocalDate from, LocalDate to) {
+        Map<Category, Double> categoryTotals = new EnumMap<>(Category.class);
+        timeline();
         for (Category category : Category.values()) {
-            double total = monthlyExpenses.stream()
-                    .filter(expense -> expense.getCategory() == category)
-                    .mapToDouble(Expense::getAmount)
-                    .sum();
-            categoryTotals.put(category, total);
+            categoryTotals.put(category, categoryTimelines[category.ordinal()].sum(from, to));
         }
-
         return categoryTotals;
     }
+
+    /**
+     * Gets the distribution of expense amounts in a range of months, in the
+     * reporting currency, for quantiles such as the median or p90. Sketches
+     * are kept per month and category as expenses change and merged here, so
+     * nothing is sorted; the sketch of a month and category in which expenses
+     * were removed or edited is rebuilt once from that month's exact counts.
+     *
+     * @param from     The first month (inclusive)
+     * @param to       The last month (inclusive)
+     * @param category The category, or null for all categories
+     * @return A new sketch of the amounts, which the caller may keep or merge
+     */
+    public QuantileSketch getAmountDistribution(YearMonth from, YearMonth to, Category category) {
+        timeline();
+        return distributions.get(from, to, category);
+    }
+
+    /**
+     * Gets the distribution of expense amounts for each category in a month.
+     *
+     * @param year  The year
+     * @param month The month
+     * @return A map of Category to the sketch of its amounts, in category order
+     */
+    public Map<Category, QuantileSketch> getCategoryDistributionsForMonth(int year, Month month) {
+        YearMonth yearMonth = YearMonth.of(year, month);
+        timeline();
+        Map<Category, QuantileSketch> categoryDistributions = new EnumMap<>(Category.class);
+        for (Category category : Category.values()) {
+            categoryDistributions.put(category, distributions.get(yearMonth, yearMonth, category));
+        }
+        return categoryDistributions;
+    }
+
+    /**
+     * Gets the merchants with the most spending in a range of months, in the
+     * reporting currency. Merchants are matched by name, ignoring case.
+     * <p>
+     * Normally this merges small per-month summaries, so the cost does not
+     * depend on the number of expenses; totals may then be overestimated by
+     * up to {@link MerchantTotal#getMaxError()}, and a merchant whose spending
+     * is close to the cut-off may be missing. In exact mode the expenses are
+     * scanned instead.
+     *
+     * @param from  The first month (inclusive)
+     * @param to    The last month (inclusive)
+     * @param limit The maximum number of merchants, e.g. 20
+     * @return The merchants, highest spending first
+     */
+    public List<MerchantTotal> getTopMerchants(YearMonth from, YearMonth to, int limit) {
+        if (exactMerchantStats) {
+            Map<String, MerchantTotal> totals = exactMerchantTotals(from, to);
+            return totals.values().stream()
+                    .filter(total -> total.getTotal() > 0)
+                    .sorted(Comparator.comparingDouble(MerchantTotal::getTotal).reversed())
+                    .limit(limit)
+                    .collect(Collectors.toList());
+        }
+        timeline();
+        return merchants.top(from, to, limit);
+    }
+
+    /**
+     * Counts the distinct merchants in a range of months. Normally this is a
+     * HyperLogLog estimate within about 2% of the true count, merged from
+     * per-month counters; in exact mode the expenses are scanned instead.
+     *
+     * @param from The first month (inclusive)
+     * @param to   The last month (inclusive)
+     * @return The number of distinct merchant names, ignoring case
+     */
+    public long getDistinctMerchantCount(YearMonth from, YearMonth to) {
+        if (exactMerchantStats) {
+            return exactMerchantTotals(from, to).size();
+        }
+        timeline();
+        return merchants.distinct(from, to);
+    }
+
+    /**
+     * Switches the merchant queries between the sketches and exact scans, for
+     * checking the sketches against the true answers. The sketches are kept up
+     * to date either way.
+     *
+     * @param exact Whether to scan the expenses for every merchant query
+     */
+    public void setExactMerchantStats(boolean exact) {
+        this.exactMerchantStats = exact;
+    }
+
+    public boolean isExactMerchantStats() {
+        return exactMerchantStats;
+    }
+
+    /**
+     * Gets the per-currency totals over a date range, each in its own currency.
+     *
+     * @param from The first day of the range (inclusive)
+     * @param to   The last day of the range (inclusive)
+     * @return A map of currency code to the amount spent in it, sorted by code
+     */
+    public Map<String, Double> getCurrencyTotals(LocalDate from, LocalDate to) {
+        timeline();
+        Map<String, Double> currencyTotals = new TreeMap<>();
+        for (Map.Entry<String, SpendingTimeline> entry : currencyTimelines.entrySet()) {
+            double total = entry.getValue().sum(from, to);
+            if (total != 0) {
+                currencyTotals.put(entry.getKey(), total);
+            }
+        }
+        return currencyTotals;
+    }
+
+    /**
+     * Replaces the exchange rates used to convert amounts to the reporting currency.
+     * The totals are rebuilt on next use.
+     *
+     * @param exchangeRates The new rate table
+     */
+    public void setExchangeRates(ExchangeRates exchangeRates) {
+        this.exchangeRates = exchangeRates;
+        timelineStale = true;
+    }
+
+    public ExchangeRates getExchangeRates() {
+        return exchangeRates;
+    }
+
+    /**
+     * Sets the currency all totals, trends and budgets are reported in.
+     * The totals are rebuilt on next use.
+     *
+     * @param currency The currency code
+     */
+    public void setReportingCurrency(String currency) {
+        this.reportingCurrency = Expense.normalizeCurrency(currency);
+        timelineStale = true;
+    }
+
+    public String getReportingCurrency() {
+        return reportingCurrency;
+    }
+
+    /**
+     * Starts tracking a monthly budget. Alerts fire for changes made from now on.
+     *
+     * @param budget The budget to track
+     */
+    public void addBudget(Budget budget) {
+        budgets.addBudget(budget);
+    }
+
+    /**
+     * Stops tracking a budget.
+     *
+     * @param budget The budget to remove
+     * @return true if the budget was tracked
+     */
+    public boolean removeBudget(Budget budget) {
+        return budgets.removeBudget(budget);
+    }
+
+    /**
+     * Gets every tracked budget.
+     *
+     * @return The budgets, overall budgets first
+     */
+    public List<Budget> getBudgets() {
+        return budgets.getBudgets();
+    }
+
+    /**
+     * Gets how much of a budget is used in a month, in O(1).
+     *
+     * @param budget The budget
+     * @param month  The month
+     * @return The amount spent against the budget
+     */
+    public double getBudgetSpent(Budget budget, YearMonth month) {
+        timeline();
+        return budgets.getSpent(budget, month);
+    }
+
+    /**
+     * Guesses the category of an expense from its name and description, as
+     * learned from the categorized expenses in the book.
+     *
+     * @param name        The expense's name
+     * @param description The expense's description, or null
+     * @return The most likely category, or {@link Category#OTHER} if the words are new to the book
+     */
+    public Category suggestCategory(String name, String description) {
+        return classifier.predict(name, description);
+    }
+
+    /**
+     * Puts the most likely category on every expense in {@link Category#OTHER},
+     * such as the uncategorized rows of an imported statement. The guesses are
+     * made in parallel and the book is not changed.
+     *
+     * @param batch The expenses to categorize
+     * @return The expenses in order, with a guessed category where one was found
+     */
+    public List<Expense> categorize(List<Expense> batch) {
+        Category[] guesses = classifier.predictAll(batch);
+        List<Expense> categorized = new ArrayList<>(batch.size());
+        for (int i = 0; i < guesses.length; i++) {
+            Expense expense = batch.get(i);
+            categorized.add(expense.getCategory() == Category.OTHER && guesses[i] != Category.OTHER
+                    ? expense.withCategory(guesses[i]) : expense);
+        }
+        return categorized;
+    }
+
+    /**
+     * Registers a listener for budget threshold alerts. Changes made while the
+     * totals are stale, after a snapshot was restored (such as loading a file)
+     * or the exchange rates changed, do not raise alerts.
+     *
+     * @param listener The listener to notify
+     */
+    public void addBudgetListener(BudgetListener listener) {
+        budgets.addListener(listener);
+    }
+
+    /**
+     * Removes a budget alert listener.
+     *
+     * @param listener The listener to remove
+     */
+    public void removeBudgetListener(BudgetListener listener) {
+        budgets.removeListener(listener);
+    }
+
+    /**
+     * Registers a listener for unusually high spending. Like budget alerts,
+     * expenses added as already existing and changes made while the totals
+     * are stale do not raise anomalies.
+     *
+     * @param listener The listener to notify
+     */
+    public void addAnomalyListener(AnomalyListener listener) {
+        anomalies.addListener(listener);
+    }
+
+    /**
+     * Removes an anomaly listener.
+     *
+     * @param listener The listener to remove
+     */
+    public void removeAnomalyListener(AnomalyListener listener) {
+        anomalies.removeListener(listener);
+    }
+
+    /**
+     * Gets the spending timeline, rebuilding it, the category and currency
+     * timelines, the ID index, the amount distributions, the budget spending
+     * and the anomaly statistics first after a snapshot was restored or the
+     * exchange rates changed.
+     */
+    private SpendingTimeline timeline() {
+        if (timelineStale) {
+            timeline.clear();
+            for (SpendingTimeline categoryTimeline : categoryTimelines) {
+                categoryTimeline.clear();
+            }
+            currencyTimelines.clear();
+            ids.clear();
+            distributions.clear();
+            merchants.clear();
+            budgets.clearSpending();
+            anomalies.clear();
+            for (Expense expense : expenses) {
+                double amount = reportingAmount(expense);
+                addToTimelines(expense, amount);
+                budgets.recordSilently(expense.getDate(), expense.getCategory(), amount);
+                anomalies.record(expense, amount, false);
+            }
+            timelineStale = false;
+        }
+        return timeline;
+    }
+
+    /**
+     * Adds an expense to the running totals, budgets and anomaly statistics.
+     * While the totals are stale they are rebuilt from the list on next use
+     * instead. The category classifier does not depend on them and always learns.
+     */
+    private void addToTotals(Expense expense) {
+        classifier.learn(expense);
+        if (timelineStale) {
+            return;
+        }
+        double amount = reportingAmount(expense);
+        addToTimelines(expense, amount);
+        if (alertsMuted) {
+            budgets.recordSilently(expense.getDate(), expense.getCategory(), amount);
+        } else {
+            budgets.record(expense.getDate(), expense.getCategory(), amount);
+        }
+        anomalies.record(expense, amount, !alertsMuted);
+    }
+
+    /**
+     * Removes an expense from the running totals, budgets and anomaly statistics.
+     */
+    private void removeFromTotals(Expense expense) {
+        classifier.unlearn(expense);
+        if (timelineStale) {
+            return;
+        }
+        double amount = reportingAmount(expense);
+        subtractFromTimelines(expense, amount);
+        budgets.record(expense.getDate(), expense.getCategory(), -amount);
+        anomalies.forget(expense, amount);
+    }
+
+    /**
+     * Replaces an expense in the running totals, moving its budget spending in
+     * one step so an edit does not raise alerts for passing through zero.
+     */
+    private void replaceInTotals(Expense before, Expense after) {
+        classifier.unlearn(before);
+        classifier.learn(after);
+        if (timelineStale) {
+            return;
+        }
+        double beforeAmount = reportingAmount(before);
+        double afterAmount = reportingAmount(after);
+        subtractFromTimelines(before, beforeAmount);
+        addToTimelines(after, afterAmount);
+        budgets.recordChange(before.getDate(), before.getCategory(), beforeAmount,
+                after.getDate(), after.getCategory(), afterAmount);
+        anomalies.forget(before, beforeAmount);
+        anomalies.record(after, afterAmount, true);
+    }
+
+    /**
+     * Adds an expense to the timelines: the reporting amount to the overall
+     * and category totals, the amount distributions and the merchant stats,
+     * the original amount to its currency's total, and the ID to the index.
+     */
+    private void addToTimelines(Expense expense, double reportingAmount) {
+        ids.add(expense);
+        timeline.add(expense.getDate(), reportingAmount);
+        distributions.add(expense.getDate(), expense.getCategory(), reportingAmount);
+        merchants.add(expense.getDate(), expense.getName(), reportingAmount);
+        categoryTimelines[expense.getCategory().ordinal()].add(expense.getDate(), reportingAmount);
+        currencyTimelines.computeIfAbsent(expense.getCurrency(), currency -> new SpendingTimeline())
+                .add(expense.getDate(), expense.getAmount());
+    }
+
+    private void subtractFromTimelines(Expense expense, double reportingAmount) {
+        ids.remove(expense);
+        timeline.subtract(expense.getDate(), reportingAmount);
+        distributions.remove(expense.getDate(), expense.getCategory(), reportingAmount);
+        merchants.remove(expense.getDate(), expense.getName(), reportingAmount);
+        categoryTimelines[expense.getCategory().ordinal()].subtract(expense.getDate(), reportingAmount);
+        currencyTimelines.get(expense.getCurrency()).subtract(expense.getDate(), expense.getAmount());
+    }
+
+    /**
+     * Converts an expense's amount to the reporting currency at the rate of its day.
+     */
+    private double reportingAmount(Expense expense) {
+        return exchangeRates.convert(expense.getAmount(), expense.getCurrency(), reportingCurrency,
+                expense.getDate());
+    }
+
+    /**
+     * Gets the indexes of the expenses in ascending column order. A column is
+     * sorted the first time it is requested; after that its order is updated
+     * with every change, so switching between columns and directions is free.
+     */
+    private SortPermutation sortPermutation(ExpenseColumn column) {
+        return sortPermutations.computeIfAbsent(column,
+                key -> new SortPermutation(expenses, key.getComparator()));
+    }
+
+    /**
+     * Sums the spending per merchant in a range of months by scanning every expense.
+     */
+    private Map<String, MerchantTotal> exactMerchantTotals(YearMonth from, YearMonth to) {
+        LocalDate first = from.atDay(1);
+        LocalDate last = to.atEndOfMonth();
+        Map<String, MerchantTotal> totals = new HashMap<>();
+        for (Expense expense : expenses) {
+            LocalDate date = expense.getDate();
+            if (date.isBefore(first) || date.isAfter(last)) {
+                continue;
+            }
+            double amount = Math.max(reportingAmount(expense), 0);
+            totals.merge(MerchantStats.key(expense.getName()), new MerchantTotal(expense.getName(), amount, 0),
+                    (a, b) -> new MerchantTotal(a.getName(), a.getTotal() + b.getTotal(), 0));
+        }
+        return totals;
+    }
+
+    /**
+     * Removes the rows at the given positions from the list, in one pass.
+     */
+    private void removeRows(BitSet rows) {
+        if (expenses instanceof OffHeapExpenseList) {
+            ((OffHeapExpenseList) expenses).removeRows(rows);
+            return;
+        }
+        List<Expense> kept = new ArrayList<>(expenses.size() - rows.cardinality());
+        int index = 0;
+        for (Expense expense : expenses) {
+            if (!rows.get(index++)) {
+                kept.add(expense);
+            }
+        }
+        if (expenses instanceof VersionedList) {
+            ((VersionedList<Expense>) expenses).restore(PersistentList.of(kept));
+        } else {
+            expenses.clear();
+            expenses.addAll(kept);
+        }
+    }
+
+    /**
+     * Puts an expense in place of the one at a position, keeping the indexes up to date.
+     */
+    private void replaceAt(int index, Expense updatedExpense) {
+        for (SortPermutation order : sortPermutations.values()) {
+            order.replacing(index);
+        }
+        Expense existing = expenses.get(index);
+        replaceInTotals(existing, updatedExpense);
+        expenses.set(index, updatedExpense);
+        for (SortPermutation order : sortPermutations.values()) {
+            order.replaced(index);
+        }
+    }
+
+    /**
+     * Finds the position of the first expense with the given ID, or -1 if there is none.
+     */
+    private int indexOfId(UUID id) {
+        if (expenses instanceof OffHeapExpenseList) {
+            return ((OffHeapExpenseList) expenses).indexOfId(id.getMostSignificantBits(), id.getLeastSignificantBits());
+        }
+        int index = 0;
+        for (Expense expense : expenses) {
+            if (expense.hasId(id)) {
+                return index;
+            }
+            index++;
+        }
+        return -1;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,11 @@
+package model;
+
+/**
+ * Represents how often a recurring expense repeats.
+ */
+public enum Frequency {
+    DAILY,
+    WEEKLY,
+    MONTHLY,
+    YEARLY
+}
@@ -0,0 +1,63 @@
+package model;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+
+/**
+ * Represents the size of the time buckets used when building spending trends.
+ */
+public enum Granularity {
+    DAY,
+    WEEK,
+    MONTH,
+    QUARTER,
+    YEAR;
+
+    /**
+     * Gets the first day of the period that contains the given date.
+     * Weeks start on Monday.
+     *
+     * @param date The date inside the period
+     * @return The first day of the period
+     */
+    public LocalDate periodStart(LocalDate date) {
+        switch (this) {
+            case DAY:
+                return date;
+            case WEEK:
+                return date.minusDays(date.getDayOfWeek().getValue() - DayOfWeek.MONDAY.getValue());
+            case MONTH:
+                return date.withDayOfMonth(1);
+            case QUARTER:
+                int firstMonth = ((date.getMonthValue() - 1) / 3) * 3 + 1;
+                return LocalDate.of(date.getYear(), firstMonth, 1);
+            case YEAR:
+                return date.withDayOfYear(1);
+            default:
+                throw new IllegalStateException("Unknown granularity: " + this);
+        }
+    }
+
+    /**
+     * Gets the first day of the period following the one that starts at the given date.
+     *
+     * @param periodStart The first day of a period
+     * @return The first day of the next period
+     */
+    public LocalDate nextPeriodStart(LocalDate periodStart) {
+        switch (this) {
+            case DAY:
+                return periodStart.plusDays(1);
+            case WEEK:
+                return periodStart.plusWeeks(1);
+            case MONTH:
+                return periodStart.plusMonths(1);
+            case QUARTER:
+                return periodStart.plusMonths(3);
+            case YEAR:
+                return periodStart.plusYears(1);
+            default:
+                throw new IllegalStateException("Unknown granularity: " + this);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds the merchants with the highest spending in fixed memory.
+ * <p>
+ * This is the weighted Space-Saving algorithm. At most {@code capacity}
+ * merchants are tracked; a new merchant replaces the one with the lowest
+ * total and inherits that total as its possible error. Every merchant whose
+ * true total is above the lowest tracked total is guaranteed to be tracked,
+ * and no total is ever underestimated. The lowest total is found through a
+ * min-heap, so each addition costs O(log capacity).
+ */
+final class HeavyHitters {
+    private final int capacity;
+    private final Map<String, Counter> counters;
+    private Counter[] heap;
+    private int size;
+
+    /**
+     * Creates an empty summary.
+     *
+     * @param capacity How many merchants to track
+     */
+    HeavyHitters(int capacity) {
+        this.capacity = capacity;
+        this.counters = new HashMap<>();
+        this.heap = new Counter[capacity];
+    }
+
+    /**
+     * Adds spending with a merchant.
+     *
+     * @param key    The merchant's normalized name
+     * @param name   The merchant's name as shown to the user
+     * @param amount The amount spent, which must be positive
+     */
+    void add(String key, String name, double amount) {
+        Counter counter = counters.get(key);
+        if (counter != null) {
+            counter.total += amount;
+            siftDown(counter.heapIndex);
+            return;
+        }
+        if (size < capacity) {
+            counter = new Counter(key, name, amount, 0);
+            counters.put(key, counter);
+            heap[size] = counter;
+            counter.heapIndex = size;
+            siftUp(size++);
+            return;
+        }
+        // Replace the smallest merchant, which may have been this one all along
+        Counter smallest = heap[0];
+        counters.remove(smallest.key);
+        counter = new Counter(key, name, smallest.total + amount, smallest.total);
+        counters.put(key, counter);
+        heap[0] = counter;
+        counter.heapIndex = 0;
+        siftDown(0);
+    }
+
+    /**
+     * Adds every merchant tracked by another summary. A merchant missing from
+     * one side may have had up to that side's lowest total there, which is
+     * added to its total and possible error so that totals stay upper bounds.
+     */
+    void merge(HeavyHitters other) {
+        double thisFloor = floor();
+        double otherFloor = other.floor();
+        List<Counter> merged = new ArrayList<>(counters.size() + other.counters.size());
+        for (Counter counter : counters.values()) {
+            Counter match = other.counters.get(counter.key);
+            merged.add(match != null
+                    ? new Counter(counter.key, counter.name, counter.total + match.total, counter.error + match.error)
+                    : new Counter(counter.key, counter.name, counter.total + otherFloor, counter.error + otherFloor));
+        }
+        for (Counter counter : other.counters.values()) {
+            if (!counters.containsKey(counter.key)) {
+                merged.add(new Counter(counter.key, counter.name, counter.total + thisFloor,
+                        counter.error + thisFloor));
+            }
+        }
+
+        merged.sort(Comparator.comparingDouble((Counter counter) -> counter.total).reversed());
+        counters.clear();
+        Arrays.fill(heap, null);
+        size = 0;
+        for (Counter counter : merged.subList(0, Math.min(capacity, merged.size()))) {
+            counters.put(counter.key, counter);
+            heap[size] = counter;
+            counter.heapIndex = size;
+            siftUp(size++);
+        }
+    }
+
+    /**
+     * Gets the merchants with the highest totals, highest first.
+     *
+     * @param limit The maximum number of merchants
+     */
+    List<MerchantTotal> top(int limit) {
+        List<Counter> sorted = new ArrayList<>(counters.values());
+        sorted.sort(Comparator.comparingDouble((Counter counter) -> counter.total).reversed());
+        List<MerchantTotal> top = new ArrayList<>(Math.min(limit, sorted.size()));
+        for (Counter counter : sorted.subList(0, Math.min(limit, sorted.size()))) {
+            top.add(new MerchantTotal(counter.name, counter.total, counter.error));
+        }
+        return top;
+    }
+
+    /**
+     * Gets the most an untracked merchant may have spent.
+     */
+    private double floor() {
+        return size < capacity ? 0 : heap[0].total;
+    }
+
+    private void siftUp(int index) {
+        Counter counter = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (heap[parent].total <= counter.total) {
+                break;
+            }
+            place(heap[parent], index);
+            index = parent;
+        }
+        place(counter, index);
+    }
+
+    private void siftDown(int index) {
+        Counter counter = heap[index];
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heap[child + 1].total < heap[child].total) {
+                child++;
+            }
+            if (counter.total <= heap[child].total) {
+                break;
+            }
+            place(heap[child], index);
+            index = child;
+        }
+        place(counter, index);
+    }
+
+    private void place(Counter counter, int index) {
+        heap[index] = counter;
+        counter.heapIndex = index;
+    }
+
+    private static final class Counter {
+        private final String key;
+        private final String name;
+        private double total;
+        private final double error;
+        private int heapIndex;
+
+        private Counter(String key, String name, double total, double error) {
+            this.key = key;
+            this.name = name;
+            this.total = total;
+            this.error = error;
+        }
+    }
+}
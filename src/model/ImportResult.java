@@ -0,0 +1,43 @@
+package model;
+
+import java.util.List;
+
+/**
+ * Represents how the rows of an imported statement were matched against a book.
+ */
+public class ImportResult {
+    private final List<Expense> added;
+    private final List<Expense> exactDuplicates;
+    private final List<Expense> nearDuplicates;
+
+    /**
+     * Creates a new import result.
+     *
+     * @param added           The rows that were new to the book
+     * @param exactDuplicates The rows already in the book with the same ID, or the same name, amount and date
+     * @param nearDuplicates  The rows left out because the book has the same amount a few days away
+     */
+    public ImportResult(List<Expense> added, List<Expense> exactDuplicates, List<Expense> nearDuplicates) {
+        this.added = added;
+        this.exactDuplicates = exactDuplicates;
+        this.nearDuplicates = nearDuplicates;
+    }
+
+    public List<Expense> getAdded() {
+        return added;
+    }
+
+    public List<Expense> getExactDuplicates() {
+        return exactDuplicates;
+    }
+
+    public List<Expense> getNearDuplicates() {
+        return nearDuplicates;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d added, %d duplicates skipped, %d possible duplicates skipped",
+                added.size(), exactDuplicates.size(), nearDuplicates.size());
+    }
+}
@@ -0,0 +1,142 @@
+package model;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Keeps a top-merchants summary and a distinct-merchant counter for every month.
+ * <p>
+ * Next to the sketches each month keeps the exact spending and row count of
+ * every merchant in it, which is far smaller than the month's rows. Additions
+ * go straight into both, and the sketches of any range of months are merged
+ * to answer a query. Sketches cannot forget a merchant, so removing or editing
+ * an expense only updates the exact totals and drops the month's sketches; the
+ * next query rebuilds them from that month's totals alone, never from the rest
+ * of the book. Merchants are matched by name, ignoring case and surrounding
+ * spaces.
+ */
+final class MerchantStats {
+    // Merchants tracked per month; far more than the top 20 that is usually asked for
+    private static final int TRACKED_MERCHANTS = 256;
+
+    private final Map<YearMonth, MonthSketches> months;
+
+    MerchantStats() {
+        this.months = new HashMap<>();
+    }
+
+    /**
+     * Records spending with a merchant.
+     */
+    void add(LocalDate date, String name, double amount) {
+        MonthSketches month = months.computeIfAbsent(YearMonth.from(date), key -> new MonthSketches());
+        String key = key(name);
+        MerchantCount merchant = month.merchants.computeIfAbsent(key, k -> new MerchantCount(name));
+        merchant.rows++;
+        // Refunds count as a merchant seen but not as spending
+        if (amount > 0) {
+            merchant.spent += amount;
+        }
+        if (month.top != null) {
+            month.distinct.add(key);
+            if (amount > 0) {
+                month.top.add(key, name, amount);
+            }
+        }
+    }
+
+    /**
+     * Records that previously added spending with a merchant is gone.
+     */
+    void remove(LocalDate date, String name, double amount) {
+        YearMonth key = YearMonth.from(date);
+        MonthSketches month = months.get(key);
+        MerchantCount merchant = month == null ? null : month.merchants.get(key(name));
+        if (merchant == null) {
+            return;
+        }
+        if (--merchant.rows == 0) {
+            month.merchants.remove(key(name));
+        } else if (amount > 0) {
+            merchant.spent -= amount;
+        }
+        month.top = null;
+        month.distinct = null;
+        if (month.merchants.isEmpty()) {
+            months.remove(key);
+        }
+    }
+
+    void clear() {
+        months.clear();
+    }
+
+    /**
+     * Gets the merchants with the most spending in a range of months.
+     */
+    List<MerchantTotal> top(YearMonth from, YearMonth to, int limit) {
+        HeavyHitters merged = new HeavyHitters(TRACKED_MERCHANTS);
+        for (Map.Entry<YearMonth, MonthSketches> entry : months.entrySet()) {
+            if (!entry.getKey().isBefore(from) && !entry.getKey().isAfter(to)) {
+                merged.merge(entry.getValue().sketched().top);
+            }
+        }
+        return merged.top(limit);
+    }
+
+    /**
+     * Estimates the number of distinct merchants in a range of months.
+     */
+    long distinct(YearMonth from, YearMonth to) {
+        DistinctCounter merged = new DistinctCounter();
+        for (Map.Entry<YearMonth, MonthSketches> entry : months.entrySet()) {
+            if (!entry.getKey().isBefore(from) && !entry.getKey().isAfter(to)) {
+                merged.merge(entry.getValue().sketched().distinct);
+            }
+        }
+        return merged.estimate();
+    }
+
+    /**
+     * Gets the name merchants are matched by.
+     */
+    static String key(String name) {
+        return name == null ? "" : name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class MonthSketches {
+        private final Map<String, MerchantCount> merchants = new HashMap<>();
+        // Null while they must be rebuilt from the merchants
+        private HeavyHitters top = new HeavyHitters(TRACKED_MERCHANTS);
+        private DistinctCounter distinct = new DistinctCounter();
+
+        private MonthSketches sketched() {
+            if (top == null) {
+                top = new HeavyHitters(TRACKED_MERCHANTS);
+                distinct = new DistinctCounter();
+                for (Map.Entry<String, MerchantCount> entry : merchants.entrySet()) {
+                    MerchantCount merchant = entry.getValue();
+                    distinct.add(entry.getKey());
+                    if (merchant.spent > 0) {
+                        top.add(entry.getKey(), merchant.name, merchant.spent);
+                    }
+                }
+            }
+            return this;
+        }
+    }
+
+    private static final class MerchantCount {
+        private final String name;
+        private double spent;
+        private int rows;
+
+        private MerchantCount(String name) {
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package model;
+
+/**
+ * Represents how much was spent with one merchant, as found by the top
+ * merchants query.
+ */
+public class MerchantTotal {
+    private final String name;
+    private final double total;
+    private final double maxError;
+
+    /**
+     * Creates a new merchant total.
+     *
+     * @param name     The merchant, as first spelled in the book
+     * @param total    The amount spent, possibly overestimated by up to {@code maxError}
+     * @param maxError How much the total may exceed the true amount; 0 if exact
+     */
+    public MerchantTotal(String name, double total, double maxError) {
+        this.name = name;
+        this.total = total;
+        this.maxError = maxError;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public double getTotal() {
+        return total;
+    }
+
+    public double getMaxError() {
+        return maxError;
+    }
+
+    /**
+     * Checks whether the total is known to be exact.
+     */
+    public boolean isExact() {
+        return maxError == 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s - $%.2f", name, total);
+    }
+}
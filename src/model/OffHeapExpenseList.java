@@ -0,0 +1,442 @@
+package model;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A list of expenses whose rows live outside the Java heap.
+ * <p>
+ * Each expense is stored as a fixed-width row in direct (or file-mapped) buffers,
+ * and its strings are appended to a separate off-heap string area. Only the small
+ * buffer handles stay on the heap; {@link Expense} objects are created on demand
+ * when a row is read, and writing an expense back with {@link #set} stores its
+ * current values. Replaced strings are not reclaimed until the list is cleared.
+ * <p>
+ * {@link #snapshot()} returns a read-only view that shares the row chunks with
+ * the list. A chunk is copied the first time the list writes to rows a live
+ * snapshot can see, so snapshots cost nothing on the heap and only the chunks
+ * changed while one is open are duplicated off the heap.
+ */
+public class OffHeapExpenseList extends AbstractList<Expense> implements RandomAccess, AutoCloseable {
+    private static final int ROW_BYTES = 48;
+    private static final int AMOUNT_OFFSET = 0;
+    private static final int DATE_OFFSET = 8;
+    private static final int CATEGORY_OFFSET = 12;
+    // Three ASCII letters in the spare bytes after the category; zero means the default currency
+    private static final int CURRENCY_OFFSET = 13;
+    private static final int ID_HIGH_OFFSET = 16;
+    private static final int ID_LOW_OFFSET = 24;
+    private static final int NAME_OFFSET = 32;
+    private static final int DESCRIPTION_OFFSET = 40;
+
+    // Small enough that copying a chunk for a snapshot is cheap
+    private static final int ROWS_PER_CHUNK = 1 << 16;
+    private static final int ROW_CHUNK_BYTES = ROWS_PER_CHUNK * ROW_BYTES;
+    private static final int STRING_CHUNK_BYTES = 64 << 20;
+    private static final long NULL_STRING = -1;
+    private static final Category[] CATEGORIES = Category.values();
+    private static final Cleaner SNAPSHOT_CLEANER = Cleaner.create();
+
+    private final List<RowChunk> rowChunks;
+    private final List<ByteBuffer> stringChunks;
+    private final FileChannel rowChannel;
+    private final FileChannel stringChannel;
+    // Snapshots not yet garbage collected; decremented by the cleaner thread
+    private final AtomicInteger openSnapshots;
+    // File regions of the mapped mode: chunks replaced while snapshots may still read them are
+    // retired, and become free for reuse once no snapshot is open
+    private final Deque<Long> freeRowRegions;
+    private final List<Long> retiredRowRegions;
+    private long nextRowRegion;
+    private long nextStringRegion;
+    private int size;
+    private int stringPosition;
+
+    /**
+     * Creates an empty list backed by direct memory.
+     */
+    public OffHeapExpenseList() {
+        this(null, null);
+    }
+
+    /**
+     * Creates an empty list backed by memory-mapped files in the given directory,
+     * so the operating system can page rows out instead of keeping them resident.
+     *
+     * @param directory The directory for the row and string files
+     * @throws IOException If the files cannot be created
+     */
+    public OffHeapExpenseList(File directory) throws IOException {
+        this(openChannel(directory, "expenses.rows"), openChannel(directory, "expenses.strings"));
+    }
+
+    private OffHeapExpenseList(FileChannel rowChannel, FileChannel stringChannel) {
+        this.rowChunks = new ArrayList<>();
+        this.stringChunks = new ArrayList<>();
+        this.rowChannel = rowChannel;
+        this.stringChannel = stringChannel;
+        this.openSnapshots = new AtomicInteger();
+        this.freeRowRegions = new ArrayDeque<>();
+        this.retiredRowRegions = new ArrayList<>();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Expense get(int index) {
+        checkIndex(index, size);
+        return readRow(rowChunks.get(index / ROWS_PER_CHUNK).buffer, rowOffset(index), stringChunks);
+    }
+
+    /**
+     * Reads only the amount of a row, without creating an expense.
+     */
+    public double getAmount(int index) {
+        checkIndex(index, size);
+        return rowChunks.get(index / ROWS_PER_CHUNK).buffer.getDouble(rowOffset(index) + AMOUNT_OFFSET);
+    }
+
+    /**
+     * Reads only the date of a row, without creating an expense.
+     */
+    public LocalDate getDate(int index) {
+        checkIndex(index, size);
+        ByteBuffer chunk = rowChunks.get(index / ROWS_PER_CHUNK).buffer;
+        return LocalDate.ofEpochDay(chunk.getInt(rowOffset(index) + DATE_OFFSET));
+    }
+
+    /**
+     * Finds the row of an expense by ID, comparing the stored IDs without
+     * creating expenses.
+     *
+     * @return The index of the row, or -1 if there is none
+     */
+    public int indexOfId(long idHigh, long idLow) {
+        for (int index = 0; index < size; index++) {
+            ByteBuffer chunk = rowChunks.get(index / ROWS_PER_CHUNK).buffer;
+            int row = rowOffset(index);
+            if (chunk.getLong(row + ID_LOW_OFFSET) == idLow && chunk.getLong(row + ID_HIGH_OFFSET) == idHigh) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Gets a read-only view of the current rows that later changes to the list
+     * do not affect. It takes O(number of chunks) and copies no rows.
+     *
+     * @return The snapshot, readable from any thread
+     */
+    public List<Expense> snapshot() {
+        RowChunk[] chunks = new RowChunk[(size + ROWS_PER_CHUNK - 1) / ROWS_PER_CHUNK];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = rowChunks.get(i);
+            chunks[i].visibleRows = Math.max(chunks[i].visibleRows,
+                    Math.min(ROWS_PER_CHUNK, size - i * ROWS_PER_CHUNK));
+        }
+        Snapshot snapshot = new Snapshot(chunks, size, stringChunks.toArray(new ByteBuffer[0]));
+        openSnapshots.incrementAndGet();
+        AtomicInteger counter = openSnapshots;
+        SNAPSHOT_CLEANER.register(snapshot, counter::decrementAndGet);
+        return snapshot;
+    }
+
+    @Override
+    public Expense set(int index, Expense expense) {
+        Expense previous = get(index);
+        writeRow(index, expense);
+        return previous;
+    }
+
+    @Override
+    public void add(int index, Expense expense) {
+        checkIndex(index, size + 1);
+        ensureRowCapacity(size + 1);
+        for (int i = size; i > index; i--) {
+            copyRow(i - 1, i);
+        }
+        size++;
+        writeRow(index, expense);
+        modCount++;
+    }
+
+    @Override
+    public Expense remove(int index) {
+        Expense removed = get(index);
+        for (int i = index; i < size - 1; i++) {
+            copyRow(i + 1, i);
+        }
+        size--;
+        modCount++;
+        return removed;
+    }
+
+    /**
+     * Removes every row whose index is set, moving the remaining rows down in
+     * a single pass without reading their strings.
+     *
+     * @param rows The indexes of the rows to remove
+     */
+    public void removeRows(BitSet rows) {
+        int write = rows.nextSetBit(0);
+        if (write < 0 || write >= size) {
+            return;
+        }
+        for (int read = write + 1; read < size; read++) {
+            if (!rows.get(read)) {
+                copyRow(read, write++);
+            }
+        }
+        size = write;
+        modCount++;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        stringPosition = 0;
+        stringChunks.clear();
+        for (RowChunk chunk : rowChunks) {
+            retire(chunk);
+        }
+        rowChunks.clear();
+        if (rowChannel != null && openSnapshots.get() == 0) {
+            // No snapshot can read the files any more, so they are reused from the start
+            freeRowRegions.clear();
+            retiredRowRegions.clear();
+            nextRowRegion = 0;
+            nextStringRegion = 0;
+        }
+        modCount++;
+    }
+
+    /**
+     * Releases the backing files. Direct memory is released once the list is garbage collected.
+     */
+    @Override
+    public void close() throws IOException {
+        rowChunks.clear();
+        stringChunks.clear();
+        if (rowChannel != null) {
+            rowChannel.close();
+            stringChannel.close();
+        }
+    }
+
+    private void writeRow(int index, Expense expense) {
+        ByteBuffer chunk = writableChunk(index);
+        int row = rowOffset(index);
+        chunk.putDouble(row + AMOUNT_OFFSET, expense.getAmount());
+        chunk.putInt(row + DATE_OFFSET, Math.toIntExact(expense.getDate().toEpochDay()));
+        chunk.put(row + CATEGORY_OFFSET, (byte) expense.getCategory().ordinal());
+        String currency = expense.getCurrency();
+        for (int i = 0; i < 3; i++) {
+            chunk.put(row + CURRENCY_OFFSET + i, (byte) currency.charAt(i));
+        }
+        chunk.putLong(row + ID_HIGH_OFFSET, expense.getIdHigh());
+        chunk.putLong(row + ID_LOW_OFFSET, expense.getIdLow());
+        chunk.putLong(row + NAME_OFFSET, writeString(expense.getName()));
+        chunk.putLong(row + DESCRIPTION_OFFSET, writeString(expense.getDescription()));
+    }
+
+    private void copyRow(int from, int to) {
+        ByteBuffer target = writableChunk(to);
+        ByteBuffer source = rowChunks.get(from / ROWS_PER_CHUNK).buffer;
+        target.put(rowOffset(to), source, rowOffset(from), ROW_BYTES);
+    }
+
+    /**
+     * Gets the chunk holding a row for writing, first copying it if an open
+     * snapshot can see that row.
+     */
+    private ByteBuffer writableChunk(int index) {
+        int chunkIndex = index / ROWS_PER_CHUNK;
+        RowChunk chunk = rowChunks.get(chunkIndex);
+        if (index % ROWS_PER_CHUNK < chunk.visibleRows) {
+            if (openSnapshots.get() > 0) {
+                RowChunk copy = allocateRowChunk();
+                copy.buffer.put(0, chunk.buffer, 0, ROW_CHUNK_BYTES);
+                retire(chunk);
+                rowChunks.set(chunkIndex, copy);
+                chunk = copy;
+            } else {
+                chunk.visibleRows = 0;
+            }
+        }
+        return chunk.buffer;
+    }
+
+    private static int rowOffset(int index) {
+        return (index % ROWS_PER_CHUNK) * ROW_BYTES;
+    }
+
+    private void ensureRowCapacity(int rows) {
+        while (rowChunks.size() * (long) ROWS_PER_CHUNK < rows) {
+            rowChunks.add(allocateRowChunk());
+        }
+    }
+
+    private RowChunk allocateRowChunk() {
+        if (rowChannel == null) {
+            return new RowChunk(ByteBuffer.allocateDirect(ROW_CHUNK_BYTES), -1);
+        }
+        if (openSnapshots.get() == 0) {
+            freeRowRegions.addAll(retiredRowRegions);
+            retiredRowRegions.clear();
+        }
+        long region = freeRowRegions.isEmpty() ? nextRowRegion++ : freeRowRegions.pop();
+        return new RowChunk(map(rowChannel, region, ROW_CHUNK_BYTES), region);
+    }
+
+    private void retire(RowChunk chunk) {
+        if (chunk.region >= 0) {
+            retiredRowRegions.add(chunk.region);
+        }
+    }
+
+    /**
+     * Appends a string as a length-prefixed UTF-8 block and returns its reference
+     * (chunk index in the high 32 bits, offset in the low 32 bits). Strings are
+     * never overwritten, so snapshots can share the string area.
+     */
+    private long writeString(String value) {
+        if (value == null) {
+            return NULL_STRING;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int needed = Integer.BYTES + bytes.length;
+        if (needed > STRING_CHUNK_BYTES) {
+            throw new IllegalArgumentException("String too long for off-heap storage: " + bytes.length + " bytes");
+        }
+        if (stringChunks.isEmpty() || stringPosition + needed > STRING_CHUNK_BYTES) {
+            stringChunks.add(stringChannel == null ? ByteBuffer.allocateDirect(STRING_CHUNK_BYTES)
+                    : map(stringChannel, nextStringRegion++, STRING_CHUNK_BYTES));
+            stringPosition = 0;
+        }
+        int chunkIndex = stringChunks.size() - 1;
+        ByteBuffer chunk = stringChunks.get(chunkIndex);
+        chunk.putInt(stringPosition, bytes.length);
+        chunk.put(stringPosition + Integer.BYTES, bytes);
+        long reference = ((long) chunkIndex << 32) | stringPosition;
+        stringPosition += needed;
+        return reference;
+    }
+
+    private static Expense readRow(ByteBuffer chunk, int row, List<ByteBuffer> strings) {
+        return new Expense(
+                chunk.getLong(row + ID_HIGH_OFFSET),
+                chunk.getLong(row + ID_LOW_OFFSET),
+                readString(strings, chunk.getLong(row + NAME_OFFSET)),
+                chunk.getDouble(row + AMOUNT_OFFSET),
+                readCurrency(chunk, row),
+                LocalDate.ofEpochDay(chunk.getInt(row + DATE_OFFSET)),
+                CATEGORIES[chunk.get(row + CATEGORY_OFFSET)],
+                readString(strings, chunk.getLong(row + DESCRIPTION_OFFSET)));
+    }
+
+    private static String readString(List<ByteBuffer> strings, long reference) {
+        if (reference == NULL_STRING) {
+            return null;
+        }
+        ByteBuffer chunk = strings.get((int) (reference >>> 32));
+        int offset = (int) reference;
+        byte[] bytes = new byte[chunk.getInt(offset)];
+        chunk.get(offset + Integer.BYTES, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String readCurrency(ByteBuffer chunk, int row) {
+        if (chunk.get(row + CURRENCY_OFFSET) == 0) {
+            return Expense.DEFAULT_CURRENCY;
+        }
+        char[] code = new char[3];
+        for (int i = 0; i < 3; i++) {
+            code[i] = (char) chunk.get(row + CURRENCY_OFFSET + i);
+        }
+        return new String(code);
+    }
+
+    private static FileChannel openChannel(File directory, String name) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create directory: " + directory);
+        }
+        return new RandomAccessFile(new File(directory, name), "rw").getChannel();
+    }
+
+    private static ByteBuffer map(FileChannel channel, long region, int bytes) {
+        try {
+            return channel.map(FileChannel.MapMode.READ_WRITE, region * bytes, bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot map off-heap region " + region, e);
+        }
+    }
+
+    private static void checkIndex(int index, int bound) {
+        if (index < 0 || index >= bound) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + bound);
+        }
+    }
+
+    /**
+     * One buffer of rows, with how many of its rows some snapshot may read.
+     */
+    private static final class RowChunk {
+        private final ByteBuffer buffer;
+        // The file region of the mapped mode, or -1 for direct memory
+        private final long region;
+        private int visibleRows;
+
+        private RowChunk(ByteBuffer buffer, long region) {
+            this.buffer = buffer;
+            this.region = region;
+        }
+    }
+
+    /**
+     * A read-only view of the rows as they were when it was taken.
+     */
+    private static final class Snapshot extends AbstractList<Expense> implements RandomAccess {
+        private final ByteBuffer[] rowBuffers;
+        private final int size;
+        private final List<ByteBuffer> strings;
+
+        private Snapshot(RowChunk[] chunks, int size, ByteBuffer[] strings) {
+            this.rowBuffers = new ByteBuffer[chunks.length];
+            for (int i = 0; i < chunks.length; i++) {
+                rowBuffers[i] = chunks[i].buffer;
+            }
+            this.size = size;
+            this.strings = List.of(strings);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Expense get(int index) {
+            checkIndex(index, size);
+            return readRow(rowBuffers[index / ROWS_PER_CHUNK], rowOffset(index), strings);
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package model;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * An immutable list that shares structure between versions.
+ * <p>
+ * Elements are held in a size-annotated AVL tree ordered by position. Every
+ * update returns a new list that copies only the O(log n) nodes on the path to
+ * the changed position and shares the rest with the original, so keeping old
+ * versions around is cheap and any version can be read from any thread.
+ *
+ * @param <E> The type of the elements
+ */
+public final class PersistentList<E> extends AbstractList<E> {
+    private static final PersistentList<?> EMPTY = new PersistentList<>(null);
+
+    private final Node<E> root;
+
+    private PersistentList(Node<E> root) {
+        this.root = root;
+    }
+
+    /**
+     * Gets the empty list.
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> PersistentList<E> empty() {
+        return (PersistentList<E>) EMPTY;
+    }
+
+    /**
+     * Creates a list holding the given elements, in O(n).
+     *
+     * @param elements The elements, in order
+     * @return The new list
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> PersistentList<E> of(Collection<? extends E> elements) {
+        Object[] values = elements.toArray();
+        return new PersistentList<>(build((E[]) values, 0, values.length));
+    }
+
+    @Override
+    public int size() {
+        return size(root);
+    }
+
+    @Override
+    public E get(int index) {
+        checkIndex(index, size());
+        Node<E> node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index > leftSize) {
+                index -= leftSize + 1;
+                node = node.right;
+            } else {
+                return node.value;
+            }
+        }
+    }
+
+    /**
+     * Returns a list with the element appended.
+     */
+    public PersistentList<E> plus(E element) {
+        return plus(size(), element);
+    }
+
+    /**
+     * Returns a list with the element inserted at the given position.
+     */
+    public PersistentList<E> plus(int index, E element) {
+        checkIndex(index, size() + 1);
+        return new PersistentList<>(insert(root, index, element));
+    }
+
+    /**
+     * Returns a list with the elements appended.
+     */
+    public PersistentList<E> plusAll(Collection<? extends E> elements) {
+        return plusAll(size(), elements);
+    }
+
+    /**
+     * Returns a list with the elements inserted at the given position, in
+     * O(k + log n) for k new elements: the new elements are built into a
+     * balanced subtree that is joined in, rather than inserted one by one.
+     */
+    @SuppressWarnings("unchecked")
+    public PersistentList<E> plusAll(int index, Collection<? extends E> elements) {
+        checkIndex(index, size() + 1);
+        E[] values = (E[]) elements.toArray();
+        if (values.length == 0) {
+            return this;
+        }
+        Node<E> batch = build(values, 0, values.length - 1);
+        Node<E> before = take(root, index);
+        Node<E> after = join(batch, values[values.length - 1], drop(root, index));
+        if (before == null) {
+            return new PersistentList<>(after);
+        }
+        Node<E> last = before;
+        while (last.right != null) {
+            last = last.right;
+        }
+        return new PersistentList<>(join(delete(before, before.size - 1), last.value, after));
+    }
+
+    /**
+     * Returns a list with the element at the given position replaced.
+     */
+    public PersistentList<E> with(int index, E element) {
+        checkIndex(index, size());
+        return new PersistentList<>(replace(root, index, element));
+    }
+
+    /**
+     * Returns a list without the element at the given position.
+     */
+    public PersistentList<E> minus(int index) {
+        checkIndex(index, size());
+        return new PersistentList<>(delete(root, index));
+    }
+
+    /**
+     * Iterates in order by walking the tree, in O(1) amortized time per element.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<>() {
+            private final Deque<Node<E>> path = new ArrayDeque<>();
+
+            {
+                pushLeft(root);
+            }
+
+            @Override
+            public boolean hasNext() {
+                return !path.isEmpty();
+            }
+
+            @Override
+            public E next() {
+                if (path.isEmpty()) {
+                    throw new NoSuchElementException();
+                }
+                Node<E> node = path.pop();
+                pushLeft(node.right);
+                return node.value;
+            }
+
+            private void pushLeft(Node<E> node) {
+                while (node != null) {
+                    path.push(node);
+                    node = node.left;
+                }
+            }
+        };
+    }
+
+    private static <E> Node<E> build(E[] values, int from, int to) {
+        if (from >= to) {
+            return null;
+        }
+        int middle = (from + to) >>> 1;
+        return node(build(values, from, middle), values[middle], build(values, middle + 1, to));
+    }
+
+    private static <E> Node<E> insert(Node<E> node, int index, E element) {
+        if (node == null) {
+            return node(null, element, null);
+        }
+        int leftSize = size(node.left);
+        if (index <= leftSize) {
+            return balance(insert(node.left, index, element), node.value, node.right);
+        }
+        return balance(node.left, node.value, insert(node.right, index - leftSize - 1, element));
+    }
+
+    private static <E> Node<E> replace(Node<E> node, int index, E element) {
+        int leftSize = size(node.left);
+        if (index < leftSize) {
+            return new Node<>(replace(node.left, index, element), node.value, node.right);
+        } else if (index > leftSize) {
+            return new Node<>(node.left, node.value, replace(node.right, index - leftSize - 1, element));
+        }
+        return new Node<>(node.left, element, node.right);
+    }
+
+    private static <E> Node<E> delete(Node<E> node, int index) {
+        int leftSize = size(node.left);
+        if (index < leftSize) {
+            return balance(delete(node.left, index), node.value, node.right);
+        } else if (index > leftSize) {
+            return balance(node.left, node.value, delete(node.right, index - leftSize - 1));
+        }
+        if (node.left == null) {
+            return node.right;
+        }
+        if (node.right == null) {
+            return node.left;
+        }
+        Node<E> successor = node.right;
+        while (successor.left != null) {
+            successor = successor.left;
+        }
+        return balance(node.left, successor.value, delete(node.right, 0));
+    }
+
+    /**
+     * Gets the first {@code count} elements of a subtree as a balanced tree, in O(log n).
+     */
+    private static <E> Node<E> take(Node<E> node, int count) {
+        if (node == null || count == 0) {
+            return null;
+        }
+        int leftSize = size(node.left);
+        if (count <= leftSize) {
+            return take(node.left, count);
+        }
+        return join(node.left, node.value, take(node.right, count - leftSize - 1));
+    }
+
+    /**
+     * Gets a subtree without its first {@code count} elements, in O(log n).
+     */
+    private static <E> Node<E> drop(Node<E> node, int count) {
+        if (node == null || count == 0) {
+            return node;
+        }
+        int leftSize = size(node.left);
+        if (count > leftSize) {
+            return drop(node.right, count - leftSize - 1);
+        }
+        return join(drop(node.left, count), node.value, node.right);
+    }
+
+    /**
+     * Joins two subtrees of any heights around a middle element, descending the
+     * taller one until the heights match; O(difference in heights).
+     */
+    private static <E> Node<E> join(Node<E> left, E value, Node<E> right) {
+        if (height(left) > height(right) + 1) {
+            return balance(left.left, left.value, join(left.right, value, right));
+        }
+        if (height(right) > height(left) + 1) {
+            return balance(join(left, value, right.left), right.value, right.right);
+        }
+        return node(left, value, right);
+    }
+
+    /**
+     * Joins two subtrees whose heights differ by at most two, rotating if needed.
+     */
+    private static <E> Node<E> balance(Node<E> left, E value, Node<E> right) {
+        int leftHeight = height(left);
+        int rightHeight = height(right);
+        if (leftHeight > rightHeight + 1) {
+            if (height(left.left) >= height(left.right)) {
+                return node(left.left, left.value, node(left.right, value, right));
+            }
+            return node(node(left.left, left.value, left.right.left), left.right.value,
+                    node(left.right.right, value, right));
+        }
+        if (rightHeight > leftHeight + 1) {
+            if (height(right.right) >= height(right.left)) {
+                return node(node(left, value, right.left), right.value, right.right);
+            }
+            return node(node(left, value, right.left.left), right.left.value,
+                    node(right.left.right, right.value, right.right));
+        }
+        return node(left, value, right);
+    }
+
+    private static <E> Node<E> node(Node<E> left, E value, Node<E> right) {
+        return new Node<>(left, value, right);
+    }
+
+    private static int size(Node<?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static int height(Node<?> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static void checkIndex(int index, int bound) {
+        if (index < 0 || index >= bound) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + bound);
+        }
+    }
+
+    private static final class Node<E> {
+        private final Node<E> left;
+        private final E value;
+        private final Node<E> right;
+        private final int size;
+        private final int height;
+
+        Node(Node<E> left, E value, Node<E> right) {
+            this.left = left;
+            this.value = value;
+            this.right = right;
+            this.size = size(left) + size(right) + 1;
+            this.height = Math.max(height(left), height(right)) + 1;
+        }
+    }
+}
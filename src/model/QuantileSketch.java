@@ -0,0 +1,248 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * A small, mergeable summary of a stream of amounts that answers quantile
+ * queries such as the median or the 90th percentile.
+ * <p>
+ * This is a KLL sketch: values are kept in levels, and a value in level h
+ * stands for 2^h original values. When a level fills up it is sorted and every
+ * other value is promoted to the next level, so the sketch keeps about
+ * {@code 3k} values however many are added. Ranks are off by about
+ * {@code 1.7 / k} of the count in the worst case, which is 1% with the default
+ * {@code k} of 200. Count, minimum and maximum are exact.
+ */
+public final class QuantileSketch {
+    private static final int DEFAULT_K = 200;
+    // Each level below the top may hold 2/3 as many values as the one above it
+    private static final double DECAY = 2.0 / 3.0;
+    private static final int MIN_CAPACITY = 8;
+
+    private final int k;
+    private double[][] levels;
+    private int[] sizes;
+    private int[] capacities;
+    private int levelCount;
+    private long count;
+    private double min;
+    private double max;
+    private long random;
+
+    public QuantileSketch() {
+        this(DEFAULT_K);
+    }
+
+    /**
+     * Creates an empty sketch.
+     *
+     * @param k The accuracy parameter; larger is more accurate and uses more memory
+     */
+    public QuantileSketch(int k) {
+        if (k < MIN_CAPACITY) {
+            throw new IllegalArgumentException("k must be at least " + MIN_CAPACITY + ": " + k);
+        }
+        this.k = k;
+        this.levels = new double[1][MIN_CAPACITY];
+        this.sizes = new int[1];
+        this.capacities = new int[1];
+        this.levelCount = 1;
+        updateCapacities();
+        this.min = Double.NaN;
+        this.max = Double.NaN;
+        this.random = 0x9E3779B97F4A7C15L;
+    }
+
+    /**
+     * Adds a value in amortized O(1).
+     */
+    public void add(double value) {
+        if (count == 0 || value < min) {
+            min = value;
+        }
+        if (count == 0 || value > max) {
+            max = value;
+        }
+        count++;
+        append(0, value);
+        if (sizes[0] >= capacities[0]) {
+            compress();
+        }
+    }
+
+    /**
+     * Adds every value summarized by another sketch to this one. The other
+     * sketch is not changed.
+     */
+    public void merge(QuantileSketch other) {
+        if (other.count == 0) {
+            return;
+        }
+        if (count == 0 || other.min < min) {
+            min = other.min;
+        }
+        if (count == 0 || other.max > max) {
+            max = other.max;
+        }
+        count += other.count;
+        for (int level = 0; level < other.levelCount; level++) {
+            for (int i = 0; i < other.sizes[level]; i++) {
+                append(level, other.levels[level][i]);
+            }
+        }
+        compress();
+    }
+
+    /**
+     * Gets an independent copy of this sketch.
+     */
+    public QuantileSketch copy() {
+        QuantileSketch copy = new QuantileSketch(k);
+        copy.merge(this);
+        return copy;
+    }
+
+    /**
+     * Gets the number of values added.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the smallest value added, or NaN if the sketch is empty.
+     */
+    public double getMin() {
+        return min;
+    }
+
+    /**
+     * Gets the largest value added, or NaN if the sketch is empty.
+     */
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * Gets the value below which the given fraction of the values fall.
+     *
+     * @param fraction The quantile, from 0 (the minimum) to 1 (the maximum), e.g. 0.5 for the median
+     * @return The estimated quantile, or NaN if the sketch is empty
+     */
+    public double getQuantile(double fraction) {
+        if (fraction < 0 || fraction > 1 || Double.isNaN(fraction)) {
+            throw new IllegalArgumentException("Quantile must be between 0 and 1: " + fraction);
+        }
+        if (count == 0) {
+            return Double.NaN;
+        }
+        if (fraction == 0) {
+            return min;
+        }
+        if (fraction == 1) {
+            return max;
+        }
+
+        int retained = 0;
+        for (int level = 0; level < levelCount; level++) {
+            retained += sizes[level];
+        }
+        // A value in level h stands for 2^h added values
+        double[] values = new double[retained];
+        long[] weights = new long[retained];
+        Integer[] order = new Integer[retained];
+        int next = 0;
+        for (int level = 0; level < levelCount; level++) {
+            for (int i = 0; i < sizes[level]; i++) {
+                values[next] = levels[level][i];
+                weights[next] = 1L << level;
+                order[next] = next;
+                next++;
+            }
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(values[a], values[b]));
+
+        double target = fraction * count;
+        long cumulative = 0;
+        for (int index : order) {
+            cumulative += weights[index];
+            if (cumulative >= target) {
+                return values[index];
+            }
+        }
+        return max;
+    }
+
+    private void append(int level, double value) {
+        while (level >= levelCount) {
+            addLevel();
+        }
+        if (sizes[level] == levels[level].length) {
+            levels[level] = Arrays.copyOf(levels[level], levels[level].length * 2);
+        }
+        levels[level][sizes[level]++] = value;
+    }
+
+    private void addLevel() {
+        if (levelCount == levels.length) {
+            levels = Arrays.copyOf(levels, levels.length * 2);
+            sizes = Arrays.copyOf(sizes, sizes.length * 2);
+            capacities = Arrays.copyOf(capacities, capacities.length * 2);
+        }
+        levels[levelCount] = new double[MIN_CAPACITY];
+        levelCount++;
+        updateCapacities();
+    }
+
+    /**
+     * Compacts every level that holds more than its capacity, from the bottom up.
+     */
+    private void compress() {
+        for (int level = 0; level < levelCount; level++) {
+            if (sizes[level] >= capacities[level]) {
+                compact(level);
+            }
+        }
+    }
+
+    /**
+     * Sorts a level and promotes every other value, starting at a random one
+     * of the first two, to the level above. With an odd number of values the
+     * largest stays behind so that the total weight is unchanged.
+     */
+    private void compact(int level) {
+        double[] values = levels[level];
+        int size = sizes[level];
+        Arrays.sort(values, 0, size);
+        int pairs = size / 2;
+        int offset = nextBit();
+        for (int i = 0; i < pairs; i++) {
+            append(level + 1, values[2 * i + offset]);
+        }
+        if (size % 2 == 1) {
+            values[0] = values[size - 1];
+            sizes[level] = 1;
+        } else {
+            sizes[level] = 0;
+        }
+    }
+
+    /**
+     * Sets the capacity of each level: k for the top level, shrinking by the
+     * decay factor for each level below it.
+     */
+    private void updateCapacities() {
+        for (int level = 0; level < levelCount; level++) {
+            int depth = levelCount - 1 - level;
+            capacities[level] = Math.max(MIN_CAPACITY, (int) Math.ceil(k * Math.pow(DECAY, depth)));
+        }
+    }
+
+    private int nextBit() {
+        // xorshift64; a fixed seed keeps results reproducible
+        random ^= random << 13;
+        random ^= random >>> 7;
+        random ^= random << 17;
+        return (int) (random >>> 63);
+    }
+}
@@ -0,0 +1,285 @@
+package model;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Represents a rule that creates the same expense on a repeating schedule,
+ * such as rent on the 1st of every month or a class every Tuesday and Thursday.
+ * <p>
+ * The rule only describes the schedule; occurrences are created when the
+ * book catches up on its rules. The rule's ID is derived from its content and
+ * an occurrence's ID from the rule and the date, so the same rule, whether
+ * added again or reloaded after a restart, always yields the same expenses.
+ * The rule also remembers the last month it was caught up through, so that
+ * occurrences deleted since are not created again.
+ */
+public final class RecurringExpense {
+    private final UUID id;
+    private final String name;
+    private final double amount;
+    private final String currency;
+    private final Category category;
+    private final String description;
+    private final Frequency frequency;
+    private final int interval;
+    private final Set<DayOfWeek> daysOfWeek;
+    private final LocalDate startDate;
+    private final LocalDate endDate;
+    private final YearMonth createdThrough;
+
+    /**
+     * Creates a rule that repeats on the start date's day, every {@code interval} periods.
+     *
+     * @param name        The expense name
+     * @param amount      The expense amount
+     * @param category    The expense category
+     * @param description The expense description
+     * @param frequency   The period the rule repeats in
+     * @param interval    The number of periods between occurrences
+     * @param startDate   The first occurrence
+     * @param endDate     The last day an occurrence may fall on, or null for no end
+     */
+    public RecurringExpense(String name, double amount, Category category, String description,
+                            Frequency frequency, int interval, LocalDate startDate, LocalDate endDate) {
+        this(name, amount, Expense.DEFAULT_CURRENCY, category, description, frequency, interval,
+                EnumSet.of(startDate.getDayOfWeek()), startDate, endDate);
+    }
+
+    /**
+     * Creates a rule that repeats on several days of the week, every {@code interval} weeks.
+     * The days are only used by weekly rules.
+     *
+     * @param name        The expense name
+     * @param amount      The expense amount
+     * @param category    The expense category
+     * @param description The expense description
+     * @param frequency   The period the rule repeats in
+     * @param interval    The number of periods between occurrences
+     * @param daysOfWeek  The days of the week a weekly rule falls on
+     * @param startDate   The first day an occurrence may fall on
+     * @param endDate     The last day an occurrence may fall on, or null for no end
+     */
+    public RecurringExpense(String name, double amount, Category category, String description,
+                            Frequency frequency, int interval, Set<DayOfWeek> daysOfWeek,
+                            LocalDate startDate, LocalDate endDate) {
+        this(name, amount, Expense.DEFAULT_CURRENCY, category, description, frequency, interval, daysOfWeek,
+                startDate, endDate);
+    }
+
+    /**
+     * Creates a rule whose occurrences are in the given currency. The days of
+     * the week are only used by weekly rules.
+     *
+     * @param name        The expense name
+     * @param amount      The expense amount, in the rule's currency
+     * @param currency    The ISO 4217 code of the currency, such as "EUR"
+     * @param category    The expense category
+     * @param description The expense description
+     * @param frequency   The period the rule repeats in
+     * @param interval    The number of periods between occurrences
+     * @param daysOfWeek  The days of the week a weekly rule falls on
+     * @param startDate   The first day an occurrence may fall on
+     * @param endDate     The last day an occurrence may fall on, or null for no end
+     */
+    public RecurringExpense(String name, double amount, String currency, Category category, String description,
+                            Frequency frequency, int interval, Set<DayOfWeek> daysOfWeek,
+                            LocalDate startDate, LocalDate endDate) {
+        this(name, amount, currency, category, description, frequency, interval, daysOfWeek, startDate, endDate,
+                null);
+    }
+
+    private RecurringExpense(String name, double amount, String currency, Category category, String description,
+                             Frequency frequency, int interval, Set<DayOfWeek> daysOfWeek,
+                             LocalDate startDate, LocalDate endDate, YearMonth createdThrough) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("Interval must be positive: " + interval);
+        }
+        if (daysOfWeek.isEmpty()) {
+            throw new IllegalArgumentException("A weekly rule needs at least one day of the week");
+        }
+        if (endDate != null && endDate.isBefore(startDate)) {
+            throw new IllegalArgumentException("Rule ends before it starts: " + startDate + " to " + endDate);
+        }
+        this.name = name;
+        this.amount = amount;
+        this.currency = Expense.normalizeCurrency(currency);
+        this.category = category;
+        this.description = description;
+        this.frequency = frequency;
+        this.interval = interval;
+        this.daysOfWeek = EnumSet.copyOf(daysOfWeek);
+        this.startDate = Expense.checkDate(startDate);
+        this.endDate = Expense.checkDate(endDate);
+        this.createdThrough = createdThrough;
+        this.id = contentId();
+    }
+
+    /**
+     * Gets the same rule marked as caught up through the given month.
+     *
+     * @param month The last month whose occurrences have been created, or null for none
+     * @return The updated rule, with the same ID
+     */
+    public RecurringExpense withCreatedThrough(YearMonth month) {
+        return new RecurringExpense(name, amount, currency, category, description, frequency, interval, daysOfWeek,
+                startDate, endDate, month);
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public double getAmount() {
+        return amount;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public Category getCategory() {
+        return category;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public Frequency getFrequency() {
+        return frequency;
+    }
+
+    public int getInterval() {
+        return interval;
+    }
+
+    public Set<DayOfWeek> getDaysOfWeek() {
+        return EnumSet.copyOf(daysOfWeek);
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    /**
+     * Gets the last day an occurrence may fall on, or null if the rule has no end.
+     */
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    /**
+     * Gets the last month whose occurrences have been created, or null if none have.
+     */
+    public YearMonth getCreatedThrough() {
+        return createdThrough;
+    }
+
+    /**
+     * Calls the action for every occurrence in a date range, in date order. The
+     * first occurrence is computed directly, so the cost depends only on the
+     * number of occurrences in the range, not on how long ago the rule started.
+     *
+     * @param from   The first day of the range (inclusive)
+     * @param to     The last day of the range (inclusive)
+     * @param action Receives the date of each occurrence
+     */
+    public void forEachOccurrence(LocalDate from, LocalDate to, Consumer<LocalDate> action) {
+        LocalDate first = from.isBefore(startDate) ? startDate : from;
+        LocalDate last = endDate != null && endDate.isBefore(to) ? endDate : to;
+        if (last.isBefore(first)) {
+            return;
+        }
+
+        switch (frequency) {
+            case DAILY: {
+                long skipped = ceilToInterval(ChronoUnit.DAYS.between(startDate, first));
+                for (LocalDate date = startDate.plusDays(skipped); !date.isAfter(last); date = date.plusDays(interval)) {
+                    action.accept(date);
+                }
+                break;
+            }
+            case WEEKLY: {
+                LocalDate startWeek = Granularity.WEEK.periodStart(startDate);
+                long weeks = ChronoUnit.WEEKS.between(startWeek, Granularity.WEEK.periodStart(first));
+                for (LocalDate week = startWeek.plusWeeks(weeks - weeks % interval); !week.isAfter(last);
+                     week = week.plusWeeks(interval)) {
+                    for (DayOfWeek day : daysOfWeek) {
+                        LocalDate date = week.plusDays(day.getValue() - DayOfWeek.MONDAY.getValue());
+                        if (!date.isBefore(first) && !date.isAfter(last)) {
+                            action.accept(date);
+                        }
+                    }
+                }
+                break;
+            }
+            case MONTHLY:
+            case YEARLY: {
+                int step = frequency == Frequency.MONTHLY ? interval : interval * 12;
+                YearMonth startMonth = YearMonth.from(startDate);
+                long months = ChronoUnit.MONTHS.between(startMonth, YearMonth.from(first));
+                for (YearMonth month = startMonth.plusMonths(months - months % step); !month.atDay(1).isAfter(last);
+                     month = month.plusMonths(step)) {
+                    // Days past the end of a short month fall on its last day
+                    LocalDate date = month.atDay(Math.min(startDate.getDayOfMonth(), month.lengthOfMonth()));
+                    if (!date.isBefore(first) && !date.isAfter(last)) {
+                        action.accept(date);
+                    }
+                }
+                break;
+            }
+            default:
+                throw new IllegalStateException("Unknown frequency: " + frequency);
+        }
+    }
+
+    /**
+     * Creates the expense for an occurrence. The same date always gives an expense with the same ID.
+     *
+     * @param date The date of the occurrence
+     * @return The expense
+     */
+    public Expense createOccurrence(LocalDate date) {
+        UUID occurrenceId = UUID.nameUUIDFromBytes((id + "/" + date).getBytes(StandardCharsets.UTF_8));
+        return new Expense(occurrenceId.toString(), name, amount, currency, date, category, description);
+    }
+
+    /**
+     * Derives the rule's ID from everything that decides its occurrences. Text
+     * fields are length-prefixed so that no two different rules share a key.
+     */
+    private UUID contentId() {
+        StringBuilder key = new StringBuilder();
+        for (String text : new String[]{name, description == null ? "" : description}) {
+            key.append(text.length()).append(':').append(text).append('|');
+        }
+        key.append(amount).append('|').append(currency).append('|').append(category).append('|')
+                .append(frequency).append('|').append(interval).append('|').append(daysOfWeek).append('|')
+                .append(startDate).append('|').append(endDate);
+        return UUID.nameUUIDFromBytes(key.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private long ceilToInterval(long periods) {
+        return (periods + interval - 1) / interval * interval;
+    }
+
+    @Override
+    public String toString() {
+        String every = interval == 1 ? frequency.name().toLowerCase()
+                : "every " + interval + " " + frequency.name().toLowerCase();
+        return String.format("%s - %s %s from %s%s", name, Expense.formatAmount(amount, currency), every, startDate,
+                endDate == null ? "" : " to " + endDate);
+    }
+}
@@ -0,0 +1,60 @@
+package model;
+
+/**
+ * Keeps the count, mean and variance of a set of values that grows and shrinks.
+ * <p>
+ * Values are added with Welford's update and removed by running it backwards,
+ * so both cost O(1) and stay accurate over long runs, unlike a plain sum of
+ * squares.
+ */
+final class RunningStats {
+    private long count;
+    private double mean;
+    private double sumOfSquares;
+
+    void add(double value) {
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        sumOfSquares += delta * (value - mean);
+    }
+
+    /**
+     * Removes a value that was added before.
+     */
+    void remove(double value) {
+        if (count <= 1) {
+            clear();
+            return;
+        }
+        double meanAfter = (count * mean - value) / (count - 1);
+        sumOfSquares -= (value - meanAfter) * (value - mean);
+        mean = meanAfter;
+        count--;
+        // Rounding may leave a tiny negative sum once the values left are all equal
+        if (sumOfSquares < 0) {
+            sumOfSquares = 0;
+        }
+    }
+
+    void clear() {
+        count = 0;
+        mean = 0;
+        sumOfSquares = 0;
+    }
+
+    long count() {
+        return count;
+    }
+
+    double mean() {
+        return mean;
+    }
+
+    /**
+     * Gets the sample standard deviation, or 0 for fewer than two values.
+     */
+    double standardDeviation() {
+        return count < 2 ? 0 : Math.sqrt(sumOfSquares / (count - 1));
+    }
+}
@@ -0,0 +1,31 @@
+package model;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates IDs from a 64-bit counter, for single-process books where the
+ * cheapest possible ID is wanted. IDs are only unique within one sequence, so
+ * the sequence should continue from the highest ID already stored.
+ */
+public class SequenceIdGenerator implements ExpenseIdGenerator {
+    private final AtomicLong sequence;
+
+    /**
+     * Creates a generator whose first ID is {@code lastId + 1}.
+     *
+     * @param lastId The highest ID already in use, or 0 for a new book
+     */
+    public SequenceIdGenerator(long lastId) {
+        this.sequence = new AtomicLong(lastId);
+    }
+
+    public SequenceIdGenerator() {
+        this(0);
+    }
+
+    @Override
+    public UUID nextId() {
+        return new UUID(0, sequence.incrementAndGet());
+    }
+}
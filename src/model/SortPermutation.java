@@ -0,0 +1,185 @@
+package model;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The positions of a list of expenses in ascending order of one column, kept
+ * up to date as the list changes instead of being sorted again.
+ * <p>
+ * Ties are ordered by position, so the order is total and the place of any
+ * row can be found by binary search. A single change costs O(log n)
+ * comparisons, but O(n) time to shift the array, and to renumber the rows
+ * after it when a row is inserted or removed before the end of the list.
+ * Appending k rows costs O(k log k + n). This is still far cheaper than
+ * sorting again, which costs O(n log n) comparisons.
+ */
+final class SortPermutation {
+    private final List<Expense> expenses;
+    private final Comparator<Expense> comparator;
+    private int[] rows;
+    private int size;
+
+    /**
+     * Sorts the current rows of the list.
+     */
+    SortPermutation(List<Expense> expenses, Comparator<Expense> comparator) {
+        this.expenses = expenses;
+        this.comparator = comparator;
+        Expense[] values = expenses.toArray(new Expense[0]);
+        Integer[] order = new Integer[values.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        // Object sorts are stable, so equal rows stay in position order
+        Arrays.parallelSort(order, (a, b) -> comparator.compare(values[a], values[b]));
+        this.rows = new int[Math.max(order.length, 16)];
+        for (int i = 0; i < order.length; i++) {
+            rows[i] = order[i];
+        }
+        this.size = order.length;
+    }
+
+    /**
+     * Gets the list position of the row at a place in sorted order.
+     */
+    int get(int sortedPosition) {
+        return rows[sortedPosition];
+    }
+
+    /**
+     * Records a row that was inserted into the list at the given position.
+     */
+    void inserted(int index) {
+        if (index < size) {
+            for (int i = 0; i < size; i++) {
+                if (rows[i] >= index) {
+                    rows[i]++;
+                }
+            }
+        }
+        attach(index);
+    }
+
+    /**
+     * Records rows appended to the end of the list, merging them in one pass.
+     */
+    void appended(int start, int count) {
+        if (count == 1) {
+            attach(start);
+            return;
+        }
+        Expense[] values = new Expense[count];
+        Integer[] added = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = expenses.get(start + i);
+            added[i] = start + i;
+        }
+        Arrays.sort(added, (a, b) -> comparator.compare(values[a - start], values[b - start]));
+
+        int[] merged = new int[Math.max(size + count, rows.length)];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < size && j < count) {
+            // Appended rows come after every existing row with an equal value
+            if (comparator.compare(expenses.get(rows[i]), values[added[j] - start]) <= 0) {
+                merged[k++] = rows[i++];
+            } else {
+                merged[k++] = added[j++];
+            }
+        }
+        while (i < size) {
+            merged[k++] = rows[i++];
+        }
+        while (j < count) {
+            merged[k++] = added[j++];
+        }
+        rows = merged;
+        size += count;
+    }
+
+    /**
+     * Records that the row at the given list position is about to be removed.
+     * Must be called while the row is still in the list.
+     */
+    void removing(int index) {
+        detach(index);
+        for (int i = 0; i < size; i++) {
+            if (rows[i] > index) {
+                rows[i]--;
+            }
+        }
+    }
+
+    /**
+     * Records that the row at the given list position is about to be replaced.
+     * Must be called while the old row is still in the list, followed by
+     * {@link #replaced(int)} once the new row is in place.
+     */
+    void replacing(int index) {
+        detach(index);
+    }
+
+    /**
+     * Puts a replaced row back in sorted order.
+     */
+    void replaced(int index) {
+        attach(index);
+    }
+
+    /**
+     * Records that many rows were removed at once.
+     *
+     * @param newIndexes The new list position of every old row, or -1 if it was removed
+     */
+    void remapped(int[] newIndexes) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            int index = newIndexes[rows[i]];
+            if (index >= 0) {
+                rows[kept++] = index;
+            }
+        }
+        size = kept;
+    }
+
+    private void attach(int index) {
+        int position = find(expenses.get(index), index);
+        if (size == rows.length) {
+            rows = Arrays.copyOf(rows, rows.length + (rows.length >> 1));
+        }
+        System.arraycopy(rows, position, rows, position + 1, size - position);
+        rows[position] = index;
+        size++;
+    }
+
+    private void detach(int index) {
+        int position = find(expenses.get(index), index);
+        System.arraycopy(rows, position + 1, rows, position, size - position - 1);
+        size--;
+    }
+
+    /**
+     * Finds the first place whose row sorts at or after the given row and position.
+     */
+    private int find(Expense expense, int index) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int other = rows[middle];
+            int order = comparator.compare(expenses.get(other), expense);
+            if (order == 0) {
+                order = Integer.compare(other, index);
+            }
+            if (order < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,83 @@
+package model;
+
+import java.time.LocalDate;
+
+/**
+ * Represents spending that is far above what is usual for its category.
+ */
+public class SpendingAnomaly {
+    /**
+     * What was unusual about the spending.
+     */
+    public enum Kind {
+        /** A single expense far larger than the category's usual expense */
+        UNUSUAL_AMOUNT,
+        /** A week whose spending in the category rose far above a usual week */
+        WEEKLY_SPIKE
+    }
+
+    private final Kind kind;
+    private final Expense expense;
+    private final LocalDate weekStart;
+    private final double value;
+    private final double typical;
+    private final double limit;
+
+    /**
+     * Creates a new spending anomaly.
+     *
+     * @param kind      What was unusual
+     * @param expense   The expense that was added or edited when the anomaly was found
+     * @param weekStart The Monday of the expense's week
+     * @param value     The expense's amount, or the week's spending in its category
+     * @param typical   The usual amount or weekly spending in the category
+     * @param limit     The amount or weekly spending above which spending counts as unusual
+     */
+    public SpendingAnomaly(Kind kind, Expense expense, LocalDate weekStart, double value, double typical,
+                           double limit) {
+        this.kind = kind;
+        this.expense = expense;
+        this.weekStart = weekStart;
+        this.value = value;
+        this.typical = typical;
+        this.limit = limit;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public Expense getExpense() {
+        return expense;
+    }
+
+    public Category getCategory() {
+        return expense.getCategory();
+    }
+
+    public LocalDate getWeekStart() {
+        return weekStart;
+    }
+
+    public double getValue() {
+        return value;
+    }
+
+    public double getTypical() {
+        return typical;
+    }
+
+    public double getLimit() {
+        return limit;
+    }
+
+    @Override
+    public String toString() {
+        if (kind == Kind.UNUSUAL_AMOUNT) {
+            return String.format("%s costs $%.2f, far above the usual $%.2f for %s", expense.getName(), value,
+                    typical, getCategory().getDisplayName());
+        }
+        return String.format("%s spending in the week of %s is $%.2f, far above the usual $%.2f a week",
+                getCategory().getDisplayName(), weekStart, value, typical);
+    }
+}
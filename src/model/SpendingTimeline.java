@@ -0,0 +1,173 @@
+package model;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Keeps daily spending totals together with their prefix sums so that the
+ * total of any date range can be answered in O(1) time, apart from finding
+ * the range's first and last year among the years that have spending.
+ * <p>
+ * Days are stored in one block per calendar year, created only for years
+ * that have spending, so a stray far-away date costs a single block rather
+ * than every day in between. Daily buckets are updated in place on every
+ * change; a block's prefix sums and the running totals across blocks are
+ * rebuilt lazily the next time a range is queried.
+ */
+public class SpendingTimeline {
+    private final TreeMap<Integer, YearBlock> years;
+    // Block years in order, with the total of all blocks before each one; rebuilt lazily
+    private int[] blockYears;
+    private double[] blocksBefore;
+    private boolean blocksValid;
+
+    public SpendingTimeline() {
+        this.years = new TreeMap<>();
+        clear();
+    }
+
+    /**
+     * Removes all recorded spending.
+     */
+    public void clear() {
+        years.clear();
+        this.blockYears = new int[0];
+        this.blocksBefore = new double[1];
+        this.blocksValid = true;
+    }
+
+    /**
+     * Adds an amount to the given day.
+     *
+     * @param date   The day of the spending
+     * @param amount The amount to add (negative to subtract)
+     */
+    public void add(LocalDate date, double amount) {
+        YearBlock block = years.get(date.getYear());
+        if (block == null) {
+            block = new YearBlock();
+            years.put(date.getYear(), block);
+        }
+        block.add(date.getDayOfYear() - 1, amount);
+        blocksValid = false;
+    }
+
+    /**
+     * Subtracts an amount from the given day.
+     *
+     * @param date   The day of the spending
+     * @param amount The amount to subtract
+     */
+    public void subtract(LocalDate date, double amount) {
+        add(date, -amount);
+    }
+
+    /**
+     * Calculates the total spending between two dates.
+     *
+     * @param from The first day of the range (inclusive)
+     * @param to   The last day of the range (inclusive)
+     * @return The total amount spent in the range
+     */
+    public double sum(LocalDate from, LocalDate to) {
+        if (years.isEmpty() || from.isAfter(to)) {
+            return 0;
+        }
+        int fromYear = from.getYear();
+        int toYear = to.getYear();
+        if (fromYear == toYear) {
+            return blockSum(fromYear, from.getDayOfYear() - 1, to.getDayOfYear() - 1);
+        }
+        return blockSum(fromYear, from.getDayOfYear() - 1, YearBlock.DAYS - 1)
+                + yearsSum(fromYear + 1, toYear - 1)
+                + blockSum(toYear, 0, to.getDayOfYear() - 1);
+    }
+
+    /**
+     * Calculates the total of all recorded spending.
+     *
+     * @return The total amount
+     */
+    public double total() {
+        validateBlocks();
+        return blocksBefore[blockYears.length];
+    }
+
+    private double blockSum(int year, int firstDay, int lastDay) {
+        YearBlock block = years.get(year);
+        return block == null ? 0 : block.sum(firstDay, lastDay);
+    }
+
+    /**
+     * Sums every block from one year to another, both inclusive.
+     */
+    private double yearsSum(int fromYear, int toYear) {
+        if (fromYear > toYear) {
+            return 0;
+        }
+        validateBlocks();
+        return blocksBefore[firstBlockAtOrAfter(toYear + 1)] - blocksBefore[firstBlockAtOrAfter(fromYear)];
+    }
+
+    private int firstBlockAtOrAfter(int year) {
+        int index = Arrays.binarySearch(blockYears, year);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    private void validateBlocks() {
+        if (blocksValid) {
+            return;
+        }
+        blockYears = new int[years.size()];
+        blocksBefore = new double[years.size() + 1];
+        int index = 0;
+        double running = 0;
+        for (Map.Entry<Integer, YearBlock> entry : years.entrySet()) {
+            blockYears[index] = entry.getKey();
+            blocksBefore[index++] = running;
+            running += entry.getValue().total();
+        }
+        blocksBefore[index] = running;
+        blocksValid = true;
+    }
+
+    /**
+     * The daily totals of one calendar year, with their prefix sums.
+     */
+    private static final class YearBlock {
+        private static final int DAYS = 366;
+
+        private final double[] daily = new double[DAYS];
+        private final double[] prefix = new double[DAYS + 1];
+        private boolean prefixValid = true;
+
+        private void add(int day, double amount) {
+            daily[day] += amount;
+            prefixValid = false;
+        }
+
+        private double sum(int firstDay, int lastDay) {
+            double[] sums = prefixSums();
+            return sums[lastDay + 1] - sums[firstDay];
+        }
+
+        private double total() {
+            return prefixSums()[DAYS];
+        }
+
+        private double[] prefixSums() {
+            if (!prefixValid) {
+                double running = 0;
+                for (int i = 0; i < DAYS; i++) {
+                    prefix[i] = running;
+                    running += daily[i];
+                }
+                prefix[DAYS] = running;
+                prefixValid = true;
+            }
+            return prefix;
+        }
+    }
+}
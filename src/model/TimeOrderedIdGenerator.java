@@ -0,0 +1,38 @@
+package model;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates time-ordered IDs in the UUID version 7 layout: a 48-bit millisecond
+ * timestamp, a 12-bit counter that keeps IDs from the same millisecond increasing,
+ * and 62 random bits.
+ * <p>
+ * Unlike {@link UUID#randomUUID()}, this never touches {@code SecureRandom}, so it
+ * cannot block waiting for entropy. The IDs are unique but not unguessable.
+ */
+public class TimeOrderedIdGenerator implements ExpenseIdGenerator {
+    private static final int COUNTER_BITS = 12;
+    private static final long COUNTER_MASK = (1L << COUNTER_BITS) - 1;
+    private static final long VERSION_7 = 0x7000L;
+    private static final long IETF_VARIANT = 0x8000000000000000L;
+
+    private final AtomicLong lastTimestampAndCounter = new AtomicLong();
+
+    @Override
+    public UUID nextId() {
+        long candidate = System.currentTimeMillis() << COUNTER_BITS;
+        long next;
+        long last;
+        do {
+            last = lastTimestampAndCounter.get();
+            // If the counter overflows, it carries into the timestamp and stays ordered
+            next = Math.max(candidate, last + 1);
+        } while (!lastTimestampAndCounter.compareAndSet(last, next));
+
+        long mostSignificant = ((next >>> COUNTER_BITS) << 16) | VERSION_7 | (next & COUNTER_MASK);
+        long leastSignificant = IETF_VARIANT | (ThreadLocalRandom.current().nextLong() >>> 2);
+        return new UUID(mostSignificant, leastSignificant);
+    }
+}
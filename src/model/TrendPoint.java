@@ -0,0 +1,42 @@
+package model;
+
+import java.time.LocalDate;
+
+/**
+ * Represents the total spending of one period in a trend series.
+ */
+public class TrendPoint {
+    private final LocalDate periodStart;
+    private final LocalDate periodEnd;
+    private final double total;
+
+    /**
+     * Creates a new trend point.
+     *
+     * @param periodStart The first day of the period (inclusive)
+     * @param periodEnd   The last day of the period (inclusive)
+     * @param total       The amount spent in the period
+     */
+    public TrendPoint(LocalDate periodStart, LocalDate periodEnd, double total) {
+        this.periodStart = periodStart;
+        this.periodEnd = periodEnd;
+        this.total = total;
+    }
+
+    public LocalDate getPeriodStart() {
+        return periodStart;
+    }
+
+    public LocalDate getPeriodEnd() {
+        return periodEnd;
+    }
+
+    public double getTotal() {
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s..%s - $%.2f", periodStart, periodEnd, total);
+    }
+}
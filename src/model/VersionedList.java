@@ -0,0 +1,98 @@
+package model;
+
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.Iterator;
+
+/**
+ * A mutable list whose every version is a {@link PersistentList}.
+ * <p>
+ * Writes replace the current version, so {@link #snapshot()} is O(1) and the
+ * returned snapshot never changes. Readers only see complete versions and never
+ * need a lock; writes are expected to come from one thread at a time. Iterators
+ * walk the version that was current when they were created and do not support
+ * {@code remove}.
+ *
+ * @param <E> The type of the elements
+ */
+public class VersionedList<E> extends AbstractList<E> {
+    private volatile PersistentList<E> current = PersistentList.empty();
+
+    /**
+     * Gets the current version of the list.
+     *
+     * @return An immutable snapshot of the list
+     */
+    public PersistentList<E> snapshot() {
+        return current;
+    }
+
+    /**
+     * Makes the given version current.
+     *
+     * @param version The version to restore
+     */
+    public void restore(PersistentList<E> version) {
+        current = version;
+        modCount++;
+    }
+
+    @Override
+    public int size() {
+        return current.size();
+    }
+
+    @Override
+    public E get(int index) {
+        return current.get(index);
+    }
+
+    @Override
+    public E set(int index, E element) {
+        PersistentList<E> version = current;
+        E previous = version.get(index);
+        current = version.with(index, element);
+        return previous;
+    }
+
+    @Override
+    public void add(int index, E element) {
+        current = current.plus(index, element);
+        modCount++;
+    }
+
+    /**
+     * Inserts the elements as one balanced subtree, in O(k + log n) rather than
+     * O(k log n) for one insertion per element.
+     */
+    @Override
+    public boolean addAll(int index, Collection<? extends E> elements) {
+        current = current.plusAll(index, elements);
+        modCount++;
+        return !elements.isEmpty();
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends E> elements) {
+        return addAll(size(), elements);
+    }
+
+    @Override
+    public E remove(int index) {
+        PersistentList<E> version = current;
+        E removed = version.get(index);
+        current = version.minus(index);
+        modCount++;
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        restore(PersistentList.empty());
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return current.iterator();
+    }
+}
@@ -0,0 +1,622 @@
+package server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import controller.AutosaveService;
+import controller.BookRegistry;
+import controller.ExpenseController;
+import model.Category;
+import model.Expense;
+import model.ExpenseColumn;
+import model.Granularity;
+import model.TrendPoint;
+import util.Quoting;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Embedded HTTP server exposing the expense book as a JSON API under {@code /api/}.
+ * <p>
+ * Every request runs on its own virtual thread. The controller is not thread
+ * safe, so calls into a book are serialized by that book's lock; reads are
+ * served from a response cache that is filled under the same lock and cleared
+ * by every write to the book, so repeated dashboard queries never wait for it.
+ * Cache entries are keyed by the decoded path and query, so differently
+ * encoded URIs for the same resource share an entry and are cleared together.
+ * A single book is saved by an {@link AutosaveService} shortly after changes,
+ * off the request threads, and catches up on its recurring expenses every
+ * hour; the books of a registry catch up whenever they are loaded. Requests
+ * never create recurring expenses.
+ * A server can serve one book, or every book of a {@link BookRegistry} with
+ * the paths below prefixed by {@code books/{bookId}/} and the book IDs listed
+ * at {@code GET /api/books}. Responses always
+ * carry a Content-Length so HTTP/1.1 connections are kept alive, and
+ * {@code POST /api/batch} applies many changes in one request and one undo step.
+ * <p>
+ * Endpoints:
+ * <ul>
+ *     <li>{@code GET /api/expenses?month=yyyy-MM} or {@code ?offset=&limit=&sort=&ascending=}</li>
+ *     <li>{@code GET|PUT|DELETE /api/expenses/{id}}, {@code POST /api/expenses}</li>
+ *     <li>{@code POST /api/batch} with an array of {@code {"op": "add|update|delete", ...}}</li>
+ *     <li>{@code GET /api/reports/monthly-total?month=yyyy-MM}</li>
+ *     <li>{@code GET /api/reports/categories?month=yyyy-MM}</li>
+ *     <li>{@code GET /api/reports/monthly-totals?end=yyyy-MM&months=n}</li>
+ *     <li>{@code GET /api/reports/trend?from=yyyy-MM-dd&to=yyyy-MM-dd&granularity=day|week|month}</li>
+ * </ul>
+ */
+public class ExpenseHttpServer {
+    private static final String API_PREFIX = "/api/";
+    private static final String BOOKS_PREFIX = "books/";
+    private static final int MAX_BODY_BYTES = 4 * 1024 * 1024;
+    private static final int RESPONSE_CACHE_SIZE = 1024;
+    private static final int DEFAULT_PAGE_SIZE = 200;
+    private static final long AUTOSAVE_DELAY_MILLIS = 200;
+    private static final long AUTOSAVE_MAX_DELAY_MILLIS = 2_000;
+    private static final long RECURRING_CHECK_MINUTES = 60;
+
+    private final ExpenseController controller;
+    private final AutosaveService autosave;
+    private final BookRegistry registry;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ScheduledExecutorService recurringChecks;
+    private final ReentrantLock lock;
+    private final Map<String, byte[]> responseCache;
+
+    /**
+     * Creates a server for a single expense book. The server does not accept requests until started.
+     *
+     * @param controller The expense book to serve
+     * @param savePath   The file the book is saved to shortly after every change, or null to keep
+     *                   changes in memory
+     * @param address    The address to listen on; port 0 picks a free port
+     * @param saveErrors Receives failures to save the book, on the autosave thread
+     * @throws IOException If the address cannot be bound
+     */
+    public ExpenseHttpServer(ExpenseController controller, String savePath, InetSocketAddress address,
+                             Consumer<IOException> saveErrors) throws IOException {
+        this(controller, savePath == null ? null
+                : new AutosaveService(controller, savePath, AUTOSAVE_DELAY_MILLIS, AUTOSAVE_MAX_DELAY_MILLIS,
+                saveErrors), null, address);
+    }
+
+    /**
+     * Creates a server for every book in a registry, served under {@code /api/books/{bookId}/}.
+     * Changed books are saved by the registry when they are unloaded or flushed.
+     *
+     * @param registry The books to serve
+     * @param address  The address to listen on; port 0 picks a free port
+     * @throws IOException If the address cannot be bound
+     */
+    public ExpenseHttpServer(BookRegistry registry, InetSocketAddress address) throws IOException {
+        this(null, null, registry, address);
+    }
+
+    private ExpenseHttpServer(ExpenseController controller, AutosaveService autosave, BookRegistry registry,
+                              InetSocketAddress address) throws IOException {
+        this.controller = controller;
+        this.autosave = autosave;
+        this.registry = registry;
+        this.lock = new ReentrantLock();
+        this.responseCache = new ConcurrentHashMap<>();
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.recurringChecks = controller == null ? null : Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "recurring-expenses");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server = HttpServer.create(address, 0);
+        this.server.setExecutor(executor);
+        this.server.createContext(API_PREFIX, this::handle);
+    }
+
+    public void start() {
+        if (autosave != null) {
+            autosave.setEnabled(true);
+        }
+        if (recurringChecks != null) {
+            recurringChecks.scheduleWithFixedDelay(this::catchUpRecurringExpenses, RECURRING_CHECK_MINUTES,
+                    RECURRING_CHECK_MINUTES, TimeUnit.MINUTES);
+        }
+        server.start();
+    }
+
+    /**
+     * Stops accepting requests, waits briefly for running ones, releases the
+     * port and writes any changes the autosave has not saved yet.
+     */
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+        if (recurringChecks != null) {
+            recurringChecks.shutdownNow();
+        }
+        if (autosave != null) {
+            autosave.close();
+        }
+    }
+
+    /**
+     * Gets the port the server listens on.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            String path = exchange.getRequestURI().getPath().substring(API_PREFIX.length());
+            try {
+                String body = readBody(exchange);
+                Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+                String bookId = null;
+                String cachePrefix = API_PREFIX;
+                if (registry != null) {
+                    if (path.equals("books") && method.equals("GET")) {
+                        send(exchange, 200, listBooks());
+                        return;
+                    }
+                    int slash = path.indexOf('/', BOOKS_PREFIX.length());
+                    if (!path.startsWith(BOOKS_PREFIX) || slash < 0) {
+                        throw new NotFoundException("Unknown resource: " + path);
+                    }
+                    bookId = BookRegistry.normalizeBookId(path.substring(BOOKS_PREFIX.length(), slash));
+                    path = path.substring(slash + 1);
+                    cachePrefix = API_PREFIX + BOOKS_PREFIX + bookId + "/";
+                }
+
+                if (method.equals("GET")) {
+                    String cacheKey = cachePrefix + path + "?" + new TreeMap<>(query);
+                    byte[] cached = responseCache.get(cacheKey);
+                    if (cached == null) {
+                        String resource = path;
+                        cached = withBook(bookId, false, book -> {
+                            byte[] response = get(book, resource, query).getBytes(StandardCharsets.UTF_8);
+                            if (responseCache.size() >= RESPONSE_CACHE_SIZE) {
+                                responseCache.clear();
+                            }
+                            // Filled under the book's lock so a concurrent write cannot leave a stale entry
+                            responseCache.put(cacheKey, response);
+                            return response;
+                        });
+                    }
+                    send(exchange, 200, cached);
+                } else {
+                    String resource = path;
+                    String prefix = cachePrefix;
+                    String response = withBook(bookId, true, book -> {
+                        String result = change(book, method, resource, body);
+                        responseCache.keySet().removeIf(key -> key.startsWith(prefix));
+                        return result;
+                    });
+                    send(exchange, method.equals("POST") ? 201 : 200, response);
+                }
+            } catch (NotFoundException e) {
+                sendError(exchange, 404, e.getMessage());
+            } catch (NoSuchFileException e) {
+                sendError(exchange, 404, e.getReason());
+            } catch (MethodNotAllowedException e) {
+                sendError(exchange, 405, e.getMessage());
+            } catch (IllegalArgumentException e) {
+                sendError(exchange, 400, e.getMessage());
+            } catch (IOException e) {
+                sendError(exchange, 500, "Error accessing expenses: " + e.getMessage());
+            } catch (UncheckedIOException e) {
+                sendError(exchange, 500, "Error accessing expenses: " + e.getCause().getMessage());
+            } catch (RuntimeException e) {
+                sendError(exchange, 500, "Internal error: " + e);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Creates the single book's recurring expenses that have come due, as a write to the book.
+     */
+    private void catchUpRecurringExpenses() {
+        lock.lock();
+        try {
+            if (controller.catchUpRecurringExpenses(LocalDate.now()) > 0) {
+                responseCache.clear();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Runs an operation on the served book while holding its lock.
+     */
+    private <T> T withBook(String bookId, boolean modifying, Function<ExpenseController, T> action)
+            throws IOException {
+        if (registry != null) {
+            return modifying ? registry.modify(bookId, action) : registry.read(bookId, action);
+        }
+        lock.lock();
+        try {
+            return action.apply(controller);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private String listBooks() throws IOException {
+        StringBuilder json = new StringBuilder("[");
+        String separator = "";
+        for (String bookId : registry.getBookIds()) {
+            json.append(separator).append(Quoting.json(bookId));
+            separator = ", ";
+        }
+        return json.append(']').toString();
+    }
+
+    private static String get(ExpenseController controller, String path, Map<String, String> query) {
+        switch (path) {
+            case "expenses":
+                return listExpenses(controller, query);
+            case "reports/monthly-total": {
+                YearMonth month = parseMonth(required(query, "month"));
+                return "{\"month\": \"" + month + "\", \"total\": "
+                        + amount(controller.calculateMonthlyTotal(month.getYear(), month.getMonth())) + "}";
+            }
+            case "reports/categories": {
+                YearMonth month = parseMonth(required(query, "month"));
+                StringBuilder json = new StringBuilder("{\"month\": \"" + month + "\", \"categories\": {");
+                String separator = "";
+                for (Map.Entry<Category, Double> entry
+                        : controller.getCategoryTotalsForMonth(month.getYear(), month.getMonth()).entrySet()) {
+                    json.append(separator).append('"').append(entry.getKey().name()).append("\": ")
+                            .append(amount(entry.getValue()));
+                    separator = ", ";
+                }
+                return json.append("}}").toString();
+            }
+            case "reports/monthly-totals": {
+                YearMonth end = query.containsKey("end") ? parseMonth(query.get("end")) : YearMonth.now();
+                int months = parseInt(query.getOrDefault("months", "6"), "months");
+                StringBuilder json = new StringBuilder("{");
+                String separator = "";
+                for (Map.Entry<YearMonth, Double> entry : controller.getMonthlyTotals(end, months).entrySet()) {
+                    json.append(separator).append('"').append(entry.getKey()).append("\": ")
+                            .append(amount(entry.getValue()));
+                    separator = ", ";
+                }
+                return json.append('}').toString();
+            }
+            case "reports/trend": {
+                LocalDate from = parseDate(required(query, "from"));
+                LocalDate to = parseDate(required(query, "to"));
+                Granularity granularity = parseEnum(Granularity.class, query.getOrDefault("granularity", "month"));
+                StringBuilder json = new StringBuilder("[");
+                String separator = "";
+                for (TrendPoint point : controller.getTrend(from, to, granularity)) {
+                    json.append(separator).append("{\"start\": \"").append(point.getPeriodStart())
+                            .append("\", \"end\": \"").append(point.getPeriodEnd())
+                            .append("\", \"total\": ").append(amount(point.getTotal())).append('}');
+                    separator = ", ";
+                }
+                return json.append(']').toString();
+            }
+            default:
+                if (path.startsWith("expenses/")) {
+                    return toJson(findExpense(controller, path));
+                }
+                throw new NotFoundException("Unknown resource: " + path);
+        }
+    }
+
+    private static String listExpenses(ExpenseController controller, Map<String, String> query) {
+        List<Expense> expenses;
+        if (query.containsKey("month")) {
+            YearMonth month = parseMonth(query.get("month"));
+            expenses = controller.getExpensesByMonth(month.getYear(), month.getMonth());
+        } else {
+            int offset = parseInt(query.getOrDefault("offset", "0"), "offset");
+            int limit = parseInt(query.getOrDefault("limit", String.valueOf(DEFAULT_PAGE_SIZE)), "limit");
+            ExpenseColumn sortBy = query.containsKey("sort") ? parseEnum(ExpenseColumn.class, query.get("sort")) : null;
+            boolean ascending = !"false".equals(query.get("ascending"));
+            expenses = controller.getExpensesPage(offset, limit, sortBy, ascending);
+        }
+        StringBuilder json = new StringBuilder("[");
+        String separator = "";
+        for (Expense expense : expenses) {
+            json.append(separator).append(toJson(expense));
+            separator = ",\n";
+        }
+        return json.append(']').toString();
+    }
+
+    private static String change(ExpenseController controller, String method, String path, String body) {
+        if (path.equals("batch")) {
+            if (!method.equals("POST")) {
+                throw new MethodNotAllowedException(method + " is not supported on " + path);
+            }
+            return applyBatch(controller, body);
+        }
+        if (path.equals("expenses")) {
+            if (!method.equals("POST")) {
+                throw new MethodNotAllowedException(method + " is not supported on " + path);
+            }
+            return toJson(add(controller, asObject(Json.parse(body))));
+        }
+        if (path.startsWith("expenses/")) {
+            Expense existing = findExpense(controller, path);
+            switch (method) {
+                case "PUT":
+                    return toJson(update(controller, existing, asObject(Json.parse(body))));
+                case "DELETE":
+                    controller.removeExpense(existing.getId());
+                    return toJson(existing);
+                default:
+                    throw new MethodNotAllowedException(method + " is not supported on " + path);
+            }
+        }
+        throw new NotFoundException("Unknown resource: " + path);
+    }
+
+    /**
+     * Applies a batch of operations as a single undo step. Every operation is
+     * validated first, so a malformed batch changes nothing.
+     */
+    private static String applyBatch(ExpenseController controller, String body) {
+        Object parsed = Json.parse(body);
+        if (!(parsed instanceof List)) {
+            throw new IllegalArgumentException("Batch body must be a JSON array");
+        }
+        List<Map<String, Object>> operations = new ArrayList<>();
+        for (Object element : (List<?>) parsed) {
+            Map<String, Object> operation = asObject(element);
+            String op = string(operation, "op", true);
+            if (op.equals("add")) {
+                parseExpense(operation, null);
+            } else if (op.equals("update")) {
+                parseExpense(operation, findExpense(controller, "expenses/" + string(operation, "id", true)));
+            } else if (!op.equals("delete")) {
+                throw new IllegalArgumentException("Unknown batch operation: " + op);
+            }
+            operations.add(operation);
+        }
+
+        List<String> results = new ArrayList<>();
+        controller.performBatch(() -> {
+            for (Map<String, Object> operation : operations) {
+                String op = (String) operation.get("op");
+                String id = (String) operation.get("id");
+                if (op.equals("add")) {
+                    results.add(toJson(add(controller, operation)));
+                } else if (op.equals("update")) {
+                    Expense existing = controller.getExpenseById(id);
+                    // An earlier operation in the batch may have deleted it
+                    results.add(existing == null ? "{\"id\": " + Quoting.json(id) + ", \"updated\": false}"
+                            : toJson(update(controller, existing, operation)));
+                } else {
+                    results.add("{\"id\": " + Quoting.json(id) + ", \"deleted\": " + controller.removeExpense(id) + "}");
+                }
+            }
+        });
+        return "[" + String.join(",\n", results) + "]";
+    }
+
+    private static Expense add(ExpenseController controller, Map<String, Object> fields) {
+        Expense expense = parseExpense(fields, null);
+        return controller.addExpense(expense.getName(), expense.getAmount(), expense.getCurrency(),
+                expense.getDate(), expense.getCategory(), expense.getDescription());
+    }
+
+    private static Expense update(ExpenseController controller, Expense existing, Map<String, Object> fields) {
+        Expense updated = parseExpense(fields, existing);
+        controller.updateExpense(updated);
+        return updated;
+    }
+
+    /**
+     * Builds an expense from JSON fields. When updating, missing fields keep their existing values.
+     */
+    private static Expense parseExpense(Map<String, Object> fields, Expense existing) {
+        boolean required = existing == null;
+        String name = string(fields, "name", required);
+        Object amount = fields.get("amount");
+        if (amount == null && required) {
+            throw new IllegalArgumentException("Missing field: amount");
+        }
+        if (amount != null && (!(amount instanceof Double) || (Double) amount <= 0)) {
+            throw new IllegalArgumentException("Amount must be a positive number");
+        }
+        String date = string(fields, "date", required);
+        String category = string(fields, "category", required);
+        String description = string(fields, "description", false);
+        String currency = string(fields, "currency", false);
+
+        if (existing == null) {
+            return new Expense(name, (Double) amount, currency, parseDate(date),
+                    parseEnum(Category.class, category), description == null ? "" : description);
+        }
+        Expense updated = existing;
+        if (name != null) {
+            updated = updated.withName(name);
+        }
+        if (amount != null) {
+            updated = updated.withAmount((Double) amount);
+        }
+        if (date != null) {
+            updated = updated.withDate(parseDate(date));
+        }
+        if (category != null) {
+            updated = updated.withCategory(parseEnum(Category.class, category));
+        }
+        if (description != null) {
+            updated = updated.withDescription(description);
+        }
+        if (currency != null) {
+            updated = updated.withCurrency(currency);
+        }
+        return updated;
+    }
+
+    private static Expense findExpense(ExpenseController controller, String path) {
+        String id = path.substring("expenses/".length());
+        Expense expense = controller.getExpenseById(id);
+        if (expense == null) {
+            throw new NotFoundException("No expense with ID " + id);
+        }
+        return expense;
+    }
+
+    private static String toJson(Expense expense) {
+        return "{\"id\": " + Quoting.json(expense.getId()) + ", \"name\": " + Quoting.json(expense.getName())
+                + ", \"amount\": " + amount(expense.getAmount()) + ", \"currency\": \"" + expense.getCurrency()
+                + "\", \"date\": \"" + expense.getDate()
+                + "\", \"category\": \"" + expense.getCategory().name() + "\", \"description\": "
+                + Quoting.json(expense.getDescription()) + "}";
+    }
+
+    private static String amount(double value) {
+        return String.format(Locale.ROOT, "%.2f", value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asObject(Object value) {
+        if (!(value instanceof Map)) {
+            throw new IllegalArgumentException("Expected a JSON object");
+        }
+        return (Map<String, Object>) value;
+    }
+
+    private static String string(Map<String, Object> fields, String name, boolean required) {
+        Object value = fields.get(name);
+        if (value == null) {
+            if (required) {
+                throw new IllegalArgumentException("Missing field: " + name);
+            }
+            return null;
+        }
+        if (!(value instanceof String)) {
+            throw new IllegalArgumentException("Field " + name + " must be a string");
+        }
+        return (String) value;
+    }
+
+    private static String required(Map<String, String> query, String name) {
+        String value = query.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing query parameter: " + name);
+        }
+        return value;
+    }
+
+    private static YearMonth parseMonth(String value) {
+        YearMonth month;
+        try {
+            month = YearMonth.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid month: " + value);
+        }
+        Expense.checkDate(month.atDay(1));
+        return month;
+    }
+
+    private static LocalDate parseDate(String value) {
+        try {
+            return Expense.checkDate(LocalDate.parse(value));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date: " + value);
+        }
+    }
+
+    private static int parseInt(String value, String name) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + value);
+        }
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String value) {
+        try {
+            return Enum.valueOf(type, value.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid " + type.getSimpleName() + ": " + value);
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return query;
+        }
+        for (String parameter : rawQuery.split("&")) {
+            int equals = parameter.indexOf('=');
+            String name = equals < 0 ? parameter : parameter.substring(0, equals);
+            String value = equals < 0 ? "" : parameter.substring(equals + 1);
+            query.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return query;
+    }
+
+    /**
+     * Reads the whole request body; it must be consumed for the connection to be reused.
+     */
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] body = in.readNBytes(MAX_BODY_BYTES + 1);
+            if (body.length > MAX_BODY_BYTES) {
+                throw new IllegalArgumentException("Request body too large");
+            }
+            return new String(body, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        send(exchange, status, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        send(exchange, status, "{\"error\": " + Quoting.json(message) + "}");
+    }
+
+    private static class NotFoundException extends RuntimeException {
+        NotFoundException(String message) {
+            super(message);
+        }
+    }
+
+    private static class MethodNotAllowedException extends RuntimeException {
+        MethodNotAllowedException(String message) {
+            super(message);
+        }
+    }
+}
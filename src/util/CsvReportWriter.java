@@ -0,0 +1,63 @@
+package util;
+
+import model.Category;
+import model.Granularity;
+import model.TrendPoint;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.YearMonth;
+import java.util.Locale;
+
+/**
+ * Writes reports as CSV rows of the form {@code Section,From,To,Category,Amount}.
+ */
+class CsvReportWriter implements ReportWriter {
+    private final Writer out;
+
+    CsvReportWriter(Writer out) {
+        this.out = out;
+    }
+
+    @Override
+    public void beginReport(String title, YearMonth from, YearMonth to, String currency) throws IOException {
+        out.write("Section,From,To,Category,Amount\n");
+    }
+
+    @Override
+    public void beginMonth(YearMonth month, double total) throws IOException {
+        row("month", month.atDay(1).toString(), month.atEndOfMonth().toString(), "", total);
+    }
+
+    @Override
+    public void categoryTotal(YearMonth month, Category category, double total) throws IOException {
+        row("category", month.atDay(1).toString(), month.atEndOfMonth().toString(), category.name(), total);
+    }
+
+    @Override
+    public void endMonth() {
+    }
+
+    @Override
+    public void beginTrend(Granularity granularity) {
+    }
+
+    @Override
+    public void trendPoint(TrendPoint point) throws IOException {
+        row("trend", point.getPeriodStart().toString(), point.getPeriodEnd().toString(), "", point.getTotal());
+    }
+
+    @Override
+    public void endTrend() {
+    }
+
+    @Override
+    public void endReport(YearMonth from, YearMonth to, double total) throws IOException {
+        row("total", from.atDay(1).toString(), to.atEndOfMonth().toString(), "", total);
+        out.flush();
+    }
+
+    private void row(String section, String from, String to, String category, double amount) throws IOException {
+        out.write(String.format(Locale.ROOT, "%s,%s,%s,%s,%.2f\n", section, from, to, category, amount));
+    }
+}
@@ -1,23 +1,42 @@
 package util;
 
 import model.Category;
+import model.ExchangeRates;
 import model.Expense;
+import model.Frequency;
+import model.RecurringExpense;
 
 import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
 
 /**
  * Handles file operations for saving and loading expense data.
  */
 public class FileHandler {
-    private static final String DEFAULT_FILE_PATH = "expenses.csv";
+    public static final String DEFAULT_FILE_PATH = "expenses.csv";
+    private static final String BOOK_EXTENSION = ".csv";
+    private static final String RECURRING_EXTENSION = ".recurring";
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
     /**
-     * Saves a list of expenses to a CSV file.
+     * Saves a list of expenses to a CSV file. The file is written under a
+     * temporary name and then moved over the old one, so a crash mid-write
+     * leaves the previous contents intact.
      *
      * @param expenses The expenses to save
      * @param filePath The path to the file (optional)
@@ -25,25 +44,142 @@ public class FileHandler {
      */
     public static void saveExpenses(List<Expense> expenses, String filePath) throws IOException {
         String path = (filePath != null && !filePath.isEmpty()) ? filePath : DEFAULT_FILE_PATH;
+        Path target = Paths.get(path).toAbsolutePath();
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
 
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(path))) {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(temp.toFile()))) {
             // Write header
-            writer.write("ID,Name,Amount,Date,Category,Description");
+            writer.write("ID,Name,Amount,Date,Category,Description,Currency");
             writer.newLine();
 
             // Write expense data
             for (Expense expense : expenses) {
-                String line = String.format("%s,%s,%.2f,%s,%s,%s",
+                String line = String.format(Locale.ROOT, "%s,%s,%.2f,%s,%s,%s,%s",
                         expense.getId(),
-                        escapeCSV(expense.getName()),
+                        Quoting.csv(expense.getName()),
                         expense.getAmount(),
                         expense.getDate().format(DATE_FORMATTER),
                         expense.getCategory().name(),
-                        escapeCSV(expense.getDescription()));
+                        Quoting.csv(expense.getDescription()),
+                        expense.getCurrency());
                 writer.write(line);
                 writer.newLine();
             }
         }
+
+        replace(temp, target);
+    }
+
+    /**
+     * Gets the file the recurring expense rules of a book are saved in, which
+     * sits next to the book: {@code expenses.recurring} for {@code expenses.csv}.
+     *
+     * @param filePath The path to the book (optional)
+     * @return The path to the rules file
+     */
+    public static String recurringExpensesPath(String filePath) {
+        String path = (filePath != null && !filePath.isEmpty()) ? filePath : DEFAULT_FILE_PATH;
+        if (path.endsWith(BOOK_EXTENSION)) {
+            path = path.substring(0, path.length() - BOOK_EXTENSION.length());
+        }
+        return path + RECURRING_EXTENSION;
+    }
+
+    /**
+     * Saves the recurring expense rules of a book next to it, replacing the
+     * file atomically. A book without rules has its rules file removed.
+     *
+     * @param rules    The rules to save
+     * @param filePath The path to the book (optional)
+     * @throws IOException If an I/O error occurs
+     */
+    public static void saveRecurringExpenses(List<RecurringExpense> rules, String filePath) throws IOException {
+        Path target = Paths.get(recurringExpensesPath(filePath)).toAbsolutePath();
+        if (rules.isEmpty()) {
+            Files.deleteIfExists(target);
+            return;
+        }
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(temp.toFile()))) {
+            writer.write("Name,Amount,Currency,Category,Description,Frequency,Interval,Days,Start,End,CreatedThrough");
+            writer.newLine();
+            for (RecurringExpense rule : rules) {
+                StringBuilder days = new StringBuilder();
+                for (DayOfWeek day : rule.getDaysOfWeek()) {
+                    days.append(days.length() == 0 ? "" : " ").append(day.name());
+                }
+                writer.write(String.join(",",
+                        Quoting.csv(rule.getName()),
+                        String.valueOf(rule.getAmount()),
+                        rule.getCurrency(),
+                        rule.getCategory().name(),
+                        Quoting.csv(rule.getDescription()),
+                        rule.getFrequency().name(),
+                        String.valueOf(rule.getInterval()),
+                        days.toString(),
+                        rule.getStartDate().format(DATE_FORMATTER),
+                        rule.getEndDate() == null ? "" : rule.getEndDate().format(DATE_FORMATTER),
+                        rule.getCreatedThrough() == null ? "" : rule.getCreatedThrough().toString()));
+                writer.newLine();
+            }
+        }
+
+        replace(temp, target);
+    }
+
+    /**
+     * Loads the recurring expense rules saved next to a book.
+     *
+     * @param filePath The path to the book (optional)
+     * @return The rules, or an empty list if the book has none
+     * @throws IOException If an I/O error occurs or the file is malformed
+     */
+    public static List<RecurringExpense> loadRecurringExpenses(String filePath) throws IOException {
+        List<RecurringExpense> rules = new ArrayList<>();
+        File file = new File(recurringExpensesPath(filePath));
+        if (!file.exists()) {
+            return rules;
+        }
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            // Skip header
+            String line = reader.readLine();
+
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                String[] parts = parseCSVLine(line);
+                if (parts.length < 11) {
+                    throw new IOException("Expected 11 columns but got: " + line);
+                }
+                Set<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+                for (String day : parts[7].trim().split(" ")) {
+                    days.add(DayOfWeek.valueOf(day));
+                }
+                RecurringExpense rule = new RecurringExpense(parts[0], Double.parseDouble(parts[1]), parts[2],
+                        Category.valueOf(parts[3]), parts[4], Frequency.valueOf(parts[5]),
+                        Integer.parseInt(parts[6]), days, LocalDate.parse(parts[8], DATE_FORMATTER),
+                        parts[9].isEmpty() ? null : LocalDate.parse(parts[9], DATE_FORMATTER));
+                rules.add(parts[10].isEmpty() ? rule : rule.withCreatedThrough(YearMonth.parse(parts[10])));
+            }
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Error loading recurring expenses: " + e.getMessage(), e);
+        }
+        return rules;
+    }
+
+    /**
+     * Moves a fully written temporary file over the target, atomically where supported.
+     */
+    private static void replace(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
     }
 
     /**
@@ -54,60 +190,199 @@ public class FileHandler {
      * @throws IOException If an I/O error occurs
      */
     public static List<Expense> loadExpenses(String filePath) throws IOException {
-        String path = (filePath != null && !filePath.isEmpty()) ? filePath : DEFAULT_FILE_PATH;
         List<Expense> expenses = new ArrayList<>();
+        loadExpenses(filePath, Integer.MAX_VALUE, (chunk, bytesRead, totalBytes) -> expenses.addAll(chunk));
+        return expenses;
+    }
+
+    /**
+     * Loads expenses from a CSV file in chunks, handing each chunk over as soon
+     * as it is parsed so callers can show rows before the whole file is read.
+     *
+     * @param filePath  The path to the file (optional)
+     * @param chunkSize The maximum number of expenses per chunk
+     * @param consumer  Receives each chunk with the progress through the file
+     * @throws IOException If an I/O error occurs
+     */
+    public static void loadExpenses(String filePath, int chunkSize, ChunkConsumer consumer) throws IOException {
+        loadExpenses(filePath, chunkSize, FileHandler::parseExpense, consumer);
+    }
+
+    /**
+     * Loads the rows of a bank statement or another program's export, which
+     * uses the same columns as an expenses file but may leave some blank.
+     * Rows without a valid ID are given a new one, and rows without a known
+     * category are put in {@link Category#OTHER}.
+     *
+     * @param filePath The path to the file
+     * @return The rows of the statement
+     * @throws IOException If an I/O error occurs or a row is malformed
+     */
+    public static List<Expense> loadStatement(String filePath) throws IOException {
+        List<Expense> expenses = new ArrayList<>();
+        loadExpenses(filePath, Integer.MAX_VALUE, FileHandler::parseStatementRow,
+                (chunk, bytesRead, totalBytes) -> expenses.addAll(chunk));
+        return expenses;
+    }
+
+    private static void loadExpenses(String filePath, int chunkSize, Function<String, Expense> parser,
+                                     ChunkConsumer consumer) throws IOException {
+        String path = (filePath != null && !filePath.isEmpty()) ? filePath : DEFAULT_FILE_PATH;
         File file = new File(path);
 
         if (!file.exists()) {
-            return expenses; // Return empty list if file doesn't exist
+            return; // Nothing to load if the file doesn't exist
         }
 
+        long totalBytes = file.length();
+        long bytesRead = 0;
+        List<Expense> chunk = new ArrayList<>(Math.min(chunkSize, 1024));
         try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
             // Skip header
             String line = reader.readLine();
+            if (line != null) {
+                bytesRead += line.length() + 1;
+            }
 
             // Read expense data
             while ((line = reader.readLine()) != null) {
-                String[] parts = parseCSVLine(line);
-                if (parts.length >= 6) {
-                    String id = parts[0];
-                    String name = parts[1];
-                    double amount = Double.parseDouble(parts[2]);
-                    LocalDate date = LocalDate.parse(parts[3], DATE_FORMATTER);
-                    Category category = Category.valueOf(parts[4]);
-                    String description = parts[5];
-
-                    // Create a new expense with the loaded data
-                    Expense expense = new Expense(name, amount, date, category, description) {
-                        // Anonymous subclass to override the ID
-                        @Override
-                        public String getId() {
-                            return id;
-                        }
-                    };
-
-                    expenses.add(expense);
+                bytesRead += line.length() + 1;
+                Expense expense = parser.apply(line);
+                if (expense != null) {
+                    chunk.add(expense);
+                    if (chunk.size() >= chunkSize) {
+                        consumer.accept(chunk, Math.min(bytesRead, totalBytes), totalBytes);
+                        chunk = new ArrayList<>(Math.min(chunkSize, 1024));
+                    }
                 }
             }
         } catch (Exception e) {
             throw new IOException("Error loading expenses: " + e.getMessage(), e);
         }
 
-        return expenses;
+        if (!chunk.isEmpty()) {
+            consumer.accept(chunk, totalBytes, totalBytes);
+        }
     }
 
     /**
-     * Escapes special characters in CSV values.
+     * Gets an expense as it reads back from a file it was saved to: amounts are
+     * written rounded to cents, and a missing name or description as empty text.
+     *
+     * @param expense The expense
+     * @return The expense itself if it reads back unchanged, or its read-back form
      */
-    private static String escapeCSV(String value) {
-        if (value == null) {
-            return "";
+    public static Expense asWritten(Expense expense) {
+        double amount = Double.parseDouble(String.format(Locale.ROOT, "%.2f", expense.getAmount()));
+        Expense written = expense;
+        if (Double.compare(amount, expense.getAmount()) != 0) {
+            written = written.withAmount(amount);
+        }
+        if (expense.getName() == null) {
+            written = written.withName("");
         }
-        // If the value contains comma, quote, or newline, wrap it in quotes and escape any quotes
-        if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
-            return "\"" + value.replace("\"", "\"\"") + "\"";
+        if (expense.getDescription() == null) {
+            written = written.withDescription("");
         }
-        return value;
+        return written;
+    }
+
+    /**
+     * Parses one line of an expenses file, keeping the expense's ID.
+     *
+     * @param line A data line, without the line break
+     * @return The expense, or null if the line has too few columns
+     * @throws RuntimeException If a value is malformed
+     */
+    public static Expense parseExpense(String line) {
+        String[] parts = parseCSVLine(line);
+        if (parts.length < 6) {
+            return null;
+        }
+        String id = parts[0];
+        String name = parts[1];
+        double amount = Double.parseDouble(parts[2]);
+        LocalDate date = LocalDate.parse(parts[3], DATE_FORMATTER);
+        Category category = Category.valueOf(parts[4]);
+        String description = parts[5];
+        // Files written before currencies were added have no currency column
+        String currency = parts.length >= 7 ? parts[6] : Expense.DEFAULT_CURRENCY;
+        return new Expense(id, name, amount, currency, date, category, description);
+    }
+
+    /**
+     * Parses one row of a statement. Unlike {@link #parseExpense(String)}, a
+     * blank or malformed ID gets a new ID rather than one derived from the text,
+     * so such rows stay distinct, and a blank or unknown category becomes
+     * {@link Category#OTHER}.
+     */
+    private static Expense parseStatementRow(String line) {
+        String[] parts = parseCSVLine(line);
+        if (parts.length < 6) {
+            return null;
+        }
+        String id = parts[0].trim();
+        String name = parts[1];
+        double amount = Double.parseDouble(parts[2].trim());
+        LocalDate date = LocalDate.parse(parts[3].trim(), DATE_FORMATTER);
+        Category category = parseCategory(parts[4].trim());
+        String description = parts[5];
+        String currency = parts.length >= 7 ? parts[6] : Expense.DEFAULT_CURRENCY;
+        return isUuid(id)
+                ? new Expense(id, name, amount, currency, date, category, description)
+                : new Expense(name, amount, currency, date, category, description);
+    }
+
+    private static Category parseCategory(String value) {
+        for (Category category : Category.values()) {
+            if (category.name().equalsIgnoreCase(value) || category.getDisplayName().equalsIgnoreCase(value)) {
+                return category;
+            }
+        }
+        return Category.OTHER;
+    }
+
+    private static boolean isUuid(String value) {
+        try {
+            return UUID.fromString(value).toString().equalsIgnoreCase(value);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Loads an exchange rate table from a CSV file with the columns Date, Currency
+     * and Rate, where Rate is the value of one unit of the currency in the base
+     * currency from that date on.
+     *
+     * @param filePath     The path to the file
+     * @param baseCurrency The currency the rates are expressed in
+     * @return The loaded rates
+     * @throws IOException If an I/O error occurs or the file is malformed
+     */
+    public static ExchangeRates loadExchangeRates(String filePath, String baseCurrency) throws IOException {
+        ExchangeRates rates = new ExchangeRates(baseCurrency);
+        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
+            // Skip header
+            String line = reader.readLine();
+
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                String[] parts = parseCSVLine(line);
+                if (parts.length < 3) {
+                    throw new IOException("Expected Date,Currency,Rate but got: " + line);
+                }
+                rates.addRate(parts[1].trim(), LocalDate.parse(parts[0].trim(), DATE_FORMATTER),
+                        Double.parseDouble(parts[2].trim()));
+            }
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Error loading exchange rates: " + e.getMessage(), e);
+        }
+        return rates;
     }
 
     /**
@@ -142,4 +417,19 @@ public class FileHandler {
 
         return result.toArray(new String[0]);
     }
-}
\ No newline at end of file
+
+    /**
+     * Receives the expenses of a file one chunk at a time.
+     */
+    @FunctionalInterface
+    public interface ChunkConsumer {
+        /**
+         * Handles one chunk of loaded expenses.
+         *
+         * @param chunk      The expenses, in file order; the list is not reused
+         * @param bytesRead  Roughly how much of the file has been read so far
+         * @param totalBytes The size of the file
+         */
+        void accept(List<Expense> chunk, long bytesRead, long totalBytes);
+    }
+}
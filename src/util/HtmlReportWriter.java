@@ -0,0 +1,83 @@
+package util;
+
+import model.Category;
+import model.Expense;
+import model.Granularity;
+import model.TrendPoint;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.YearMonth;
+
+/**
+ * Writes reports as a static, self-contained HTML page.
+ */
+class HtmlReportWriter implements ReportWriter {
+    private static final String STYLE = "body{font-family:'Segoe UI',sans-serif;color:#424242;margin:2em}"
+            + "h1,h2{color:#2196F3}table{border-collapse:collapse;min-width:24em;margin-bottom:2em}"
+            + "th{background:#2196F3;color:#fff;text-align:left}th,td{padding:4px 10px}"
+            + "td.amount{text-align:right;color:#F44336}tr.category td:first-child{padding-left:2em}"
+            + "tr:nth-child(even){background:#F5F5F5}";
+
+    private final Writer out;
+    private String currency;
+
+    HtmlReportWriter(Writer out) {
+        this.out = out;
+    }
+
+    @Override
+    public void beginReport(String title, YearMonth from, YearMonth to, String currency) throws IOException {
+        this.currency = currency;
+        out.write("<!DOCTYPE html>\n<html><head><meta charset=\"UTF-8\"><title>" + escape(title)
+                + "</title><style>" + STYLE + "</style></head><body>\n");
+        out.write("<h1>" + escape(title) + "</h1>\n<p>" + from + " to " + to + "</p>\n");
+        out.write("<h2>Monthly Totals</h2>\n<table><tr><th>Month</th><th>Amount</th></tr>\n");
+    }
+
+    @Override
+    public void beginMonth(YearMonth month, double total) throws IOException {
+        out.write("<tr><td><b>" + month + "</b></td><td class=\"amount\"><b>" + amount(total) + "</b></td></tr>\n");
+    }
+
+    @Override
+    public void categoryTotal(YearMonth month, Category category, double total) throws IOException {
+        out.write("<tr class=\"category\"><td>" + escape(category.getDisplayName()) + "</td><td class=\"amount\">"
+                + amount(total) + "</td></tr>\n");
+    }
+
+    @Override
+    public void endMonth() {
+    }
+
+    @Override
+    public void beginTrend(Granularity granularity) throws IOException {
+        out.write("</table>\n<h2>Trend by " + granularity.name().toLowerCase() + "</h2>\n"
+                + "<table><tr><th>From</th><th>To</th><th>Amount</th></tr>\n");
+    }
+
+    @Override
+    public void trendPoint(TrendPoint point) throws IOException {
+        out.write("<tr><td>" + point.getPeriodStart() + "</td><td>" + point.getPeriodEnd()
+                + "</td><td class=\"amount\">" + amount(point.getTotal()) + "</td></tr>\n");
+    }
+
+    @Override
+    public void endTrend() throws IOException {
+        out.write("</table>\n");
+    }
+
+    @Override
+    public void endReport(YearMonth from, YearMonth to, double total) throws IOException {
+        out.write("<h2>Total: " + amount(total) + "</h2>\n</body></html>\n");
+        out.flush();
+    }
+
+    private String amount(double value) {
+        return escape(Expense.formatAmount(value, currency));
+    }
+
+    private static String escape(String value) {
+        return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+}
@@ -0,0 +1,79 @@
+package util;
+
+import model.Category;
+import model.Granularity;
+import model.TrendPoint;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.YearMonth;
+import java.util.Locale;
+
+/**
+ * Writes reports as a single JSON document.
+ */
+class JsonReportWriter implements ReportWriter {
+    private final Writer out;
+    private boolean firstMonth;
+    private boolean firstCategory;
+    private boolean firstPoint;
+
+    JsonReportWriter(Writer out) {
+        this.out = out;
+    }
+
+    @Override
+    public void beginReport(String title, YearMonth from, YearMonth to, String currency) throws IOException {
+        out.write("{\n  \"title\": " + Quoting.json(title) + ",\n  \"from\": \"" + from + "\",\n  \"to\": \"" + to
+                + "\",\n  \"currency\": \"" + currency + "\",\n  \"months\": [");
+        firstMonth = true;
+    }
+
+    @Override
+    public void beginMonth(YearMonth month, double total) throws IOException {
+        out.write(firstMonth ? "\n" : ",\n");
+        out.write("    {\"month\": \"" + month + "\", \"total\": " + amount(total) + ", \"categories\": {");
+        firstMonth = false;
+        firstCategory = true;
+    }
+
+    @Override
+    public void categoryTotal(YearMonth month, Category category, double total) throws IOException {
+        out.write((firstCategory ? "" : ", ") + "\"" + category.name() + "\": " + amount(total));
+        firstCategory = false;
+    }
+
+    @Override
+    public void endMonth() throws IOException {
+        out.write("}}");
+    }
+
+    @Override
+    public void beginTrend(Granularity granularity) throws IOException {
+        out.write("\n  ],\n  \"trend\": {\"granularity\": \"" + granularity.name() + "\", \"points\": [");
+        firstPoint = true;
+    }
+
+    @Override
+    public void trendPoint(TrendPoint point) throws IOException {
+        out.write(firstPoint ? "\n" : ",\n");
+        out.write("    {\"start\": \"" + point.getPeriodStart() + "\", \"end\": \"" + point.getPeriodEnd()
+                + "\", \"total\": " + amount(point.getTotal()) + "}");
+        firstPoint = false;
+    }
+
+    @Override
+    public void endTrend() throws IOException {
+        out.write("\n  ]}");
+    }
+
+    @Override
+    public void endReport(YearMonth from, YearMonth to, double total) throws IOException {
+        out.write(",\n  \"total\": " + amount(total) + "\n}\n");
+        out.flush();
+    }
+
+    private static String amount(double value) {
+        return String.format(Locale.ROOT, "%.2f", value);
+    }
+}
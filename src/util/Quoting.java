@@ -0,0 +1,50 @@
+package util;
+
+/**
+ * Quotes text values for the CSV and JSON files and responses the app writes.
+ */
+public final class Quoting {
+    private Quoting() {
+    }
+
+    /**
+     * Quotes a CSV value when it contains a comma, quote or newline.
+     */
+    public static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        // If the value contains comma, quote, or newline, wrap it in quotes and escape any quotes
+        if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+
+    /**
+     * Formats a value as a JSON string literal, or {@code null} for null.
+     */
+    public static String json(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder builder = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': builder.append("\\\""); break;
+                case '\\': builder.append("\\\\"); break;
+                case '\n': builder.append("\\n"); break;
+                case '\r': builder.append("\\r"); break;
+                case '\t': builder.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        builder.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        builder.append(c);
+                    }
+            }
+        }
+        return builder.append('"').toString();
+    }
+}
@@ -0,0 +1,72 @@
+package util;
+
+import model.Category;
+import model.ExpenseManager;
+import model.Granularity;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.time.YearMonth;
+import java.util.Map;
+
+/**
+ * Exports monthly totals, category breakdowns and trends to CSV, JSON or HTML.
+ * <p>
+ * Every figure is read from the running totals kept by {@link ExpenseManager}
+ * and written out immediately, so memory use does not grow with the number of
+ * expenses or with the length of the exported period.
+ */
+public class ReportExporter {
+
+    /**
+     * Streams a report over a range of months.
+     *
+     * @param manager     The expenses to report on
+     * @param title       The report title
+     * @param from        The first month of the report
+     * @param to          The last month of the report
+     * @param granularity The period size of the trend section
+     * @param format      The output format
+     * @param out         Where the report is written
+     * @throws IOException If an I/O error occurs
+     */
+    public static void export(ExpenseManager manager, String title, YearMonth from, YearMonth to,
+                              Granularity granularity, ReportFormat format, Writer out) throws IOException {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Report ends before it starts: " + from + " to " + to);
+        }
+        ReportWriter writer = format.createWriter(out);
+        writer.beginReport(title, from, to, manager.getReportingCurrency());
+
+        double total = 0;
+        for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+            double monthlyTotal = manager.calculateMonthlyTotal(month.getYear(), month.getMonth());
+            total += monthlyTotal;
+            writer.beginMonth(month, monthlyTotal);
+            Map<Category, Double> categoryTotals = manager.getCategoryTotalsForMonth(month.getYear(), month.getMonth());
+            for (Map.Entry<Category, Double> entry : categoryTotals.entrySet()) {
+                if (entry.getValue() > 0) {
+                    writer.categoryTotal(month, entry.getKey(), entry.getValue());
+                }
+            }
+            writer.endMonth();
+        }
+
+        writer.beginTrend(granularity);
+        try {
+            manager.forEachTrendPoint(from.atDay(1), to.atEndOfMonth(), granularity, point -> {
+                try {
+                    writer.trendPoint(point);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.endTrend();
+
+        writer.endReport(from, to, total);
+    }
+}
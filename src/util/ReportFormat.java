@@ -0,0 +1,58 @@
+package util;
+
+import java.io.Writer;
+
+/**
+ * Represents the file formats reports can be exported to.
+ */
+public enum ReportFormat {
+    CSV("csv"),
+    JSON("json"),
+    HTML("html");
+
+    private final String extension;
+
+    ReportFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Finds the format for a file name or extension, such as "report.html" or "json".
+     *
+     * @param fileName The file name or extension
+     * @return The matching format
+     * @throws IllegalArgumentException If no format matches
+     */
+    public static ReportFormat fromFileName(String fileName) {
+        String extension = fileName.substring(fileName.lastIndexOf('.') + 1).toLowerCase();
+        for (ReportFormat format : values()) {
+            if (format.extension.equals(extension)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported report format: " + fileName);
+    }
+
+    /**
+     * Creates a writer that streams a report in this format.
+     *
+     * @param out Where the report is written
+     * @return The report writer
+     */
+    public ReportWriter createWriter(Writer out) {
+        switch (this) {
+            case CSV:
+                return new CsvReportWriter(out);
+            case JSON:
+                return new JsonReportWriter(out);
+            case HTML:
+                return new HtmlReportWriter(out);
+            default:
+                throw new IllegalStateException("Unknown format: " + this);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package util;
+
+import model.Category;
+import model.Granularity;
+import model.TrendPoint;
+
+import java.io.IOException;
+import java.time.YearMonth;
+
+/**
+ * Receives a report piece by piece and writes each piece out immediately,
+ * so exporting never holds more than one row in memory.
+ * <p>
+ * Calls arrive in this order: {@code beginReport}, then for each month
+ * {@code beginMonth}, any {@code categoryTotal} calls and {@code endMonth},
+ * then {@code beginTrend}, any {@code trendPoint} calls and {@code endTrend},
+ * and finally {@code endReport}.
+ */
+public interface ReportWriter {
+    /**
+     * Starts a report whose amounts are all in the given currency.
+     */
+    void beginReport(String title, YearMonth from, YearMonth to, String currency) throws IOException;
+
+    void beginMonth(YearMonth month, double total) throws IOException;
+
+    void categoryTotal(YearMonth month, Category category, double total) throws IOException;
+
+    void endMonth() throws IOException;
+
+    void beginTrend(Granularity granularity) throws IOException;
+
+    void trendPoint(TrendPoint point) throws IOException;
+
+    void endTrend() throws IOException;
+
+    void endReport(YearMonth from, YearMonth to, double total) throws IOException;
+}
@@ -0,0 +1,190 @@
+package view;
+
+import controller.ExpenseController;
+import model.Expense;
+import model.ExpenseColumn;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Table model that reads expenses page by page from the controller instead of
+ * copying every row into the table.
+ */
+public class ExpenseTableModel extends AbstractTableModel {
+    private static final String[] COLUMNS = {"ID", "Name", "Amount", "Date", "Category", "Description"};
+    private static final int PAGE_SIZE = 200;
+    // The column each table column sorts by; the hidden ID column is not sortable
+    private static final ExpenseColumn[] SORT_COLUMNS = {null, ExpenseColumn.NAME, ExpenseColumn.AMOUNT,
+            ExpenseColumn.DATE, ExpenseColumn.CATEGORY, ExpenseColumn.DESCRIPTION};
+
+    private final ExpenseController controller;
+    private final FormattedValueCache formatCache;
+    private List<Expense> filteredExpenses;
+    private int rowCount;
+    private int pageStart;
+    private List<Expense> page;
+    private ExpenseColumn sortColumn;
+    private boolean ascending = true;
+
+    public ExpenseTableModel(ExpenseController controller) {
+        this.controller = controller;
+        this.formatCache = new FormattedValueCache();
+        this.page = List.of();
+    }
+
+    /**
+     * Shows every expense, fetched lazily one page at a time.
+     */
+    public void showAllExpenses() {
+        filteredExpenses = null;
+        rowCount = controller.getExpenseCount();
+        page = List.of();
+        fireTableDataChanged();
+    }
+
+    /**
+     * Picks up expenses appended to the book, such as chunks arriving while the
+     * book loads, without resetting the view. Has no effect on a filtered view.
+     */
+    public void expensesAppended() {
+        if (filteredExpenses != null) {
+            return;
+        }
+        int oldCount = rowCount;
+        rowCount = controller.getExpenseCount();
+        // The cached page may be the partial last page, or out of order if sorted
+        page = List.of();
+        if (sortColumn != null) {
+            fireTableDataChanged();
+        } else if (rowCount > oldCount) {
+            fireTableRowsInserted(oldCount, rowCount - 1);
+        }
+    }
+
+    /**
+     * Gets whether every expense is shown rather than a filtered list.
+     */
+    public boolean isShowingAll() {
+        return filteredExpenses == null;
+    }
+
+    /**
+     * Shows only the given expenses, such as the result of a month filter.
+     */
+    public void showExpenses(List<Expense> expenses) {
+        filteredExpenses = sortColumn == null ? expenses : sorted(expenses);
+        rowCount = expenses.size();
+        page = List.of();
+        fireTableDataChanged();
+    }
+
+    /**
+     * Gets the expense displayed in the given row.
+     */
+    public Expense getExpenseAt(int row) {
+        if (filteredExpenses != null) {
+            return filteredExpenses.get(row);
+        }
+        if (row < pageStart || row >= pageStart + page.size()) {
+            pageStart = row - row % PAGE_SIZE;
+            page = controller.getExpensesPage(pageStart, PAGE_SIZE, sortColumn, ascending);
+        }
+        return page.get(row - pageStart);
+    }
+
+    /**
+     * Sorts by the given table column, or reverses the order if the table is
+     * already sorted by it. The full list is sorted by the manager's
+     * maintained permutations, so only the visible page is fetched again.
+     *
+     * @param column The model index of the clicked column
+     * @return Whether the column can be sorted by
+     */
+    public boolean toggleSort(int column) {
+        ExpenseColumn clicked = column >= 0 && column < SORT_COLUMNS.length ? SORT_COLUMNS[column] : null;
+        if (clicked == null) {
+            return false;
+        }
+        ascending = clicked != sortColumn || !ascending;
+        sortColumn = clicked;
+        page = List.of();
+        if (filteredExpenses != null) {
+            filteredExpenses = sorted(filteredExpenses);
+        }
+        fireTableDataChanged();
+        return true;
+    }
+
+    /**
+     * Gets the column the table is sorted by, or null if it is in insertion order.
+     */
+    public ExpenseColumn getSortColumn() {
+        return sortColumn;
+    }
+
+    /**
+     * Gets whether the table is sorted in ascending order.
+     */
+    public boolean isAscending() {
+        return ascending;
+    }
+
+    /**
+     * Gets the table column index that shows the given sort column.
+     */
+    public static int columnIndexOf(ExpenseColumn column) {
+        for (int i = 0; i < SORT_COLUMNS.length; i++) {
+            if (SORT_COLUMNS[i] == column) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Sorts a filtered list, which is small enough to sort directly.
+     */
+    private List<Expense> sorted(List<Expense> expenses) {
+        Comparator<Expense> comparator = sortColumn.getComparator();
+        List<Expense> copy = new ArrayList<>(expenses);
+        copy.sort(ascending ? comparator : comparator.reversed());
+        return copy;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false; // Make table read-only
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        Expense expense = getExpenseAt(row);
+        switch (column) {
+            case 0: return expense.getId();
+            case 1: return expense.getName();
+            case 2: return formatCache.formatAmount(expense.getAmount(), expense.getCurrency());
+            case 3: return formatCache.formatDate(expense.getDate());
+            case 4: return expense.getCategory().getDisplayName();
+            case 5: return expense.getDescription();
+            default: return null;
+        }
+    }
+}
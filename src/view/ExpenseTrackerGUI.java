@@ -1,21 +1,51 @@
 package view;
 
+import controller.AutosaveService;
 import controller.ExpenseController;
+import controller.ExpenseFileWatcher;
+import model.Budget;
+import model.BudgetAlert;
 import model.Category;
 import model.Expense;
+import model.ExpenseColumn;
+import model.Frequency;
+import model.Granularity;
+import model.ImportResult;
+import model.MerchantTotal;
+import model.QuantileSketch;
+import model.RecurringExpense;
+import model.SpendingAnomaly;
+import util.FileHandler;
+import util.ReportFormat;
 
 import javax.swing.*;
+import javax.swing.border.Border;
 import javax.swing.border.EmptyBorder;
+import javax.swing.filechooser.FileNameExtensionFilter;
 import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.JTableHeader;
+import javax.swing.table.TableColumn;
 import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.FocusAdapter;
+import java.awt.event.FocusEvent;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.time.LocalDate;
 import java.time.Month;
 import java.time.YearMonth;
-import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
 
 /**
  * Main GUI class for the Expense Tracker application.
@@ -30,17 +60,40 @@ public class ExpenseTrackerGUI extends JFrame {
     private static final Color TEXT_COLOR = new Color(66, 66, 66); // Dark Gray
     private static final Color POSITIVE_COLOR = new Color(76, 175, 80); // Green
     private static final Color NEGATIVE_COLOR = new Color(244, 67, 54); // Red
+    private static final Color STRIPE_COLOR = new Color(245, 245, 245); // Alternate table rows
+    // Shared by every table cell so painting a row allocates no styling objects
+    private static final Border CELL_PADDING = new EmptyBorder(0, 5, 0, 5);
+    // How many days apart an imported row with the same amount is treated as a possible duplicate
+    private static final int IMPORT_NEAR_DAYS = 3;
+    // How many expenses are read from disk before the table is updated during startup
+    private static final int LOAD_CHUNK_SIZE = 5000;
+    // How many of the year's biggest payees the report lists
+    private static final int TOP_PAYEES = 5;
+    // Autosave waits for a quiet second, but never holds changes for more than ten
+    private static final long AUTOSAVE_DELAY_MILLIS = 1000;
+    private static final long AUTOSAVE_MAX_DELAY_MILLIS = 10000;
+    // A large import can flag many expenses; the notice lists only the first few
+    private static final int MAX_ANOMALIES_SHOWN = 10;
+    // Recurring expenses are created at startup and checked again every hour, so a new month is picked up
+    private static final int RECURRING_CHECK_MILLIS = 60 * 60 * 1000;
     private final ExpenseController controller;
+    private final AutosaveService autosave;
     private final JTable expenseTable;
-    private final DefaultTableModel tableModel;
+    private final ExpenseTableModel tableModel;
     private JLabel totalLabel;
     private JComboBox<String> monthSelector;
     private JComboBox<Integer> yearSelector;
     private final JPanel reportPanel;
     private final JPanel chartPanel;
-
-    private static final String[] TABLE_COLUMNS = {"ID", "Name", "Amount", "Date", "Category", "Description"};
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private JTabbedPane tabbedPane;
+    private JProgressBar loadProgress;
+    // The period the report and chart tabs show, built only when their tab is visible
+    private int reportYear;
+    private Month reportMonth;
+    private boolean reportStale;
+    private boolean chartStale;
+    private final List<BudgetAlert> pendingBudgetAlerts;
+    private final List<SpendingAnomaly> pendingAnomalies;
 
     // Remove the parameterized constructor or make it private if not needed
     // public ExpenseTrackerGUI(JLabel totalLabel, JComboBox<String> monthSelector, JComboBox<Integer> yearSelector) {/* implementation omitted for shortness */}
@@ -49,13 +102,14 @@ public class ExpenseTrackerGUI extends JFrame {
         // Initialize the controller
         this.controller = new ExpenseController();
 
+        // Save changes in the background, and once more when the application exits
+        this.autosave = new AutosaveService(controller, null, AUTOSAVE_DELAY_MILLIS, AUTOSAVE_MAX_DELAY_MILLIS,
+                e -> SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(this,
+                        "Error saving expenses: " + e.getMessage(), "Autosave", JOptionPane.ERROR_MESSAGE)));
+        Runtime.getRuntime().addShutdownHook(new Thread(autosave::close, "autosave-flush"));
+
         // Initialize the table model
-        this.tableModel = new DefaultTableModel(TABLE_COLUMNS, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false; // Make table read-only
-            }
-        };
+        this.tableModel = new ExpenseTableModel(controller);
 
         // Initialize the table
         this.expenseTable = new JTable(tableModel);
@@ -66,6 +120,14 @@ public class ExpenseTrackerGUI extends JFrame {
         this.yearSelector = new JComboBox<>();
         this.reportPanel = new JPanel();
         this.chartPanel = new JPanel();
+        this.reportYear = LocalDate.now().getYear();
+        this.reportMonth = LocalDate.now().getMonth();
+        this.reportStale = true;
+        this.chartStale = true;
+        this.pendingBudgetAlerts = new ArrayList<>();
+        controller.addBudgetListener(this::queueBudgetAlert);
+        this.pendingAnomalies = new ArrayList<>();
+        controller.addAnomalyListener(this::queueAnomaly);
 
         // Initialize the GUI
         initializeGUI();
@@ -88,7 +150,11 @@ public class ExpenseTrackerGUI extends JFrame {
         // Style components
         styleTable(expenseTable);
 
-        // Load initial data
+        // Keyboard shortcuts for undo and redo
+        registerShortcut(KeyStroke.getKeyStroke(KeyEvent.VK_Z, InputEvent.CTRL_DOWN_MASK), "undo", this::undoLastChange);
+        registerShortcut(KeyStroke.getKeyStroke(KeyEvent.VK_Y, InputEvent.CTRL_DOWN_MASK), "redo", this::redoLastChange);
+
+        // Show the empty window first, then stream the saved expenses in
         refreshExpenseTable();
         updateTotalLabel();
 
@@ -96,6 +162,88 @@ public class ExpenseTrackerGUI extends JFrame {
         setSize(1200, 800);
         setLocationRelativeTo(null);
         setVisible(true);
+
+        loadSavedExpenses();
+    }
+
+    /**
+     * Reads the saved expenses on a background thread and adds them to the
+     * table chunk by chunk, so the window is usable while a large book loads.
+     */
+    private void loadSavedExpenses() {
+        loadProgress.setVisible(true);
+        SwingWorker<Void, List<Expense>> loader = new SwingWorker<>() {
+            @Override
+            protected Void doInBackground() throws IOException {
+                FileHandler.loadExpenses(null, LOAD_CHUNK_SIZE, (chunk, bytesRead, totalBytes) -> {
+                    publish(chunk);
+                    setProgress(totalBytes == 0 ? 100 : (int) (bytesRead * 100 / totalBytes));
+                });
+                return null;
+            }
+
+            @Override
+            protected void process(List<List<Expense>> chunks) {
+                // The model is only touched here, on the Event Dispatch Thread
+                for (List<Expense> chunk : chunks) {
+                    controller.addLoadedExpenses(chunk);
+                }
+                tableModel.expensesAppended();
+                if (tableModel.isShowingAll()) {
+                    updateTotalLabel();
+                }
+                invalidateReportTabs();
+            }
+
+            @Override
+            protected void done() {
+                loadProgress.setVisible(false);
+                try {
+                    get();
+                    controller.loadRecurringExpenses(null);
+                    catchUpRecurringExpenses();
+                    new Timer(RECURRING_CHECK_MILLIS, e -> catchUpRecurringExpenses()).start();
+                    // Only save once the whole book is in, so a partial book never overwrites it
+                    autosave.setEnabled(true);
+                    watchSavedExpenses();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    JOptionPane.showMessageDialog(ExpenseTrackerGUI.this,
+                            "Error loading expenses: " + e.getCause().getMessage(),
+                            "Load", JOptionPane.ERROR_MESSAGE);
+                } catch (IOException e) {
+                    JOptionPane.showMessageDialog(ExpenseTrackerGUI.this,
+                            "Error loading recurring expenses: " + e.getMessage(),
+                            "Load", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        };
+        loader.addPropertyChangeListener(e -> {
+            if ("progress".equals(e.getPropertyName())) {
+                loadProgress.setValue((Integer) e.getNewValue());
+            }
+        });
+        loader.execute();
+    }
+
+    /**
+     * Picks up changes other programs make to the saved expenses while the
+     * window is open. The watcher is told about every autosave, so the
+     * application's own saves are not read back.
+     */
+    private void watchSavedExpenses() {
+        try {
+            ExpenseFileWatcher watcher = new ExpenseFileWatcher(controller, FileHandler.DEFAULT_FILE_PATH,
+                    SwingUtilities::invokeLater, this::refreshAfterChange,
+                    e -> SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(this,
+                            "Error reloading expenses: " + e.getMessage(), "Reload", JOptionPane.ERROR_MESSAGE)));
+            autosave.addSaveListener(watcher);
+            watcher.start();
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this, "Cannot watch the expenses file for changes: " + e.getMessage(),
+                    "Reload", JOptionPane.WARNING_MESSAGE);
+        }
     }
 
     private JPanel createHeaderPanel() {
@@ -111,7 +259,7 @@ public class ExpenseTrackerGUI extends JFrame {
         mainPanel.setBackground(BACKGROUND_COLOR);
 
         // Create tabbed pane or split pane for different views
-        JTabbedPane tabbedPane = new JTabbedPane();
+        tabbedPane = new JTabbedPane();
 
         // Expenses tab
         JPanel expensesPanel = new JPanel(new BorderLayout());
@@ -125,6 +273,9 @@ public class ExpenseTrackerGUI extends JFrame {
         // Charts tab
         tabbedPane.addTab("Charts", chartPanel);
 
+        // Reports and charts are only computed once their tab is shown
+        tabbedPane.addChangeListener(e -> buildVisibleReportTab());
+
         mainPanel.add(tabbedPane, BorderLayout.CENTER);
         return mainPanel;
     }
@@ -167,10 +318,22 @@ public class ExpenseTrackerGUI extends JFrame {
         JButton addButton = createStyledButton("Add Expense", POSITIVE_COLOR);
         JButton editButton = createStyledButton("Edit", SECONDARY_COLOR);
         JButton deleteButton = createStyledButton("Delete", NEGATIVE_COLOR);
+        JButton undoButton = createStyledButton("Undo", Color.GRAY);
+        JButton redoButton = createStyledButton("Redo", Color.GRAY);
+        JButton importButton = createStyledButton("Import", ACCENT_COLOR);
+        JButton exportButton = createStyledButton("Export", ACCENT_COLOR);
+        JButton budgetsButton = createStyledButton("Budgets", ACCENT_COLOR);
+        JButton recurringButton = createStyledButton("Recurring", ACCENT_COLOR);
 
         buttonPanel.add(addButton);
         buttonPanel.add(editButton);
         buttonPanel.add(deleteButton);
+        buttonPanel.add(undoButton);
+        buttonPanel.add(redoButton);
+        buttonPanel.add(importButton);
+        buttonPanel.add(exportButton);
+        buttonPanel.add(budgetsButton);
+        buttonPanel.add(recurringButton);
 
         // Create the filter panel
         JPanel filterPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 10, 0));
@@ -212,6 +375,12 @@ public class ExpenseTrackerGUI extends JFrame {
         addButton.addActionListener(e -> showAddExpenseDialog());
         editButton.addActionListener(e -> editSelectedExpense());
         deleteButton.addActionListener(e -> deleteSelectedExpense());
+        undoButton.addActionListener(e -> undoLastChange());
+        redoButton.addActionListener(e -> redoLastChange());
+        importButton.addActionListener(e -> importStatement());
+        exportButton.addActionListener(e -> exportReport());
+        budgetsButton.addActionListener(e -> showBudgetsDialog());
+        recurringButton.addActionListener(e -> showRecurringExpensesDialog());
         filterButton.addActionListener(e -> filterExpenses());
 
         return controlPanel;
@@ -232,6 +401,12 @@ public class ExpenseTrackerGUI extends JFrame {
 
         statusPanel.add(totalLabel, BorderLayout.WEST);
 
+        loadProgress = new JProgressBar(0, 100);
+        loadProgress.setStringPainted(true);
+        loadProgress.setString("Loading expenses...");
+        loadProgress.setVisible(false);
+        statusPanel.add(loadProgress, BorderLayout.EAST);
+
         return statusPanel;
     }
 
@@ -276,6 +451,15 @@ public class ExpenseTrackerGUI extends JFrame {
         header.setBackground(PRIMARY_COLOR);
         header.setForeground(Color.WHITE);
         header.setBorder(BorderFactory.createLineBorder(PRIMARY_COLOR));
+        header.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int column = table.convertColumnIndexToModel(header.columnAtPoint(e.getPoint()));
+                if (tableModel.toggleSort(column)) {
+                    updateSortIndicator(table);
+                }
+            }
+        });
 
         // Set selection colors
         table.setSelectionBackground(new Color(SECONDARY_COLOR.getRed(),
@@ -297,51 +481,10 @@ public class ExpenseTrackerGUI extends JFrame {
         table.getColumnModel().getColumn(0).setWidth(0);
 
         // Custom renderer for amount column (right-aligned with color)
-        DefaultTableCellRenderer amountRenderer = new DefaultTableCellRenderer() {
-            @Override
-            public Component getTableCellRendererComponent(JTable table, Object value,
-                                                           boolean isSelected, boolean hasFocus, int row, int column) {
-                Component c = super.getTableCellRendererComponent(
-                        table, value, isSelected, hasFocus, row, column);
-
-                if (column == 2 && value != null) { // Amount column
-                    String amountStr = value.toString();
-                    if (amountStr.startsWith("$")) {
-                        try {
-                            double amount = Double.parseDouble(amountStr.substring(1));
-                            if (amount > 0) {
-                                c.setForeground(isSelected ? TEXT_COLOR : NEGATIVE_COLOR);
-                            }
-                        } catch (NumberFormatException e) {
-                            // Ignore parsing errors
-                        }
-                    }
-                }
-
-                return c;
-            }
-        };
-        amountRenderer.setHorizontalAlignment(SwingConstants.RIGHT);
-        table.getColumnModel().getColumn(2).setCellRenderer(amountRenderer);
+        table.getColumnModel().getColumn(2).setCellRenderer(new AmountCellRenderer(tableModel));
 
         // Add zebra striping
-        table.setDefaultRenderer(Object.class, new DefaultTableCellRenderer() {
-            @Override
-            public Component getTableCellRendererComponent(JTable table, Object value,
-                                                           boolean isSelected, boolean hasFocus, int row, int column) {
-                Component c = super.getTableCellRendererComponent(
-                        table, value, isSelected, hasFocus, row, column);
-
-                if (!isSelected) {
-                    c.setBackground(row % 2 == 0 ? Color.WHITE : new Color(245, 245, 245));
-                }
-
-                // Add some padding
-                ((JLabel) c).setBorder(new EmptyBorder(0, 5, 0, 5));
-
-                return c;
-            }
-        });
+        table.setDefaultRenderer(Object.class, new StripedCellRenderer());
     }
 
     /**
@@ -363,13 +506,13 @@ public class ExpenseTrackerGUI extends JFrame {
         JTextField amountField = new JTextField(10);
         styleTextField(amountField);
 
+        JTextField currencyField = new JTextField(Expense.DEFAULT_CURRENCY, 3);
+        styleTextField(currencyField);
+
         JComboBox<Category> categoryCombo = new JComboBox<>(Category.values());
         styleComboBox(categoryCombo);
 
-        JSpinner dateSpinner = new JSpinner(new SpinnerDateModel());
-        JSpinner.DateEditor dateEditor = new JSpinner.DateEditor(dateSpinner, "yyyy-MM-dd");
-        dateSpinner.setEditor(dateEditor);
-        dateSpinner.setValue(new java.util.Date());
+        JSpinner dateSpinner = createDateSpinner(LocalDate.now());
         dateSpinner.setFont(new Font("Segoe UI", Font.PLAIN, 14));
 
         JTextArea descriptionArea = new JTextArea(3, 20);
@@ -380,17 +523,46 @@ public class ExpenseTrackerGUI extends JFrame {
 
         JScrollPane descScrollPane = new JScrollPane(descriptionArea);
 
+        // Suggest a category from the name and description until one is picked by hand
+        Category[] suggested = {(Category) categoryCombo.getSelectedItem()};
+        FocusAdapter suggestCategory = new FocusAdapter() {
+            @Override
+            public void focusLost(FocusEvent e) {
+                if (categoryCombo.getSelectedItem() != suggested[0] || nameField.getText().trim().isEmpty()) {
+                    return;
+                }
+                Category category = controller.suggestCategory(nameField.getText(), descriptionArea.getText());
+                if (category != Category.OTHER) {
+                    suggested[0] = category;
+                    categoryCombo.setSelectedItem(category);
+                }
+            }
+        };
+        nameField.addFocusListener(suggestCategory);
+        descriptionArea.addFocusListener(suggestCategory);
+
+        JComboBox<String> repeatCombo = new JComboBox<>();
+        repeatCombo.addItem("Never");
+        for (Frequency frequency : Frequency.values()) {
+            repeatCombo.addItem(frequency.name().charAt(0) + frequency.name().substring(1).toLowerCase());
+        }
+        styleComboBox(repeatCombo);
+
         // Add form fields to the panel with styled labels
         formPanel.add(createStyledLabel("Name:"));
         formPanel.add(nameField);
         formPanel.add(createStyledLabel("Amount:"));
         formPanel.add(amountField);
+        formPanel.add(createStyledLabel("Currency:"));
+        formPanel.add(currencyField);
         formPanel.add(createStyledLabel("Category:"));
         formPanel.add(categoryCombo);
         formPanel.add(createStyledLabel("Date:"));
         formPanel.add(dateSpinner);
         formPanel.add(createStyledLabel("Description:"));
         formPanel.add(descScrollPane);
+        formPanel.add(createStyledLabel("Repeats:"));
+        formPanel.add(repeatCombo);
 
         // Button panel
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
@@ -418,6 +590,10 @@ public class ExpenseTrackerGUI extends JFrame {
                 double amount;
                 try {
                     amount = Double.parseDouble(amountField.getText().trim());
+                    if (!Double.isFinite(amount)) {
+                        showValidationError(dialog, "Please enter a valid amount");
+                        return;
+                    }
                     if (amount <= 0) {
                         showValidationError(dialog, "Amount must be greater than zero");
                         return;
@@ -427,12 +603,28 @@ public class ExpenseTrackerGUI extends JFrame {
                     return;
                 }
 
+                String currency;
+                try {
+                    currency = Expense.normalizeCurrency(currencyField.getText().trim());
+                } catch (IllegalArgumentException ex) {
+                    showValidationError(dialog, "Please enter a three-letter currency code");
+                    return;
+                }
+
                 Category category = (Category) categoryCombo.getSelectedItem();
                 java.util.Date date = (java.util.Date) dateSpinner.getValue();
                 LocalDate localDate = LocalDate.ofInstant(date.toInstant(), java.time.ZoneId.systemDefault());
                 String description = descriptionArea.getText().trim();
 
-                controller.addExpense(name, amount, localDate, category, description);
+                if (repeatCombo.getSelectedIndex() == 0) {
+                    controller.addExpense(name, amount, currency, localDate, category, description);
+                } else {
+                    // The rule creates the first occurrence on the chosen date
+                    Frequency frequency = Frequency.values()[repeatCombo.getSelectedIndex() - 1];
+                    controller.addRecurringExpense(new RecurringExpense(name, amount, currency, category,
+                            description, frequency, 1, EnumSet.of(localDate.getDayOfWeek()), localDate, null));
+                    controller.catchUpRecurringExpenses(LocalDate.now());
+                }
                 refreshExpenseTable();
                 updateTotalLabel();
                 updateReportPanel();
@@ -440,7 +632,8 @@ public class ExpenseTrackerGUI extends JFrame {
                 dialog.dispose();
 
                 // Show success message
-                showSuccessMessage("Expense added successfully");
+                showSuccessMessage(repeatCombo.getSelectedIndex() == 0 ? "Expense added successfully"
+                        : "Recurring expense added successfully");
             } catch (Exception ex) {
                 JOptionPane.showMessageDialog(dialog, "Error adding expense: " + ex.getMessage(),
                         "Error", JOptionPane.ERROR_MESSAGE);
@@ -451,11 +644,26 @@ public class ExpenseTrackerGUI extends JFrame {
 
         // Show dialog
         dialog.pack();
-        dialog.setSize(500, 400);
+        dialog.setSize(500, 480);
         dialog.setLocationRelativeTo(this);
         dialog.setVisible(true);
     }
 
+    /**
+     * Creates a date field that only accepts dates an expense may have.
+     */
+    private static JSpinner createDateSpinner(LocalDate value) {
+        SpinnerDateModel model = new SpinnerDateModel(toDate(value), toDate(Expense.MIN_DATE),
+                toDate(Expense.MAX_DATE), java.util.Calendar.DAY_OF_MONTH);
+        JSpinner dateSpinner = new JSpinner(model);
+        dateSpinner.setEditor(new JSpinner.DateEditor(dateSpinner, "yyyy-MM-dd"));
+        return dateSpinner;
+    }
+
+    private static java.util.Date toDate(LocalDate date) {
+        return java.util.Date.from(date.atStartOfDay(java.time.ZoneId.systemDefault()).toInstant());
+    }
+
     /**
      * Creates a styled label for forms.
      */
@@ -504,6 +712,13 @@ public class ExpenseTrackerGUI extends JFrame {
         });
     }
 
+    /**
+     * Formats a total in the controller's reporting currency.
+     */
+    private String formatAmount(double amount) {
+        return Expense.formatAmount(amount, controller.getReportingCurrency());
+    }
+
     /**
      * Shows a validation error message with improved styling.
      */
@@ -532,15 +747,7 @@ public class ExpenseTrackerGUI extends JFrame {
         }
 
         String expenseId = (String) tableModel.getValueAt(selectedRow, 0);
-        List<Expense> allExpenses = controller.getAllExpenses();
-        Expense selectedExpense = null;
-
-        for (Expense expense : allExpenses) {
-            if (expense.getId().equals(expenseId)) {
-                selectedExpense = expense;
-                break;
-            }
-        }
+        Expense selectedExpense = controller.getExpenseById(expenseId);
 
         if (selectedExpense == null) {
             JOptionPane.showMessageDialog(this, "Could not find the selected expense",
@@ -564,16 +771,14 @@ public class ExpenseTrackerGUI extends JFrame {
         JTextField amountField = new JTextField(String.valueOf(selectedExpense.getAmount()), 10);
         styleTextField(amountField);
 
+        JTextField currencyField = new JTextField(selectedExpense.getCurrency(), 3);
+        styleTextField(currencyField);
+
         JComboBox<Category> categoryCombo = new JComboBox<>(Category.values());
         categoryCombo.setSelectedItem(selectedExpense.getCategory());
         styleComboBox(categoryCombo);
 
-        JSpinner dateSpinner = new JSpinner(new SpinnerDateModel());
-        JSpinner.DateEditor dateEditor = new JSpinner.DateEditor(dateSpinner, "yyyy-MM-dd");
-        dateSpinner.setEditor(dateEditor);
-        java.util.Date date = java.util.Date.from(selectedExpense.getDate()
-                .atStartOfDay(java.time.ZoneId.systemDefault()).toInstant());
-        dateSpinner.setValue(date);
+        JSpinner dateSpinner = createDateSpinner(selectedExpense.getDate());
         dateSpinner.setFont(new Font("Segoe UI", Font.PLAIN, 14));
 
         JTextArea descriptionArea = new JTextArea(selectedExpense.getDescription(), 3, 20);
@@ -589,6 +794,8 @@ public class ExpenseTrackerGUI extends JFrame {
         formPanel.add(nameField);
         formPanel.add(createStyledLabel("Amount:"));
         formPanel.add(amountField);
+        formPanel.add(createStyledLabel("Currency:"));
+        formPanel.add(currencyField);
         formPanel.add(createStyledLabel("Category:"));
         formPanel.add(categoryCombo);
         formPanel.add(createStyledLabel("Date:"));
@@ -623,6 +830,10 @@ public class ExpenseTrackerGUI extends JFrame {
                 double amount;
                 try {
                     amount = Double.parseDouble(amountField.getText().trim());
+                    if (!Double.isFinite(amount)) {
+                        showValidationError(dialog, "Please enter a valid amount");
+                        return;
+                    }
                     if (amount <= 0) {
                         showValidationError(dialog, "Amount must be greater than zero");
                         return;
@@ -632,6 +843,14 @@ public class ExpenseTrackerGUI extends JFrame {
                     return;
                 }
 
+                String currency;
+                try {
+                    currency = Expense.normalizeCurrency(currencyField.getText().trim());
+                } catch (IllegalArgumentException ex) {
+                    showValidationError(dialog, "Please enter a three-letter currency code");
+                    return;
+                }
+
                 Category category = (Category) categoryCombo.getSelectedItem();
                 java.util.Date updatedDate = (java.util.Date) dateSpinner.getValue();
                 LocalDate localDate = LocalDate.ofInstant(updatedDate.toInstant(),
@@ -639,13 +858,14 @@ public class ExpenseTrackerGUI extends JFrame {
                 String description = descriptionArea.getText().trim();
 
                 // Update the expense
-                expenseToEdit.setName(name);
-                expenseToEdit.setAmount(amount);
-                expenseToEdit.setCategory(category);
-                expenseToEdit.setDate(localDate);
-                expenseToEdit.setDescription(description);
-
-                controller.updateExpense(expenseToEdit);
+                Expense updatedExpense = expenseToEdit.withName(name)
+                        .withAmount(amount)
+                        .withCurrency(currency)
+                        .withCategory(category)
+                        .withDate(localDate)
+                        .withDescription(description);
+
+                controller.updateExpense(updatedExpense);
                 refreshExpenseTable();
                 updateTotalLabel();
                 updateReportPanel();
@@ -664,7 +884,7 @@ public class ExpenseTrackerGUI extends JFrame {
 
         // Show dialog
         dialog.pack();
-        dialog.setSize(500, 400);
+        dialog.setSize(500, 440);
         dialog.setLocationRelativeTo(this);
         dialog.setVisible(true);
     }
@@ -725,6 +945,325 @@ public class ExpenseTrackerGUI extends JFrame {
         confirmDialog.setVisible(true);
     }
 
+    /**
+     * Undoes the latest add, edit or delete.
+     */
+    private void undoLastChange() {
+        if (controller.undo()) {
+            refreshAfterChange();
+        } else {
+            JOptionPane.showMessageDialog(this, "Nothing to undo",
+                    "Undo", JOptionPane.INFORMATION_MESSAGE);
+        }
+    }
+
+    /**
+     * Redoes the latest undone change.
+     */
+    private void redoLastChange() {
+        if (controller.redo()) {
+            refreshAfterChange();
+        } else {
+            JOptionPane.showMessageDialog(this, "Nothing to redo",
+                    "Redo", JOptionPane.INFORMATION_MESSAGE);
+        }
+    }
+
+    /**
+     * Imports the rows of a CSV statement that are not already in the book. Rows
+     * with the same amount as an expense a few days away are only added if the
+     * user confirms them.
+     */
+    private void importStatement() {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Import Statement");
+        fileChooser.setFileFilter(new FileNameExtensionFilter("CSV files", "csv"));
+        if (fileChooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+
+        ImportResult result;
+        try {
+            // Asked before anything is added, so accepted rows are part of the import's undo step
+            result = controller.importExpenses(fileChooser.getSelectedFile().getPath(), IMPORT_NEAR_DAYS,
+                    nearDuplicates -> JOptionPane.showConfirmDialog(this, String.format(
+                                    "%d expenses have the same amount as an existing expense within %d days.%n"
+                                            + "Add them anyway?", nearDuplicates.size(), IMPORT_NEAR_DAYS),
+                            "Possible Duplicates", JOptionPane.YES_NO_OPTION, JOptionPane.QUESTION_MESSAGE)
+                            == JOptionPane.YES_OPTION);
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this, "Error importing statement: " + e.getMessage(),
+                    "Import", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        refreshExpenseTable();
+        updateTotalLabel();
+        updateReportPanel();
+        updateChartPanel();
+        showSuccessMessage(String.format("Imported %d expenses, skipped %d duplicates", result.getAdded().size(),
+                result.getExactDuplicates().size()));
+    }
+
+    /**
+     * Exports the selected month and the five months before it to a CSV, JSON or HTML file.
+     */
+    private void exportReport() {
+        int year = (int) yearSelector.getSelectedItem();
+        Month month = Month.valueOf(monthSelector.getSelectedItem().toString());
+        YearMonth to = YearMonth.of(year, month);
+        YearMonth from = to.minusMonths(5);
+
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Export Report");
+        fileChooser.setAcceptAllFileFilterUsed(false);
+        for (ReportFormat format : ReportFormat.values()) {
+            fileChooser.addChoosableFileFilter(new FileNameExtensionFilter(
+                    format.name() + " files", format.getExtension()));
+        }
+        fileChooser.setSelectedFile(new File("expense-report-" + to + ".csv"));
+        if (fileChooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+
+        File file = fileChooser.getSelectedFile();
+        ReportFormat format;
+        try {
+            format = ReportFormat.fromFileName(file.getName());
+        } catch (IllegalArgumentException e) {
+            // No known extension, so use the format of the selected filter
+            String extension = ((FileNameExtensionFilter) fileChooser.getFileFilter()).getExtensions()[0];
+            format = ReportFormat.fromFileName(extension);
+            file = new File(file.getPath() + "." + extension);
+        }
+
+        try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            controller.exportReport("Expense Report", from, to, Granularity.MONTH, format, writer);
+            showSuccessMessage("Report exported to " + file.getName());
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this, "Error exporting report: " + e.getMessage(),
+                    "Export", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    /**
+     * Shows the budgets with their use in the selected month, and lets the user add or remove budgets.
+     */
+    private void showBudgetsDialog() {
+        int year = (int) yearSelector.getSelectedItem();
+        YearMonth month = YearMonth.of(year, Month.valueOf(monthSelector.getSelectedItem().toString()));
+
+        JDialog dialog = new JDialog(this, "Budgets - " + month, true);
+        dialog.setLayout(new BorderLayout(10, 10));
+        dialog.getContentPane().setBackground(BACKGROUND_COLOR);
+
+        DefaultListModel<String> listModel = new DefaultListModel<>();
+        List<Budget> budgets = new ArrayList<>(controller.getBudgets());
+        Runnable refreshList = () -> {
+            listModel.clear();
+            for (Budget budget : budgets) {
+                double spent = controller.getBudgetSpent(budget, month);
+                listModel.addElement(String.format("%s: %s of %s (%.0f%%)", budget.getName(), formatAmount(spent),
+                        formatAmount(budget.getMonthlyLimit()), spent / budget.getMonthlyLimit() * 100));
+            }
+        };
+        refreshList.run();
+        JList<String> budgetList = new JList<>(listModel);
+        budgetList.setFont(new Font("Segoe UI", Font.PLAIN, 14));
+
+        JComboBox<String> categoryField = new JComboBox<>();
+        categoryField.addItem("All categories");
+        for (Category category : Category.values()) {
+            categoryField.addItem(category.getDisplayName());
+        }
+        styleComboBox(categoryField);
+        JTextField limitField = new JTextField(8);
+        styleTextField(limitField);
+
+        JButton addButton = createStyledButton("Add", POSITIVE_COLOR);
+        JButton removeButton = createStyledButton("Remove", NEGATIVE_COLOR);
+        JButton closeButton = createStyledButton("Close", Color.GRAY);
+
+        JPanel formPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 5));
+        formPanel.setBackground(BACKGROUND_COLOR);
+        formPanel.add(categoryField);
+        formPanel.add(new JLabel("Monthly limit:"));
+        formPanel.add(limitField);
+        formPanel.add(addButton);
+
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 10, 5));
+        buttonPanel.setBackground(BACKGROUND_COLOR);
+        buttonPanel.add(removeButton);
+        buttonPanel.add(closeButton);
+
+        addButton.addActionListener(e -> {
+            double limit;
+            try {
+                limit = Double.parseDouble(limitField.getText().trim());
+            } catch (NumberFormatException ex) {
+                showValidationError(dialog, "Please enter a valid limit");
+                return;
+            }
+            if (limit <= 0) {
+                showValidationError(dialog, "Limit must be greater than zero");
+                return;
+            }
+            int selected = categoryField.getSelectedIndex();
+            Category category = selected == 0 ? null : Category.values()[selected - 1];
+            Budget budget = new Budget(categoryField.getSelectedItem().toString(), category, limit);
+            controller.addBudget(budget);
+            budgets.add(budget);
+            limitField.setText("");
+            refreshList.run();
+        });
+        removeButton.addActionListener(e -> {
+            int selected = budgetList.getSelectedIndex();
+            if (selected >= 0) {
+                controller.removeBudget(budgets.remove(selected));
+                refreshList.run();
+            }
+        });
+        closeButton.addActionListener(e -> dialog.dispose());
+
+        dialog.add(formPanel, BorderLayout.NORTH);
+        dialog.add(new JScrollPane(budgetList), BorderLayout.CENTER);
+        dialog.add(buttonPanel, BorderLayout.SOUTH);
+        dialog.setSize(560, 360);
+        dialog.setLocationRelativeTo(this);
+        dialog.setVisible(true);
+    }
+
+    /**
+     * Lists the recurring expense rules and lets the user stop one. Expenses
+     * already created by a stopped rule are kept.
+     */
+    private void showRecurringExpensesDialog() {
+        JDialog dialog = new JDialog(this, "Recurring Expenses", true);
+        dialog.setLayout(new BorderLayout(10, 10));
+        dialog.getContentPane().setBackground(BACKGROUND_COLOR);
+
+        DefaultListModel<RecurringExpense> listModel = new DefaultListModel<>();
+        for (RecurringExpense rule : controller.getRecurringExpenses()) {
+            listModel.addElement(rule);
+        }
+        JList<RecurringExpense> ruleList = new JList<>(listModel);
+        ruleList.setFont(new Font("Segoe UI", Font.PLAIN, 14));
+
+        JButton stopButton = createStyledButton("Stop Repeating", NEGATIVE_COLOR);
+        JButton closeButton = createStyledButton("Close", Color.GRAY);
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 10, 5));
+        buttonPanel.setBackground(BACKGROUND_COLOR);
+        buttonPanel.add(stopButton);
+        buttonPanel.add(closeButton);
+
+        stopButton.addActionListener(e -> {
+            RecurringExpense selected = ruleList.getSelectedValue();
+            if (selected != null) {
+                controller.removeRecurringExpense(selected);
+                listModel.removeElement(selected);
+            }
+        });
+        closeButton.addActionListener(e -> dialog.dispose());
+
+        dialog.add(new JScrollPane(ruleList), BorderLayout.CENTER);
+        dialog.add(buttonPanel, BorderLayout.SOUTH);
+        dialog.setSize(560, 320);
+        dialog.setLocationRelativeTo(this);
+        dialog.setVisible(true);
+    }
+
+    /**
+     * Collects budget alerts raised during a change and shows them together once the change is done.
+     */
+    private void queueBudgetAlert(BudgetAlert alert) {
+        if (!alert.isReached()) {
+            return;
+        }
+        pendingBudgetAlerts.add(alert);
+        if (pendingBudgetAlerts.size() == 1) {
+            SwingUtilities.invokeLater(() -> {
+                StringBuilder message = new StringBuilder();
+                for (BudgetAlert pending : pendingBudgetAlerts) {
+                    message.append(pending).append('\n');
+                }
+                pendingBudgetAlerts.clear();
+                JOptionPane.showMessageDialog(this, message.toString().trim(),
+                        "Budget Alert", JOptionPane.WARNING_MESSAGE);
+            });
+        }
+    }
+
+    /**
+     * Collects unusual spending found during a change and shows it together once the change is done.
+     */
+    private void queueAnomaly(SpendingAnomaly anomaly) {
+        pendingAnomalies.add(anomaly);
+        if (pendingAnomalies.size() == 1) {
+            SwingUtilities.invokeLater(() -> {
+                StringBuilder message = new StringBuilder();
+                for (SpendingAnomaly pending : pendingAnomalies.subList(0,
+                        Math.min(MAX_ANOMALIES_SHOWN, pendingAnomalies.size()))) {
+                    message.append(pending).append('\n');
+                }
+                if (pendingAnomalies.size() > MAX_ANOMALIES_SHOWN) {
+                    message.append("...and ").append(pendingAnomalies.size() - MAX_ANOMALIES_SHOWN).append(" more");
+                }
+                pendingAnomalies.clear();
+                JOptionPane.showMessageDialog(this, message.toString().trim(),
+                        "Unusual Spending", JOptionPane.INFORMATION_MESSAGE);
+            });
+        }
+    }
+
+    /**
+     * Creates the recurring expenses that have come due and shows them.
+     */
+    private void catchUpRecurringExpenses() {
+        if (controller.catchUpRecurringExpenses(LocalDate.now()) > 0) {
+            refreshAfterChange();
+        }
+    }
+
+    /**
+     * Refreshes the table, totals, report and chart after the data changed.
+     */
+    private void refreshAfterChange() {
+        refreshExpenseTable();
+        updateTotalLabel();
+        updateReportPanel();
+        updateChartPanel();
+    }
+
+    /**
+     * Binds a keyboard shortcut to an action for the whole window.
+     */
+    private void registerShortcut(KeyStroke keyStroke, String name, Runnable action) {
+        getRootPane().getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(keyStroke, name);
+        getRootPane().getActionMap().put(name, new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Marks the sorted column header with an arrow for the sort direction.
+     */
+    private void updateSortIndicator(JTable table) {
+        ExpenseColumn sortColumn = tableModel.getSortColumn();
+        int sorted = ExpenseTableModel.columnIndexOf(sortColumn);
+        for (int i = 0; i < table.getColumnModel().getColumnCount(); i++) {
+            TableColumn column = table.getColumnModel().getColumn(i);
+            String name = tableModel.getColumnName(column.getModelIndex());
+            if (column.getModelIndex() == sorted) {
+                name += tableModel.isAscending() ? " \u25B2" : " \u25BC";
+            }
+            column.setHeaderValue(name);
+        }
+        table.getTableHeader().repaint();
+    }
+
     /**
      * Filters expenses based on selected month and year.
      */
@@ -733,10 +1272,10 @@ public class ExpenseTrackerGUI extends JFrame {
         Month month = Month.valueOf(monthSelector.getSelectedItem().toString());
 
         List<Expense> filteredExpenses = controller.getExpensesByMonth(year, month);
-        updateTable(filteredExpenses);
+        tableModel.showExpenses(filteredExpenses);
 
         double monthlyTotal = controller.calculateMonthlyTotal(year, month);
-        totalLabel.setText(String.format("Monthly Total: $%.2f", monthlyTotal));
+        totalLabel.setText("Monthly Total: " + formatAmount(monthlyTotal));
 
         updateReportPanel(year, month);
         updateChartPanel(year, month);
@@ -746,26 +1285,7 @@ public class ExpenseTrackerGUI extends JFrame {
      * Refreshes the expense table with all expenses.
      */
     private void refreshExpenseTable() {
-        updateTable(controller.getAllExpenses());
-    }
-
-    /**
-     * Updates the table with the given list of expenses.
-     */
-    private void updateTable(List<Expense> expenses) {
-        tableModel.setRowCount(0); // Clear the table
-
-        for (Expense expense : expenses) {
-            Object[] row = {
-                    expense.getId(),
-                    expense.getName(),
-                    String.format("$%.2f", expense.getAmount()),
-                    expense.getDate().format(DATE_FORMATTER),
-                    expense.getCategory().getDisplayName(),
-                    expense.getDescription()
-            };
-            tableModel.addRow(row);
-        }
+        tableModel.showAllExpenses();
     }
 
     /**
@@ -773,7 +1293,7 @@ public class ExpenseTrackerGUI extends JFrame {
      */
     private void updateTotalLabel() {
         double total = controller.calculateTotalExpenses();
-        totalLabel.setText(String.format("Total Expenses: $%.2f", total));
+        totalLabel.setText("Total Expenses: " + formatAmount(total));
     }
 
     /**
@@ -786,9 +1306,43 @@ public class ExpenseTrackerGUI extends JFrame {
     }
 
     /**
-     * Updates the report panel with data for the specified month and year.
+     * Shows the specified month and year on the report tab, building the
+     * report now only if the tab is visible.
      */
     private void updateReportPanel(int year, Month month) {
+        reportYear = year;
+        reportMonth = month;
+        reportStale = true;
+        buildVisibleReportTab();
+    }
+
+    /**
+     * Marks the report and chart tabs out of date after the expenses changed.
+     */
+    private void invalidateReportTabs() {
+        reportStale = true;
+        chartStale = true;
+        buildVisibleReportTab();
+    }
+
+    /**
+     * Builds the report or chart tab if it is showing and out of date.
+     */
+    private void buildVisibleReportTab() {
+        Component selected = tabbedPane.getSelectedComponent();
+        if (selected == reportPanel && reportStale) {
+            reportStale = false;
+            buildReportPanel(reportYear, reportMonth);
+        } else if (selected == chartPanel && chartStale) {
+            chartStale = false;
+            buildChartPanel(reportYear, reportMonth);
+        }
+    }
+
+    /**
+     * Builds the report panel with data for the specified month and year.
+     */
+    private void buildReportPanel(int year, Month month) {
         reportPanel.removeAll();
 
         // Add title
@@ -806,7 +1360,7 @@ public class ExpenseTrackerGUI extends JFrame {
         totalPanel.setMaximumSize(new Dimension(Integer.MAX_VALUE, 50));
         totalPanel.setBorder(BorderFactory.createMatteBorder(0, 0, 1, 0, SECONDARY_COLOR));
 
-        JLabel totalLabel = new JLabel(String.format("Monthly Total: $%.2f", monthlyTotal));
+        JLabel totalLabel = new JLabel("Monthly Total: " + formatAmount(monthlyTotal));
         totalLabel.setFont(new Font("Segoe UI", Font.BOLD, 16));
         totalLabel.setForeground(NEGATIVE_COLOR);
         totalPanel.add(totalLabel);
@@ -830,6 +1384,7 @@ public class ExpenseTrackerGUI extends JFrame {
         categoriesPanel.setBorder(new EmptyBorder(0, 15, 0, 15));
 
         Map<Category, Double> categoryTotals = controller.getCategoryTotalsForMonth(year, month);
+        Map<Category, QuantileSketch> distributions = controller.getCategoryDistributionsForMonth(year, month);
         for (Map.Entry<Category, Double> entry : categoryTotals.entrySet()) {
             if (entry.getValue() > 0) {
                 JPanel categoryRow = new JPanel(new BorderLayout());
@@ -839,7 +1394,19 @@ public class ExpenseTrackerGUI extends JFrame {
                 JLabel categoryLabel = new JLabel(entry.getKey().getDisplayName());
                 categoryLabel.setFont(new Font("Segoe UI", Font.PLAIN, 14));
 
-                JLabel amountLabel = new JLabel(String.format("$%.2f", entry.getValue()));
+                // Typical and large expense sizes in the category
+                QuantileSketch distribution = distributions.get(entry.getKey());
+                if (distribution.getCount() > 0) {
+                    JLabel quantileLabel = new JLabel(String.format("median %s   p90 %s   p99 %s",
+                            formatAmount(distribution.getQuantile(0.5)), formatAmount(distribution.getQuantile(0.9)),
+                            formatAmount(distribution.getQuantile(0.99))));
+                    quantileLabel.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+                    quantileLabel.setForeground(TEXT_COLOR);
+                    quantileLabel.setHorizontalAlignment(SwingConstants.CENTER);
+                    categoryRow.add(quantileLabel, BorderLayout.CENTER);
+                }
+
+                JLabel amountLabel = new JLabel(formatAmount(entry.getValue()));
                 amountLabel.setFont(new Font("Segoe UI", Font.BOLD, 14));
                 amountLabel.setForeground(NEGATIVE_COLOR);
 
@@ -855,9 +1422,26 @@ public class ExpenseTrackerGUI extends JFrame {
         categoriesScrollPane.setBorder(null);
         categoriesScrollPane.setPreferredSize(new Dimension(0, 150));
         reportPanel.add(categoriesScrollPane);
+        reportPanel.add(Box.createVerticalStrut(10));
+
+        // Add merchant summary: distinct merchants this month and top payees this year
+        YearMonth reportedMonth = YearMonth.of(year, month);
+        StringBuilder payees = new StringBuilder();
+        for (MerchantTotal merchant : controller.getTopMerchants(YearMonth.of(year, Month.JANUARY), reportedMonth,
+                TOP_PAYEES)) {
+            payees.append(payees.length() == 0 ? "" : ", ")
+                    .append(merchant.getName()).append(" (").append(formatAmount(merchant.getTotal())).append(")");
+        }
+        JLabel merchantsLabel = new JLabel(String.format("Distinct merchants: %d   Top payees in %d: %s",
+                controller.getDistinctMerchantCount(reportedMonth, reportedMonth), year,
+                payees.length() == 0 ? "none" : payees));
+        merchantsLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
+        merchantsLabel.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        merchantsLabel.setForeground(TEXT_COLOR);
+        reportPanel.add(merchantsLabel);
         reportPanel.add(Box.createVerticalStrut(20));
 
-        // Add monthly trend (last 6 months)
+        // Add monthly trend (6 months up to the reported month)
         JLabel trendLabel = new JLabel("6-Month Trend");
         trendLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
         trendLabel.setFont(new Font("Segoe UI", Font.BOLD, 16));
@@ -872,7 +1456,7 @@ public class ExpenseTrackerGUI extends JFrame {
         trendsPanel.setAlignmentX(Component.CENTER_ALIGNMENT);
         trendsPanel.setBorder(new EmptyBorder(0, 15, 0, 15));
 
-        Map<YearMonth, Double> monthlyTotals = controller.getMonthlyTotals(6);
+        Map<YearMonth, Double> monthlyTotals = controller.getMonthlyTotals(YearMonth.of(year, month), 6);
         for (Map.Entry<YearMonth, Double> entry : monthlyTotals.entrySet()) {
             YearMonth yearMonth = entry.getKey();
 
@@ -884,7 +1468,7 @@ public class ExpenseTrackerGUI extends JFrame {
                     yearMonth.getMonth().toString(), yearMonth.getYear()));
             monthLabel.setFont(new Font("Segoe UI", Font.PLAIN, 14));
 
-            JLabel amountLabel = new JLabel(String.format("$%.2f", entry.getValue()));
+            JLabel amountLabel = new JLabel(formatAmount(entry.getValue()));
             amountLabel.setFont(new Font("Segoe UI", Font.BOLD, 14));
             amountLabel.setForeground(NEGATIVE_COLOR);
 
@@ -914,9 +1498,20 @@ public class ExpenseTrackerGUI extends JFrame {
     }
 
     /**
-     * Updates the chart panel with data for the specified month and year.
+     * Shows the specified month and year on the chart tab, building the chart
+     * now only if the tab is visible.
      */
     private void updateChartPanel(int year, Month month) {
+        reportYear = year;
+        reportMonth = month;
+        chartStale = true;
+        buildVisibleReportTab();
+    }
+
+    /**
+     * Builds the chart panel with data for the specified month and year.
+     */
+    private void buildChartPanel(int year, Month month) {
         chartPanel.removeAll();
 
         // Create a simple bar chart for category breakdown
@@ -1027,4 +1622,53 @@ public class ExpenseTrackerGUI extends JFrame {
             return null;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Renders amounts right-aligned, in red when money was spent. Like every
+     * table renderer it only sets shared colors and borders, so painting a cell
+     * allocates nothing.
+     */
+    static final class AmountCellRenderer extends DefaultTableCellRenderer {
+        private final ExpenseTableModel model;
+
+        AmountCellRenderer(ExpenseTableModel model) {
+            this.model = model;
+            setHorizontalAlignment(SwingConstants.RIGHT);
+        }
+
+        @Override
+        public Component getTableCellRendererComponent(JTable table, Object value,
+                                                       boolean isSelected, boolean hasFocus, int row, int column) {
+            Component c = super.getTableCellRendererComponent(
+                    table, value, isSelected, hasFocus, row, column);
+
+            // Read the amount itself rather than parsing the formatted text
+            if (model.getExpenseAt(table.convertRowIndexToModel(row)).getAmount() > 0) {
+                c.setForeground(isSelected ? TEXT_COLOR : NEGATIVE_COLOR);
+            }
+
+            return c;
+        }
+    }
+
+    /**
+     * Renders the other cells with zebra striping and some padding.
+     */
+    static final class StripedCellRenderer extends DefaultTableCellRenderer {
+        @Override
+        public Component getTableCellRendererComponent(JTable table, Object value,
+                                                       boolean isSelected, boolean hasFocus, int row, int column) {
+            Component c = super.getTableCellRendererComponent(
+                    table, value, isSelected, hasFocus, row, column);
+
+            if (!isSelected) {
+                c.setBackground(row % 2 == 0 ? Color.WHITE : STRIPE_COLOR);
+            }
+
+            // Add some padding
+            ((JLabel) c).setBorder(CELL_PADDING);
+
+            return c;
+        }
+    }
+}
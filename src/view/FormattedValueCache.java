@@ -0,0 +1,64 @@
+package view;
+
+import model.Expense;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Bounded cache of the strings shown in the expense table, so that painting
+ * a row that was painted before does not format or allocate anything.
+ * <p>
+ * Each cache is a fixed-size table indexed by the hash of the value; a new
+ * value simply overwrites whatever was in its slot. Scrolling back and forth
+ * over the same rows therefore hits the cache, and memory stays constant no
+ * matter how many rows the book has.
+ */
+final class FormattedValueCache {
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    // Power of two, comfortably more than the distinct values on a few screens of rows
+    private static final int SLOTS = 1024;
+
+    private final long[] amountBits = new long[SLOTS];
+    private final String[] amountCurrencies = new String[SLOTS];
+    private final String[] amountTexts = new String[SLOTS];
+    private final long[] dateDays = new long[SLOTS];
+    private final String[] dateTexts = new String[SLOTS];
+
+    /**
+     * Gets an amount formatted with its currency, such as "$12.50" or "12.50 EUR".
+     */
+    String formatAmount(double amount, String currency) {
+        long bits = Double.doubleToLongBits(amount);
+        int slot = slot(bits * 31 + currency.hashCode());
+        String text = amountTexts[slot];
+        if (text == null || amountBits[slot] != bits || !currency.equals(amountCurrencies[slot])) {
+            text = Expense.formatAmount(amount, currency);
+            amountBits[slot] = bits;
+            amountCurrencies[slot] = currency;
+            amountTexts[slot] = text;
+        }
+        return text;
+    }
+
+    /**
+     * Gets a date formatted as yyyy-MM-dd.
+     */
+    String formatDate(LocalDate date) {
+        long day = date.toEpochDay();
+        int slot = slot(day);
+        String text = dateTexts[slot];
+        if (text == null || dateDays[slot] != day) {
+            text = date.format(DATE_FORMATTER);
+            dateDays[slot] = day;
+            dateTexts[slot] = text;
+        }
+        return text;
+    }
+
+    private static int slot(long hash) {
+        hash ^= hash >>> 32;
+        hash *= 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 54) & (SLOTS - 1);
+    }
+}
@@ -0,0 +1,104 @@
+package controller;
+
+import model.Category;
+import model.Expense;
+import support.Check;
+import util.FileHandler;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+/**
+ * Checks that the autosave service writes the whole book when an edit arrives
+ * while it is still loading, and that a failed save is retried without a new edit.
+ */
+public class AutosaveServiceTest {
+    private static final int CHUNKS = 4;
+    private static final int CHUNK_SIZE = 250;
+
+    public static void main(String[] args) throws Exception {
+        Path dir = Files.createTempDirectory("autosave-test");
+        try {
+            editWhileLoadingSavesWholeBook(dir);
+            failedSaveIsRetried(dir);
+        } finally {
+            delete(dir);
+        }
+        System.out.println("AutosaveServiceTest passed");
+    }
+
+    private static void editWhileLoadingSavesWholeBook(Path dir) throws IOException {
+        String book = dir.resolve("loading.csv").toString();
+        ExpenseController controller = new ExpenseController();
+        try (AutosaveService autosave = new AutosaveService(controller, book, 60_000, 60_000, e -> { })) {
+            controller.addLoadedExpenses(chunk(0));
+            controller.addExpense("Edited while loading", 12.5, LocalDate.of(2024, 5, 1), Category.FOOD, "");
+            for (int i = 1; i < CHUNKS; i++) {
+                controller.addLoadedExpenses(chunk(i));
+            }
+            autosave.setEnabled(true);
+            autosave.flush();
+            Check.that(!autosave.isDirty(), "nothing pending after flushing");
+        }
+        Check.equal(CHUNKS * CHUNK_SIZE + 1, FileHandler.loadExpenses(book).size(), "saved rows");
+    }
+
+    private static void failedSaveIsRetried(Path dir) throws Exception {
+        // A non-empty directory in place of the book makes replacing it fail
+        Path book = dir.resolve("blocked.csv");
+        Files.createDirectory(book);
+        Files.createFile(book.resolve("blocker"));
+
+        ExpenseController controller = new ExpenseController();
+        AtomicInteger failures = new AtomicInteger();
+        try (AutosaveService autosave = new AutosaveService(controller, book.toString(), 10, 50,
+                e -> failures.incrementAndGet())) {
+            autosave.setEnabled(true);
+            controller.addExpense("Lunch", 9.5, LocalDate.of(2024, 5, 2), Category.FOOD, "");
+            Check.that(waitFor(() -> failures.get() > 0), "the first save fails");
+
+            delete(book);
+            Check.that(waitFor(() -> !autosave.isDirty() && Files.isRegularFile(book)),
+                    "the save is retried without another edit");
+        }
+        Check.equal(1, FileHandler.loadExpenses(book.toString()).size(), "saved rows after the retry");
+    }
+
+    private static List<Expense> chunk(int index) {
+        List<Expense> chunk = new ArrayList<>(CHUNK_SIZE);
+        for (int i = 0; i < CHUNK_SIZE; i++) {
+            chunk.add(new Expense("Row " + index + "-" + i, 1 + i, LocalDate.of(2024, 1 + index, 1 + i % 28),
+                    Category.OTHER, ""));
+        }
+        return chunk;
+    }
+
+    private static boolean waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                return false;
+            }
+            Thread.sleep(10);
+        }
+        return true;
+    }
+
+    private static void delete(Path path) throws IOException {
+        if (Files.isDirectory(path)) {
+            try (Stream<Path> files = Files.list(path)) {
+                for (Path file : files.toList()) {
+                    delete(file);
+                }
+            }
+        }
+        Files.deleteIfExists(path);
+    }
+}
@@ -0,0 +1,88 @@
+package controller;
+
+import model.Category;
+import support.Check;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks that reads never create books, that book IDs are case-insensitive,
+ * and that unloading keeps every change and reports save failures.
+ */
+public class BookRegistryTest {
+    public static void main(String[] args) throws IOException {
+        readsNeverCreateBooks(Files.createTempDirectory("registry-read"));
+        bookIdsIgnoreCase(Files.createTempDirectory("registry-case"));
+        evictionKeepsChangesAndReportsFailures(Files.createTempDirectory("registry-evict"));
+        System.out.println("BookRegistryTest passed");
+    }
+
+    private static void readsNeverCreateBooks(Path directory) throws IOException {
+        BookRegistry registry = new BookRegistry(directory.toString(), 1 << 20, BookRegistryTest::unexpected);
+        try {
+            registry.read("missing", ExpenseController::getExpenseCount);
+            throw new AssertionError("reading a missing book succeeded");
+        } catch (NoSuchFileException expected) {
+            // The book was not created
+        }
+        Check.equal(0, registry.getLoadedBookCount(), "books loaded after the failed read");
+        registry.flush();
+        Check.equal(List.of(), registry.getBookIds(), "books on disk after the failed read");
+        Check.fails(IllegalArgumentException.class, () -> read(registry, "../escape"), "path in a book ID");
+    }
+
+    private static void bookIdsIgnoreCase(Path directory) throws IOException {
+        BookRegistry registry = new BookRegistry(directory.toString(), 1 << 20, BookRegistryTest::unexpected);
+        registry.modify("Alice", book -> book.addExpense("Rent", 900, LocalDate.of(2024, 3, 1), Category.HOUSING, ""));
+        Check.equal(1, (int) registry.read("ALICE", ExpenseController::getExpenseCount), "expenses seen as ALICE");
+        registry.flush();
+        Check.equal(List.of("alice"), registry.getBookIds(), "book files");
+    }
+
+    private static void evictionKeepsChangesAndReportsFailures(Path directory) throws IOException {
+        List<IOException> failures = new ArrayList<>();
+        // Room for about two small books
+        BookRegistry registry = new BookRegistry(directory.toString(), 2 * 256 * 10, failures::add);
+        addExpenses(registry, "carol", 10);
+        // A non-empty directory where carol's file belongs makes saving carol fail
+        Files.createDirectories(directory.resolve("carol.csv").resolve("blocked"));
+        for (int i = 0; i < 6; i++) {
+            addExpenses(registry, "book" + i, 10);
+        }
+        Check.that(!failures.isEmpty(), "failed save of carol reported");
+        Check.equal(10, (int) registry.read("carol", ExpenseController::getExpenseCount), "carol stays loaded");
+        Check.that(registry.getLoadedBookCount() <= 3, "loaded books: " + registry.getLoadedBookCount());
+        for (int i = 0; i < 6; i++) {
+            Check.equal(10, (int) registry.read("book" + i, ExpenseController::getExpenseCount),
+                    "expenses of book" + i + " after reloading");
+        }
+    }
+
+    private static void addExpenses(BookRegistry registry, String bookId, int count) throws IOException {
+        registry.modify(bookId, book -> {
+            for (int i = 0; i < count; i++) {
+                book.addExpense("Lunch", 10 + i, LocalDate.of(2024, 3, 1 + i), Category.FOOD, "");
+            }
+            return null;
+        });
+    }
+
+    private static void read(BookRegistry registry, String bookId) {
+        try {
+            registry.read(bookId, ExpenseController::getExpenseCount);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void unexpected(IOException e) {
+        throw new AssertionError(e);
+    }
+}
@@ -0,0 +1,117 @@
+package controller;
+
+import model.Category;
+import model.Expense;
+import support.Check;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks that undo and redo walk back and forth through single changes and
+ * batches, and that the history stays within its memory limit for any kind of
+ * step, including long runs of additions and undone steps waiting to be redone.
+ */
+public class EditHistoryTest {
+    private static final LocalDate DATE = LocalDate.of(2024, 4, 1);
+
+    public static void main(String[] args) {
+        undoAndRedo();
+        additionsCountTowardsTheLimit();
+        redoStepsCountTowardsTheLimit();
+        System.out.println("EditHistoryTest passed");
+    }
+
+    private static void undoAndRedo() {
+        ExpenseController controller = new ExpenseController();
+        Check.that(!controller.canUndo() && !controller.undo(), "nothing to undo at first");
+
+        Expense lunch = controller.addExpense("Lunch", 12, DATE, Category.FOOD, "");
+        Expense bus = controller.addExpense("Bus", 3, DATE, Category.TRANSPORTATION, "");
+        controller.updateExpense(new Expense(lunch.getId(), "Lunch", 15, DATE, Category.FOOD, "with dessert"));
+        controller.removeExpense(bus.getId());
+        List<Expense> batch = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            batch.add(new Expense("Imported " + i, 1 + i, DATE, Category.OTHER, ""));
+        }
+        controller.addExpenses(batch);
+        List<String> latest = describe(controller);
+
+        Check.that(controller.undo(), "undo the batch");
+        Check.equal(List.of("Lunch 15.0"), describe(controller), "after undoing the batch");
+        Check.that(controller.undo(), "undo the removal");
+        Check.equal(List.of("Lunch 15.0", "Bus 3.0"), describe(controller), "after undoing the removal");
+        Check.that(controller.undo(), "undo the update");
+        Check.equal(List.of("Lunch 12.0", "Bus 3.0"), describe(controller), "after undoing the update");
+        Check.that(controller.undo() && controller.undo(), "undo both additions");
+        Check.equal(List.of(), describe(controller), "after undoing everything");
+        Check.that(!controller.undo(), "nothing left to undo");
+
+        for (int i = 0; i < 5; i++) {
+            Check.that(controller.redo(), "redo step " + i);
+        }
+        Check.that(!controller.canRedo(), "nothing left to redo");
+        Check.equal(latest, describe(controller), "after redoing everything");
+
+        controller.undo();
+        controller.addExpense("Coffee", 2, DATE, Category.FOOD, "");
+        Check.that(!controller.canRedo(), "a new change drops the redo steps");
+    }
+
+    private static void additionsCountTowardsTheLimit() {
+        long limit = 100_000;
+        EditHistory history = new EditHistory(limit);
+        for (int i = 0; i < 10_000; i++) {
+            history.recordAdd(expense(i));
+            Check.that(history.getUsedBytes() <= limit, "used bytes after addition " + i);
+        }
+        int steps = 0;
+        while (history.takeUndo() != null) {
+            steps++;
+        }
+        Check.that(steps > 0 && steps < 10_000, "oldest additions dropped, kept " + steps);
+
+        // One batch of additions is one step, which counts all its rows
+        EditHistory batched = new EditHistory(limit);
+        batched.beginBatch();
+        for (int i = 0; i < 10_000; i++) {
+            batched.recordAdd(expense(i));
+        }
+        batched.endBatch();
+        Check.that(batched.getUsedBytes() > limit, "a batch larger than the limit is counted in full");
+        batched.recordAdd(expense(-1));
+        Check.that(batched.getUsedBytes() <= limit, "the large batch is dropped by the next step");
+    }
+
+    private static void redoStepsCountTowardsTheLimit() {
+        long limit = 50_000;
+        EditHistory history = new EditHistory(limit);
+        for (int i = 0; i < 2_000; i++) {
+            history.recordAdd(expense(i));
+        }
+        long used = history.getUsedBytes();
+        while (history.takeUndo() != null) {
+            Check.equal(used, history.getUsedBytes(), "undoing keeps the steps for redo");
+        }
+        history.setMemoryLimit(limit / 2);
+        Check.that(history.getUsedBytes() <= limit / 2, "redo steps dropped under a lower limit");
+        int steps = 0;
+        while (history.takeRedo() != null) {
+            steps++;
+        }
+        Check.that(steps > 0, "some redo steps kept");
+    }
+
+    private static Expense expense(int i) {
+        return new Expense("Expense " + i, 10, DATE, Category.FOOD, "description " + i);
+    }
+
+    private static List<String> describe(ExpenseController controller) {
+        List<String> rows = new ArrayList<>();
+        for (Expense expense : controller.getAllExpenses()) {
+            rows.add(expense.getName() + " " + expense.getAmount());
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,34 @@
+package controller;
+
+import model.Category;
+import model.Expense;
+import support.Check;
+
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Checks that each change to the book notifies the change listeners exactly once.
+ */
+public class ExpenseControllerTest {
+    public static void main(String[] args) {
+        eachChangeNotifiesOnce();
+        System.out.println("ExpenseControllerTest passed");
+    }
+
+    private static void eachChangeNotifiesOnce() {
+        ExpenseController controller = new ExpenseController();
+        AtomicInteger changes = new AtomicInteger();
+        controller.addChangeListener(changes::incrementAndGet);
+
+        Expense expense = controller.addExpense("Lunch", 12, LocalDate.of(2024, 3, 1), Category.FOOD, "");
+        Check.equal(1, changes.get(), "notifications after adding");
+
+        // Moving the expense to another month and category touches two cached reports
+        controller.updateExpense(expense.withDate(LocalDate.of(2024, 4, 1)).withCategory(Category.TRAVEL));
+        Check.equal(2, changes.get(), "notifications after editing");
+
+        controller.removeExpense(expense.getId());
+        Check.equal(3, changes.get(), "notifications after removing");
+    }
+}
@@ -0,0 +1,108 @@
+package controller;
+
+import model.Category;
+import model.Expense;
+import support.Check;
+import util.FileHandler;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Checks that the watcher ignores the application's own saves, even when the
+ * book changes again before the watcher looks or the file rounds its amounts,
+ * and applies other programs' changes without undoing edits that were not saved yet.
+ */
+public class ExpenseFileWatcherTest {
+    // Comfortably longer than the watcher waits for a writer to finish
+    private static final long QUIET_MILLIS = 1_000;
+
+    public static void main(String[] args) throws Exception {
+        Path directory = Files.createTempDirectory("watcher-test");
+        try {
+            watch(directory.resolve("expenses.csv"));
+        } finally {
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : files.toList()) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(directory);
+        }
+        System.out.println("ExpenseFileWatcherTest passed");
+    }
+
+    private static void watch(Path file) throws Exception {
+        ExpenseController controller = new ExpenseController();
+        Expense kept = controller.addExpense("Rent", 900, LocalDate.of(2024, 3, 1), Category.HOUSING, "");
+        Expense removedElsewhere = controller.addExpense("Gym", 30, LocalDate.of(2024, 3, 2), Category.PERSONAL, "");
+        controller.saveExpenses(file.toString());
+
+        // Saves only on flush, so the test decides when the file is written
+        AutosaveService autosave = new AutosaveService(controller, file.toString(), 60_000, 60_000,
+                ExpenseFileWatcherTest::unexpected);
+        autosave.setEnabled(true);
+        // Stands in for the Event Dispatch Thread: changes are applied only when the test runs them
+        BlockingQueue<Runnable> applied = new LinkedBlockingQueue<>();
+        ExpenseFileWatcher watcher = new ExpenseFileWatcher(controller, file.toString(), applied::add, () -> { },
+                ExpenseFileWatcherTest::unexpected);
+        autosave.addSaveListener(watcher);
+        watcher.start();
+        Thread.sleep(QUIET_MILLIS);
+
+        try {
+            // Saved, then undone before the watcher sees the save
+            Expense undone = controller.addExpense("Lunch", 12, LocalDate.of(2024, 3, 3), Category.FOOD, "");
+            autosave.flush();
+            controller.removeExpense(undone.getId());
+            Thread.sleep(QUIET_MILLIS);
+            Check.that(applied.isEmpty(), "own save applied back to the book");
+            Check.that(controller.getExpenseById(undone.getId()) == null, "undone expense stays removed");
+
+            // Saved with the undo and a row the file can only hold rounded, then an edit that is not saved yet
+            Expense precise = controller.addExpense("Coffee", 3.456, LocalDate.of(2024, 3, 3), Category.FOOD, null);
+            autosave.flush();
+            Expense renamed = kept.withName("Rent and parking");
+            controller.updateExpense(renamed);
+
+            // Another program appends a row
+            Expense appended = new Expense("Taxi", 25, LocalDate.of(2024, 3, 4), Category.TRANSPORTATION, "");
+            Files.writeString(file, String.format("%s,Taxi,25.00,2024-03-04,TRANSPORTATION,,USD%n",
+                    appended.getId()), StandardOpenOption.APPEND);
+            runApplied(applied);
+            Check.that(controller.getExpenseById(appended.getId()) != null, "appended row added");
+            Check.equal(renamed, controller.getExpenseById(kept.getId()), "unsaved edit after the append");
+
+            // Another program rewrites the file without one row, from what it read
+            List<Expense> rewritten = new ArrayList<>(FileHandler.loadExpenses(file.toString()));
+            rewritten.removeIf(expense -> expense.getId().equals(removedElsewhere.getId()));
+            FileHandler.saveExpenses(rewritten, file.toString());
+            runApplied(applied);
+            Check.that(controller.getExpenseById(removedElsewhere.getId()) == null, "removed row gone");
+            Check.equal(renamed, controller.getExpenseById(kept.getId()), "unsaved edit after the rewrite");
+            Check.equal(precise, controller.getExpenseById(precise.getId()), "rounded row is not an external edit");
+        } finally {
+            watcher.close();
+            autosave.close();
+        }
+    }
+
+    private static void runApplied(BlockingQueue<Runnable> applied) throws InterruptedException {
+        Runnable change = applied.poll(10, TimeUnit.SECONDS);
+        Check.that(change != null, "change applied");
+        change.run();
+    }
+
+    private static void unexpected(IOException e) {
+        throw new AssertionError("unexpected failure", e);
+    }
+}
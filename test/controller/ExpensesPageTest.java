@@ -0,0 +1,99 @@
+package controller;
+
+import model.Category;
+import model.Expense;
+import model.ExpenseColumn;
+import support.Check;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks that pages of the book match the same slice of a full sort, in both
+ * directions and for every column, as the book changes between requests.
+ */
+public class ExpensesPageTest {
+    private static final String[] CURRENCIES = {"USD", "EUR"};
+
+    public static void main(String[] args) {
+        pagesMatchFullSort();
+        pageBounds();
+        System.out.println("ExpensesPageTest passed");
+    }
+
+    private static void pagesMatchFullSort() {
+        Random random = new Random(28);
+        ExpenseController controller = new ExpenseController();
+        for (int i = 0; i < 300; i++) {
+            add(controller, random);
+        }
+        for (int round = 0; round < 40; round++) {
+            // Change the book between requests, so the cached sort orders must follow
+            int change = random.nextInt(3);
+            List<Expense> all = controller.getAllExpenses();
+            Expense target = all.get(random.nextInt(all.size()));
+            if (change == 0) {
+                add(controller, random);
+            } else if (change == 1) {
+                controller.updateExpense(target.withAmount(random.nextInt(20)).withName("Edited " + round));
+            } else {
+                controller.removeExpense(target.getId());
+            }
+
+            List<ExpenseColumn> columns = new ArrayList<>(List.of(ExpenseColumn.values()));
+            columns.add(null);
+            for (ExpenseColumn column : columns) {
+                for (boolean ascending : new boolean[]{true, false}) {
+                    List<Expense> expected = sorted(controller.getAllExpenses(), column, ascending);
+                    int offset = random.nextInt(expected.size() + 5);
+                    int limit = random.nextInt(60);
+                    List<Expense> page = controller.getExpensesPage(offset, limit, column, ascending);
+                    Check.equal(expected.subList(Math.min(offset, expected.size()),
+                                    Math.min(offset + limit, expected.size())), page,
+                            "page at " + offset + "+" + limit + " by " + column + (ascending ? " up" : " down"));
+                }
+            }
+        }
+    }
+
+    private static void pageBounds() {
+        ExpenseController controller = new ExpenseController();
+        Check.equal(List.of(), controller.getExpensesPage(0, 10, ExpenseColumn.DATE, true), "page of an empty book");
+        Expense lunch = controller.addExpense("Lunch", 12, LocalDate.of(2024, 3, 1), Category.FOOD, "");
+        Expense rent = controller.addExpense("Rent", 900, LocalDate.of(2024, 3, 2), Category.HOUSING, "");
+        Check.equal(List.of(rent, lunch), controller.getExpensesPage(0, 10, null, false), "newest first");
+        Check.equal(List.of(lunch), controller.getExpensesPage(0, 1, ExpenseColumn.AMOUNT, true), "first row");
+        Check.equal(List.of(), controller.getExpensesPage(2, 10, ExpenseColumn.AMOUNT, true), "past the end");
+        Check.equal(List.of(), controller.getExpensesPage(0, 0, ExpenseColumn.AMOUNT, true), "empty page");
+        Check.equal(List.of(rent), controller.getExpensesPage(1, Integer.MAX_VALUE, ExpenseColumn.NAME, true),
+                "limit past the largest index");
+        Check.fails(IllegalArgumentException.class,
+                () -> controller.getExpensesPage(-1, 10, null, true), "negative offset");
+        Check.fails(IllegalArgumentException.class,
+                () -> controller.getExpensesPage(0, -1, null, true), "negative limit");
+    }
+
+    /**
+     * Sorts stably, so ties stay in book order, and reverses the whole order for descending pages.
+     */
+    private static List<Expense> sorted(List<Expense> expenses, ExpenseColumn column, boolean ascending) {
+        List<Expense> sorted = new ArrayList<>(expenses);
+        if (column != null) {
+            sorted.sort(column.getComparator());
+        }
+        if (!ascending) {
+            Collections.reverse(sorted);
+        }
+        return sorted;
+    }
+
+    private static void add(ExpenseController controller, Random random) {
+        controller.addExpense("Item " + random.nextInt(40), random.nextInt(20),
+                CURRENCIES[random.nextInt(CURRENCIES.length)], LocalDate.of(2024, 1, 1).plusDays(random.nextInt(90)),
+                Category.values()[random.nextInt(Category.values().length)],
+                random.nextInt(4) == 0 ? null : "Note " + random.nextInt(8));
+    }
+}
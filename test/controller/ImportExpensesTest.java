@@ -0,0 +1,129 @@
+package controller;
+
+import model.Category;
+import model.Expense;
+import model.ImportResult;
+import support.Check;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Checks importing statements from other programs: rows without an ID or a
+ * category, statements that overlap rows already in the book, and near
+ * duplicates accepted after review.
+ */
+public class ImportExpensesTest {
+    public static void main(String[] args) throws IOException {
+        blankIdsGetDistinctIds();
+        blankCategoriesAreSuggested();
+        overlappingStatementsAddOnlyNewRows();
+        acceptedNearDuplicatesJoinTheImport();
+        System.out.println("ImportExpensesTest passed");
+    }
+
+    private static void blankIdsGetDistinctIds() throws IOException {
+        ExpenseController controller = new ExpenseController();
+        ImportResult result = importStatement(controller,
+                ",Coffee Shop,4.50,2024-03-01,FOOD,,USD",
+                "not-a-uuid,Cinema,12.00,2024-03-02,ENTERTAINMENT,,USD",
+                ",Bus,2.80,2024-03-03,TRANSPORTATION,,USD");
+        Check.equal(3, result.getAdded().size(), "rows added");
+
+        Expense bus = result.getAdded().get(2);
+        Check.that(controller.removeExpense(bus.getId()), "removed the bus fare");
+        List<Expense> left = controller.getAllExpenses();
+        Check.equal(2, left.size(), "rows left");
+        Check.equal("Coffee Shop", left.get(0).getName(), "first row left");
+        Check.equal("Cinema", left.get(1).getName(), "second row left");
+    }
+
+    private static void blankCategoriesAreSuggested() throws IOException {
+        ExpenseController controller = new ExpenseController();
+        for (int i = 1; i <= 5; i++) {
+            controller.addExpense("Metro ticket", 3, LocalDate.of(2024, 2, i), Category.TRANSPORTATION, "");
+            controller.addExpense("Grocery store", 40, LocalDate.of(2024, 2, i), Category.FOOD, "");
+        }
+        ImportResult result = importStatement(controller,
+                ",Metro ticket,3.00,2024-03-01,,,USD",
+                ",Unknown shop,9.00,2024-03-02,Misc,,USD",
+                ",Grocery store,41.00,2024-03-03,Food & Dining,,USD");
+        Check.equal(3, result.getAdded().size(), "rows added");
+        Check.equal(Category.TRANSPORTATION, result.getAdded().get(0).getCategory(), "blank category");
+        Check.equal(Category.OTHER, result.getAdded().get(1).getCategory(), "unknown category with new words");
+        Check.equal(Category.FOOD, result.getAdded().get(2).getCategory(), "category by display name");
+    }
+
+    private static void overlappingStatementsAddOnlyNewRows() throws IOException {
+        ExpenseController controller = new ExpenseController();
+        String[] march = {
+                ",Rent,900.00,2024-03-01,HOUSING,,USD",
+                ",Lunch,12.00,2024-03-05,FOOD,,USD"};
+        importStatement(controller, march);
+
+        ImportResult result = importStatement(controller,
+                march[0], march[1],
+                ",Lunch,12.00,2024-03-07,FOOD,,USD",
+                ",Taxi,25.00,2024-03-20,TRANSPORTATION,,USD");
+        Check.equal(2, result.getExactDuplicates().size(), "rows already imported");
+        Check.equal(1, result.getNearDuplicates().size(), "rows left for review");
+        Check.equal(1, result.getAdded().size(), "rows added");
+        Check.equal(3, controller.getExpenseCount(), "rows in the book");
+    }
+
+    private static void acceptedNearDuplicatesJoinTheImport() throws IOException {
+        ExpenseController controller = new ExpenseController();
+        for (int i = 1; i <= 5; i++) {
+            controller.addExpense("Corner bakery", 6, LocalDate.of(2024, 2, i), Category.FOOD, "");
+        }
+        int before = controller.getExpenseCount();
+        List<List<Expense>> reviewed = new ArrayList<>();
+        ImportResult result = importStatement(controller, nearDuplicates -> {
+                    reviewed.add(nearDuplicates);
+                    Check.equal(before, controller.getExpenseCount(), "rows in the book during review");
+                    return true;
+                },
+                ",Corner bakery,6.00,2024-02-07,,,USD",
+                ",Taxi,25.00,2024-03-20,TRANSPORTATION,,USD");
+        Check.equal(1, reviewed.size(), "reviews");
+        Check.equal(Category.FOOD, reviewed.get(0).get(0).getCategory(), "near duplicate categorized for review");
+        Check.equal(2, result.getAdded().size(), "rows added including the accepted near duplicate");
+        Check.that(result.getNearDuplicates().isEmpty(), "no rows left for review");
+        Check.equal(Category.FOOD, controller.getAllExpenses().get(before + 1).getCategory(),
+                "near duplicate categorized in the book");
+
+        Check.that(controller.undo(), "undo the import");
+        Check.equal(before, controller.getExpenseCount(), "one undo removes the whole import");
+
+        ImportResult declined = importStatement(controller, nearDuplicates -> false,
+                ",Corner bakery,6.00,2024-02-07,,,USD");
+        Check.equal(0, declined.getAdded().size(), "declined near duplicate");
+        Check.equal(Category.FOOD, declined.getNearDuplicates().get(0).getCategory(), "declined row categorized");
+        Check.equal(before, controller.getExpenseCount(), "rows after declining");
+    }
+
+    private static ImportResult importStatement(ExpenseController controller, String... rows) throws IOException {
+        return importStatement(controller, nearDuplicates -> false, rows);
+    }
+
+    private static ImportResult importStatement(ExpenseController controller,
+                                                Predicate<List<Expense>> addNearDuplicates, String... rows)
+            throws IOException {
+        Path file = Files.createTempFile("statement", ".csv");
+        try {
+            StringBuilder text = new StringBuilder("ID,Name,Amount,Date,Category,Description,Currency\n");
+            for (String row : rows) {
+                text.append(row).append('\n');
+            }
+            Files.writeString(file, text);
+            return controller.importExpenses(file.toString(), 3, addNearDuplicates);
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package controller;
+
+import model.Category;
+import model.Expense;
+import model.Frequency;
+import model.RecurringExpense;
+import support.Check;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.YearMonth;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+/**
+ * Checks that recurring expenses are created once, by catching up rather than
+ * by queries, and that the rules and their progress survive saving and loading.
+ */
+public class RecurringExpenseTest {
+    private static final LocalDate START = LocalDate.of(2024, 1, 15);
+    private static final LocalDate END = LocalDate.of(2024, 6, 30);
+
+    public static void main(String[] args) throws IOException {
+        queriesDoNotCreateOccurrences();
+        sameRuleGivesSameIds();
+        rulesSurviveRestarts();
+        System.out.println("RecurringExpenseTest passed");
+    }
+
+    private static RecurringExpense rent() {
+        return new RecurringExpense("Rent", 900, "EUR", Category.OTHER, "Flat", Frequency.MONTHLY, 1,
+                EnumSet.of(START.getDayOfWeek()), START, END);
+    }
+
+    private static void queriesDoNotCreateOccurrences() {
+        ExpenseController controller = new ExpenseController();
+        Check.that(controller.addRecurringExpense(rent()), "rule added");
+        Check.that(!controller.addRecurringExpense(rent()), "the same rule is only added once");
+
+        controller.getExpensesByMonth(2024, Month.MARCH);
+        controller.getMonthlyTotals(YearMonth.of(2024, 6), 6);
+        controller.calculateTotalExpenses();
+        Check.equal(0, controller.getExpenseCount(), "expenses after queries");
+
+        Check.equal(3, controller.catchUpRecurringExpenses(LocalDate.of(2024, 3, 1)), "created through March");
+        Check.equal(0, controller.catchUpRecurringExpenses(LocalDate.of(2024, 3, 31)), "created again for March");
+        Check.equal(3, controller.catchUpRecurringExpenses(LocalDate.of(2024, 12, 1)), "created through the end");
+        for (Expense expense : controller.getAllExpenses()) {
+            Check.equal("EUR", expense.getCurrency(), "occurrence currency");
+        }
+    }
+
+    private static void sameRuleGivesSameIds() {
+        ExpenseController first = new ExpenseController();
+        first.addRecurringExpense(rent());
+        first.catchUpRecurringExpenses(END);
+
+        ExpenseController second = new ExpenseController();
+        second.addRecurringExpense(rent());
+        second.catchUpRecurringExpenses(END);
+
+        Check.equal(ids(first), ids(second), "occurrence IDs of the same rule");
+    }
+
+    private static void rulesSurviveRestarts() throws IOException {
+        Path dir = Files.createTempDirectory("recurring-test");
+        try {
+            String book = dir.resolve("expenses.csv").toString();
+
+            ExpenseController before = new ExpenseController();
+            before.addRecurringExpense(rent());
+            before.catchUpRecurringExpenses(LocalDate.of(2024, 3, 1));
+            before.saveExpenses(book);
+
+            // Loading catches up through today, which is after the rule ends
+            ExpenseController restarted = new ExpenseController();
+            restarted.loadExpenses(book);
+            Check.equal(6, restarted.getExpenseCount(), "expenses after the first restart");
+            Check.equal(1, restarted.getRecurringExpenses().size(), "rules after the first restart");
+            Check.equal(YearMonth.from(LocalDate.now()), restarted.getRecurringExpenses().get(0).getCreatedThrough(),
+                    "month the rule is caught up through");
+
+            Expense deleted = restarted.getExpensesByMonth(2024, Month.FEBRUARY).get(0);
+            restarted.removeExpense(deleted.getId());
+            restarted.saveExpenses(book);
+
+            ExpenseController again = new ExpenseController();
+            again.loadExpenses(book);
+            Check.equal(5, again.getExpenseCount(), "expenses after the second restart");
+            Check.that(again.getExpenseById(deleted.getId()) == null, "a deleted occurrence stays deleted");
+            Check.equal("EUR", again.getRecurringExpenses().get(0).getCurrency(), "saved rule currency");
+        } finally {
+            try (Stream<Path> files = Files.list(dir)) {
+                for (Path file : files.toList()) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(dir);
+        }
+    }
+
+    private static Set<String> ids(ExpenseController controller) {
+        Set<String> ids = new TreeSet<>();
+        for (Expense expense : controller.getAllExpenses()) {
+            ids.add(expense.getId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,114 @@
+package controller;
+
+import model.Category;
+import model.Expense;
+import support.Check;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Checks that the report cache drops exactly the results a change could
+ * affect, by month and category, and evicts the least recently used results.
+ */
+public class ReportCacheTest {
+    private static final YearMonth JANUARY = YearMonth.of(2024, 1);
+    private static final YearMonth FEBRUARY = YearMonth.of(2024, 2);
+    private static final YearMonth MARCH = YearMonth.of(2024, 3);
+
+    public static void main(String[] args) {
+        invalidationFollowsMonthsAndCategories();
+        leastRecentlyUsedResultsAreEvicted();
+        controllerChangesDropAffectedReports();
+        System.out.println("ReportCacheTest passed");
+    }
+
+    private static void invalidationFollowsMonthsAndCategories() {
+        ReportCache cache = new ReportCache(100);
+        ReportCache.Key january = new ReportCache.Key("total", JANUARY, JANUARY, null, null);
+        ReportCache.Key quarter = new ReportCache.Key("total", JANUARY, MARCH, null, null);
+        ReportCache.Key food = new ReportCache.Key("byCategory", null, null, Category.FOOD, null);
+        ReportCache.Key travelInMarch = new ReportCache.Key("byCategory", MARCH, MARCH, Category.TRAVEL, null);
+        ReportCache.Key fromFebruary = new ReportCache.Key("since", FEBRUARY, null, null, null);
+        List<ReportCache.Key> keys = List.of(january, quarter, food, travelInMarch, fromFebruary);
+        for (ReportCache.Key key : keys) {
+            cache.get(key, () -> "cached");
+        }
+
+        cache.invalidate(FEBRUARY, Category.FOOD);
+        Check.equal(List.of(true, false, false, true, false), cached(cache, keys), "after a February food change");
+        Check.equal(3L, cache.getStats().getInvalidations(), "invalidations");
+
+        cache.invalidate(MARCH, Category.HOUSING);
+        Check.equal(List.of(true, false, true, true, false), cached(cache, keys), "after a March housing change");
+
+        cache.invalidate(YearMonth.of(2023, 12), Category.TRAVEL);
+        Check.equal(List.of(true, true, true, true, true), cached(cache, keys), "after a change before every range");
+
+        cache.invalidateAll();
+        Check.equal(0, cache.getStats().getSize(), "size after dropping everything");
+        Check.equal(List.of(false, false, false, false, false), cached(cache, keys), "after dropping everything");
+    }
+
+    private static void leastRecentlyUsedResultsAreEvicted() {
+        ReportCache cache = new ReportCache(2);
+        ReportCache.Key first = new ReportCache.Key("q", JANUARY, JANUARY, null, 1);
+        ReportCache.Key second = new ReportCache.Key("q", JANUARY, JANUARY, null, 2);
+        ReportCache.Key third = new ReportCache.Key("q", JANUARY, JANUARY, null, 3);
+        cache.get(first, () -> "first");
+        cache.get(second, () -> "second");
+        cache.get(first, () -> "recomputed");
+        cache.get(third, () -> "third");
+        // Checking the evicted result last, since loading it evicts again
+        Check.equal(List.of(true, true, false), cached(cache, List.of(third, first, second)), "after an eviction");
+        Check.equal(2L, cache.getStats().getEvictions(), "evictions");
+        Check.fails(IllegalArgumentException.class, () -> new ReportCache(0), "empty cache");
+    }
+
+    private static void controllerChangesDropAffectedReports() {
+        ExpenseController controller = new ExpenseController();
+        controller.addExpense("Lunch", 12, LocalDate.of(2024, 1, 10), Category.FOOD, "");
+        controller.addExpense("Train", 40, LocalDate.of(2024, 2, 10), Category.TRAVEL, "");
+
+        Check.near(12, controller.calculateMonthlyTotal(2024, Month.JANUARY), 1e-9, "January total");
+        Check.near(40, controller.calculateMonthlyTotal(2024, Month.FEBRUARY), 1e-9, "February total");
+        Check.equal(1, controller.getExpensesByCategory(Category.TRAVEL).size(), "travel expenses");
+        long misses = controller.getReportCacheStats().getMisses();
+
+        Expense dinner = controller.addExpense("Dinner", 30, LocalDate.of(2024, 1, 20), Category.FOOD, "");
+        Check.near(40, controller.calculateMonthlyTotal(2024, Month.FEBRUARY), 1e-9, "February total is kept");
+        Check.equal(1, controller.getExpensesByCategory(Category.TRAVEL).size(), "travel expenses are kept");
+        Check.equal(misses, controller.getReportCacheStats().getMisses(), "misses for unaffected reports");
+        Check.near(42, controller.calculateMonthlyTotal(2024, Month.JANUARY), 1e-9, "January total is recomputed");
+        Check.equal(misses + 1, controller.getReportCacheStats().getMisses(), "misses after the change");
+
+        // Moving an expense drops the reports of both its old and its new month and category
+        controller.updateExpense(dinner.withDate(LocalDate.of(2024, 2, 20)).withCategory(Category.TRAVEL));
+        Check.near(12, controller.calculateMonthlyTotal(2024, Month.JANUARY), 1e-9, "old month");
+        Check.near(70, controller.calculateMonthlyTotal(2024, Month.FEBRUARY), 1e-9, "new month");
+        Check.equal(2, controller.getExpensesByCategory(Category.TRAVEL).size(), "new category");
+
+        controller.undo();
+        Check.near(42, controller.calculateMonthlyTotal(2024, Month.JANUARY), 1e-9, "old month after undo");
+        Check.near(40, controller.calculateMonthlyTotal(2024, Month.FEBRUARY), 1e-9, "new month after undo");
+        Check.equal(1, controller.getExpensesByCategory(Category.TRAVEL).size(), "new category after undo");
+    }
+
+    /**
+     * Checks which keys are cached, loading the ones that are not.
+     */
+    private static List<Boolean> cached(ReportCache cache, List<ReportCache.Key> keys) {
+        Boolean[] cached = new Boolean[keys.size()];
+        for (int i = 0; i < keys.size(); i++) {
+            boolean[] loaded = {false};
+            cache.get(keys.get(i), () -> {
+                loaded[0] = true;
+                return "reloaded";
+            });
+            cached[i] = !loaded[0];
+        }
+        return List.of(cached);
+    }
+}
@@ -0,0 +1,137 @@
+package model;
+
+import support.Check;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks that removing values from the running statistics gives the same
+ * results as computing them again from the values left, and that a detector
+ * that forgot expenses judges new ones exactly like one that never saw them.
+ */
+public class AnomalyDetectorTest {
+    public static void main(String[] args) {
+        removalMatchesRecomputation();
+        forgettingMatchesNeverRecording();
+        spikesAreFlaggedOncePerWeek();
+        System.out.println("AnomalyDetectorTest passed");
+    }
+
+    private static void removalMatchesRecomputation() {
+        Random random = new Random(49);
+        RunningStats stats = new RunningStats();
+        List<Double> values = new ArrayList<>();
+        for (int round = 0; round < 200_000; round++) {
+            // Mostly additions, with long stretches of removals
+            if (values.isEmpty() || random.nextInt(10) < 6) {
+                double value = 1_000 + Math.exp(random.nextGaussian() * 2);
+                values.add(value);
+                stats.add(value);
+            } else {
+                int index = random.nextInt(values.size());
+                stats.remove(values.get(index));
+                Collections.swap(values, index, values.size() - 1);
+                values.remove(values.size() - 1);
+            }
+        }
+
+        double mean = 0;
+        for (double value : values) {
+            mean += value;
+        }
+        mean /= values.size();
+        double squares = 0;
+        for (double value : values) {
+            squares += (value - mean) * (value - mean);
+        }
+        double deviation = Math.sqrt(squares / (values.size() - 1));
+
+        Check.equal((long) values.size(), stats.count(), "count");
+        Check.near(mean, stats.mean(), Math.abs(mean) * 1e-9, "mean");
+        Check.near(deviation, stats.standardDeviation(), deviation * 1e-6, "standard deviation");
+
+        for (double value : new ArrayList<>(values)) {
+            stats.remove(value);
+        }
+        Check.equal(0L, stats.count(), "count once every value is removed");
+        Check.near(0, stats.standardDeviation(), 0, "standard deviation once every value is removed");
+    }
+
+    private static void forgettingMatchesNeverRecording() {
+        Random random = new Random(490);
+        List<Expense> kept = new ArrayList<>();
+        List<Expense> forgotten = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            Expense expense = new Expense("Shop", Math.round(Math.exp(3 + random.nextGaussian()) * 100) / 100.0,
+                    LocalDate.of(2023, 1, 1).plusDays(random.nextInt(365)),
+                    Category.values()[random.nextInt(3)], "");
+            (i % 3 == 0 ? forgotten : kept).add(expense);
+        }
+
+        AnomalyDetector edited = new AnomalyDetector();
+        List<Expense> all = new ArrayList<>(kept);
+        all.addAll(forgotten);
+        Collections.shuffle(all, random);
+        for (Expense expense : all) {
+            edited.record(expense, expense.getAmount(), false);
+        }
+        for (Expense expense : forgotten) {
+            edited.forget(expense, expense.getAmount());
+        }
+        AnomalyDetector fresh = new AnomalyDetector();
+        for (Expense expense : kept) {
+            fresh.record(expense, expense.getAmount(), false);
+        }
+
+        List<SpendingAnomaly> editedAlerts = new ArrayList<>();
+        List<SpendingAnomaly> freshAlerts = new ArrayList<>();
+        edited.addListener(editedAlerts::add);
+        fresh.addListener(freshAlerts::add);
+        // A large expense, then a week pushed far above the usual by several
+        for (int i = 0; i < 6; i++) {
+            Expense probe = new Expense("Probe", i == 0 ? 5_000 : 400, LocalDate.of(2023, 12, 27),
+                    Category.values()[i % 3], "");
+            edited.record(probe, probe.getAmount(), true);
+            fresh.record(probe, probe.getAmount(), true);
+        }
+
+        Check.that(!freshAlerts.isEmpty(), "probes raised alerts");
+        Check.equal(freshAlerts.size(), editedAlerts.size(), "alerts after forgetting");
+        for (int i = 0; i < freshAlerts.size(); i++) {
+            SpendingAnomaly expected = freshAlerts.get(i);
+            SpendingAnomaly actual = editedAlerts.get(i);
+            Check.equal(expected.getKind(), actual.getKind(), "kind of alert " + i);
+            Check.equal(expected.getExpense(), actual.getExpense(), "expense of alert " + i);
+            Check.near(expected.getValue(), actual.getValue(), 1e-6, "value of alert " + i);
+            Check.near(expected.getTypical(), actual.getTypical(), Math.abs(expected.getTypical()) * 1e-9,
+                    "typical of alert " + i);
+            Check.near(expected.getLimit(), actual.getLimit(), Math.abs(expected.getLimit()) * 1e-9,
+                    "limit of alert " + i);
+        }
+    }
+
+    private static void spikesAreFlaggedOncePerWeek() {
+        AnomalyDetector detector = new AnomalyDetector();
+        LocalDate monday = LocalDate.of(2024, 1, 1);
+        for (int week = 0; week < 20; week++) {
+            Expense expense = new Expense("Groceries", 100 + week % 3, monday.plusWeeks(week), Category.FOOD, "");
+            detector.record(expense, expense.getAmount(), false);
+        }
+        List<SpendingAnomaly> spikes = new ArrayList<>();
+        detector.addListener(anomaly -> {
+            if (anomaly.getKind() == SpendingAnomaly.Kind.WEEKLY_SPIKE) {
+                spikes.add(anomaly);
+            }
+        });
+        for (int i = 0; i < 5; i++) {
+            Expense expense = new Expense("Groceries", 100, monday.plusWeeks(20).plusDays(i), Category.FOOD, "");
+            detector.record(expense, expense.getAmount(), true);
+        }
+        Check.equal(1, spikes.size(), "spikes in one busy week");
+        Check.near(200, spikes.get(0).getValue(), 1e-9, "week spending when first flagged");
+    }
+}
@@ -0,0 +1,127 @@
+package model;
+
+import support.Check;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Checks that budget alerts fire once for every threshold crossed in either
+ * direction, that edits moving an expense between months move its spending,
+ * and that rebuilding the spending after a restore raises no alerts.
+ */
+public class BudgetTrackerTest {
+    private static final LocalDate JANUARY = LocalDate.of(2024, 1, 10);
+    private static final LocalDate FEBRUARY = LocalDate.of(2024, 2, 10);
+
+    public static void main(String[] args) {
+        thresholdsCrossedBothWays();
+        editsMoveSpendingBetweenMonths();
+        rebuildIsSilent();
+        System.out.println("BudgetTrackerTest passed");
+    }
+
+    private static void thresholdsCrossedBothWays() {
+        ExpenseManager manager = new ExpenseManager();
+        Budget food = new Budget("Food", Category.FOOD, 100);
+        Budget overall = new Budget("Everything", null, 200, 0.5);
+        manager.addBudget(food);
+        manager.addBudget(overall);
+        List<String> alerts = listen(manager);
+
+        manager.addExpense(new Expense("Groceries", 50, JANUARY, Category.FOOD));
+        Check.equal(List.of(), alerts, "alerts below every threshold");
+
+        Expense dinner = new Expense("Dinner", 35, JANUARY, Category.FOOD);
+        manager.addExpense(dinner);
+        Check.equal(List.of("Food reached 0.8 in 2024-01 at 85.00"), alerts, "alerts at 80%");
+
+        alerts.clear();
+        manager.addExpense(new Expense("Market", 20, JANUARY, Category.FOOD));
+        Check.equal(List.of("Food reached 1.0 in 2024-01 at 105.00", "Everything reached 0.5 in 2024-01 at 105.00"),
+                alerts, "alerts at the limit");
+
+        alerts.clear();
+        manager.addExpense(new Expense("Cinema", 15, JANUARY, Category.ENTERTAINMENT));
+        Check.equal(List.of(), alerts, "another category leaves the food budget alone");
+
+        alerts.clear();
+        manager.removeExpense(dinner.getId());
+        Check.equal(List.of("Food below 1.0 in 2024-01 at 70.00", "Food below 0.8 in 2024-01 at 70.00",
+                "Everything below 0.5 in 2024-01 at 85.00"), alerts, "alerts when spending drops back, highest first");
+        Check.near(70, manager.getBudgetSpent(food, YearMonth.of(2024, 1)), 1e-9, "food spending");
+        Check.near(85, manager.getBudgetSpent(overall, YearMonth.of(2024, 1)), 1e-9, "overall spending");
+
+        alerts.clear();
+        manager.addExpense(new Expense("Feast", 120, FEBRUARY, Category.FOOD));
+        Check.equal(List.of("Food reached 0.8 in 2024-02 at 120.00", "Food reached 1.0 in 2024-02 at 120.00",
+                "Everything reached 0.5 in 2024-02 at 120.00"), alerts, "one change crossing two thresholds");
+    }
+
+    private static void editsMoveSpendingBetweenMonths() {
+        ExpenseManager manager = new ExpenseManager();
+        Budget food = new Budget("Food", Category.FOOD, 100);
+        manager.addBudget(food);
+        List<String> alerts = listen(manager);
+
+        Expense party = new Expense("Party", 90, JANUARY, Category.FOOD);
+        manager.addExpense(party);
+        alerts.clear();
+
+        // Within the month, an edit that stays over a threshold does not pass through zero
+        Expense bigger = new Expense(party.getId(), "Party", 95, JANUARY, Category.FOOD, null);
+        manager.updateExpense(bigger);
+        Check.equal(List.of(), alerts, "edit that stays over 80%");
+
+        Expense moved = new Expense(party.getId(), "Party", 95, FEBRUARY, Category.FOOD, null);
+        manager.updateExpense(moved);
+        Check.equal(List.of("Food below 0.8 in 2024-01 at 0.00", "Food reached 0.8 in 2024-02 at 95.00"),
+                alerts, "alerts when an expense moves to another month");
+        Check.near(0, manager.getBudgetSpent(food, YearMonth.of(2024, 1)), 1e-9, "January after the move");
+        Check.near(95, manager.getBudgetSpent(food, YearMonth.of(2024, 2)), 1e-9, "February after the move");
+
+        alerts.clear();
+        Expense recategorized = new Expense(party.getId(), "Party", 95, FEBRUARY, Category.ENTERTAINMENT, null);
+        manager.updateExpense(recategorized);
+        Check.equal(List.of("Food below 0.8 in 2024-02 at 0.00"), alerts, "alerts when the category changes");
+    }
+
+    private static void rebuildIsSilent() {
+        ExpenseManager manager = new ExpenseManager();
+        Budget food = new Budget("Food", Category.FOOD, 100);
+        manager.addBudget(food);
+        List<String> alerts = listen(manager);
+
+        List<Expense> before = manager.getSnapshot();
+        manager.addExpense(new Expense("Lunch", 30, JANUARY, Category.FOOD));
+        List<Expense> small = manager.getSnapshot();
+        manager.addExpense(new Expense("Banquet", 80, JANUARY, Category.FOOD));
+        Check.equal(2, alerts.size(), "alerts before restoring");
+
+        alerts.clear();
+        manager.restoreSnapshot(small);
+        Check.near(30, manager.getBudgetSpent(food, YearMonth.of(2024, 1)), 1e-9, "spending after restoring");
+        manager.restoreSnapshot(before);
+        Check.near(0, manager.getBudgetSpent(food, YearMonth.of(2024, 1)), 1e-9, "spending after restoring again");
+        List<Expense> over = new ArrayList<>(List.of(new Expense("Catering", 150, JANUARY, Category.FOOD)));
+        manager.addExistingExpenses(over);
+        Check.near(150, manager.getBudgetSpent(food, YearMonth.of(2024, 1)), 1e-9, "spending of loaded rows");
+        Check.equal(List.of(), alerts, "restoring and loading raise no alerts");
+
+        // Later changes alert relative to the rebuilt spending
+        manager.removeExpense(over.get(0).getId());
+        Check.equal(List.of("Food below 1.0 in 2024-01 at 0.00", "Food below 0.8 in 2024-01 at 0.00"), alerts,
+                "alerts after a rebuild");
+    }
+
+    private static List<String> listen(ExpenseManager manager) {
+        List<String> alerts = new ArrayList<>();
+        manager.addBudgetListener(alert -> alerts.add(String.format(Locale.ROOT, "%s %s %.1f in %s at %.2f",
+                alert.getBudget().getName(), alert.isReached() ? "reached" : "below", alert.getThreshold(),
+                alert.getMonth(), alert.getSpent())));
+        return alerts;
+    }
+}
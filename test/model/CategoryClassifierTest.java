@@ -0,0 +1,126 @@
+package model;
+
+import support.Check;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Checks that the classifier guesses from learned words, that a retrain keeps
+ * the changes made while it ran, and that unlearning forgets words entirely.
+ */
+public class CategoryClassifierTest {
+    private static final LocalDate DATE = LocalDate.of(2024, 3, 1);
+
+    public static void main(String[] args) throws InterruptedException {
+        predictsFromLearnedWords();
+        retrainReplaysChanges();
+        unlearnPrunesVocabulary();
+        System.out.println("CategoryClassifierTest passed");
+    }
+
+    private static void predictsFromLearnedWords() {
+        CategoryClassifier classifier = new CategoryClassifier();
+        Check.equal(Category.OTHER, classifier.predict("Corner Cafe", null), "guess with nothing learned");
+        for (Expense expense : training()) {
+            classifier.learn(expense);
+        }
+        Check.equal(Category.FOOD, classifier.predict("Corner Cafe", null), "known merchant");
+        Check.equal(Category.TRANSPORTATION, classifier.predict("Airport", "taxi ride"), "known description word");
+        Check.equal(Category.OTHER, classifier.predict("Zzyzx", "qwerty"), "only unknown words");
+
+        classifier.learn(expense("Misc", "", Category.OTHER));
+        Check.equal(Category.OTHER, classifier.predict("Misc", null), "OTHER expenses are not learned from");
+
+        List<Expense> batch = List.of(expense("Corner Cafe", null, Category.OTHER),
+                expense("City Taxi", "night", Category.OTHER), expense("Zzyzx", null, Category.OTHER));
+        Category[] guesses = classifier.predictAll(batch);
+        for (int i = 0; i < batch.size(); i++) {
+            Check.equal(classifier.predict(batch.get(i).getName(), batch.get(i).getDescription()), guesses[i],
+                    "batch guess " + i);
+        }
+    }
+
+    private static void retrainReplaysChanges() throws InterruptedException {
+        CategoryClassifier classifier = new CategoryClassifier();
+        classifier.learn(expense("Bookshop", "novel", Category.SHOPPING));
+
+        // The retrain cannot start counting until the changes below are made
+        CountDownLatch released = new CountDownLatch(1);
+        List<Expense> restored = training();
+        CompletableFuture<Void> retrained = classifier.retrain(() -> {
+            try {
+                released.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return restored.iterator();
+        });
+        Expense course = expense("Evening Course", "tuition", Category.EDUCATION);
+        classifier.learn(course);
+        Expense cafe = restored.get(0);
+        classifier.unlearn(cafe);
+        Check.equal(Category.SHOPPING, classifier.predict("Bookshop", null), "old counts answer during a retrain");
+
+        released.countDown();
+        retrained.join();
+        Check.equal(Category.OTHER, classifier.predict("Bookshop", null), "words of the old book are gone");
+        Check.equal(Category.EDUCATION, classifier.predict("Evening Course", null), "change learned during the retrain");
+        Check.equal(Category.FOOD, classifier.predict("Corner Cafe", null), "restored book is learned");
+
+        // A retrain that is superseded never takes over
+        CountDownLatch first = new CountDownLatch(1);
+        CompletableFuture<Void> superseded = classifier.retrain(() -> {
+            try {
+                first.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return List.of(expense("Bookshop", null, Category.SHOPPING)).iterator();
+        });
+        classifier.retrain(training()).join();
+        first.countDown();
+        superseded.join();
+        Check.equal(Category.OTHER, classifier.predict("Bookshop", null), "superseded retrain is dropped");
+        Check.equal(Category.FOOD, classifier.predict("Corner Cafe", null), "latest retrain is in use");
+    }
+
+    private static void unlearnPrunesVocabulary() {
+        CategoryClassifier classifier = new CategoryClassifier();
+        List<Expense> expenses = training();
+        for (Expense expense : expenses) {
+            classifier.learn(expense);
+        }
+        int vocabulary = classifier.vocabularySize();
+        Expense unique = expense("Opera House", "ballet tickets", Category.ENTERTAINMENT);
+        classifier.learn(unique);
+        // The whole name, "opera", "house", "ballet" and "tickets"
+        Check.equal(vocabulary + 5, classifier.vocabularySize(), "words added");
+        classifier.unlearn(unique);
+        Check.equal(vocabulary, classifier.vocabularySize(), "words of an unlearned expense are dropped");
+        Check.equal(Category.OTHER, classifier.predict("Opera House", null), "unlearned merchant");
+
+        for (Expense expense : expenses) {
+            classifier.unlearn(expense);
+        }
+        Check.equal(0, classifier.vocabularySize(), "vocabulary after unlearning everything");
+    }
+
+    private static List<Expense> training() {
+        List<Expense> expenses = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            expenses.add(expense("Corner Cafe", "coffee", Category.FOOD));
+            expenses.add(expense("City Taxi", "taxi ride", Category.TRANSPORTATION));
+            expenses.add(expense("Power Company", "electricity bill", Category.HOUSING));
+        }
+        return expenses;
+    }
+
+    private static Expense expense(String name, String description, Category category) {
+        return new Expense(name, 10, DATE, category, description);
+    }
+}
@@ -0,0 +1,102 @@
+package model;
+
+import support.Check;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.YearMonth;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Checks rate lookups and conversions, that totals and budgets follow the
+ * reporting currency and rate changes, and that formatted amounts do not
+ * depend on the default locale.
+ */
+public class ExchangeRatesTest {
+    private static final LocalDate JANUARY = LocalDate.of(2024, 1, 15);
+    private static final LocalDate MARCH = LocalDate.of(2024, 3, 15);
+
+    public static void main(String[] args) {
+        ratesApplyFromTheirDay();
+        convertsThroughTheBaseCurrency();
+        totalsUseTheReportingCurrency();
+        formattingIgnoresTheDefaultLocale();
+        System.out.println("ExchangeRatesTest passed");
+    }
+
+    private static ExchangeRates rates() {
+        ExchangeRates rates = new ExchangeRates("usd");
+        rates.addRate("EUR", LocalDate.of(2024, 1, 1), 1.10);
+        rates.addRate("EUR", LocalDate.of(2024, 3, 1), 1.20);
+        rates.addRate("GBP", LocalDate.of(2024, 1, 1), 1.25);
+        return rates;
+    }
+
+    private static void ratesApplyFromTheirDay() {
+        ExchangeRates rates = rates();
+        Check.equal("USD", rates.getBaseCurrency(), "normalized base currency");
+        Check.near(1.10, rates.getRate("EUR", LocalDate.of(2023, 6, 1)), 0, "before the first rate");
+        Check.near(1.10, rates.getRate("EUR", JANUARY), 0, "between rates");
+        Check.near(1.20, rates.getRate("EUR", LocalDate.of(2024, 3, 1)), 0, "on the day of a rate");
+        Check.near(1.20, rates.getRate("EUR", MARCH), 0, "after the last rate");
+        Check.near(1, rates.getRate("USD", JANUARY), 0, "base currency");
+        Check.near(1, rates.getRate("JPY", JANUARY), 0, "currency without rates");
+
+        // A new rate replaces cached lookups of the days it covers
+        rates.addRate("EUR", LocalDate.of(2024, 1, 10), 1.05);
+        Check.near(1.05, rates.getRate("EUR", JANUARY), 0, "after adding a rate");
+        Check.fails(IllegalArgumentException.class, () -> rates.addRate("EUR", JANUARY, 0), "zero rate");
+        Check.fails(IllegalArgumentException.class, () -> rates.addRate("EUR", JANUARY, -1), "negative rate");
+    }
+
+    private static void convertsThroughTheBaseCurrency() {
+        ExchangeRates rates = rates();
+        Check.near(110, rates.convert(100, "EUR", "USD", JANUARY), 1e-9, "to the base currency");
+        Check.near(100, rates.convert(110, "USD", "EUR", JANUARY), 1e-9, "from the base currency");
+        Check.near(88, rates.convert(100, "EUR", "GBP", JANUARY), 1e-9, "between two other currencies");
+        Check.near(96, rates.convert(100, "EUR", "GBP", MARCH), 1e-9, "at the rate of the day");
+        Check.near(42, rates.convert(42, "JPY", "JPY", MARCH), 0, "to the same currency");
+    }
+
+    private static void totalsUseTheReportingCurrency() {
+        ExpenseManager manager = new ExpenseManager();
+        manager.addExpense(new Expense("Hotel", 100, "EUR", JANUARY, Category.TRAVEL, ""));
+        manager.addExpense(new Expense("Dinner", 50, "USD", JANUARY, Category.FOOD, ""));
+        manager.addExpense(new Expense("Museum", 100, "EUR", MARCH, Category.ENTERTAINMENT, ""));
+        Check.near(250, manager.calculateTotalExpenses(), 1e-9, "face value without rates");
+
+        Budget everything = new Budget("Everything", null, 1_000);
+        manager.addBudget(everything);
+        manager.setExchangeRates(rates());
+        Check.near(160, manager.calculateMonthlyTotal(2024, Month.JANUARY), 1e-9, "January in USD");
+        Check.near(120, manager.calculateMonthlyTotal(2024, Month.MARCH), 1e-9, "March in USD");
+        Check.near(160, manager.getBudgetSpent(everything, YearMonth.of(2024, 1)), 1e-9, "budget in USD");
+
+        manager.setReportingCurrency("eur");
+        Check.equal("EUR", manager.getReportingCurrency(), "normalized reporting currency");
+        Map<Category, Double> january = manager.getCategoryTotalsForMonth(2024, Month.JANUARY);
+        Check.near(100, january.get(Category.TRAVEL), 1e-9, "EUR expense in EUR");
+        Check.near(50 / 1.10, january.get(Category.FOOD), 1e-9, "USD expense in EUR");
+        Check.near(100, manager.calculateMonthlyTotal(2024, Month.MARCH), 1e-9, "March in EUR");
+
+        // Later changes are converted as they are made
+        manager.addExpense(new Expense("Tea", 12, "GBP", MARCH, Category.FOOD, ""));
+        Check.near(100 + 12 * 1.25 / 1.20, manager.calculateMonthlyTotal(2024, Month.MARCH), 1e-9, "after adding");
+
+        Map<String, Double> currencies = manager.getCurrencyTotals(JANUARY, MARCH);
+        Check.near(200, currencies.get("EUR"), 1e-9, "currency totals stay in the original currency");
+        Check.near(12, currencies.get("GBP"), 1e-9, "GBP total");
+    }
+
+    private static void formattingIgnoresTheDefaultLocale() {
+        Locale original = Locale.getDefault();
+        try {
+            Locale.setDefault(Locale.GERMANY);
+            Check.equal("$1234.50", Expense.formatAmount(1234.5, "USD"), "default currency");
+            Check.equal("12.25 EUR", Expense.formatAmount(12.25, "EUR"), "other currency");
+        } finally {
+            Locale.setDefault(original);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package model;
+
+import support.Check;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks the merchant sketches against the exact mode after expenses are
+ * added, edited and removed, across ranges of months.
+ */
+public class MerchantStatsTest {
+    public static void main(String[] args) {
+        sketchesMatchExactAfterEdits();
+        System.out.println("MerchantStatsTest passed");
+    }
+
+    private static void sketchesMatchExactAfterEdits() {
+        Random random = new Random(48);
+        ExpenseManager manager = new ExpenseManager();
+        List<Expense> added = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            // A few big merchants and a long tail, with names in varying case
+            int merchant = (int) Math.min(2_000, Math.exp(random.nextDouble() * 8));
+            String name = (i % 2 == 0 ? "Shop " : "SHOP ") + merchant;
+            added.add(new Expense(name, 1 + random.nextInt(100), LocalDate.of(2023, 1, 1).plusDays(random.nextInt(730)),
+                    Category.SHOPPING, ""));
+        }
+        manager.addExpenses(added);
+        manager.getTopMerchants(YearMonth.of(2023, 1), YearMonth.of(2024, 12), 10);
+        for (int i = 0; i < added.size(); i += 4) {
+            manager.removeExpense(added.get(i).getId());
+        }
+        for (int i = 1; i < added.size(); i += 9) {
+            Expense expense = added.get(i);
+            manager.updateExpense(expense.withName("Renamed " + (i % 50)).withAmount(expense.getAmount() / 2));
+        }
+
+        YearMonth[][] ranges = {
+                {YearMonth.of(2023, 1), YearMonth.of(2024, 12)},
+                {YearMonth.of(2023, 6), YearMonth.of(2023, 6)},
+                {YearMonth.of(2024, 2), YearMonth.of(2024, 9)}};
+        for (YearMonth[] range : ranges) {
+            manager.setExactMerchantStats(true);
+            List<MerchantTotal> exactTop = manager.getTopMerchants(range[0], range[1], 5);
+            long exactDistinct = manager.getDistinctMerchantCount(range[0], range[1]);
+            manager.setExactMerchantStats(false);
+            List<MerchantTotal> top = manager.getTopMerchants(range[0], range[1], 5);
+            long distinct = manager.getDistinctMerchantCount(range[0], range[1]);
+
+            String what = range[0] + " to " + range[1];
+            Check.equal(exactTop.size(), top.size(), what + " top merchants");
+            for (int i = 0; i < top.size(); i++) {
+                Check.equal(MerchantStats.key(exactTop.get(i).getName()), MerchantStats.key(top.get(i).getName()),
+                        what + " merchant " + i);
+                Check.near(exactTop.get(i).getTotal(), top.get(i).getTotal(), top.get(i).getMaxError() + 1e-6,
+                        what + " total of merchant " + i);
+            }
+            Check.near(exactDistinct, distinct, exactDistinct * 0.03, what + " distinct merchants");
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package model;
+
+import support.Check;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks the off-heap list against an ArrayList under random edits, and that
+ * snapshots keep showing the rows as they were when taken.
+ */
+public class OffHeapExpenseListTest {
+    public static void main(String[] args) throws IOException {
+        try (OffHeapExpenseList direct = new OffHeapExpenseList()) {
+            matchesArrayList(direct);
+        }
+        File directory = Files.createTempDirectory("offheap-test").toFile();
+        try (OffHeapExpenseList mapped = new OffHeapExpenseList(directory)) {
+            matchesArrayList(mapped);
+        } finally {
+            for (File file : directory.listFiles()) {
+                file.delete();
+            }
+            directory.delete();
+        }
+        managerWorksOnOffHeapStorage();
+        System.out.println("OffHeapExpenseListTest passed");
+    }
+
+    private static void matchesArrayList(OffHeapExpenseList list) {
+        Random random = new Random(30);
+        List<Expense> expected = new ArrayList<>();
+        List<List<Expense>> snapshots = new ArrayList<>();
+        List<List<Expense>> snapshotContents = new ArrayList<>();
+        // Enough rows to span several chunks
+        for (int i = 0; i < 150_000; i++) {
+            Expense expense = randomExpense(random, i);
+            list.add(expense);
+            expected.add(expense);
+        }
+        for (int step = 0; step < 400; step++) {
+            int operation = random.nextInt(6);
+            if (operation == 0) {
+                snapshots.add(list.snapshot());
+                snapshotContents.add(new ArrayList<>(expected));
+            } else if (operation == 1) {
+                int index = random.nextInt(expected.size());
+                Expense expense = randomExpense(random, step);
+                list.set(index, expense);
+                expected.set(index, expense);
+            } else if (operation == 2) {
+                int index = random.nextInt(expected.size() + 1);
+                Expense expense = randomExpense(random, step);
+                list.add(index, expense);
+                expected.add(index, expense);
+            } else if (operation == 3) {
+                int index = random.nextInt(expected.size());
+                Check.equal(expected.remove(index), list.remove(index), "removed row");
+            } else if (operation == 4) {
+                BitSet rows = new BitSet();
+                for (int i = 0; i < 50; i++) {
+                    rows.set(random.nextInt(expected.size()));
+                }
+                list.removeRows(rows);
+                for (int index = rows.length() - 1; index >= 0; index = rows.previousSetBit(index - 1)) {
+                    expected.remove(index);
+                }
+            } else {
+                Expense expense = randomExpense(random, step);
+                list.add(expense);
+                expected.add(expense);
+            }
+        }
+        Check.equal(expected, list, "list contents");
+        for (int i = 0; i < snapshots.size(); i++) {
+            Check.equal(snapshotContents.get(i), snapshots.get(i), "snapshot " + i);
+        }
+
+        List<Expense> beforeClear = list.snapshot();
+        List<Expense> copy = new ArrayList<>(list);
+        list.clear();
+        list.add(randomExpense(random, 0));
+        Check.equal(1, list.size(), "size after clear");
+        Check.equal(copy, beforeClear, "snapshot after clear");
+    }
+
+    private static void managerWorksOnOffHeapStorage() {
+        Random random = new Random(31);
+        ExpenseManager heap = new ExpenseManager();
+        ExpenseManager offHeap = new ExpenseManager(new OffHeapExpenseList());
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            Expense expense = randomExpense(random, i);
+            heap.addExpense(expense);
+            offHeap.addExpense(expense);
+            ids.add(expense.getId());
+        }
+        List<Expense> snapshot = offHeap.getSnapshot();
+        List<Expense> before = new ArrayList<>(snapshot);
+        List<String> removed = ids.subList(100, 1_100);
+        Check.equal(heap.removeExpenses(removed), offHeap.removeExpenses(removed), "removed count");
+        Check.equal(heap.getAllExpenses(), offHeap.getAllExpenses(), "books after removal");
+        Check.equal(before, snapshot, "snapshot after removal");
+        Check.near(heap.calculateTotalExpenses(), offHeap.calculateTotalExpenses(), 1e-6, "totals");
+    }
+
+    private static Expense randomExpense(Random random, int i) {
+        Category category = Category.values()[random.nextInt(Category.values().length)];
+        String currency = random.nextInt(4) == 0 ? "EUR" : Expense.DEFAULT_CURRENCY;
+        return new Expense("Shop " + random.nextInt(500), Math.round(random.nextDouble() * 10_000) / 100.0,
+                currency, LocalDate.of(2020, 1, 1).plusDays(random.nextInt(1_500)), category,
+                random.nextBoolean() ? "" : "note " + i);
+    }
+}
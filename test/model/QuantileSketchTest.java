@@ -0,0 +1,147 @@
+package model;
+
+import support.Check;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks the rank error of quantile sketches against an exact sort, for a
+ * single sketch, for merged sketches, and for the manager's per-month
+ * sketches after expenses are edited and removed.
+ */
+public class QuantileSketchTest {
+    // The sketch promises about 1% with the default k; a little slack for the random compactions
+    private static final double MAX_RANK_ERROR = 0.015;
+    private static final double[] FRACTIONS = {0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99};
+
+    public static void main(String[] args) {
+        singleSketchMatchesSort();
+        mergedSketchesMatchSort();
+        editedBookMatchesSort();
+        System.out.println("QuantileSketchTest passed");
+    }
+
+    private static void singleSketchMatchesSort() {
+        Random random = new Random(47);
+        double[] values = new double[500_000];
+        QuantileSketch sketch = new QuantileSketch();
+        for (int i = 0; i < values.length; i++) {
+            values[i] = amount(random);
+            sketch.add(values[i]);
+        }
+        Check.equal(values.length, (int) sketch.getCount(), "count");
+        checkRanks(sketch, values, "single sketch");
+    }
+
+    private static void mergedSketchesMatchSort() {
+        Random random = new Random(470);
+        double[] values = new double[240_000];
+        QuantileSketch merged = new QuantileSketch();
+        for (int part = 0; part < 24; part++) {
+            QuantileSketch sketch = new QuantileSketch();
+            for (int i = 0; i < 10_000; i++) {
+                // Each part has its own scale, as months and categories do
+                double value = amount(random) * (1 + part);
+                values[part * 10_000 + i] = value;
+                sketch.add(value);
+            }
+            merged.merge(sketch);
+        }
+        checkRanks(merged, values, "merged sketches");
+    }
+
+    private static void editedBookMatchesSort() {
+        Random random = new Random(4700);
+        ExpenseManager manager = new ExpenseManager();
+        List<Expense> added = new ArrayList<>();
+        for (int i = 0; i < 60_000; i++) {
+            added.add(new Expense("Shop " + random.nextInt(500), Math.round(amount(random) * 100) / 100.0,
+                    LocalDate.of(2024, 1, 1).plusDays(random.nextInt(366)),
+                    Category.values()[random.nextInt(3)], ""));
+        }
+        manager.addExpenses(added);
+        // Queried once so that the edits below hit built sketches
+        manager.getAmountDistribution(YearMonth.of(2024, 1), YearMonth.of(2024, 12), null);
+        for (int i = 0; i < added.size(); i += 5) {
+            manager.removeExpense(added.get(i).getId());
+        }
+        for (int i = 1; i < added.size(); i += 7) {
+            Expense expense = added.get(i);
+            manager.updateExpense(expense.withAmount(expense.getAmount() * 3).withCategory(Category.TRAVEL));
+        }
+
+        YearMonth from = YearMonth.of(2024, 3);
+        YearMonth to = YearMonth.of(2024, 8);
+        for (Category category : new Category[]{null, Category.FOOD, Category.TRAVEL}) {
+            List<Double> matching = new ArrayList<>();
+            for (Expense expense : manager.getAllExpenses()) {
+                YearMonth month = YearMonth.from(expense.getDate());
+                if (!month.isBefore(from) && !month.isAfter(to)
+                        && (category == null || expense.getCategory() == category)) {
+                    matching.add(expense.getAmount());
+                }
+            }
+            double[] values = matching.stream().mapToDouble(Double::doubleValue).toArray();
+            QuantileSketch sketch = manager.getAmountDistribution(from, to, category);
+            Check.equal(values.length, (int) sketch.getCount(), "count for " + category);
+            checkRanks(sketch, values, "book after edits, " + category);
+        }
+    }
+
+    /**
+     * Checks that the value reported for each quantile sits at about that rank
+     * in the sorted values. Ties count as any rank they span.
+     */
+    private static void checkRanks(QuantileSketch sketch, double[] values, String what) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        Check.near(sorted[0], sketch.getMin(), 0, what + " minimum");
+        Check.near(sorted[sorted.length - 1], sketch.getMax(), 0, what + " maximum");
+        for (double fraction : FRACTIONS) {
+            double estimate = sketch.getQuantile(fraction);
+            double below = lowerBound(sorted, estimate) / (double) sorted.length;
+            double atOrBelow = upperBound(sorted, estimate) / (double) sorted.length;
+            double error = fraction < below ? below - fraction : fraction > atOrBelow ? fraction - atOrBelow : 0;
+            Check.that(error <= MAX_RANK_ERROR,
+                    what + ": rank error " + error + " at " + fraction + " exceeds " + MAX_RANK_ERROR);
+        }
+    }
+
+    private static int lowerBound(double[] sorted, double value) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int upperBound(double[] sorted, double value) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] <= value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Skewed like real spending: many small amounts and a long tail
+    private static double amount(Random random) {
+        return Math.exp(3 + random.nextGaussian());
+    }
+}
@@ -0,0 +1,117 @@
+package model;
+
+import support.Check;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks the sort permutation of every column against a full sort of the list
+ * after random additions, updates and removals.
+ */
+public class SortPermutationTest {
+    private static final String[] CURRENCIES = {"EUR", "USD", "GBP"};
+
+    public static void main(String[] args) {
+        for (ExpenseColumn column : ExpenseColumn.values()) {
+            randomEditsMatchFullSort(column);
+        }
+        amountsAreGroupedByCurrency();
+        System.out.println("SortPermutationTest passed");
+    }
+
+    private static void randomEditsMatchFullSort(ExpenseColumn column) {
+        Random random = new Random(42 + column.ordinal());
+        List<Expense> expenses = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            expenses.add(expense(random));
+        }
+        SortPermutation order = new SortPermutation(expenses, column.getComparator());
+        for (int step = 0; step < 3_000; step++) {
+            int operation = random.nextInt(6);
+            if (operation == 0 || expenses.isEmpty()) {
+                expenses.add(expense(random));
+                order.appended(expenses.size() - 1, 1);
+            } else if (operation == 1) {
+                int count = 1 + random.nextInt(20);
+                int start = expenses.size();
+                for (int i = 0; i < count; i++) {
+                    expenses.add(expense(random));
+                }
+                order.appended(start, count);
+            } else if (operation == 2) {
+                int index = random.nextInt(expenses.size() + 1);
+                expenses.add(index, expense(random));
+                order.inserted(index);
+            } else if (operation == 3) {
+                int index = random.nextInt(expenses.size());
+                order.replacing(index);
+                expenses.set(index, expense(random));
+                order.replaced(index);
+            } else if (operation == 4) {
+                int index = random.nextInt(expenses.size());
+                order.removing(index);
+                expenses.remove(index);
+            } else {
+                // Remove every row matching a random category at once
+                Category removed = Category.values()[random.nextInt(Category.values().length)];
+                int[] newIndexes = new int[expenses.size()];
+                List<Expense> kept = new ArrayList<>();
+                for (int i = 0; i < expenses.size(); i++) {
+                    if (expenses.get(i).getCategory() == removed && random.nextBoolean()) {
+                        newIndexes[i] = -1;
+                    } else {
+                        newIndexes[i] = kept.size();
+                        kept.add(expenses.get(i));
+                    }
+                }
+                expenses.clear();
+                expenses.addAll(kept);
+                order.remapped(newIndexes);
+            }
+            if (step % 50 == 0) {
+                check(column, expenses, order, "after step " + step);
+            }
+        }
+        check(column, expenses, order, "at the end");
+    }
+
+    private static void amountsAreGroupedByCurrency() {
+        List<Expense> expenses = new ArrayList<>();
+        expenses.add(new Expense("Hotel", 100, "JPY", LocalDate.of(2024, 1, 1), Category.TRAVEL, ""));
+        expenses.add(new Expense("Train", 50, "EUR", LocalDate.of(2024, 1, 2), Category.TRAVEL, ""));
+        expenses.add(new Expense("Taxi", 20, "JPY", LocalDate.of(2024, 1, 3), Category.TRAVEL, ""));
+        expenses.add(new Expense("Bus", 80, "EUR", LocalDate.of(2024, 1, 4), Category.TRAVEL, ""));
+        SortPermutation order = new SortPermutation(expenses, ExpenseColumn.AMOUNT.getComparator());
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < expenses.size(); i++) {
+            names.add(expenses.get(order.get(i)).getName());
+        }
+        Check.equal(List.of("Train", "Bus", "Taxi", "Hotel"), names, "amount order");
+    }
+
+    private static void check(ExpenseColumn column, List<Expense> expenses, SortPermutation order, String when) {
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < expenses.size(); i++) {
+            expected.add(i);
+        }
+        Comparator<Expense> comparator = column.getComparator();
+        expected.sort((a, b) -> comparator.compare(expenses.get(a), expenses.get(b)));
+        List<Integer> actual = new ArrayList<>();
+        for (int i = 0; i < expenses.size(); i++) {
+            actual.add(order.get(i));
+        }
+        Check.equal(expected, actual, column + " order " + when);
+    }
+
+    private static Expense expense(Random random) {
+        // Few distinct values, so ties are common
+        return new Expense("Item " + random.nextInt(30), random.nextInt(50) / 4.0,
+                CURRENCIES[random.nextInt(CURRENCIES.length)], LocalDate.of(2024, 1, 1).plusDays(random.nextInt(60)),
+                Category.values()[random.nextInt(Category.values().length)],
+                random.nextInt(4) == 0 ? null : "Note " + random.nextInt(10));
+    }
+}
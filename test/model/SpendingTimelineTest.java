@@ -0,0 +1,92 @@
+package model;
+
+import support.Check;
+
+import java.time.LocalDate;
+import java.util.Random;
+
+/**
+ * Checks the timeline's range sums against a plain scan, that a stray far-away
+ * date stays cheap, and that expenses that would corrupt the totals are rejected.
+ */
+public class SpendingTimelineTest {
+    public static void main(String[] args) {
+        rangeSumsMatchScan();
+        farAwayDatesStaySparse();
+        outOfRangeDatesLeaveBookUnchanged();
+        nonFiniteAmountsAreRejected();
+        System.out.println("SpendingTimelineTest passed");
+    }
+
+    private static void rangeSumsMatchScan() {
+        Random random = new Random(26);
+        LocalDate start = LocalDate.of(2018, 1, 1);
+        int days = 6 * 366;
+        double[] daily = new double[days];
+        SpendingTimeline timeline = new SpendingTimeline();
+        for (int i = 0; i < 20_000; i++) {
+            int day = random.nextInt(days);
+            double amount = Math.round(random.nextDouble() * 10_000) / 100.0;
+            daily[day] += amount;
+            timeline.add(start.plusDays(day), amount);
+            if (i % 3 == 0) {
+                daily[day] -= amount / 2;
+                timeline.subtract(start.plusDays(day), amount / 2);
+            }
+        }
+        for (int i = 0; i < 2_000; i++) {
+            int from = random.nextInt(days);
+            int to = from + random.nextInt(days - from);
+            double expected = 0;
+            for (int day = from; day <= to; day++) {
+                expected += daily[day];
+            }
+            Check.near(expected, timeline.sum(start.plusDays(from), start.plusDays(to)), 1e-6,
+                    "sum from day " + from + " to " + to);
+        }
+        double total = 0;
+        for (double amount : daily) {
+            total += amount;
+        }
+        Check.near(total, timeline.total(), 1e-6, "total");
+        Check.near(total, timeline.sum(LocalDate.MIN, LocalDate.MAX), 1e-6, "unbounded sum");
+        Check.equal(0.0, timeline.sum(start.plusDays(10), start.plusDays(9)), "empty range");
+    }
+
+    private static void farAwayDatesStaySparse() {
+        SpendingTimeline timeline = new SpendingTimeline();
+        timeline.add(LocalDate.of(2024, 3, 1), 10);
+        timeline.add(LocalDate.of(+999_999, 1, 1), 5);
+        timeline.add(LocalDate.of(-999_999, 12, 31), 1);
+        Check.near(16, timeline.total(), 1e-9, "total across far-away years");
+        Check.near(15, timeline.sum(LocalDate.of(2024, 1, 1), LocalDate.MAX), 1e-9, "sum to the far future");
+        Check.near(10, timeline.sum(LocalDate.of(1900, 1, 1), LocalDate.of(9999, 12, 31)), 1e-9,
+                "sum across empty years");
+    }
+
+    private static void outOfRangeDatesLeaveBookUnchanged() {
+        Check.fails(IllegalArgumentException.class,
+                () -> new Expense("Typo", 5, LocalDate.of(9999, 1, 1), Category.FOOD),
+                "year 9999 is rejected");
+        Expense expense = new Expense("Lunch", 10, LocalDate.of(2024, 3, 1), Category.FOOD);
+        Check.fails(IllegalArgumentException.class, () -> expense.withDate(LocalDate.of(1899, 12, 31)),
+                "editing to a date before 1900 is rejected");
+
+        ExpenseManager manager = new ExpenseManager();
+        manager.addExpense(expense);
+        Check.equal(1, manager.getExpenseCount(), "expense count");
+        Check.near(10, manager.calculateTotalExpenses(), 1e-9, "book total");
+    }
+
+    private static void nonFiniteAmountsAreRejected() {
+        LocalDate date = LocalDate.of(2024, 3, 1);
+        for (double amount : new double[]{Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY}) {
+            Check.fails(IllegalArgumentException.class, () -> new Expense("Typo", amount, date, Category.FOOD),
+                    amount + " is rejected");
+            Check.fails(IllegalArgumentException.class,
+                    () -> new Expense("Typo", 5, date, Category.FOOD).withAmount(amount),
+                    "editing the amount to " + amount + " is rejected");
+        }
+        Check.near(-5, new Expense("Refund", -5, date, Category.FOOD).getAmount(), 0, "negative amounts are kept");
+    }
+}
@@ -0,0 +1,69 @@
+package model;
+
+import support.Check;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks the versioned list against an ArrayList under random edits, including
+ * batch inserts, and that snapshots never change afterwards.
+ */
+public class VersionedListTest {
+    public static void main(String[] args) {
+        randomEditsMatchArrayList();
+        batchInsertsKeepSnapshots();
+        System.out.println("VersionedListTest passed");
+    }
+
+    private static void randomEditsMatchArrayList() {
+        Random random = new Random(32);
+        VersionedList<Integer> list = new VersionedList<>();
+        List<Integer> expected = new ArrayList<>();
+        int next = 0;
+        for (int step = 0; step < 5_000; step++) {
+            int operation = random.nextInt(5);
+            if (operation == 0 || expected.isEmpty()) {
+                List<Integer> batch = new ArrayList<>();
+                int count = random.nextInt(3) == 0 ? random.nextInt(500) : random.nextInt(8);
+                for (int i = 0; i < count; i++) {
+                    batch.add(next++);
+                }
+                int index = random.nextInt(expected.size() + 1);
+                list.addAll(index, batch);
+                expected.addAll(index, batch);
+            } else if (operation == 1) {
+                int index = random.nextInt(expected.size() + 1);
+                list.add(index, next);
+                expected.add(index, next++);
+            } else if (operation == 2) {
+                int index = random.nextInt(expected.size());
+                Check.equal(expected.remove(index), list.remove(index), "removed element");
+            } else if (operation == 3) {
+                int index = random.nextInt(expected.size());
+                Check.equal(expected.set(index, next), list.set(index, next++), "replaced element");
+            } else {
+                list.addAll(new ArrayList<>());
+            }
+            Check.equal(expected.size(), list.size(), "size after step " + step);
+            if (step % 100 == 0) {
+                Check.equal(expected, new ArrayList<>(list), "contents after step " + step);
+            }
+        }
+        Check.equal(expected, new ArrayList<>(list), "final contents");
+        for (int i = 0; i < expected.size(); i++) {
+            Check.equal(expected.get(i), list.get(i), "element " + i);
+        }
+    }
+
+    private static void batchInsertsKeepSnapshots() {
+        VersionedList<Integer> list = new VersionedList<>();
+        list.addAll(List.of(1, 2, 3));
+        PersistentList<Integer> before = list.snapshot();
+        list.addAll(1, List.of(10, 11));
+        Check.equal(List.of(1, 2, 3), new ArrayList<>(before), "snapshot before the batch");
+        Check.equal(List.of(1, 10, 11, 2, 3), new ArrayList<>(list), "list after the batch");
+        Check.fails(IndexOutOfBoundsException.class, () -> list.addAll(7, List.of(4)), "insert past the end");
+    }
+}
@@ -0,0 +1,91 @@
+package server;
+
+import controller.BookRegistry;
+import controller.ExpenseController;
+import support.Check;
+import util.FileHandler;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Exercises the HTTP API end to end: saving through the autosave, cache
+ * invalidation for percent-encoded and differently cased paths, missing books
+ * and rejection of implausible dates.
+ */
+public class ExpenseHttpServerTest {
+    private static final HttpClient CLIENT = HttpClient.newHttpClient();
+    private static final InetSocketAddress ANY_PORT = new InetSocketAddress("127.0.0.1", 0);
+
+    public static void main(String[] args) throws Exception {
+        Path directory = Files.createTempDirectory("http-test");
+        singleBookIsAutosaved(directory.resolve("book.csv"));
+        encodedPathsShareCacheEntries(directory.resolve("books"));
+        System.out.println("ExpenseHttpServerTest passed");
+    }
+
+    private static void singleBookIsAutosaved(Path file) throws Exception {
+        List<IOException> saveErrors = new ArrayList<>();
+        ExpenseHttpServer server = new ExpenseHttpServer(new ExpenseController(), file.toString(), ANY_PORT,
+                saveErrors::add);
+        server.start();
+        String api = "http://127.0.0.1:" + server.getPort() + "/api/";
+        try {
+            Check.equal(201, send("POST", api + "expenses", expense("Rent", "2024-03-01")).statusCode(), "add");
+            Check.equal(400, send("POST", api + "expenses", expense("Far away", "+999999-01-01")).statusCode(),
+                    "date far in the future");
+            Check.equal(400, send("GET", api + "reports/trend?from=0001-01-01&to=2024-01-01", null).statusCode(),
+                    "trend from the year 1");
+            Check.equal(400, send("GET", api + "reports/monthly-total?month=3000-01", null).statusCode(),
+                    "month far in the future");
+            Check.that(send("GET", api + "reports/monthly-total?month=2024-03", null).body().contains("1200.00"),
+                    "monthly total");
+        } finally {
+            server.stop();
+        }
+        Check.that(saveErrors.isEmpty(), "no save errors: " + saveErrors);
+        Check.equal(1, FileHandler.loadExpenses(file.toString()).size(), "expenses saved on stop");
+    }
+
+    private static void encodedPathsShareCacheEntries(Path directory) throws Exception {
+        BookRegistry registry = new BookRegistry(directory.toString(), 64L * 1024 * 1024, e -> {
+            throw new AssertionError(e);
+        });
+        ExpenseHttpServer server = new ExpenseHttpServer(registry, ANY_PORT);
+        server.start();
+        String api = "http://127.0.0.1:" + server.getPort() + "/api/";
+        try {
+            send("POST", api + "books/alice/expenses", expense("Rent", "2024-03-01"));
+            String encoded = api + "books/%61lice/expenses?month=2024%2D03";
+            Check.that(send("GET", encoded, null).body().contains("Rent"), "first read");
+            send("POST", api + "books/alice/expenses", expense("Lunch", "2024-03-02"));
+            Check.that(send("GET", encoded, null).body().contains("Lunch"), "encoded read after a write");
+            Check.that(send("GET", api + "books/alice/expenses?month=2024-03", null).body().contains("Lunch"),
+                    "plain read after a write");
+            Check.that(send("GET", api + "books/ALICE/expenses?month=2024-03", null).body().contains("Lunch"),
+                    "upper-case book ID");
+            Check.equal(404, send("GET", api + "books/nobody/expenses", null).statusCode(), "missing book");
+        } finally {
+            server.stop();
+        }
+    }
+
+    private static String expense(String name, String date) {
+        return "{\"name\": \"" + name + "\", \"amount\": 1200.0, \"date\": \"" + date + "\", \"category\": \"housing\"}";
+    }
+
+    private static HttpResponse<String> send(String method, String uri, String body) throws Exception {
+        HttpRequest.BodyPublisher publisher = body == null ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.ofString(body);
+        HttpRequest request = HttpRequest.newBuilder(URI.create(uri)).method(method, publisher).build();
+        return CLIENT.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,44 @@
+package support;
+
+import java.util.Objects;
+
+/**
+ * Minimal assertions for the test programs, which run as plain main methods.
+ */
+public final class Check {
+    private Check() {
+    }
+
+    public static void that(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+
+    public static void equal(Object expected, Object actual, String message) {
+        if (!Objects.equals(expected, actual)) {
+            throw new AssertionError(message + ": expected " + expected + " but was " + actual);
+        }
+    }
+
+    public static void near(double expected, double actual, double tolerance, String message) {
+        if (!(Math.abs(expected - actual) <= tolerance)) {
+            throw new AssertionError(message + ": expected " + expected + " +/- " + tolerance + " but was " + actual);
+        }
+    }
+
+    /**
+     * Checks that an action throws an exception of the given type.
+     */
+    public static void fails(Class<? extends Throwable> type, Runnable action, String message) {
+        try {
+            action.run();
+        } catch (Throwable e) {
+            if (type.isInstance(e)) {
+                return;
+            }
+            throw new AssertionError(message + ": expected " + type.getSimpleName() + " but got " + e, e);
+        }
+        throw new AssertionError(message + ": expected " + type.getSimpleName() + " but nothing was thrown");
+    }
+}
@@ -0,0 +1,117 @@
+package util;
+
+import model.Category;
+import model.Expense;
+import model.ExpenseManager;
+import model.Granularity;
+import support.Check;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Checks exported report figures against totals computed directly from the
+ * expenses, and that titles are escaped in every format.
+ */
+public class ReportExporterTest {
+    private static final YearMonth FROM = YearMonth.of(2021, 11);
+    private static final YearMonth TO = YearMonth.of(2023, 2);
+
+    public static void main(String[] args) throws IOException {
+        List<Expense> expenses = randomExpenses();
+        ExpenseManager manager = new ExpenseManager();
+        manager.addExpenses(expenses);
+        csvMatchesExpenses(manager, expenses);
+        titlesAreEscaped(manager);
+        System.out.println("ReportExporterTest passed");
+    }
+
+    private static List<Expense> randomExpenses() {
+        Random random = new Random(35);
+        List<Expense> expenses = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            Category category = Category.values()[random.nextInt(Category.values().length)];
+            expenses.add(new Expense("Shop " + random.nextInt(50), random.nextInt(20_000) / 100.0,
+                    LocalDate.of(2021, 6, 1).plusDays(random.nextInt(800)), category, ""));
+        }
+        return expenses;
+    }
+
+    private static void csvMatchesExpenses(ExpenseManager manager, List<Expense> expenses) throws IOException {
+        Map<YearMonth, Double> monthTotals = new HashMap<>();
+        Map<YearMonth, Map<Category, Double>> categoryTotals = new HashMap<>();
+        double total = 0;
+        for (Expense expense : expenses) {
+            YearMonth month = YearMonth.from(expense.getDate());
+            if (month.isBefore(FROM) || month.isAfter(TO)) {
+                continue;
+            }
+            monthTotals.merge(month, expense.getAmount(), Double::sum);
+            categoryTotals.computeIfAbsent(month, key -> new EnumMap<>(Category.class))
+                    .merge(expense.getCategory(), expense.getAmount(), Double::sum);
+            total += expense.getAmount();
+        }
+
+        StringWriter out = new StringWriter();
+        ReportExporter.export(manager, "Report", FROM, TO, Granularity.WEEK, ReportFormat.CSV, out);
+        String[] lines = out.toString().split("\n");
+        Check.equal("Section,From,To,Category,Amount", lines[0], "CSV header");
+
+        int months = 0;
+        double trendTotal = 0;
+        for (int i = 1; i < lines.length; i++) {
+            String[] row = lines[i].split(",", -1);
+            YearMonth month = YearMonth.from(LocalDate.parse(row[1]));
+            double amount = Double.parseDouble(row[4]);
+            switch (row[0]) {
+                case "month":
+                    months++;
+                    Check.near(monthTotals.getOrDefault(month, 0.0), amount, 0.01, "total of " + month);
+                    break;
+                case "category":
+                    double expected = categoryTotals.get(month).get(Category.valueOf(row[3]));
+                    Check.near(expected, amount, 0.01, row[3] + " in " + month);
+                    break;
+                case "trend":
+                    trendTotal += amount;
+                    break;
+                case "total":
+                    Check.near(total, amount, 0.01, "report total");
+                    break;
+                default:
+                    throw new AssertionError("Unexpected row: " + lines[i]);
+            }
+        }
+        Check.equal(16, months, "month rows");
+        Check.near(total, trendTotal, 0.01 * lines.length, "sum of the trend points");
+    }
+
+    private static void titlesAreEscaped(ExpenseManager manager) throws IOException {
+        String title = "Q4 <\"Tom & Jerry\">";
+        StringWriter json = new StringWriter();
+        ReportExporter.export(manager, title, FROM, TO, Granularity.MONTH, ReportFormat.JSON, json);
+        Check.that(json.toString().contains("\"title\": \"Q4 <\\\"Tom & Jerry\\\">\""), "JSON title is quoted");
+        Check.that(json.toString().trim().endsWith("}"), "JSON document is closed");
+
+        StringWriter html = new StringWriter();
+        ReportExporter.export(manager, title, FROM, TO, Granularity.MONTH, ReportFormat.HTML, html);
+        Check.that(!html.toString().contains(title), "HTML title is escaped");
+        Check.that(html.toString().contains("Q4 &lt;&quot;Tom &amp; Jerry&quot;&gt;"), "HTML title entities");
+
+        Check.fails(IllegalArgumentException.class, () -> {
+            try {
+                ReportExporter.export(manager, title, TO, FROM, Granularity.MONTH, ReportFormat.CSV, new StringWriter());
+            } catch (IOException e) {
+                throw new AssertionError(e);
+            }
+        }, "report that ends before it starts");
+    }
+}